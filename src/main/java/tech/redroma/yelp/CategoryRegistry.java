@@ -0,0 +1,297 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThan;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Assigns each {@linkplain Category#alias category alias} a dense integer id, and keeps a single shared {@link Category}
+ * per alias. Ids start at 0 and are handed out in the order that aliases are first seen.
+ * <p>
+ * The ids are what back a {@link CategorySet}, which turns category membership tests into bit operations.
+ * <p>
+ * The shared {@link Category} instances are handed out to many callers, and must be treated as read-only.
+ *
+ * @author SirWellington
+ * @see CategorySet
+ */
+@ThreadSafe
+public final class CategoryRegistry
+{
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Category[] categories = new Category[16];
+    private volatile int size = 0;
+
+    public static CategoryRegistry newInstance()
+    {
+        return new CategoryRegistry();
+    }
+
+    CategoryRegistry()
+    {
+    }
+
+    /**
+     * Returns the id of the given alias, registering it first if it has not been seen before.
+     *
+     * @param alias The category alias, for example {@code "coffee"}.
+     * @return The dense id of the alias.
+     * @throws IllegalArgumentException If the alias is empty.
+     */
+    public int idOf(@NonEmpty String alias) throws IllegalArgumentException
+    {
+        checkThat(alias)
+            .usingMessage("category alias cannot be empty")
+            .is(nonEmptyString());
+
+        Integer id = ids.get(alias);
+
+        if (id != null)
+        {
+            return id;
+        }
+
+        return register(alias, alias);
+    }
+
+    /**
+     * Returns the id of the given category, registering it first if it has not been seen before.
+     *
+     * @param category The category, which must have an alias.
+     * @return The dense id of the category.
+     * @throws IllegalArgumentException If the category or its alias is empty.
+     */
+    public int idOf(@Required Category category) throws IllegalArgumentException
+    {
+        checkThat(category)
+            .usingMessage("category cannot be null")
+            .is(notNull());
+
+        checkThat(category.alias)
+            .usingMessage("category alias cannot be empty")
+            .is(nonEmptyString());
+
+        Integer id = ids.get(category.alias);
+
+        if (id != null)
+        {
+            return id;
+        }
+
+        return register(category.alias, category.title);
+    }
+
+    /**
+     * @param alias The alias to look up.
+     * @return The id of the alias, or {@code -1} if it has not been registered.
+     */
+    public int findId(@Optional String alias)
+    {
+        if (alias == null)
+        {
+            return -1;
+        }
+
+        Integer id = ids.get(alias);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id The id of the category, as returned by {@link #idOf(java.lang.String) }.
+     * @return The shared category with that id.
+     * @throws IllegalArgumentException If the id is not registered.
+     */
+    public Category categoryWithId(int id) throws IllegalArgumentException
+    {
+        checkThat(id)
+            .usingMessage("unknown category id: " + id)
+            .is(greaterThanOrEqualTo(0))
+            .is(lessThan(size));
+
+        return categories[id];
+    }
+
+    /**
+     * Returns the shared instance of the given category, registering it if necessary.
+     *
+     * @param category The category to find the shared instance of.
+     * @return The shared instance.
+     * @throws IllegalArgumentException If the category or its alias is empty.
+     */
+    public Category canonical(@Required Category category) throws IllegalArgumentException
+    {
+        return categoryWithId(idOf(category));
+    }
+
+    /**
+     * Replaces each of the business's categories with its shared instance.
+     *
+     * @param business The business to update. Ignored if null.
+     */
+    public void canonicalize(@Optional YelpBusiness business)
+    {
+        if (business != null)
+        {
+            business.categories = canonicalize(business.categories);
+        }
+    }
+
+    /**
+     * Replaces each of the business's categories with its shared instance.
+     *
+     * @param business The business to update. Ignored if null.
+     */
+    public void canonicalize(@Optional YelpBusinessDetails business)
+    {
+        if (business != null)
+        {
+            business.categories = canonicalize(business.categories);
+        }
+    }
+
+    /**
+     * @param categories The categories to convert. May be null.
+     * @return The ids of the given categories as a {@link CategorySet}.
+     */
+    public CategorySet setOf(@Optional List<Category> categories)
+    {
+        CategorySet.Builder builder = CategorySet.newBuilder(this);
+
+        for (Category category : Lists.nullToEmpty(categories))
+        {
+            if (category != null && category.alias != null && !category.alias.isEmpty())
+            {
+                builder.add(idOf(category));
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param aliases The category aliases to convert.
+     * @return The ids of the given aliases as a {@link CategorySet}.
+     */
+    public CategorySet setOfAliases(@Required String... aliases)
+    {
+        checkThat(aliases).is(notNull());
+
+        CategorySet.Builder builder = CategorySet.newBuilder(this);
+
+        for (String alias : aliases)
+        {
+            builder.add(idOf(alias));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param business The business. May be null.
+     * @return The categories of the business as a {@link CategorySet}.
+     */
+    public CategorySet setOf(@Optional YelpBusiness business)
+    {
+        return business == null ? CategorySet.newBuilder(this).build() : setOf(business.categories);
+    }
+
+    /**
+     * @param business The business. May be null.
+     * @return The categories of the business as a {@link CategorySet}.
+     */
+    public CategorySet setOf(@Optional YelpBusinessDetails business)
+    {
+        return business == null ? CategorySet.newBuilder(this).build() : setOf(business.categories);
+    }
+
+    /**
+     * @return The number of categories registered so far.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    private List<Category> canonicalize(List<Category> categories)
+    {
+        if (categories == null)
+        {
+            return null;
+        }
+
+        List<Category> result = new ArrayList<>(categories.size());
+
+        for (Category category : categories)
+        {
+            boolean hasAlias = category != null && category.alias != null && !category.alias.isEmpty();
+            result.add(hasAlias ? canonical(category) : category);
+        }
+
+        return result;
+    }
+
+    private synchronized int register(String alias, String title)
+    {
+        Integer existing = ids.get(alias);
+
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        int id = size;
+
+        if (id == categories.length)
+        {
+            Category[] expanded = new Category[categories.length * 2];
+            System.arraycopy(categories, 0, expanded, 0, categories.length);
+            categories = expanded;
+        }
+
+        Category category = new Category();
+        category.alias = alias;
+        category.title = title;
+
+        categories[id] = category;
+        size = id + 1;
+        ids.put(alias, id);
+
+        return id;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CategoryRegistry{" + "size=" + size + '}';
+    }
+
+}
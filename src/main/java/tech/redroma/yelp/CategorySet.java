@@ -0,0 +1,389 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * A compact set of categories, stored as a bitset over the ids of a {@link CategoryRegistry}.
+ * <p>
+ * Membership tests, intersections and unions are simple bit operations, which makes it cheap to filter large lists of
+ * businesses by category. Sets can only be combined with other sets from the same registry.
+ * <p>
+ * A set can also be used in a search request, see
+ * {@link YelpSearchRequest.Builder#withCategories(tech.redroma.yelp.CategorySet) }.
+ *
+ * @author SirWellington
+ * @see CategoryRegistry
+ */
+@Immutable
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class CategorySet
+{
+
+    private static final long[] NO_WORDS = new long[0];
+
+    private final CategoryRegistry registry;
+    private final long[] words;
+    private final int hashCode;
+
+    private volatile String aliases;
+
+    private CategorySet(CategoryRegistry registry, long[] words)
+    {
+        this.registry = registry;
+        this.words = words;
+        this.hashCode = Arrays.hashCode(words);
+    }
+
+    public static Builder newBuilder(@Required CategoryRegistry registry) throws IllegalArgumentException
+    {
+        return new Builder(registry);
+    }
+
+    public CategoryRegistry getRegistry()
+    {
+        return registry;
+    }
+
+    public boolean isEmpty()
+    {
+        return words.length == 0;
+    }
+
+    /**
+     * @return The number of categories in this set.
+     */
+    public int size()
+    {
+        int count = 0;
+
+        for (long word : words)
+        {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    /**
+     * @param id The {@linkplain CategoryRegistry#idOf(java.lang.String) category id} to check.
+     * @return Whether this set contains the id.
+     */
+    public boolean contains(int id)
+    {
+        if (id < 0)
+        {
+            return false;
+        }
+
+        int index = id >>> 6;
+        return index < words.length && (words[index] & (1L << id)) != 0;
+    }
+
+    /**
+     * @param alias The category alias to check.
+     * @return Whether this set contains the alias.
+     */
+    public boolean contains(String alias)
+    {
+        return contains(registry.findId(alias));
+    }
+
+    /**
+     * @param other Another set from the same registry.
+     * @return Whether this set and {@code other} have at least one category in common.
+     */
+    public boolean intersects(@Required CategorySet other)
+    {
+        checkCompatible(other);
+
+        int length = Math.min(words.length, other.words.length);
+
+        for (int i = 0; i < length; ++i)
+        {
+            if ((words[i] & other.words[i]) != 0)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param other Another set from the same registry.
+     * @return Whether every category in {@code other} is also in this set.
+     */
+    public boolean containsAll(@Required CategorySet other)
+    {
+        checkCompatible(other);
+
+        if (other.words.length > words.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < other.words.length; ++i)
+        {
+            if ((words[i] & other.words[i]) != other.words[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public CategorySet union(@Required CategorySet other)
+    {
+        checkCompatible(other);
+
+        long[] longer = words.length >= other.words.length ? words : other.words;
+        long[] shorter = longer == words ? other.words : words;
+
+        long[] result = Arrays.copyOf(longer, longer.length);
+
+        for (int i = 0; i < shorter.length; ++i)
+        {
+            result[i] |= shorter[i];
+        }
+
+        return new CategorySet(registry, result);
+    }
+
+    public CategorySet intersection(@Required CategorySet other)
+    {
+        checkCompatible(other);
+
+        int length = Math.min(words.length, other.words.length);
+        long[] result = new long[length];
+
+        for (int i = 0; i < length; ++i)
+        {
+            result[i] = words[i] & other.words[i];
+        }
+
+        return new CategorySet(registry, trim(result));
+    }
+
+    /**
+     * @return The ids in this set, in ascending order.
+     */
+    public int[] ids()
+    {
+        int[] ids = new int[size()];
+        int next = 0;
+
+        for (int i = 0; i < words.length; ++i)
+        {
+            long word = words[i];
+
+            while (word != 0)
+            {
+                ids[next++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * @return The shared {@linkplain Category categories} in this set, in id order.
+     */
+    public List<Category> toCategories()
+    {
+        int[] ids = ids();
+        List<Category> categories = new ArrayList<>(ids.length);
+
+        for (int id : ids)
+        {
+            categories.add(registry.categoryWithId(id));
+        }
+
+        return categories;
+    }
+
+    /**
+     * @return The aliases of this set, joined by commas, as expected by the Yelp search API.
+     */
+    public String toAliasString()
+    {
+        String result = aliases;
+
+        if (result == null)
+        {
+            StringBuilder builder = new StringBuilder();
+
+            for (int id : ids())
+            {
+                if (builder.length() > 0)
+                {
+                    builder.append(',');
+                }
+
+                builder.append(registry.categoryWithId(id).alias);
+            }
+
+            result = builder.toString();
+            aliases = result;
+        }
+
+        return result;
+    }
+
+    private void checkCompatible(CategorySet other)
+    {
+        checkThat(other)
+            .usingMessage("category set cannot be null")
+            .is(notNull());
+
+        if (other.registry != registry)
+        {
+            throw new IllegalArgumentException("category sets belong to different registries");
+        }
+    }
+
+    private static long[] trim(long[] words)
+    {
+        int length = words.length;
+
+        while (length > 0 && words[length - 1] == 0)
+        {
+            --length;
+        }
+
+        if (length == 0)
+        {
+            return NO_WORDS;
+        }
+
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final CategorySet other = (CategorySet) obj;
+        if (this.hashCode != other.hashCode)
+        {
+            return false;
+        }
+        if (this.registry != other.registry)
+        {
+            return false;
+        }
+        if (!Arrays.equals(this.words, other.words))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CategorySet{" + "aliases=" + toAliasString() + '}';
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        private final CategoryRegistry registry;
+        private long[] words = new long[1];
+
+        private Builder(CategoryRegistry registry)
+        {
+            checkThat(registry)
+                .usingMessage("registry cannot be null")
+                .is(notNull());
+
+            this.registry = registry;
+        }
+
+        /**
+         * @param id A {@linkplain CategoryRegistry#idOf(java.lang.String) category id} to include.
+         * @return
+         * @throws IllegalArgumentException If the id is negative.
+         */
+        public Builder add(int id) throws IllegalArgumentException
+        {
+            checkThat(id)
+                .usingMessage("category id must be >= 0")
+                .is(greaterThanOrEqualTo(0));
+
+            int index = id >>> 6;
+
+            if (index >= words.length)
+            {
+                words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+            }
+
+            words[index] |= 1L << id;
+            return this;
+        }
+
+        public Builder add(@Required Category category) throws IllegalArgumentException
+        {
+            return add(registry.idOf(category));
+        }
+
+        public Builder add(@Required String alias) throws IllegalArgumentException
+        {
+            return add(registry.idOf(alias));
+        }
+
+        public CategorySet build()
+        {
+            return new CategorySet(registry, trim(Arrays.copyOf(words, words.length)));
+        }
+    }
+
+}
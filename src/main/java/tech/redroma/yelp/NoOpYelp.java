@@ -53,4 +53,26 @@ final class NoOpYelp implements YelpAPI
         return Lists.emptyList();
     }
 
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        return Lists.emptyList();
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        return Lists.emptyList();
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        YelpAutocompleteResults results = new YelpAutocompleteResults();
+        results.terms = Lists.emptyList();
+        results.businesses = Lists.emptyList();
+        results.categories = Lists.emptyList();
+        return results;
+    }
+
 }
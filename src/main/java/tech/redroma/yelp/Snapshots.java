@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * Internal helpers for copying the mutable model objects in and out of their immutable snapshots.
+ *
+ * @author SirWellington
+ */
+@Internal
+@NonInstantiable
+final class Snapshots
+{
+
+    Snapshots() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    static Coordinate copyOf(Coordinate coordinate)
+    {
+        if (coordinate == null)
+        {
+            return null;
+        }
+
+        Coordinate copy = new Coordinate();
+        copy.latitude = coordinate.latitude;
+        copy.longitude = coordinate.longitude;
+        return copy;
+    }
+
+    static List<String> immutableCopyOf(List<String> values)
+    {
+        if (values == null)
+        {
+            return null;
+        }
+
+        return Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    static List<String> aliasesOf(List<Category> categories)
+    {
+        if (categories == null)
+        {
+            return null;
+        }
+
+        List<String> aliases = new ArrayList<>(categories.size());
+
+        for (Category category : categories)
+        {
+            aliases.add(category == null ? null : category.alias);
+        }
+
+        return Collections.unmodifiableList(aliases);
+    }
+
+    static List<String> titlesOf(List<Category> categories)
+    {
+        if (categories == null)
+        {
+            return null;
+        }
+
+        List<String> titles = new ArrayList<>(categories.size());
+
+        for (Category category : categories)
+        {
+            titles.add(category == null ? null : category.title);
+        }
+
+        return Collections.unmodifiableList(titles);
+    }
+
+    static List<Category> categoriesOf(List<String> aliases, List<String> titles)
+    {
+        if (aliases == null)
+        {
+            return null;
+        }
+
+        List<Category> categories = new ArrayList<>(aliases.size());
+
+        for (int i = 0; i < aliases.size(); ++i)
+        {
+            Category category = new Category();
+            category.alias = aliases.get(i);
+            category.title = titles.get(i);
+            categories.add(category);
+        }
+
+        return categories;
+    }
+
+    static List<YelpBusinessDetails.Hours> copyOfHours(List<YelpBusinessDetails.Hours> hours)
+    {
+        if (hours == null)
+        {
+            return null;
+        }
+
+        List<YelpBusinessDetails.Hours> copy = new ArrayList<>(hours.size());
+
+        for (YelpBusinessDetails.Hours original : hours)
+        {
+            copy.add(copyOf(original));
+        }
+
+        return copy;
+    }
+
+    private static YelpBusinessDetails.Hours copyOf(YelpBusinessDetails.Hours hours)
+    {
+        if (hours == null)
+        {
+            return null;
+        }
+
+        YelpBusinessDetails.Hours copy = new YelpBusinessDetails.Hours();
+        copy.hoursType = hours.hoursType;
+        copy.isOpenNow = hours.isOpenNow;
+
+        if (hours.open != null)
+        {
+            copy.open = new ArrayList<>(hours.open.size());
+
+            for (YelpBusinessDetails.Hours.OpenTimes times : hours.open)
+            {
+                copy.open.add(copyOf(times));
+            }
+        }
+
+        return copy;
+    }
+
+    private static YelpBusinessDetails.Hours.OpenTimes copyOf(YelpBusinessDetails.Hours.OpenTimes times)
+    {
+        if (times == null)
+        {
+            return null;
+        }
+
+        YelpBusinessDetails.Hours.OpenTimes copy = new YelpBusinessDetails.Hours.OpenTimes();
+        copy.day = times.day;
+        copy.start = times.start;
+        copy.end = times.end;
+        copy.isOvernight = times.isOvernight;
+        return copy;
+    }
+
+    /**
+     * An immutable copy of an {@link Address}.
+     */
+    @Immutable
+    static final class Location
+    {
+
+        final String city;
+        final String state;
+        final String country;
+        final String address1;
+        final String address2;
+        final String address3;
+        final String zipCode;
+
+        private Location(Address address)
+        {
+            this.city = address.city;
+            this.state = address.state;
+            this.country = address.country;
+            this.address1 = address.address1;
+            this.address2 = address.address2;
+            this.address3 = address.address3;
+            this.zipCode = address.zipCode;
+        }
+
+        static Location of(Address address)
+        {
+            return address == null ? null : new Location(address);
+        }
+
+        Address toAddress()
+        {
+            Address address = new Address();
+            address.city = city;
+            address.state = state;
+            address.country = country;
+            address.address1 = address1;
+            address.address2 = address2;
+            address.address3 = address3;
+            address.zipCode = zipCode;
+            return address;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = 5;
+            hash = 83 * hash + Objects.hashCode(this.city);
+            hash = 83 * hash + Objects.hashCode(this.state);
+            hash = 83 * hash + Objects.hashCode(this.country);
+            hash = 83 * hash + Objects.hashCode(this.address1);
+            hash = 83 * hash + Objects.hashCode(this.address2);
+            hash = 83 * hash + Objects.hashCode(this.address3);
+            hash = 83 * hash + Objects.hashCode(this.zipCode);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Location other = (Location) obj;
+            return Objects.equals(this.city, other.city) &&
+                   Objects.equals(this.state, other.state) &&
+                   Objects.equals(this.country, other.country) &&
+                   Objects.equals(this.address1, other.address1) &&
+                   Objects.equals(this.address2, other.address2) &&
+                   Objects.equals(this.address3, other.address3) &&
+                   Objects.equals(this.zipCode, other.zipCode);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toAddress().toString();
+        }
+
+    }
+
+}
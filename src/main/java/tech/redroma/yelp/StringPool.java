@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * A bounded pool used to de-duplicate the highly repetitive Strings found in Yelp responses, such as
+ * {@linkplain Address#city cities}, {@linkplain Address#state states}, and {@linkplain Category#alias category aliases}.
+ * <p>
+ * Each {@link YelpAPI} client owns its own pool, so pooled values are released along with the client.
+ * Once the pool is full, new values are no longer pooled and are returned as-is.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class StringPool
+{
+
+    private static final StringPool DISABLED = new StringPool(0);
+
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    StringPool(int maxSize)
+    {
+        checkThat(maxSize).is(greaterThanOrEqualTo(0));
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return A pool that performs no de-duplication at all.
+     */
+    static StringPool disabled()
+    {
+        return DISABLED;
+    }
+
+    boolean isEnabled()
+    {
+        return maxSize > 0;
+    }
+
+    int size()
+    {
+        return pool.size();
+    }
+
+    /**
+     * Returns the canonical instance of the given String, adding it to the pool if there is room.
+     *
+     * @param value The value to de-duplicate.
+     * @return The pooled instance equal to {@code value}, or {@code value} itself.
+     */
+    String intern(@Optional String value)
+    {
+        if (value == null || !isEnabled())
+        {
+            return value;
+        }
+
+        String existing = pool.get(value);
+
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        if (pool.size() >= maxSize)
+        {
+            return value;
+        }
+
+        existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    void internAll(@Optional YelpBusiness business)
+    {
+        if (business == null || !isEnabled())
+        {
+            return;
+        }
+
+        internAddress(business.location);
+        internCategories(business.categories);
+    }
+
+    void internAll(@Optional YelpBusinessDetails details)
+    {
+        if (details == null || !isEnabled())
+        {
+            return;
+        }
+
+        details.price = intern(details.price);
+        internAddress(details.location);
+        internCategories(details.categories);
+
+        if (details.hours != null)
+        {
+            for (YelpBusinessDetails.Hours hours : details.hours)
+            {
+                if (hours != null)
+                {
+                    hours.hoursType = intern(hours.hoursType);
+                }
+            }
+        }
+    }
+
+    void internAll(@Optional YelpAutocompleteResults results)
+    {
+        if (results == null || !isEnabled())
+        {
+            return;
+        }
+
+        internCategories(results.categories);
+    }
+
+    private void internAddress(Address address)
+    {
+        if (address == null)
+        {
+            return;
+        }
+
+        address.city = intern(address.city);
+        address.state = intern(address.state);
+        address.country = intern(address.country);
+    }
+
+    private void internCategories(List<Category> categories)
+    {
+        if (categories == null)
+        {
+            return;
+        }
+
+        for (Category category : categories)
+        {
+            if (category != null)
+            {
+                category.alias = intern(category.alias);
+                category.title = intern(category.title);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StringPool{" + "size=" + pool.size() + ", maxSize=" + maxSize + '}';
+    }
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThan;
+
+/**
+ * A business's weekly opening hours, compiled from its {@linkplain YelpBusinessDetails.Hours hours} into sorted intervals
+ * of minutes since the start of the week, so that checking whether it is open takes a binary search instead of parsing
+ * its {@code "HHmm"} times again.
+ * <p>
+ * The week starts at midnight on Monday, like Yelp's {@linkplain YelpBusinessDetails.Hours.OpenTimes#day days}. Times
+ * are wall-clock times in the business's own time zone. Hours that run past midnight on Sunday wrap around to Monday.
+ * Opening times that can't be read are skipped.
+ *
+ * @author SirWellington
+ * @see YelpBusinessDetailsSnapshot#getWeeklyHours()
+ */
+@Immutable
+@ThreadSafe
+public final class WeeklyHours
+{
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    /** Hours for a business that is never open, or whose hours aren't known. */
+    public static final WeeklyHours NEVER_OPEN = new WeeklyHours(new int[0], new int[0]);
+
+    //Sorted, non-overlapping and non-touching intervals of [start, end)
+    private final int[] starts;
+    private final int[] ends;
+
+    private WeeklyHours(int[] starts, int[] ends)
+    {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Compiles a business's regular opening hours.
+     *
+     * @param hours The hours, as returned by Yelp. Null is treated as never open.
+     * @return
+     */
+    public static WeeklyHours of(@Optional List<YelpBusinessDetails.Hours> hours)
+    {
+        if (hours == null || hours.isEmpty())
+        {
+            return NEVER_OPEN;
+        }
+
+        List<int[]> intervals = new ArrayList<>();
+
+        for (YelpBusinessDetails.Hours entry : hours)
+        {
+            if (entry == null || entry.open == null || !isRegular(entry))
+            {
+                continue;
+            }
+
+            for (YelpBusinessDetails.Hours.OpenTimes times : entry.open)
+            {
+                addInterval(intervals, times);
+            }
+        }
+
+        return fromIntervals(intervals);
+    }
+
+    /**
+     * Creates hours from intervals of minutes since the start of the week. Intervals may overlap and may run past the end
+     * of the week.
+     *
+     * @param intervals Pairs of {@code [start, end)}.
+     */
+    static WeeklyHours fromIntervals(List<int[]> intervals)
+    {
+        if (intervals.isEmpty())
+        {
+            return NEVER_OPEN;
+        }
+
+        intervals.sort((first, second) -> Integer.compare(first[0], second[0]));
+
+        int[] starts = new int[intervals.size()];
+        int[] ends = new int[intervals.size()];
+        int count = 0;
+
+        for (int[] interval : intervals)
+        {
+            if (count > 0 && interval[0] <= ends[count - 1])
+            {
+                ends[count - 1] = Math.max(ends[count - 1], interval[1]);
+            }
+            else
+            {
+                starts[count] = interval[0];
+                ends[count] = interval[1];
+                ++count;
+            }
+        }
+
+        return new WeeklyHours(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    private static boolean isRegular(YelpBusinessDetails.Hours hours)
+    {
+        return hours.hoursType == null || "REGULAR".equalsIgnoreCase(hours.hoursType);
+    }
+
+    private static void addInterval(List<int[]> intervals, YelpBusinessDetails.Hours.OpenTimes times)
+    {
+        if (times == null || times.day < 0 || times.day > 6)
+        {
+            return;
+        }
+
+        int start = minutesOf(times.start);
+        int end = minutesOf(times.end);
+
+        if (start < 0 || end < 0 || start >= MINUTES_PER_DAY)
+        {
+            return;
+        }
+
+        //An end at or before the start is on the next day
+        if (end <= start)
+        {
+            end += MINUTES_PER_DAY;
+        }
+
+        int weekStart = times.day * MINUTES_PER_DAY + start;
+        int weekEnd = times.day * MINUTES_PER_DAY + end;
+
+        if (weekEnd > MINUTES_PER_WEEK)
+        {
+            intervals.add(new int[] { weekStart, MINUTES_PER_WEEK });
+            intervals.add(new int[] { 0, weekEnd - MINUTES_PER_WEEK });
+        }
+        else
+        {
+            intervals.add(new int[] { weekStart, weekEnd });
+        }
+    }
+
+    /**
+     * @return The minutes since midnight of an {@code "HHmm"} time, or {@code -1} if it can't be read.
+     */
+    static int minutesOf(String time)
+    {
+        if (isNullOrEmpty(time) || time.length() > 4)
+        {
+            return -1;
+        }
+
+        int value = 0;
+
+        for (int i = 0; i < time.length(); ++i)
+        {
+            char digit = time.charAt(i);
+
+            if (digit < '0' || digit > '9')
+            {
+                return -1;
+            }
+
+            value = value * 10 + (digit - '0');
+        }
+
+        int hours = value / 100;
+        int minutes = value % 100;
+
+        if (minutes >= 60 || hours > 24 || (hours == 24 && minutes > 0))
+        {
+            return -1;
+        }
+
+        return hours * 60 + minutes;
+    }
+
+    /**
+     * @return The minutes since midnight on Monday of a wall-clock time.
+     */
+    public static int minuteOfWeek(@Required LocalDateTime time) throws IllegalArgumentException
+    {
+        checkThat(time)
+            .usingMessage("time cannot be null")
+            .is(notNull());
+
+        return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Checks whether each of many businesses is open at the same time.
+     *
+     * @param hours        The hours of each business. Null entries are never open.
+     * @param minuteOfWeek The time, as from {@link #minuteOfWeek(java.time.LocalDateTime) }.
+     * @return The indexes of the businesses that are open.
+     */
+    public static BitSet openAt(@Required List<WeeklyHours> hours, int minuteOfWeek) throws IllegalArgumentException
+    {
+        checkThat(hours)
+            .usingMessage("hours cannot be null")
+            .is(notNull());
+
+        checkMinuteOfWeek(minuteOfWeek);
+
+        BitSet open = new BitSet(hours.size());
+        int index = 0;
+
+        for (WeeklyHours business : hours)
+        {
+            if (business != null && business.isOpenAt(minuteOfWeek))
+            {
+                open.set(index);
+            }
+
+            ++index;
+        }
+
+        return open;
+    }
+
+    /**
+     * @param time A time in the business's time zone. Only its day of the week and time of day are used.
+     * @return
+     */
+    public boolean isOpenAt(@Required ZonedDateTime time) throws IllegalArgumentException
+    {
+        checkThat(time)
+            .usingMessage("time cannot be null")
+            .is(notNull());
+
+        return isOpenAt(time.toLocalDateTime());
+    }
+
+    /**
+     * @param time A wall-clock time where the business is.
+     * @return
+     */
+    public boolean isOpenAt(@Required LocalDateTime time) throws IllegalArgumentException
+    {
+        return isOpenAt(minuteOfWeek(time));
+    }
+
+    public boolean isOpenAt(int minuteOfWeek) throws IllegalArgumentException
+    {
+        checkMinuteOfWeek(minuteOfWeek);
+
+        int index = indexAt(minuteOfWeek);
+        return index >= 0 && minuteOfWeek < ends[index];
+    }
+
+    /**
+     * Checks whether the business is open at a time, and stays open for at least {@code minutes} after it.
+     *
+     * @param time    A time in the business's time zone.
+     * @param minutes The number of minutes it must stay open.
+     * @return
+     */
+    public boolean isOpenFor(@Required ZonedDateTime time, int minutes) throws IllegalArgumentException
+    {
+        checkThat(time)
+            .usingMessage("time cannot be null")
+            .is(notNull());
+
+        checkThat(minutes)
+            .usingMessage("minutes must be >= 0")
+            .is(greaterThanOrEqualTo(0));
+
+        return minutes <= MINUTES_PER_WEEK && minutesOpenFrom(minuteOfWeek(time.toLocalDateTime())) >= minutes;
+    }
+
+    /**
+     * @return The number of minutes from {@code minuteOfWeek} until the business closes, {@code 0} if it is closed then,
+     *         or {@link #MINUTES_PER_WEEK} if it never closes.
+     */
+    public int minutesOpenFrom(int minuteOfWeek) throws IllegalArgumentException
+    {
+        checkMinuteOfWeek(minuteOfWeek);
+
+        int index = indexAt(minuteOfWeek);
+
+        if (index < 0 || minuteOfWeek >= ends[index])
+        {
+            return 0;
+        }
+
+        if (isAlwaysOpen())
+        {
+            return MINUTES_PER_WEEK;
+        }
+
+        int minutes = ends[index] - minuteOfWeek;
+
+        //Open past the end of the week, into the hours that start it
+        if (ends[index] == MINUTES_PER_WEEK && starts[0] == 0 && index != 0)
+        {
+            minutes += ends[0];
+        }
+
+        return minutes;
+    }
+
+    public boolean isAlwaysOpen()
+    {
+        return starts.length == 1 && starts[0] == 0 && ends[0] >= MINUTES_PER_WEEK;
+    }
+
+    public boolean isNeverOpen()
+    {
+        return starts.length == 0;
+    }
+
+    //The index of the last interval starting at or before the minute, or -1
+    private int indexAt(int minuteOfWeek)
+    {
+        int index = Arrays.binarySearch(starts, minuteOfWeek);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static void checkMinuteOfWeek(int minuteOfWeek)
+    {
+        checkThat(minuteOfWeek)
+            .usingMessage("minute of week must be in [0, " + MINUTES_PER_WEEK + ")")
+            .is(greaterThanOrEqualTo(0))
+            .is(lessThan(MINUTES_PER_WEEK));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 5;
+        hash = 47 * hash + Arrays.hashCode(this.starts);
+        hash = 47 * hash + Arrays.hashCode(this.ends);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final WeeklyHours other = (WeeklyHours) obj;
+        return Arrays.equals(this.starts, other.starts) && Arrays.equals(this.ends, other.ends);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("WeeklyHours{");
+
+        for (int i = 0; i < starts.length; ++i)
+        {
+            if (i > 0)
+            {
+                builder.append(", ");
+            }
+
+            builder.append('[').append(starts[i]).append(", ").append(ends[i]).append(')');
+        }
+
+        return builder.append('}').toString();
+    }
+
+}
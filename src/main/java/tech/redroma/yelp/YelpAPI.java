@@ -23,8 +23,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.redroma.yelp.exceptions.YelpBadArgumentException;
 import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
 import tech.redroma.yelp.oauth.OAuthTokenProvider;
 import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
 import tech.sirwellington.alchemy.annotations.arguments.Required;
 import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
 import tech.sirwellington.alchemy.http.AlchemyHttp;
@@ -34,6 +37,7 @@ import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPat
 import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validURL;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
 import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
 import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.stringWithLengthGreaterThanOrEqualTo;
 
@@ -114,7 +118,23 @@ public interface YelpAPI
      * @see YelpSearchRequest
      */
     List<YelpBusiness> searchForBusinesses(@Required YelpSearchRequest request) throws YelpException;
-    
+
+    /**
+     * Like {@link #searchForBusinesses(tech.redroma.yelp.YelpSearchRequest) }, but also returns the total number of
+     * businesses that matched the search, which can be far more than can be paged through.
+     * <p>
+     * Implementations that don't know the total report it as {@link YelpSearchResults#UNKNOWN_TOTAL}.
+     *
+     * @param request
+     * @return
+     * @throws YelpException
+     * @see YelpSearchResults
+     */
+    default YelpSearchResults searchForBusinessesWithTotal(@Required YelpSearchRequest request) throws YelpException
+    {
+        return YelpSearchResults.withoutTotal(searchForBusinesses(request));
+    }
+
     /**
      * Gets the reviews, if any, associated with a Business.
      * 
@@ -143,6 +163,76 @@ public interface YelpAPI
      * @throws YelpException 
      */
     List<YelpReview> getReviewsForBusiness(@NonEmpty String businessId) throws YelpException;
+
+    /**
+     * Returns the businesses listed under a phone number.
+     * <p>
+     * Implementations that can't make phone searches fail with a {@link YelpOperationFailedException}.
+     *
+     * @param phone The phone number, in <a href="https://en.wikipedia.org/wiki/E.164">E.164</a> form: a {@code +}, the
+     *              country code, and the number, such as {@code +14159083801}.
+     * @return
+     * @throws YelpException
+     * @see <a href="https://www.yelp.com/developers/documentation/v3/business_search_phone">https://www.yelp.com/developers/documentation/v3/business_search_phone</a>
+     */
+    default List<YelpBusiness> searchForBusinessesByPhone(@NonEmpty String phone) throws YelpException
+    {
+        throw new YelpOperationFailedException("phone search is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Returns the businesses that Yelp considers to be the one at an address, best match first. This is meant for
+     * finding a known place on Yelp, rather than searching for places.
+     * <p>
+     * Implementations that can't make match calls fail with a {@link YelpOperationFailedException}.
+     *
+     * @param name       The name of the business.
+     * @param address    Where the business is. Yelp requires its {@linkplain Address#city city},
+     *                   {@linkplain Address#state state}, and {@linkplain Address#country country}.
+     * @param coordinate Where the business is, if known. This improves the match.
+     * @return
+     * @throws YelpException
+     * @see <a href="https://www.yelp.com/developers/documentation/v3/business_match">https://www.yelp.com/developers/documentation/v3/business_match</a>
+     */
+    default List<YelpBusiness> matchBusinesses(@NonEmpty String name,
+                                               @Required Address address,
+                                               @Optional Coordinate coordinate) throws YelpException
+    {
+        throw new YelpOperationFailedException("business match is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Suggests search terms, businesses, and categories for partially typed text, such as the contents of a search box.
+     * <p>
+     * Implementations that can't make autocomplete calls fail with a {@link YelpOperationFailedException}.
+     *
+     * @param text       The text typed so far.
+     * @param coordinate Where the suggestions are for. Businesses are only suggested near a coordinate.
+     * @param locale     The locale of the suggestions, or null for Yelp's default.
+     * @return
+     * @throws YelpException
+     * @see YelpAutocompleteResults
+     */
+    default YelpAutocompleteResults getAutocompleteSuggestions(@NonEmpty String text,
+                                                               @Optional Coordinate coordinate,
+                                                               @Optional Locale locale) throws YelpException
+    {
+        throw new YelpOperationFailedException("autocomplete is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Suggests search terms, businesses, and categories for partially typed text, in Yelp's default locale.
+     *
+     * @param text       The text typed so far.
+     * @param coordinate Where the suggestions are for. Businesses are only suggested near a coordinate.
+     * @return
+     * @throws YelpException
+     * @see #getAutocompleteSuggestions(java.lang.String, tech.redroma.yelp.Coordinate, tech.redroma.yelp.Locale)
+     */
+    default YelpAutocompleteResults getAutocompleteSuggestions(@NonEmpty String text, @Optional Coordinate coordinate) throws YelpException
+    {
+        return getAutocompleteSuggestions(text, coordinate, null);
+    }
     
     static YelpAPI newInstance(@NonEmpty String cliendId, @NonEmpty String clientSecret)
     {
@@ -181,6 +271,9 @@ public interface YelpAPI
            
         //Determins whether an OAuth token is fetched immediately after the client is built
         private boolean requestTokenImmediately = false;
+        
+        //The maximum number of distinct Strings to de-duplicate; 0 disables de-duplication
+        private int stringPoolSize = 0;
 
         /**
          * Creates a new instance of a Builder.
@@ -284,6 +377,27 @@ public interface YelpAPI
             return this;
         }
 
+        /**
+         * De-duplicates the repetitive Strings in parsed responses, such as {@linkplain Address#city cities},
+         * {@linkplain Address#state states}, and {@linkplain Category category} aliases and titles, so that equal values share
+         * a single instance in memory. This is worthwhile when holding on to large numbers of results.
+         * <p>
+         * The pool is owned by the built client, and stops accepting new values once it holds {@code maxSize} Strings.
+         * 
+         * @param maxSize The maximum number of distinct Strings to pool. Must be {@code > 0}.
+         * @return
+         * @throws IllegalArgumentException If {@code maxSize} is not positive.
+         */
+        public Builder withStringDeduplication(@Positive int maxSize) throws IllegalArgumentException
+        {
+            checkThat(maxSize)
+                .usingMessage("pool size must be > 0")
+                .is(positiveInteger());
+            
+            this.stringPoolSize = maxSize;
+            return this;
+        }
+
         /**
          * Builds a usable {@link YelpAPI}.
          * <p>
@@ -303,7 +417,9 @@ public interface YelpAPI
                 oauthProvider.getToken();
             }
             
-            return new YelpAPIImpl(http, oauthProvider, baseURL);
+            StringPool stringPool = stringPoolSize > 0 ? new StringPool(stringPoolSize) : StringPool.disabled();
+            
+            return new YelpAPIImpl(http, oauthProvider, baseURL, stringPool);
         }
 
         private void ensureReadyToBuild()
@@ -34,6 +34,7 @@ import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
 import static java.lang.String.format;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
 import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validURL;
 import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.*;
 
@@ -52,10 +53,16 @@ final class YelpAPIImpl implements YelpAPI
     private final AlchemyHttp http;
     private final OAuthTokenProvider tokenProvider;
     private final String baseURL;
+    private final StringPool stringPool;
     
     YelpAPIImpl(AlchemyHttp http, OAuthTokenProvider tokenProvider, String baseURL)
     {
-        checkThat(http, tokenProvider)
+        this(http, tokenProvider, baseURL, StringPool.disabled());
+    }
+
+    YelpAPIImpl(AlchemyHttp http, OAuthTokenProvider tokenProvider, String baseURL, StringPool stringPool)
+    {
+        checkThat(http, tokenProvider, stringPool)
             .are(notNull());
 
         checkThat(baseURL)
@@ -65,6 +72,7 @@ final class YelpAPIImpl implements YelpAPI
         this.http = http;
         this.tokenProvider = tokenProvider;
         this.baseURL = baseURL;
+        this.stringPool = stringPool;
     }
 
     @Override
@@ -78,6 +86,7 @@ final class YelpAPIImpl implements YelpAPI
         String url = createDetailUrlFor(businessId);
 
         YelpBusinessDetails details = tryToGetDetailsAt(url);
+        stringPool.internAll(details);
 
         return details;
 
@@ -85,6 +94,12 @@ final class YelpAPIImpl implements YelpAPI
 
     @Override
     public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        return searchForBusinessesWithTotal(request).getBusinesses();
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
     {
         String token = tokenProvider.getToken();
         checkToken(token);
@@ -125,9 +140,10 @@ final class YelpAPIImpl implements YelpAPI
         }
         
         List<YelpBusiness> results = Lists.nullToEmpty(response.businesses);
+        results.forEach(stringPool::internAll);
         
         LOG.info("Received {} results out of {} total for search: {}", results.size(), response.total, request);
-        return results;
+        return YelpSearchResults.of(results, Math.max(response.total, results.size()));
     }
 
     @Override
@@ -149,6 +165,223 @@ final class YelpAPIImpl implements YelpAPI
         return Lists.emptyList();
     }
     
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        checkThat(phone)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("phone must be in E.164 form, such as +14159083801: " + phone)
+            .is(nonEmptyString())
+            .is(stringBeginningWith("+"));
+
+        String token = tokenProvider.getToken();
+        checkToken(token);
+
+        String url = baseURL + URLS.PHONE_SEARCH;
+
+        YelpResponses.SearchResponse response;
+        try
+        {
+            response = http.go()
+                .get()
+                .usingHeader(HeaderParameters.AUTHORIZATION, HeaderParameters.BEARER + " " + token)
+                .usingQueryParam(SearchParameters.PHONE, phone)
+                .expecting(YelpResponses.SearchResponse.class)
+                .at(url);
+        }
+        catch (AlchemyHttpException ex)
+        {
+            if (isBadAuth(ex))
+            {
+                throw new YelpAuthenticationException(ex);
+            }
+
+            if (isBadRequest(ex))
+            {
+                throw new YelpBadArgumentException(ex);
+            }
+
+            throw new YelpOperationFailedException(format("Failed to make phone search at %s for [%s]", url, phone), ex);
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to make phone search at {}", url, ex);
+            throw new YelpOperationFailedException("could not search Yelp by phone at: " + url, ex);
+        }
+
+        if (response == null)
+        {
+            LOG.warn("Received null response from Yelp at {} for phone {}", url, phone);
+            throw new YelpOperationFailedException("Received null response from yelp at:" + url);
+        }
+
+        List<YelpBusiness> results = Lists.nullToEmpty(response.businesses);
+        results.forEach(stringPool::internAll);
+
+        LOG.debug("Found {} businesses for phone {}", results.size(), phone);
+        return results;
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        checkThat(name)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("business name cannot be empty")
+            .is(nonEmptyString());
+
+        checkThat(address)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("address cannot be null")
+            .is(notNull());
+
+        checkThat(address.hasCity() && address.hasState() && address.hasCountry())
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("address must have a city, state, and country: " + address)
+            .is(trueStatement());
+
+        String token = tokenProvider.getToken();
+        checkToken(token);
+
+        String url = baseURL + URLS.BUSINESS_MATCHES;
+
+        AlchemyRequestSteps.Step3 httpRequest = http.go()
+            .get()
+            .usingHeader(HeaderParameters.AUTHORIZATION, HeaderParameters.BEARER + " " + token)
+            .usingQueryParam(SearchParameters.NAME, name)
+            .usingQueryParam(SearchParameters.ADDRESS_1, address.hasAddress1() ? address.address1 : "")
+            .usingQueryParam(SearchParameters.CITY, address.city)
+            .usingQueryParam(SearchParameters.STATE, address.state)
+            .usingQueryParam(SearchParameters.COUNTRY, address.country);
+
+        if (address.hasAddress2())
+        {
+            httpRequest = httpRequest.usingQueryParam(SearchParameters.ADDRESS_2, address.address2);
+        }
+
+        if (address.hasAddress3())
+        {
+            httpRequest = httpRequest.usingQueryParam(SearchParameters.ADDRESS_3, address.address3);
+        }
+
+        if (address.hasZipCode())
+        {
+            httpRequest = httpRequest.usingQueryParam(SearchParameters.ZIP_CODE, address.zipCode);
+        }
+
+        if (Objects.nonNull(coordinate))
+        {
+            httpRequest = httpRequest
+                .usingQueryParam(SearchParameters.LATITUDE, coordinate.getLatitude())
+                .usingQueryParam(SearchParameters.LONGITUDE, coordinate.getLongitude());
+        }
+
+        YelpResponses.SearchResponse response;
+        try
+        {
+            response = httpRequest.expecting(YelpResponses.SearchResponse.class)
+                                  .at(url);
+        }
+        catch (AlchemyHttpException ex)
+        {
+            if (isBadAuth(ex))
+            {
+                throw new YelpAuthenticationException(ex);
+            }
+
+            if (isBadRequest(ex))
+            {
+                throw new YelpBadArgumentException(ex);
+            }
+
+            throw new YelpOperationFailedException(format("Failed to make match request at %s for [%s]", url, name), ex);
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to make match request at {}", url, ex);
+            throw new YelpOperationFailedException("could not match business at: " + url, ex);
+        }
+
+        if (response == null)
+        {
+            LOG.warn("Received null response from Yelp at {} for match of {}", url, name);
+            throw new YelpOperationFailedException("Received null response from yelp at:" + url);
+        }
+
+        List<YelpBusiness> results = Lists.nullToEmpty(response.businesses);
+        results.forEach(stringPool::internAll);
+
+        LOG.debug("Found {} matches for business {}", results.size(), name);
+        return results;
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        checkThat(text)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("autocomplete text cannot be empty")
+            .is(nonEmptyString());
+
+        String token = tokenProvider.getToken();
+        checkToken(token);
+
+        String url = baseURL + URLS.AUTOCOMPLETE;
+
+        AlchemyRequestSteps.Step3 httpRequest = http.go()
+            .get()
+            .usingHeader(HeaderParameters.AUTHORIZATION, HeaderParameters.BEARER + " " + token)
+            .usingQueryParam(SearchParameters.TEXT, text);
+
+        if (Objects.nonNull(coordinate))
+        {
+            httpRequest = httpRequest
+                .usingQueryParam(SearchParameters.LATITUDE, coordinate.getLatitude())
+                .usingQueryParam(SearchParameters.LONGITUDE, coordinate.getLongitude());
+        }
+
+        if (Objects.nonNull(locale))
+        {
+            httpRequest = httpRequest.usingQueryParam(SearchParameters.LOCALE, locale.code());
+        }
+
+        YelpAutocompleteResults results;
+        try
+        {
+            results = httpRequest.expecting(YelpAutocompleteResults.class)
+                                 .at(url);
+        }
+        catch (AlchemyHttpException ex)
+        {
+            if (isBadAuth(ex))
+            {
+                throw new YelpAuthenticationException(ex);
+            }
+
+            if (isBadRequest(ex))
+            {
+                throw new YelpBadArgumentException(ex);
+            }
+
+            throw new YelpOperationFailedException(format("Failed to make autocomplete request at %s for [%s]", url, text), ex);
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to make autocomplete request at {}", url, ex);
+            throw new YelpOperationFailedException("could not autocomplete at: " + url, ex);
+        }
+
+        if (results == null)
+        {
+            LOG.warn("Received null response from Yelp at {} for autocomplete of {}", url, text);
+            throw new YelpOperationFailedException("Received null response from yelp at:" + url);
+        }
+
+        stringPool.internAll(results);
+
+        return results;
+    }
+
     private void checkToken(String token) throws YelpAuthenticationException
     {
         checkThat(token)
@@ -434,6 +667,21 @@ final class YelpAPIImpl implements YelpAPI
          * https://api.yelp.com/v3/businesses/{id}/reviews
          */
         static final String REVIEWS = "/reviews";
+
+        /**
+         * https://api.yelp.com/v3/autocomplete
+         */
+        static final String AUTOCOMPLETE = "/autocomplete";
+
+        /**
+         * https://api.yelp.com/v3/businesses/search/phone
+         */
+        static final String PHONE_SEARCH = "/businesses/search/phone";
+
+        /**
+         * https://api.yelp.com/v3/businesses/matches
+         */
+        static final String BUSINESS_MATCHES = "/businesses/matches";
     }
     
     @NonInstantiable
@@ -442,6 +690,16 @@ final class YelpAPIImpl implements YelpAPI
     {
 
         static final String SEARCH_TERM = "term";
+        static final String TEXT = "text";
+        static final String PHONE = "phone";
+        static final String NAME = "name";
+        static final String ADDRESS_1 = "address1";
+        static final String ADDRESS_2 = "address2";
+        static final String ADDRESS_3 = "address3";
+        static final String CITY = "city";
+        static final String STATE = "state";
+        static final String COUNTRY = "country";
+        static final String ZIP_CODE = "zip_code";
         static final String LOCATION = "location";
         static final String LATITUDE = "latitude";
         static final String LONGITUDE = "longitude";
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.concurrency.Mutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+import tech.sirwellington.alchemy.annotations.objects.Pojo;
+
+/**
+ * Suggestions for a partially typed search, obtained from
+ * {@link YelpAPI#getAutocompleteSuggestions(java.lang.String, tech.redroma.yelp.Coordinate, tech.redroma.yelp.Locale) }.
+ * <p>
+ * See <a href="https://www.yelp.com/developers/documentation/v3/autocomplete">Yelp's Documentation</a> for more
+ * information.
+ *
+ * @author SirWellington
+ * @see
+ * <a href="https://www.yelp.com/developers/documentation/v3/autocomplete">https://www.yelp.com/developers/documentation/v3/autocomplete</a>
+ */
+@Pojo
+@Mutable
+@ThreadUnsafe
+public class YelpAutocompleteResults
+{
+
+    /** Suggested search terms. */
+    public List<Term> terms;
+
+    /** Suggested businesses. These are only included when the suggestions were asked for at a coordinate. */
+    public List<Business> businesses;
+
+    /** Suggested categories. */
+    public List<Category> categories;
+
+    /**
+     * @return Whether there are no suggestions at all.
+     */
+    public boolean isEmpty()
+    {
+        return Lists.isEmpty(terms) && Lists.isEmpty(businesses) && Lists.isEmpty(categories);
+    }
+
+    /**
+     * @return A deep copy of these results, which can be changed without affecting them.
+     */
+    public YelpAutocompleteResults copy()
+    {
+        YelpAutocompleteResults copy = new YelpAutocompleteResults();
+
+        if (terms != null)
+        {
+            copy.terms = new ArrayList<>(terms.size());
+            terms.forEach(term -> copy.terms.add(term == null ? null : Term.of(term.text)));
+        }
+
+        if (businesses != null)
+        {
+            copy.businesses = new ArrayList<>(businesses.size());
+            businesses.forEach(business -> copy.businesses.add(business == null ? null : Business.of(business.id, business.name)));
+        }
+
+        if (categories != null)
+        {
+            copy.categories = new ArrayList<>(categories.size());
+
+            for (Category category : categories)
+            {
+                Category categoryCopy = null;
+
+                if (category != null)
+                {
+                    categoryCopy = new Category();
+                    categoryCopy.alias = category.alias;
+                    categoryCopy.title = category.title;
+                }
+
+                copy.categories.add(categoryCopy);
+            }
+        }
+
+        return copy;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 3;
+        hash = 41 * hash + Objects.hashCode(this.terms);
+        hash = 41 * hash + Objects.hashCode(this.businesses);
+        hash = 41 * hash + Objects.hashCode(this.categories);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final YelpAutocompleteResults other = (YelpAutocompleteResults) obj;
+        if (!Objects.equals(this.terms, other.terms))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.businesses, other.businesses))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.categories, other.categories))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpAutocompleteResults{" + "terms=" + terms + ", businesses=" + businesses + ", categories=" + categories + '}';
+    }
+
+    /**
+     * A suggested search term.
+     */
+    @Pojo
+    @Mutable
+    @ThreadUnsafe
+    public static class Term
+    {
+
+        /** The text of the term, such as {@code "Delivery Food"}. */
+        public String text;
+
+        public static Term of(String text)
+        {
+            Term term = new Term();
+            term.text = text;
+            return term;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = 7;
+            hash = 53 * hash + Objects.hashCode(this.text);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Term other = (Term) obj;
+            if (!Objects.equals(this.text, other.text))
+            {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Term{" + "text=" + text + '}';
+        }
+
+    }
+
+    /**
+     * A suggested business.
+     */
+    @Pojo
+    @Mutable
+    @ThreadUnsafe
+    public static class Business
+    {
+
+        /** The Yelp ID of the business. */
+        public String id;
+
+        /** The name of the business. */
+        public String name;
+
+        public static Business of(String id, String name)
+        {
+            Business business = new Business();
+            business.id = id;
+            business.name = name;
+            return business;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = 5;
+            hash = 97 * hash + Objects.hashCode(this.id);
+            hash = 97 * hash + Objects.hashCode(this.name);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Business other = (Business) obj;
+            if (!Objects.equals(this.id, other.id))
+            {
+                return false;
+            }
+            if (!Objects.equals(this.name, other.name))
+            {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Business{" + "id=" + id + ", name=" + name + '}';
+        }
+
+    }
+
+}
@@ -118,6 +118,17 @@ public class YelpBusinessDetails
             .anyMatch(h -> h.isOpenNow);
     }
 
+    /**
+     * Compiles the {@link #hours} of this business, so it can be checked for being open at any time. Each call compiles
+     * them again; a {@linkplain YelpBusinessDetailsSnapshot snapshot} compiles them once.
+     *
+     * @return
+     */
+    public WeeklyHours getWeeklyHours()
+    {
+        return WeeklyHours.of(hours);
+    }
+
     @Override
     public int hashCode()
     {
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * An immutable copy of a {@link YelpBusinessDetails}. Unlike {@link YelpBusinessDetails}, a snapshot can be cached and
+ * shared freely across threads without any further copying.
+ * <p>
+ * The {@link #hashCode() } is computed once, when the snapshot is created.
+ *
+ * @author SirWellington
+ * @see #of(tech.redroma.yelp.YelpBusinessDetails)
+ * @see YelpBusinessSnapshot
+ */
+@Immutable
+@ThreadSafe
+public final class YelpBusinessDetailsSnapshot
+{
+
+    private final String id;
+    private final String name;
+    private final String imageURL;
+    private final Boolean isClaimed;
+    private final Boolean isClosed;
+    private final String url;
+    private final String price;
+    private final Double rating;
+    private final int reviewCount;
+    private final String phone;
+    private final List<String> photosURLS;
+    private final List<YelpBusinessDetails.Hours> hours;
+    private final List<String> categoryAliases;
+    private final List<String> categoryTitles;
+    private final Coordinate coordinates;
+    private final Snapshots.Location location;
+
+    //Derived from the hours, so left out of equals and hashCode
+    private final WeeklyHours weeklyHours;
+
+    private final int hashCode;
+
+    private YelpBusinessDetailsSnapshot(YelpBusinessDetails details)
+    {
+        this.id = details.id;
+        this.name = details.name;
+        this.imageURL = details.imageURL;
+        this.isClaimed = details.isClaimed;
+        this.isClosed = details.isClosed;
+        this.url = details.url;
+        this.price = details.price;
+        this.rating = details.rating;
+        this.reviewCount = details.reviewCount;
+        this.phone = details.phone;
+        this.photosURLS = Snapshots.immutableCopyOf(details.photosURLS);
+        this.hours = Snapshots.copyOfHours(details.hours);
+        this.categoryAliases = Snapshots.aliasesOf(details.categories);
+        this.categoryTitles = Snapshots.titlesOf(details.categories);
+        this.coordinates = Snapshots.copyOf(details.coordinates);
+        this.location = Snapshots.Location.of(details.location);
+        this.weeklyHours = WeeklyHours.of(hours);
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * Takes an immutable snapshot of the business details. Later changes to {@code details} are not reflected in the
+     * snapshot.
+     *
+     * @param details The details to copy.
+     * @return
+     * @throws IllegalArgumentException If the details are null.
+     */
+    public static YelpBusinessDetailsSnapshot of(@Required YelpBusinessDetails details) throws IllegalArgumentException
+    {
+        checkThat(details)
+            .usingMessage("business details cannot be null")
+            .is(notNull());
+
+        return new YelpBusinessDetailsSnapshot(details);
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getImageURL()
+    {
+        return imageURL;
+    }
+
+    public Boolean isClaimed()
+    {
+        return isClaimed;
+    }
+
+    public Boolean isClosed()
+    {
+        return isClosed;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public String getPrice()
+    {
+        return price;
+    }
+
+    /**
+     * @return The {@link #getPrice() } as a {@link Price}.
+     */
+    public Price getPriceLevel()
+    {
+        return isNullOrEmpty(price) ? null : Price.fromString(price);
+    }
+
+    public Double getRating()
+    {
+        return rating;
+    }
+
+    public int getReviewCount()
+    {
+        return reviewCount;
+    }
+
+    public String getPhone()
+    {
+        return phone;
+    }
+
+    public List<String> getPhotosURLS()
+    {
+        return photosURLS;
+    }
+
+    /**
+     * @return Whether this business was open at the time the details were fetched.
+     */
+    public boolean isOpenNow()
+    {
+        if (Lists.isEmpty(hours))
+        {
+            return false;
+        }
+
+        return hours.stream()
+            .anyMatch(h -> h != null && Boolean.TRUE.equals(h.isOpenNow));
+    }
+
+    /**
+     * @return The business's opening hours, compiled when the snapshot was taken.
+     */
+    public WeeklyHours getWeeklyHours()
+    {
+        return weeklyHours;
+    }
+
+    /**
+     * Checks whether the business is open at an instant, reading its hours in its own time zone.
+     *
+     * @param instant
+     * @param timeZone The time zone the business is in.
+     * @return Whether the business is open then.
+     * @throws IllegalArgumentException If either argument is null.
+     */
+    public boolean isOpenAt(@Required Instant instant, @Required ZoneId timeZone) throws IllegalArgumentException
+    {
+        checkThat(instant, timeZone)
+            .usingMessage("instant and time zone are required")
+            .are(notNull());
+
+        return weeklyHours.isOpenAt(instant.atZone(timeZone));
+    }
+
+    /**
+     * @return The {@linkplain Category#alias aliases} of the business's categories.
+     */
+    public List<String> getCategoryAliases()
+    {
+        return categoryAliases;
+    }
+
+    /**
+     * @return The {@linkplain Category#title titles} of the business's categories, in the same order as
+     *         {@link #getCategoryAliases() }.
+     */
+    public List<String> getCategoryTitles()
+    {
+        return categoryTitles;
+    }
+
+    public Coordinate getCoordinates()
+    {
+        return coordinates;
+    }
+
+    public String getCity()
+    {
+        return location == null ? null : location.city;
+    }
+
+    public String getState()
+    {
+        return location == null ? null : location.state;
+    }
+
+    public String getCountry()
+    {
+        return location == null ? null : location.country;
+    }
+
+    public String getAddress1()
+    {
+        return location == null ? null : location.address1;
+    }
+
+    public String getAddress2()
+    {
+        return location == null ? null : location.address2;
+    }
+
+    public String getAddress3()
+    {
+        return location == null ? null : location.address3;
+    }
+
+    public String getZipCode()
+    {
+        return location == null ? null : location.zipCode;
+    }
+
+    /**
+     * @return A new, mutable {@link YelpBusinessDetails} with the same data as this snapshot.
+     */
+    public YelpBusinessDetails toBusinessDetails()
+    {
+        YelpBusinessDetails details = new YelpBusinessDetails();
+        details.id = id;
+        details.name = name;
+        details.imageURL = imageURL;
+        details.isClaimed = isClaimed;
+        details.isClosed = isClosed;
+        details.url = url;
+        details.price = price;
+        details.rating = rating;
+        details.reviewCount = reviewCount;
+        details.phone = phone;
+        details.photosURLS = photosURLS == null ? null : Lists.copy(photosURLS);
+        details.hours = Snapshots.copyOfHours(hours);
+        details.categories = Snapshots.categoriesOf(categoryAliases, categoryTitles);
+        details.coordinates = Snapshots.copyOf(coordinates);
+        details.location = location == null ? null : location.toAddress();
+        return details;
+    }
+
+    private int computeHashCode()
+    {
+        int hash = 7;
+        hash = 89 * hash + Objects.hashCode(this.id);
+        hash = 89 * hash + Objects.hashCode(this.name);
+        hash = 89 * hash + Objects.hashCode(this.imageURL);
+        hash = 89 * hash + Objects.hashCode(this.isClaimed);
+        hash = 89 * hash + Objects.hashCode(this.isClosed);
+        hash = 89 * hash + Objects.hashCode(this.url);
+        hash = 89 * hash + Objects.hashCode(this.price);
+        hash = 89 * hash + Objects.hashCode(this.rating);
+        hash = 89 * hash + this.reviewCount;
+        hash = 89 * hash + Objects.hashCode(this.phone);
+        hash = 89 * hash + Objects.hashCode(this.photosURLS);
+        hash = 89 * hash + Objects.hashCode(this.hours);
+        hash = 89 * hash + Objects.hashCode(this.categoryAliases);
+        hash = 89 * hash + Objects.hashCode(this.categoryTitles);
+        hash = 89 * hash + Objects.hashCode(this.coordinates);
+        hash = 89 * hash + Objects.hashCode(this.location);
+        return hash;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final YelpBusinessDetailsSnapshot other = (YelpBusinessDetailsSnapshot) obj;
+        if (this.hashCode != other.hashCode)
+        {
+            return false;
+        }
+        if (this.reviewCount != other.reviewCount)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.id, other.id))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.name, other.name))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.imageURL, other.imageURL))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.url, other.url))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.price, other.price))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.phone, other.phone))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.isClaimed, other.isClaimed))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.isClosed, other.isClosed))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.rating, other.rating))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.photosURLS, other.photosURLS))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.hours, other.hours))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.categoryAliases, other.categoryAliases))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.categoryTitles, other.categoryTitles))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.coordinates, other.coordinates))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.location, other.location))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpBusinessDetailsSnapshot{" + "id=" + id + ", name=" + name + ", imageURL=" + imageURL + ", isClaimed=" + isClaimed + ", isClosed=" + isClosed + ", url=" + url + ", price=" + price + ", rating=" + rating + ", reviewCount=" + reviewCount + ", phone=" + phone + ", photosURLS=" + photosURLS + ", hours=" + hours + ", categoryAliases=" + categoryAliases + ", coordinates=" + coordinates + ", location=" + location + '}';
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.List;
+import java.util.Objects;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * An immutable copy of a {@link YelpBusiness}. Unlike {@link YelpBusiness}, a snapshot can be cached and shared freely
+ * across threads without any further copying.
+ * <p>
+ * The {@link #hashCode() } is computed once, when the snapshot is created.
+ *
+ * @author SirWellington
+ * @see #of(tech.redroma.yelp.YelpBusiness)
+ * @see YelpBusinessDetailsSnapshot
+ */
+@Immutable
+@ThreadSafe
+public final class YelpBusinessSnapshot
+{
+
+    private final String id;
+    private final String name;
+    private final String url;
+    private final Double rating;
+    private final String phone;
+    private final Boolean isClosed;
+    private final List<String> categoryAliases;
+    private final List<String> categoryTitles;
+    private final int reviewCount;
+    private final Coordinate coordinates;
+    private final Snapshots.Location location;
+    private final String imageURL;
+    private final Double distance;
+
+    private final int hashCode;
+
+    private YelpBusinessSnapshot(YelpBusiness business)
+    {
+        this.id = business.id;
+        this.name = business.name;
+        this.url = business.url;
+        this.rating = business.rating;
+        this.phone = business.phone;
+        this.isClosed = business.isClosed;
+        this.categoryAliases = Snapshots.aliasesOf(business.categories);
+        this.categoryTitles = Snapshots.titlesOf(business.categories);
+        this.reviewCount = business.reviewCount;
+        this.coordinates = Snapshots.copyOf(business.coordinates);
+        this.location = Snapshots.Location.of(business.location);
+        this.imageURL = business.imageURL;
+        this.distance = business.distance;
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * Takes an immutable snapshot of the business. Later changes to {@code business} are not reflected in the snapshot.
+     *
+     * @param business The business to copy.
+     * @return
+     * @throws IllegalArgumentException If the business is null.
+     */
+    public static YelpBusinessSnapshot of(@Required YelpBusiness business) throws IllegalArgumentException
+    {
+        checkThat(business)
+            .usingMessage("business cannot be null")
+            .is(notNull());
+
+        return new YelpBusinessSnapshot(business);
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public Double getRating()
+    {
+        return rating;
+    }
+
+    public String getPhone()
+    {
+        return phone;
+    }
+
+    public Boolean isClosed()
+    {
+        return isClosed;
+    }
+
+    /**
+     * @return The {@linkplain Category#alias aliases} of the business's categories.
+     */
+    public List<String> getCategoryAliases()
+    {
+        return categoryAliases;
+    }
+
+    /**
+     * @return The {@linkplain Category#title titles} of the business's categories, in the same order as
+     *         {@link #getCategoryAliases() }.
+     */
+    public List<String> getCategoryTitles()
+    {
+        return categoryTitles;
+    }
+
+    public int getReviewCount()
+    {
+        return reviewCount;
+    }
+
+    public Coordinate getCoordinates()
+    {
+        return coordinates;
+    }
+
+    public String getCity()
+    {
+        return location == null ? null : location.city;
+    }
+
+    public String getState()
+    {
+        return location == null ? null : location.state;
+    }
+
+    public String getCountry()
+    {
+        return location == null ? null : location.country;
+    }
+
+    public String getAddress1()
+    {
+        return location == null ? null : location.address1;
+    }
+
+    public String getAddress2()
+    {
+        return location == null ? null : location.address2;
+    }
+
+    public String getAddress3()
+    {
+        return location == null ? null : location.address3;
+    }
+
+    public String getZipCode()
+    {
+        return location == null ? null : location.zipCode;
+    }
+
+    public String getImageURL()
+    {
+        return imageURL;
+    }
+
+    public Double getDistance()
+    {
+        return distance;
+    }
+
+    /**
+     * @return A new, mutable {@link YelpBusiness} with the same data as this snapshot.
+     */
+    public YelpBusiness toBusiness()
+    {
+        YelpBusiness business = new YelpBusiness();
+        business.id = id;
+        business.name = name;
+        business.url = url;
+        business.rating = rating;
+        business.phone = phone;
+        business.isClosed = isClosed;
+        business.categories = Snapshots.categoriesOf(categoryAliases, categoryTitles);
+        business.reviewCount = reviewCount;
+        business.coordinates = Snapshots.copyOf(coordinates);
+        business.location = location == null ? null : location.toAddress();
+        business.imageURL = imageURL;
+        business.distance = distance;
+        return business;
+    }
+
+    private int computeHashCode()
+    {
+        int hash = 7;
+        hash = 53 * hash + Objects.hashCode(this.id);
+        hash = 53 * hash + Objects.hashCode(this.name);
+        hash = 53 * hash + Objects.hashCode(this.url);
+        hash = 53 * hash + Objects.hashCode(this.rating);
+        hash = 53 * hash + Objects.hashCode(this.phone);
+        hash = 53 * hash + Objects.hashCode(this.isClosed);
+        hash = 53 * hash + Objects.hashCode(this.categoryAliases);
+        hash = 53 * hash + Objects.hashCode(this.categoryTitles);
+        hash = 53 * hash + this.reviewCount;
+        hash = 53 * hash + Objects.hashCode(this.coordinates);
+        hash = 53 * hash + Objects.hashCode(this.location);
+        hash = 53 * hash + Objects.hashCode(this.imageURL);
+        hash = 53 * hash + Objects.hashCode(this.distance);
+        return hash;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final YelpBusinessSnapshot other = (YelpBusinessSnapshot) obj;
+        if (this.hashCode != other.hashCode)
+        {
+            return false;
+        }
+        if (this.reviewCount != other.reviewCount)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.id, other.id))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.name, other.name))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.url, other.url))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.phone, other.phone))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.imageURL, other.imageURL))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.rating, other.rating))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.isClosed, other.isClosed))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.categoryAliases, other.categoryAliases))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.categoryTitles, other.categoryTitles))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.coordinates, other.coordinates))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.location, other.location))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.distance, other.distance))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpBusinessSnapshot{" + "id=" + id + ", name=" + name + ", url=" + url + ", rating=" + rating + ", phone=" + phone + ", isClosed=" + isClosed + ", categoryAliases=" + categoryAliases + ", reviewCount=" + reviewCount + ", coordinates=" + coordinates + ", location=" + location + ", imageURL=" + imageURL + ", distance=" + distance + '}';
+    }
+
+}
@@ -21,16 +21,17 @@ package tech.redroma.yelp;
 import com.google.gson.annotations.SerializedName;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
 import tech.sirwellington.alchemy.annotations.concurrency.Mutable;
 import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
 import tech.sirwellington.alchemy.annotations.objects.Pojo;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validURL;
 import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
 
@@ -47,6 +48,11 @@ import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.n
 public class YelpReview
 {
 
+    /**
+     * The time zone of {@link #timeCreated}. Yelp reports review times in Pacific time.
+     */
+    public static final ZoneId TIME_ZONE_CREATED = ZoneId.of("America/Los_Angeles");
+
     /**
      * The raring of the business associated with this review
      *
@@ -67,7 +73,7 @@ public class YelpReview
     public String text;
 
     /**
-     * The time that the review was created, in PST.
+     * The time that the review was created, in Pacific time, such as {@code "2016-08-29 00:41:13"}.
      */
     public String timeCreated;
 
@@ -128,10 +134,28 @@ public class YelpReview
             return null;
         }
         
-        ZoneId pst = ZoneOffset.of("PST", ZoneOffset.SHORT_IDS);
-        LocalDateTime localTime = LocalDateTime.parse(timeCreated);
+        //Yelp separates the date and time with a space instead of the ISO 'T'
+        LocalDateTime localTime = LocalDateTime.parse(timeCreated.trim().replace(' ', 'T'));
+        
+        return ZonedDateTime.of(localTime, TIME_ZONE_CREATED);
+    }
+    
+    /**
+     * Gets the {@link #timeCreated} in another time zone, such as the business's own.
+     *
+     * @param zone The zone to express the time in.
+     * @return The time the review was created in {@code zone}, or {@code null} if not available.
+     * @throws IllegalArgumentException If the zone is null.
+     */
+    public ZonedDateTime getDateTimeCreatedIn(@Required ZoneId zone) throws IllegalArgumentException
+    {
+        checkThat(zone)
+            .usingMessage("zone cannot be null")
+            .is(notNull());
+        
+        ZonedDateTime created = getDateTimeCreated();
         
-        return ZonedDateTime.of(localTime, pst);
+        return created == null ? null : created.withZoneSameInstant(zone);
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package tech.redroma.yelp;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -37,6 +38,7 @@ import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPat
 import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
 import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
 import static tech.sirwellington.alchemy.arguments.assertions.CollectionAssertions.nonEmptyList;
 import static tech.sirwellington.alchemy.arguments.assertions.GeolocationAssertions.validLatitude;
 import static tech.sirwellington.alchemy.arguments.assertions.GeolocationAssertions.validLongitude;
@@ -666,6 +668,30 @@ public final class YelpSearchRequest
             return this;
         }
 
+        /**
+         * Categories to filter the search results with, taken from a {@link CategorySet}. The set's alias list is computed
+         * once and reused, so the same set can be used across many requests cheaply.
+         *
+         * @param categories The categories to search for. Cannot be empty.
+         * @return
+         * @throws IllegalArgumentException If the set is null or empty.
+         * @see #withCategories(java.util.List)
+         */
+        @Optional
+        public Builder withCategories(@NonEmpty CategorySet categories) throws IllegalArgumentException
+        {
+            checkThat(categories)
+                .usingMessage("categories cannot be null")
+                .is(notNull());
+
+            checkThat(categories.isEmpty())
+                .usingMessage("categories cannot be empty")
+                .is(falseStatement());
+
+            this.categories = categories.toAliasString();
+            return this;
+        }
+
         /**
          * Specify the locale to return the business information in.
          * <p>
@@ -741,7 +767,20 @@ public final class YelpSearchRequest
             this.offset = offset;
             return this;
         }
-        
+
+        /**
+         * Clears any offset set, so that results start from the first one. Useful after
+         * {@link #from(tech.redroma.yelp.YelpSearchRequest)}.
+         *
+         * @return
+         */
+        @Optional
+        public Builder withoutOffset()
+        {
+            this.offset = null;
+            return this;
+        }
+
         /**
          * Sort the results by one of these modes: {@link SortType}.
          *
@@ -835,6 +874,35 @@ public final class YelpSearchRequest
             return this;
         }
         
+        /**
+         * Returns results that only include businesses that are open at a wall-clock time in the search location's time
+         * zone, such as {@code LocalDateTime.of(2017, 1, 3, 18, 0).atZone(ZoneId.of("America/Chicago"))}. The time is
+         * converted to the Unix timestamp that Yelp expects.
+         * <p>
+         * Notice that this and {@link #lookingForOpenNow() } cannot be used together.
+         *
+         * @param time The time, in the time zone of the search location.
+         * @return
+         * @throws IllegalArgumentException If the time is null, or out of range.
+         */
+        @Optional
+        public Builder withBusinessesOpenAt(@Required ZonedDateTime time) throws IllegalArgumentException
+        {
+            checkThat(time)
+                .usingMessage("time cannot be null")
+                .is(notNull());
+            
+            long timestamp = time.toEpochSecond();
+            
+            checkThat(timestamp)
+                .usingMessage("time is out of range: " + time)
+                .is(greaterThanOrEqualTo(0L))
+                .is(lessThanOrEqualTo((long) Integer.MAX_VALUE));
+            
+            this.openAt = (int) timestamp;
+            return this;
+        }
+        
         /**
          * Convenience method for {@link #withAttributes(java.util.List) }.
          * 
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+
+import java.util.List;
+import java.util.Objects;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * A single page of search results, along with the total number of businesses that matched the search.
+ * <p>
+ * The total can be much larger than what can be paged through; Yelp only returns businesses up to
+ * {@link YelpSearchRequest.Builder#MAX_OFFSET}.
+ *
+ * @author SirWellington
+ * @see YelpAPI#searchForBusinessesWithTotal(tech.redroma.yelp.YelpSearchRequest)
+ */
+@Immutable
+public final class YelpSearchResults
+{
+
+    /** The {@linkplain #getTotal() total} used when it isn't known. */
+    public static final int UNKNOWN_TOTAL = -1;
+
+    private final List<YelpBusiness> businesses;
+    private final int total;
+
+    private YelpSearchResults(List<YelpBusiness> businesses, int total)
+    {
+        this.businesses = businesses;
+        this.total = total;
+    }
+
+    /**
+     * @param businesses The page of businesses. Null is treated as empty.
+     * @param total      The total number of matching businesses, or {@link #UNKNOWN_TOTAL}.
+     * @return
+     * @throws IllegalArgumentException If the total is invalid.
+     */
+    public static YelpSearchResults of(@Optional List<YelpBusiness> businesses, int total) throws IllegalArgumentException
+    {
+        checkThat(total)
+            .usingMessage("total must be >= -1")
+            .is(greaterThanOrEqualTo(UNKNOWN_TOTAL));
+
+        return new YelpSearchResults(Lists.nullToEmpty(businesses), total);
+    }
+
+    /**
+     * Creates results whose total isn't known.
+     */
+    public static YelpSearchResults withoutTotal(@Optional List<YelpBusiness> businesses)
+    {
+        return of(businesses, UNKNOWN_TOTAL);
+    }
+
+    public List<YelpBusiness> getBusinesses()
+    {
+        return businesses;
+    }
+
+    /**
+     * @return The total number of businesses that matched the search, or {@link #UNKNOWN_TOTAL}.
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    public boolean hasTotal()
+    {
+        return total != UNKNOWN_TOTAL;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 3;
+        hash = 47 * hash + Objects.hashCode(this.businesses);
+        hash = 47 * hash + this.total;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final YelpSearchResults other = (YelpSearchResults) obj;
+        if (this.total != other.total)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.businesses, other.businesses))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpSearchResults{" + "businesses=" + businesses.size() + ", total=" + total + '}';
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.batch;
+
+import java.util.Objects;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * The outcome of one of the requests in a {@link BatchSearch}: either its results, or why it failed.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class BatchResult
+{
+
+    private final int index;
+    private final YelpSearchRequest request;
+    private final YelpSearchResults results;
+    private final YelpException failure;
+
+    private BatchResult(int index, YelpSearchRequest request, YelpSearchResults results, YelpException failure)
+    {
+        this.index = index;
+        this.request = request;
+        this.results = results;
+        this.failure = failure;
+    }
+
+    static BatchResult success(int index, YelpSearchRequest request, YelpSearchResults results)
+    {
+        return new BatchResult(index, request, results, null);
+    }
+
+    static BatchResult failure(int index, YelpSearchRequest request, YelpException failure)
+    {
+        return new BatchResult(index, request, null, failure);
+    }
+
+    /**
+     * @return The position of the request in the batch.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public YelpSearchRequest getRequest()
+    {
+        return request;
+    }
+
+    /**
+     * @return The results of the search, or {@code null} if it failed.
+     */
+    public YelpSearchResults getResults()
+    {
+        return results;
+    }
+
+    /**
+     * @return Why the search failed, or {@code null} if it didn't.
+     */
+    public YelpException getFailure()
+    {
+        return failure;
+    }
+
+    public boolean isSuccessful()
+    {
+        return failure == null;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 59 * hash + this.index;
+        hash = 59 * hash + Objects.hashCode(this.request);
+        hash = 59 * hash + Objects.hashCode(this.results);
+        hash = 59 * hash + Objects.hashCode(this.failure);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final BatchResult other = (BatchResult) obj;
+        if (this.index != other.index)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.request, other.request))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.results, other.results))
+        {
+            return false;
+        }
+        return Objects.equals(this.failure, other.failure);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchResult{" + "index=" + index + ", request=" + request + ", results=" + results + ", failure=" + failure + '}';
+    }
+
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.batch;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Runs many search requests, such as the same query around thousands of locations, under a shared rate limit and a
+ * bounded number at a time.
+ * <p>
+ * Results are handed back on the calling thread as each request completes, so they can be processed while the rest of
+ * the batch is still running. A failed request doesn't affect the others; its {@link BatchResult} carries the failure
+ * instead. Every request goes through the same {@link YelpAPI}, and so reuses its HTTP client and connections.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class BatchSearch
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(BatchSearch.class);
+
+    private final YelpAPI yelp;
+    private final RateLimiter rateLimiter;
+    private final int concurrency;
+    private final Executor executor;
+
+    private BatchSearch(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.rateLimiter = builder.rateLimiter != null ? builder.rateLimiter
+                         : builder.requestsPerSecond > 0 ? RateLimiter.create(builder.requestsPerSecond) : null;
+        this.concurrency = builder.concurrency;
+        this.executor = builder.executor;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Runs every request and collects the results.
+     *
+     * @param requests The requests to run.
+     * @return The outcome of each request, in the same order as the requests.
+     * @throws IllegalArgumentException If the requests are null or contain null.
+     * @throws YelpException If the calling thread is interrupted.
+     */
+    public List<BatchResult> searchAll(@Required List<YelpSearchRequest> requests) throws IllegalArgumentException, YelpException
+    {
+        BatchResult[] results = new BatchResult[requests == null ? 0 : requests.size()];
+        search(requests, result -> results[result.getIndex()] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Runs every request, passing each outcome to {@code sink} as soon as it is known.
+     *
+     * @see #search(java.util.List, java.util.function.Consumer, tech.redroma.yelp.batch.BatchSearch.ProgressListener)
+     */
+    public Summary search(@Required List<YelpSearchRequest> requests,
+                          @Required Consumer<? super BatchResult> sink) throws IllegalArgumentException, YelpException
+    {
+        return search(requests, sink, ProgressListener.NONE);
+    }
+
+    /**
+     * Runs every request, passing each outcome to {@code sink} as soon as it is known. The sink and the listener are
+     * called on the calling thread, one outcome at a time, in the order the requests complete.
+     *
+     * @param requests The requests to run.
+     * @param sink     Receives the outcome of each request.
+     * @param progress Told after each outcome is passed to the sink.
+     * @return A summary of the batch.
+     * @throws IllegalArgumentException If any argument is null, or the requests contain null.
+     * @throws YelpException If the calling thread is interrupted. Failed requests are reported to the sink instead.
+     */
+    public Summary search(@Required List<YelpSearchRequest> requests,
+                          @Required Consumer<? super BatchResult> sink,
+                          @Required ProgressListener progress) throws IllegalArgumentException, YelpException
+    {
+        checkThat(requests, sink, progress)
+            .usingMessage("requests, sink, and progress are required")
+            .are(notNull());
+
+        checkThat(requests.stream().allMatch(r -> r != null))
+            .usingMessage("requests cannot contain null")
+            .is(trueStatement());
+
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(concurrency, this::newThread) : null;
+        Executor searchExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        CompletionService<BatchResult> completions = new ExecutorCompletionService<>(searchExecutor);
+        //Only the requests in flight, so the results already passed to the sink can be collected
+        Set<Future<BatchResult>> futures = new HashSet<>(concurrency * 2);
+        long start = System.currentTimeMillis();
+        int failed = 0;
+
+        try
+        {
+            int submitted = 0;
+
+            //Keep at most 'concurrency' requests in flight, even on a shared executor
+            while (submitted < requests.size() && submitted < concurrency)
+            {
+                futures.add(submit(completions, requests, submitted++));
+            }
+
+            for (int completed = 1; completed <= requests.size(); ++completed)
+            {
+                Future<BatchResult> done = completions.take();
+                futures.remove(done);
+                BatchResult result = done.get();
+
+                if (submitted < requests.size())
+                {
+                    futures.add(submit(completions, requests, submitted++));
+                }
+
+                if (!result.isSuccessful())
+                {
+                    ++failed;
+                }
+
+                sink.accept(result);
+                progress.onProgress(completed, failed, requests.size());
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while running batch", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            //Searches catch their own failures, so this is unexpected
+            throw new YelpOperationFailedException("batch failed", ex.getCause());
+        }
+        finally
+        {
+            futures.forEach(future -> future.cancel(true));
+
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+        }
+
+        Summary summary = new Summary(requests.size(), failed, System.currentTimeMillis() - start);
+        LOG.debug("Ran batch: {}", summary);
+
+        return summary;
+    }
+
+    private Future<BatchResult> submit(CompletionService<BatchResult> completions, List<YelpSearchRequest> requests, int index)
+    {
+        YelpSearchRequest request = requests.get(index);
+        return completions.submit(() -> searchWithinRateLimit(index, request));
+    }
+
+    private BatchResult searchWithinRateLimit(int index, YelpSearchRequest request)
+    {
+        if (rateLimiter != null)
+        {
+            rateLimiter.acquire();
+        }
+
+        try
+        {
+            YelpSearchResults results = yelp.searchForBusinessesWithTotal(request);
+            return BatchResult.success(index, request, results);
+        }
+        catch (YelpException ex)
+        {
+            return BatchResult.failure(index, request, ex);
+        }
+        catch (RuntimeException ex)
+        {
+            return BatchResult.failure(index, request, new YelpOperationFailedException("search failed", ex));
+        }
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "YelpBatchSearch");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchSearch{" + "yelp=" + yelp + ", rateLimiter=" + rateLimiter + ", concurrency=" + concurrency + '}';
+    }
+
+    /**
+     * Told how far along a batch is.
+     */
+    @FunctionalInterface
+    public interface ProgressListener
+    {
+
+        /**
+         * @param completed The number of requests finished so far, including failures.
+         * @param failed    The number of those that failed.
+         * @param total     The number of requests in the batch.
+         */
+        void onProgress(int completed, int failed, int total);
+
+        ProgressListener NONE = (completed, failed, total) ->
+        {
+        };
+
+    }
+
+    /**
+     * Describes a finished batch.
+     */
+    @Immutable
+    public static final class Summary
+    {
+
+        private final int requests;
+        private final int failures;
+        private final long elapsedMillis;
+
+        Summary(int requests, int failures, long elapsedMillis)
+        {
+            this.requests = requests;
+            this.failures = failures;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return The number of requests in the batch.
+         */
+        public int getRequests()
+        {
+            return requests;
+        }
+
+        /**
+         * @return The number of requests that failed.
+         */
+        public int getFailures()
+        {
+            return failures;
+        }
+
+        public long getElapsedMillis()
+        {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return Whether every request succeeded.
+         */
+        public boolean isComplete()
+        {
+            return failures == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Summary{" + "requests=" + requests + ", failures=" + failures + ", elapsedMillis=" + elapsedMillis + '}';
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default rate limit. */
+        public static final double DEFAULT_REQUESTS_PER_SECOND = 5;
+
+        /** The default number of requests run at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        private final YelpAPI yelp;
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+        private RateLimiter rateLimiter;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private Executor executor;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Limits the rate of search requests across all of the batch's threads.
+         *
+         * @param requestsPerSecond Must be {@code > 0}.
+         * @return
+         * @throws IllegalArgumentException If the rate is not positive.
+         */
+        public Builder withRequestsPerSecond(@Positive double requestsPerSecond) throws IllegalArgumentException
+        {
+            checkThat(requestsPerSecond > 0)
+                .usingMessage("requests per second must be > 0")
+                .is(trueStatement());
+
+            this.requestsPerSecond = requestsPerSecond;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Shares a rate limiter with other users of the same Yelp quota, such as other batches or crawlers, so that they
+         * stay within it together. It replaces the {@linkplain #withRequestsPerSecond(double) rate} set on this batch.
+         */
+        public Builder withRateLimiter(@Required RateLimiter rateLimiter) throws IllegalArgumentException
+        {
+            checkThat(rateLimiter)
+                .usingMessage("rate limiter cannot be null")
+                .is(notNull());
+
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Removes the rate limit. Only suitable when the delegate enforces one itself.
+         */
+        public Builder withoutRateLimit()
+        {
+            this.requestsPerSecond = 0;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests run at the same time.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Runs the requests on an existing executor. By default, each batch uses its own threads, which are released when
+         * it completes. Either way, no more than the {@linkplain #withConcurrency(int) concurrency} run at once.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        public BatchSearch build()
+        {
+            return new BatchSearch(this);
+        }
+
+    }
+
+}
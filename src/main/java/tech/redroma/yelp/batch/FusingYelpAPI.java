@@ -0,0 +1,634 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchRequest.SortType;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Fuses concurrent searches that differ only in their categories into a single search.
+ * <p>
+ * The first search of a kind waits a few milliseconds for others like it: searches at the same place, with the same
+ * term, prices, hours, attributes, locale and sort, that ask for different categories. They are then made as one search
+ * for all of their categories, with the {@linkplain YelpSearchRequest.Builder#MAX_LIMIT maximum limit}, and each search
+ * is answered with the results in its own categories.
+ * <p>
+ * An answer is only taken from the fused results when it is the same as the search's own results would be. That is
+ * when the fused results hold every match, or when they are sorted by distance, rating or review count, so that the
+ * first matches in the fused order are the first in the search's own. Results sorted by best match are ranked across all
+ * of the categories, so a search the fused results cut off is made on its own instead.
+ * <p>
+ * Categories are matched by the aliases on each business. Yelp also matches a parent category, such as {@code food}, to
+ * businesses in its children, such as {@code pizza}, whose aliases don't include the parent's. So a search for any
+ * {@linkplain Builder#withParentCategories(java.util.Collection) parent category} is never fused. Businesses don't
+ * include their price in search results, so searches for different prices are never fused, and neither are searches
+ * with an offset. Each search gets its own copies of the businesses.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+public final class FusingYelpAPI implements YelpAPI
+{
+
+    /** The number of results Yelp returns when a search doesn't set a limit. */
+    static final int DEFAULT_LIMIT = 20;
+
+    /** Orders in which a business's place doesn't depend on the other categories searched. */
+    private static final Set<String> STABLE_SORTS = new HashSet<>(Arrays.asList(SortType.DISTANCE.text,
+                                                                                SortType.RATING.text,
+                                                                                SortType.REVIEW_COUNT.text));
+
+    private final YelpAPI delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Set<String> parentCategories;
+
+    //Guarded by 'this'
+    private final Map<Shape, Batch> openBatches = new HashMap<>();
+
+    private final AtomicLong fusedCalls = new AtomicLong();
+    private final AtomicLong fusedSearches = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private FusingYelpAPI(Builder builder)
+    {
+        this.delegate = builder.delegate;
+        this.windowNanos = builder.window.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+        this.parentCategories = new HashSet<>(builder.parentCategories);
+    }
+
+    public static Builder newBuilder(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId) throws YelpException
+    {
+        return delegate.getBusinessDetails(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        return searchForBusinessesWithTotal(request).getBusinesses();
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
+    {
+        checkThat(request)
+            .usingMessage("request cannot be null")
+            .is(notNull());
+
+        if (request.hasOffset() || maxBatchSize == 1 || asksForParentCategory(request))
+        {
+            return delegate.searchForBusinessesWithTotal(request);
+        }
+
+        Shape shape = new Shape(request);
+        Member member = new Member(request);
+        Batch batch;
+        boolean isLeader = false;
+
+        synchronized (this)
+        {
+            batch = openBatches.get(shape);
+
+            if (batch == null)
+            {
+                batch = new Batch();
+                openBatches.put(shape, batch);
+                isLeader = true;
+            }
+
+            batch.members.add(member);
+
+            if (batch.members.size() >= maxBatchSize)
+            {
+                close(shape, batch);
+            }
+        }
+
+        if (isLeader)
+        {
+            List<Member> members = awaitMembers(shape, batch);
+
+            if (members.size() == 1)
+            {
+                return delegate.searchForBusinessesWithTotal(request);
+            }
+
+            run(members);
+        }
+
+        YelpSearchResults answer = await(member);
+
+        if (answer != null)
+        {
+            return answer;
+        }
+
+        fallbacks.incrementAndGet();
+        return delegate.searchForBusinessesWithTotal(request);
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId) throws YelpException
+    {
+        return delegate.getReviewsForBusiness(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        return delegate.searchForBusinessesByPhone(phone);
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        return delegate.matchBusinesses(name, address, coordinate);
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        return delegate.getAutocompleteSuggestions(text, coordinate, locale);
+    }
+
+    /**
+     * @return The number of fused searches made.
+     */
+    public long getFusedCalls()
+    {
+        return fusedCalls.get();
+    }
+
+    /**
+     * @return The number of searches answered by a fused search.
+     */
+    public long getFusedSearches()
+    {
+        return fusedSearches.get();
+    }
+
+    /**
+     * @return The number of searches in a fused search that had to be made on their own after all.
+     */
+    public long getFallbacks()
+    {
+        return fallbacks.get();
+    }
+
+    //Must hold 'this'
+    private void close(Shape shape, Batch batch)
+    {
+        if (!batch.closed)
+        {
+            batch.closed = true;
+            openBatches.remove(shape, batch);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits out the window, or until the batch is full, and closes the batch.
+     */
+    private synchronized List<Member> awaitMembers(Shape shape, Batch batch)
+    {
+        long deadline = System.nanoTime() + windowNanos;
+
+        try
+        {
+            for (long remaining = windowNanos; !batch.closed && remaining > 0; remaining = deadline - System.nanoTime())
+            {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            //The others are waiting on this search, so it goes ahead now
+            Thread.currentThread().interrupt();
+        }
+
+        close(shape, batch);
+        return new ArrayList<>(batch.members);
+    }
+
+    private void run(List<Member> members)
+    {
+        try
+        {
+            YelpSearchResults results = delegate.searchForBusinessesWithTotal(fuse(members));
+            fusedCalls.incrementAndGet();
+
+            for (Member member : members)
+            {
+                YelpSearchResults answer = answer(member.request, results);
+
+                if (answer != null)
+                {
+                    fusedSearches.incrementAndGet();
+                }
+
+                member.answer.complete(answer);
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            members.forEach(member -> member.answer.completeExceptionally(ex));
+        }
+        finally
+        {
+            //Never leaves the others waiting
+            members.forEach(member -> member.answer.completeExceptionally(new YelpOperationFailedException("fused search did not complete")));
+        }
+    }
+
+    private YelpSearchResults await(Member member)
+    {
+        try
+        {
+            return member.answer.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while waiting for a fused search", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof YelpException)
+            {
+                throw (YelpException) cause;
+            }
+
+            throw new YelpOperationFailedException("fused search failed", cause);
+        }
+    }
+
+    private boolean asksForParentCategory(YelpSearchRequest request)
+    {
+        Set<String> categories = categoriesOf(request);
+        return categories != null && categories.stream().anyMatch(parentCategories::contains);
+    }
+
+    /**
+     * @return One search for every category asked for. If any search asks for every category, so does this one.
+     */
+    static YelpSearchRequest fuse(List<Member> members)
+    {
+        Set<String> aliases = new LinkedHashSet<>();
+        YelpSearchRequest base = members.get(0).request;
+
+        for (Member member : members)
+        {
+            if (member.categories == null)
+            {
+                base = member.request;
+                aliases = null;
+                break;
+            }
+
+            aliases.addAll(member.categories);
+        }
+
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(base)
+            .withLimit(MAX_LIMIT);
+
+        if (aliases != null)
+        {
+            List<Category> categories = new ArrayList<>(aliases.size());
+
+            for (String alias : aliases)
+            {
+                Category category = new Category();
+                category.alias = alias;
+                categories.add(category);
+            }
+
+            builder.withCategories(categories);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return The answer to {@code request} from the results of a fused search, or null if they don't hold it.
+     */
+    static YelpSearchResults answer(YelpSearchRequest request, YelpSearchResults fused)
+    {
+        Set<String> categories = categoriesOf(request);
+        int limit = request.hasLimit() ? request.getLimit() : DEFAULT_LIMIT;
+
+        List<YelpBusiness> businesses = fused == null ? Collections.emptyList() : fused.getBusinesses();
+        boolean exhausted = businesses.size() < MAX_LIMIT || (fused.hasTotal() && fused.getTotal() <= businesses.size());
+
+        List<YelpBusiness> matches = new ArrayList<>();
+
+        for (YelpBusiness business : businesses)
+        {
+            if (business != null && isInAny(business, categories))
+            {
+                matches.add(YelpBusinessSnapshot.of(business).toBusiness());
+            }
+        }
+
+        if (exhausted)
+        {
+            return YelpSearchResults.of(new ArrayList<>(matches.subList(0, Math.min(limit, matches.size()))), matches.size());
+        }
+
+        //Best match ranks across every category searched, so a cut-off page only holds this search's first matches in a stable order
+        if (matches.size() >= limit && STABLE_SORTS.contains(sortOf(request)))
+        {
+            return YelpSearchResults.withoutTotal(new ArrayList<>(matches.subList(0, limit)));
+        }
+
+        return null;
+    }
+
+    private static String sortOf(YelpSearchRequest request)
+    {
+        return request.getSortBy() != null ? request.getSortBy() : SortType.BEST_MATCH.text;
+    }
+
+    private static boolean isInAny(YelpBusiness business, Set<String> categories)
+    {
+        if (categories == null)
+        {
+            return true;
+        }
+
+        if (business.categories == null)
+        {
+            return false;
+        }
+
+        return business.categories.stream()
+            .anyMatch(category -> category != null && categories.contains(category.alias));
+    }
+
+    private static Set<String> categoriesOf(YelpSearchRequest request)
+    {
+        if (!request.hasCategories())
+        {
+            return null;
+        }
+
+        return Arrays.stream(request.getCategories().split(","))
+            .map(String::trim)
+            .filter(alias -> !alias.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FusingYelpAPI{" + "delegate=" + delegate + ", windowNanos=" + windowNanos + ", maxBatchSize=" + maxBatchSize + ", fusedCalls=" + fusedCalls + ", fusedSearches=" + fusedSearches + ", fallbacks=" + fallbacks + '}';
+    }
+
+    /**
+     * The parts of a search that must match for it to be fused with another.
+     */
+    private static final class Shape
+    {
+
+        private final String searchTerm;
+        private final String location;
+        private final Double latitude;
+        private final Double longitude;
+        private final Integer radius;
+        private final String locale;
+        private final String sortBy;
+        private final String prices;
+        private final Boolean openNow;
+        private final Integer openAt;
+        private final String attributes;
+
+        private Shape(YelpSearchRequest request)
+        {
+            this.searchTerm = request.getSearchTerm();
+            this.location = request.getLocation();
+            this.latitude = request.getLatitude();
+            this.longitude = request.getLongitude();
+            this.radius = request.getRadius();
+            this.locale = request.getLocale();
+            this.sortBy = request.getSortBy();
+            this.prices = request.getPrices();
+            this.openNow = request.getOpenNow();
+            this.openAt = request.getOpenAt();
+            this.attributes = request.getAttributes();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(searchTerm, location, latitude, longitude, radius, locale, sortBy, prices, openNow, openAt, attributes);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Shape other = (Shape) obj;
+            return Objects.equals(this.searchTerm, other.searchTerm) &&
+                   Objects.equals(this.location, other.location) &&
+                   Objects.equals(this.latitude, other.latitude) &&
+                   Objects.equals(this.longitude, other.longitude) &&
+                   Objects.equals(this.radius, other.radius) &&
+                   Objects.equals(this.locale, other.locale) &&
+                   Objects.equals(this.sortBy, other.sortBy) &&
+                   Objects.equals(this.prices, other.prices) &&
+                   Objects.equals(this.openNow, other.openNow) &&
+                   Objects.equals(this.openAt, other.openAt) &&
+                   Objects.equals(this.attributes, other.attributes);
+        }
+
+    }
+
+    private static final class Batch
+    {
+
+        //Guarded by the FusingYelpAPI
+        private final List<Member> members = new ArrayList<>();
+        private boolean closed = false;
+
+    }
+
+    static final class Member
+    {
+
+        private final YelpSearchRequest request;
+        private final Set<String> categories;
+        private final CompletableFuture<YelpSearchResults> answer = new CompletableFuture<>();
+
+        Member(YelpSearchRequest request)
+        {
+            this.request = request;
+            this.categories = categoriesOf(request);
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default time the first search of a kind waits for others to fuse with. */
+        public static final Duration DEFAULT_WINDOW = Duration.ofMillis(5);
+
+        /** The default maximum number of searches fused into one. */
+        public static final int DEFAULT_MAX_BATCH_SIZE = 10;
+
+        /** Yelp's top-level categories, which are parents of every other category. */
+        public static final Set<String> DEFAULT_PARENT_CATEGORIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "active", "arts", "auto", "beautysvc", "bicycles", "education", "eventservices", "financialservices", "food",
+            "health", "homeservices", "hotelstravel", "localflavor", "localservices", "massmedia", "nightlife", "pets",
+            "professional", "publicservicesgovt", "realestate", "religiousorgs", "restaurants", "shopping")));
+
+        private final YelpAPI delegate;
+        private Duration window = DEFAULT_WINDOW;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private final Set<String> parentCategories = new HashSet<>(DEFAULT_PARENT_CATEGORIES);
+
+        private Builder(YelpAPI delegate)
+        {
+            checkThat(delegate)
+                .usingMessage("delegate cannot be null")
+                .is(notNull());
+
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets how long the first search of a kind waits for others to fuse with. Every search waits at most this long
+         * before it is made.
+         */
+        public Builder withWindow(@Required Duration window) throws IllegalArgumentException
+        {
+            checkThat(window)
+                .usingMessage("window cannot be null")
+                .is(notNull());
+
+            checkThat(!window.isNegative())
+                .usingMessage("window cannot be negative")
+                .is(trueStatement());
+
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of searches fused into one. A batch that fills up is made without waiting out the
+         * window. A size of 1 turns fusion off.
+         */
+        public Builder withMaxBatchSize(@Positive int maxBatchSize) throws IllegalArgumentException
+        {
+            checkThat(maxBatchSize)
+                .usingMessage("max batch size must be >= 1")
+                .is(greaterThanOrEqualTo(1));
+
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Adds categories that have subcategories of their own, such as {@code bars} or {@code italian}. Searches for them
+         * are never fused. These are the aliases listed as a {@code parent_aliases} of another category in Yelp's list of
+         * categories. Yelp's {@linkplain #DEFAULT_PARENT_CATEGORIES top-level categories} are always included.
+         */
+        public Builder withParentCategories(@Required Collection<String> aliases) throws IllegalArgumentException
+        {
+            checkThat(aliases)
+                .usingMessage("aliases cannot be null")
+                .is(notNull());
+
+            aliases.forEach(alias -> checkThat(alias)
+                .usingMessage("aliases cannot be empty")
+                .is(nonEmptyString()));
+
+            this.parentCategories.addAll(aliases);
+            return this;
+        }
+
+        public FusingYelpAPI build()
+        {
+            return new FusingYelpAPI(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,590 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Caches autocomplete suggestions in a prefix trie per locale and area, and answers most keystrokes without a call.
+ * <p>
+ * Text typed into a search box mostly grows one character at a time, so each new prefix extends one that was already
+ * looked up. The suggestions for {@code "piz"} are kept at the {@code p-i-z} node of the trie for the caller's locale and
+ * area, and are then:
+ * <ul>
+ * <li>Returned as-is when {@code "piz"} is looked up again.
+ * <li>Filtered to answer {@code "pizz"} or {@code "pizza"}, if none of their lists were cut off. A list is assumed to have
+ * been cut off when it holds the {@linkplain Builder#withSectionLimit(int) most suggestions Yelp returns} of its kind.
+ * </ul>
+ * A suggestion matches a prefix if one of its words starts with it, ignoring case. Filtering can only drop suggestions,
+ * so a longer prefix answered locally never gains a suggestion Yelp would only have made for it, such as a spelling
+ * correction; this is the trade made for answering it without a call.
+ * <p>
+ * Suggested businesses depend on where the caller is, so coordinates are grouped into
+ * {@linkplain Builder#withAreaSize(double) square areas}, each with its own trie. Cached suggestions are copied in and
+ * out, so callers may change them freely.
+ *
+ * @author SirWellington
+ * @see #caching(tech.redroma.yelp.YelpAPI)
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class AutocompleteCache
+{
+
+    private final Clock clock;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final int sectionLimit;
+    private final double areaSize;
+
+    //Guarded by 'this'
+    private final Map<Area, Node> tries = new HashMap<>();
+    private final LinkedHashMap<Node, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong prefixHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private AutocompleteCache(Builder builder, Clock clock)
+    {
+        this.clock = clock;
+        this.maxEntries = builder.maxEntries;
+        this.timeToLiveMillis = builder.timeToLive.toMillis();
+        this.sectionLimit = builder.sectionLimit;
+        this.areaSize = builder.areaSize;
+    }
+
+    public static Builder newBuilder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Wraps a {@link YelpAPI} so that its autocomplete suggestions are answered from this cache when possible, and cached
+     * otherwise.
+     *
+     * @param delegate The API to make the calls with.
+     * @return
+     * @throws IllegalArgumentException If the delegate is null.
+     */
+    public YelpAPI caching(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new AutocompleteCachingYelpAPI(delegate, this);
+    }
+
+    /**
+     * Answers an autocomplete lookup from the cache.
+     *
+     * @return The suggestions, or null if the cache can't answer the lookup.
+     */
+    synchronized YelpAutocompleteResults lookup(@NonEmpty String text, @Optional Coordinate coordinate, @Optional Locale locale)
+    {
+        String prefix = normalize(text);
+        Node node = prefix.isEmpty() ? null : tries.get(areaOf(coordinate, locale));
+
+        long now = clock.millis();
+        Entry closest = null;
+
+        for (int i = 0; node != null && i < prefix.length(); ++i)
+        {
+            if (isUsable(node.entry, now) && node.entry.isComplete)
+            {
+                closest = node.entry;
+            }
+
+            node = node.children.get(prefix.charAt(i));
+        }
+
+        if (node != null && isUsable(node.entry, now))
+        {
+            exactHits.incrementAndGet();
+            entries.get(node);
+            return node.entry.results.copy();
+        }
+
+        if (closest != null)
+        {
+            prefixHits.incrementAndGet();
+            entries.get(closest.node);
+            return filter(closest.results, prefix);
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the suggestions for a prefix.
+     */
+    synchronized void put(@NonEmpty String text,
+                          @Optional Coordinate coordinate,
+                          @Optional Locale locale,
+                          @Optional YelpAutocompleteResults results)
+    {
+        String prefix = normalize(text);
+
+        if (results == null || prefix.isEmpty())
+        {
+            return;
+        }
+
+        Node node = tries.computeIfAbsent(areaOf(coordinate, locale), Node::root);
+
+        for (int i = 0; i < prefix.length(); ++i)
+        {
+            node = node.childAt(prefix.charAt(i));
+        }
+
+        Entry entry = new Entry(node, results.copy(), isComplete(results), clock.millis());
+        node.entry = entry;
+        entries.put(node, entry);
+
+        evictExpiredAndEldest();
+    }
+
+    /**
+     * @return The number of lookups answered by the suggestions cached for the same prefix.
+     */
+    public long getExactHits()
+    {
+        return exactHits.get();
+    }
+
+    /**
+     * @return The number of lookups answered by filtering the suggestions cached for a shorter prefix.
+     */
+    public long getPrefixHits()
+    {
+        return prefixHits.get();
+    }
+
+    /**
+     * @return The number of lookups the cache couldn't answer.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of prefixes with cached suggestions.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+        tries.clear();
+    }
+
+    private boolean isUsable(Entry entry, long now)
+    {
+        return entry != null && now - entry.cachedAt < timeToLiveMillis;
+    }
+
+    private boolean isComplete(YelpAutocompleteResults results)
+    {
+        return sizeOf(results.terms) < sectionLimit &&
+               sizeOf(results.businesses) < sectionLimit &&
+               sizeOf(results.categories) < sectionLimit;
+    }
+
+    private void evictExpiredAndEldest()
+    {
+        long now = clock.millis();
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        //Entries are in order of last use, so the eldest come first
+        while (iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+
+            if (entries.size() <= maxEntries && isUsable(entry, now))
+            {
+                break;
+            }
+
+            iterator.remove();
+            remove(entry);
+        }
+    }
+
+    /**
+     * Drops an entry from its trie, along with the nodes that no longer lead to any entry.
+     */
+    private void remove(Entry entry)
+    {
+        Node node = entry.node;
+
+        if (node.entry == entry)
+        {
+            node.entry = null;
+        }
+
+        while (node.parent != null && node.entry == null && node.children.isEmpty())
+        {
+            node.parent.children.remove(node.key);
+            node = node.parent;
+        }
+
+        if (node.parent == null && node.children.isEmpty())
+        {
+            tries.remove(node.area, node);
+        }
+    }
+
+    private Area areaOf(Coordinate coordinate, Locale locale)
+    {
+        String code = locale == null ? null : locale.code();
+
+        if (coordinate == null)
+        {
+            return new Area(code, false, 0, 0);
+        }
+
+        long row = (long) Math.floor(coordinate.getLatitude() / areaSize);
+        long column = (long) Math.floor(coordinate.getLongitude() / areaSize);
+
+        return new Area(code, true, row, column);
+    }
+
+    /**
+     * @return The suggestions that match a longer prefix than they were made for.
+     */
+    static YelpAutocompleteResults filter(YelpAutocompleteResults results, String prefix)
+    {
+        YelpAutocompleteResults copy = results.copy();
+
+        copy.terms = matching(copy.terms, prefix, term -> term.text);
+        copy.businesses = matching(copy.businesses, prefix, business -> business.name);
+        copy.categories = matching(copy.categories, prefix, AutocompleteCache::textOf);
+
+        return copy;
+    }
+
+    private static <T> List<T> matching(List<T> suggestions, String prefix, Function<T, String> text)
+    {
+        if (suggestions == null)
+        {
+            return null;
+        }
+
+        List<T> matches = new ArrayList<>(suggestions.size());
+
+        for (T suggestion : suggestions)
+        {
+            if (suggestion != null && matches(text.apply(suggestion), prefix))
+            {
+                matches.add(suggestion);
+            }
+        }
+
+        return matches;
+    }
+
+    private static String textOf(Category category)
+    {
+        return category.title == null ? category.alias : category.title + " " + category.alias;
+    }
+
+    /**
+     * @return Whether any word of the text starts with the prefix.
+     */
+    static boolean matches(String text, String prefix)
+    {
+        if (text == null)
+        {
+            return false;
+        }
+
+        String normalized = normalize(text);
+
+        for (int i = normalized.indexOf(prefix); i >= 0; i = normalized.indexOf(prefix, i + 1))
+        {
+            if (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The text in lower case, with runs of whitespace collapsed to a single space and none at either end.
+     */
+    static String normalize(String text)
+    {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+
+        for (int i = 0; i < text.length(); ++i)
+        {
+            char c = text.charAt(i);
+
+            if (Character.isWhitespace(c))
+            {
+                space = normalized.length() > 0;
+                continue;
+            }
+
+            if (space)
+            {
+                normalized.append(' ');
+                space = false;
+            }
+
+            normalized.append(Character.toLowerCase(c));
+        }
+
+        return normalized.toString();
+    }
+
+    private static int sizeOf(List<?> list)
+    {
+        return list == null ? 0 : list.size();
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "AutocompleteCache{" + "entries=" + entries.size() + ", maxEntries=" + maxEntries + ", areas=" + tries.size() + ", exactHits=" + exactHits + ", prefixHits=" + prefixHits + ", misses=" + misses + '}';
+    }
+
+    /**
+     * A locale, and a square of the map or no coordinate at all.
+     */
+    private static final class Area
+    {
+
+        private final String locale;
+        private final boolean hasCoordinate;
+        private final long row;
+        private final long column;
+
+        private Area(String locale, boolean hasCoordinate, long row, long column)
+        {
+            this.locale = locale;
+            this.hasCoordinate = hasCoordinate;
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(locale, hasCoordinate, row, column);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Area other = (Area) obj;
+            return this.hasCoordinate == other.hasCoordinate &&
+                   this.row == other.row &&
+                   this.column == other.column &&
+                   Objects.equals(this.locale, other.locale);
+        }
+
+    }
+
+    /**
+     * A node of a trie, standing for the prefix spelled out on the way to it. Compared by identity.
+     */
+    private static final class Node
+    {
+
+        private final Area area;
+        private final Node parent;
+        private final char key;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private Entry entry;
+
+        private Node(Area area, Node parent, char key)
+        {
+            this.area = area;
+            this.parent = parent;
+            this.key = key;
+        }
+
+        private static Node root(Area area)
+        {
+            return new Node(area, null, '\0');
+        }
+
+        private Node childAt(char key)
+        {
+            return children.computeIfAbsent(key, k -> new Node(area, this, k));
+        }
+
+    }
+
+    private static final class Entry
+    {
+
+        private final Node node;
+        private final YelpAutocompleteResults results;
+        private final boolean isComplete;
+        private final long cachedAt;
+
+        private Entry(Node node, YelpAutocompleteResults results, boolean isComplete, long cachedAt)
+        {
+            this.node = node;
+            this.results = results;
+            this.isComplete = isComplete;
+            this.cachedAt = cachedAt;
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+        public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(30);
+
+        /** The most suggestions of each kind that Yelp is assumed to return. */
+        public static final int DEFAULT_SECTION_LIMIT = 3;
+
+        /** About a kilometer across. */
+        public static final double DEFAULT_AREA_SIZE = 0.01;
+
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+        private int sectionLimit = DEFAULT_SECTION_LIMIT;
+        private double areaSize = DEFAULT_AREA_SIZE;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Sets the number of prefixes kept. Once full, the least recently used are dropped.
+         */
+        public Builder withMaxEntries(@Positive int maxEntries) throws IllegalArgumentException
+        {
+            checkThat(maxEntries)
+                .usingMessage("max entries must be > 0")
+                .is(positiveInteger());
+
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets how long cached suggestions are used for.
+         */
+        public Builder withTimeToLive(@Required Duration timeToLive) throws IllegalArgumentException
+        {
+            checkThat(timeToLive)
+                .usingMessage("time to live cannot be null")
+                .is(notNull());
+
+            checkThat(!timeToLive.isNegative() && !timeToLive.isZero())
+                .usingMessage("time to live must be positive")
+                .is(trueStatement());
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the most suggestions of each kind that Yelp returns. Suggestions with this many terms, businesses, or
+         * categories may have been cut off, so they are only used for the prefix they were made for.
+         */
+        public Builder withSectionLimit(@Positive int sectionLimit) throws IllegalArgumentException
+        {
+            checkThat(sectionLimit)
+                .usingMessage("section limit must be > 0")
+                .is(positiveInteger());
+
+            this.sectionLimit = sectionLimit;
+            return this;
+        }
+
+        /**
+         * Sets the size, in degrees, of the square areas that coordinates are grouped into. Suggestions made anywhere in
+         * an area are used throughout it.
+         */
+        public Builder withAreaSize(double degrees) throws IllegalArgumentException
+        {
+            checkThat(degrees > 0 && degrees <= 180)
+                .usingMessage("area size must be in (0, 180] degrees")
+                .is(trueStatement());
+
+            this.areaSize = degrees;
+            return this;
+        }
+
+        public AutocompleteCache build()
+        {
+            return build(Clock.systemUTC());
+        }
+
+        AutocompleteCache build(Clock clock)
+        {
+            checkThat(clock)
+                .usingMessage("clock cannot be null")
+                .is(notNull());
+
+            return new AutocompleteCache(this, clock);
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.util.List;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Answers autocomplete lookups from an {@link AutocompleteCache} when it can, and caches the lookups made by the
+ * delegate.
+ *
+ * @author SirWellington
+ */
+@Internal
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+final class AutocompleteCachingYelpAPI implements YelpAPI
+{
+
+    private final YelpAPI delegate;
+    private final AutocompleteCache cache;
+
+    AutocompleteCachingYelpAPI(YelpAPI delegate, AutocompleteCache cache)
+    {
+        checkThat(delegate, cache)
+            .usingMessage("delegate and cache are required")
+            .are(notNull());
+
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId) throws YelpException
+    {
+        return delegate.getBusinessDetails(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        return delegate.searchForBusinesses(request);
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
+    {
+        return delegate.searchForBusinessesWithTotal(request);
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId) throws YelpException
+    {
+        return delegate.getReviewsForBusiness(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        return delegate.searchForBusinessesByPhone(phone);
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        return delegate.matchBusinesses(name, address, coordinate);
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        checkThat(text)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("autocomplete text cannot be empty")
+            .is(nonEmptyString());
+
+        YelpAutocompleteResults cached = cache.lookup(text, coordinate, locale);
+
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        YelpAutocompleteResults results = delegate.getAutocompleteSuggestions(text, coordinate, locale);
+        cache.put(text, coordinate, locale, results);
+
+        return results;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AutocompleteCachingYelpAPI{" + "delegate=" + delegate + ", cache=" + cache + '}';
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Caches full, aligned pages of search results, so that smaller pages can be cut out of them.
+ * <p>
+ * Searches made through {@link #normalizing(tech.redroma.yelp.YelpAPI)} always ask Yelp for
+ * {@value YelpSearchRequest.Builder#MAX_LIMIT} results at an offset that is a multiple of
+ * {@value YelpSearchRequest.Builder#MAX_LIMIT}, and return only the window the caller asked for. So a client paging
+ * through results 10 at a time makes one call for the first five pages instead of five. Pages are only kept briefly,
+ * since the pages around them may change.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class PageCache
+{
+
+    private final Clock clock;
+    private final int maxPages;
+    private final long timeToLiveMillis;
+
+    //Guarded by 'this'
+    private final LinkedHashMap<YelpSearchRequest, Page> pages;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private PageCache(Builder builder, Clock clock)
+    {
+        this.clock = clock;
+        this.maxPages = builder.maxPages;
+        this.timeToLiveMillis = builder.timeToLive.toMillis();
+        this.pages = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static Builder newBuilder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Wraps a {@link YelpAPI} so that its searches fetch full, aligned pages through this cache.
+     *
+     * @param delegate The API to make the calls with.
+     * @return
+     * @throws IllegalArgumentException If the delegate is null.
+     */
+    public YelpAPI normalizing(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new PagingYelpAPI(delegate, this);
+    }
+
+    /**
+     * @return A copy of {@code request} that asks for the full page starting at {@code pageOffset}.
+     */
+    static YelpSearchRequest pageOf(YelpSearchRequest request, int pageOffset)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(request)
+            .withLimit(MAX_LIMIT);
+
+        if (pageOffset > 0)
+        {
+            builder.withOffset(pageOffset);
+        }
+        else
+        {
+            builder.withoutOffset();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param page A request made by {@link #pageOf(tech.redroma.yelp.YelpSearchRequest, int)}.
+     * @return The cached page, or null if it isn't cached.
+     */
+    synchronized YelpSearchResults get(@Required YelpSearchRequest page)
+    {
+        Page cached = pages.get(page);
+
+        if (cached == null || isExpired(cached, clock.millis()))
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return cached.copy();
+    }
+
+    synchronized void put(@Required YelpSearchRequest page, @Optional YelpSearchResults results)
+    {
+        if (results == null)
+        {
+            return;
+        }
+
+        pages.put(page, new Page(results, clock.millis()));
+        evictExpiredAndEldest();
+    }
+
+    /**
+     * @return The number of pages served from the cache.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of pages that had to be fetched.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public synchronized int size()
+    {
+        return pages.size();
+    }
+
+    public synchronized void clear()
+    {
+        pages.clear();
+    }
+
+    private boolean isExpired(Page page, long now)
+    {
+        return now - page.cachedAt >= timeToLiveMillis;
+    }
+
+    private void evictExpiredAndEldest()
+    {
+        long now = clock.millis();
+        Iterator<Page> iterator = pages.values().iterator();
+
+        //Pages are in order of last use, so the eldest come first
+        while (iterator.hasNext())
+        {
+            Page page = iterator.next();
+
+            if (pages.size() <= maxPages && !isExpired(page, now))
+            {
+                break;
+            }
+
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "PageCache{" + "pages=" + pages.size() + ", maxPages=" + maxPages + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+    private static final class Page
+    {
+
+        private final List<YelpBusinessSnapshot> businesses;
+        private final int total;
+        private final long cachedAt;
+
+        private Page(YelpSearchResults results, long cachedAt)
+        {
+            this.total = results.getTotal();
+            this.cachedAt = cachedAt;
+            this.businesses = new ArrayList<>(results.getBusinesses().size());
+
+            for (YelpBusiness business : results.getBusinesses())
+            {
+                if (business != null)
+                {
+                    businesses.add(YelpBusinessSnapshot.of(business));
+                }
+            }
+        }
+
+        private YelpSearchResults copy()
+        {
+            List<YelpBusiness> copies = new ArrayList<>(businesses.size());
+            businesses.forEach(business -> copies.add(business.toBusiness()));
+
+            return YelpSearchResults.of(copies, total);
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        public static final int DEFAULT_MAX_PAGES = 500;
+
+        public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(2);
+
+        private int maxPages = DEFAULT_MAX_PAGES;
+        private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Sets the number of pages kept. Once full, the least recently used are dropped.
+         */
+        public Builder withMaxPages(@Positive int maxPages) throws IllegalArgumentException
+        {
+            checkThat(maxPages)
+                .usingMessage("max pages must be > 0")
+                .is(positiveInteger());
+
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * Sets how long cached pages are used for.
+         */
+        public Builder withTimeToLive(@Required Duration timeToLive) throws IllegalArgumentException
+        {
+            checkThat(timeToLive)
+                .usingMessage("time to live cannot be null")
+                .is(notNull());
+
+            checkThat(!timeToLive.isNegative() && !timeToLive.isZero())
+                .usingMessage("time to live must be positive")
+                .is(trueStatement());
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public PageCache build()
+        {
+            return build(Clock.systemUTC());
+        }
+
+        PageCache build(Clock clock)
+        {
+            checkThat(clock)
+                .usingMessage("clock cannot be null")
+                .is(notNull());
+
+            return new PageCache(this, clock);
+        }
+
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.redroma.yelp.YelpSearchResults.UNKNOWN_TOTAL;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Answers each search by cutting its page out of the full, aligned pages around it, fetched through a
+ * {@link PageCache}.
+ *
+ * @author SirWellington
+ */
+@Internal
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+final class PagingYelpAPI implements YelpAPI
+{
+
+    private final YelpAPI delegate;
+    private final PageCache cache;
+
+    PagingYelpAPI(YelpAPI delegate, PageCache cache)
+    {
+        checkThat(delegate, cache)
+            .usingMessage("delegate and cache are required")
+            .are(notNull());
+
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId) throws YelpException
+    {
+        return delegate.getBusinessDetails(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        return searchForBusinessesWithTotal(request).getBusinesses();
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
+    {
+        checkThat(request)
+            .usingMessage("request cannot be null")
+            .is(notNull());
+
+        int offset = request.hasOffset() ? request.getOffset() : 0;
+        int limit = request.hasLimit() ? request.getLimit() : SearchCache.DEFAULT_LIMIT;
+        int end = offset + limit;
+
+        List<YelpBusiness> window = new ArrayList<>(limit);
+        int total = UNKNOWN_TOTAL;
+
+        //Yelp returns nothing past MAX_OFFSET, so the last page starts before it
+        for (int pageOffset = offset - offset % MAX_LIMIT; pageOffset < end && pageOffset < MAX_OFFSET; pageOffset += MAX_LIMIT)
+        {
+            YelpSearchResults page = pageAt(request, pageOffset);
+            List<YelpBusiness> businesses = page.getBusinesses();
+
+            if (page.hasTotal())
+            {
+                total = page.getTotal();
+            }
+
+            int from = Math.max(offset - pageOffset, 0);
+            int to = Math.min(end - pageOffset, businesses.size());
+
+            if (from < to)
+            {
+                window.addAll(businesses.subList(from, to));
+            }
+
+            //A short page is the last one
+            if (businesses.size() < MAX_LIMIT)
+            {
+                break;
+            }
+        }
+
+        return YelpSearchResults.of(window, total);
+    }
+
+    private YelpSearchResults pageAt(YelpSearchRequest request, int pageOffset)
+    {
+        YelpSearchRequest page = PageCache.pageOf(request, pageOffset);
+        YelpSearchResults cached = cache.get(page);
+
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        YelpSearchResults results = delegate.searchForBusinessesWithTotal(page);
+
+        if (results == null)
+        {
+            return YelpSearchResults.withoutTotal(null);
+        }
+
+        cache.put(page, results);
+        return results;
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId) throws YelpException
+    {
+        return delegate.getReviewsForBusiness(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        return delegate.searchForBusinessesByPhone(phone);
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        return delegate.matchBusinesses(name, address, coordinate);
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        return delegate.getAutocompleteSuggestions(text, coordinate, locale);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PagingYelpAPI{" + "delegate=" + delegate + ", cache=" + cache + '}';
+    }
+
+}
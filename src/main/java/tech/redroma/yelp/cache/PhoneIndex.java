@@ -0,0 +1,529 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+
+/**
+ * An in-memory index of businesses by phone number, for answering
+ * {@linkplain YelpAPI#searchForBusinessesByPhone(java.lang.String) phone searches} without calling Yelp.
+ * <p>
+ * Numbers are kept in <a href="https://en.wikipedia.org/wiki/E.164">E.164</a> form, so {@code (415) 908-3801},
+ * {@code 1-415-908-3801} and {@code +14159083801} all find the same businesses. Numbers written without a country code
+ * are taken to be in the {@linkplain #newInstance(int) default country}.
+ * <p>
+ * Each business records when it was last added, and {@link #evictOlderThan(java.time.Duration) } drops stale entries.
+ * <p>
+ * To populate the index from every search and details response, and answer phone searches from it, see
+ * {@link #indexing(tech.redroma.yelp.YelpAPI) }.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class PhoneIndex
+{
+
+    /** The country code of numbers written without one: the United States and Canada. */
+    public static final int DEFAULT_COUNTRY_CODE = 1;
+
+    //E.164 numbers have at most 15 digits, and in practice at least 8
+    private static final int MIN_DIGITS = 8;
+    private static final int MAX_DIGITS = 15;
+
+    private final Clock clock;
+    private final int defaultCountryCode;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<String, Entry>> entriesByPhone = new HashMap<>();
+    private final Map<String, String> phonesById = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    PhoneIndex(int defaultCountryCode, Clock clock)
+    {
+        checkThat(defaultCountryCode)
+            .usingMessage("country code must be between 1 and 999")
+            .is(greaterThanOrEqualTo(1))
+            .is(lessThanOrEqualTo(999));
+
+        checkThat(clock)
+            .usingMessage("clock cannot be null")
+            .is(notNull());
+
+        this.defaultCountryCode = defaultCountryCode;
+        this.clock = clock;
+    }
+
+    /**
+     * @return An index that reads numbers without a country code as {@linkplain #DEFAULT_COUNTRY_CODE North American}.
+     */
+    public static PhoneIndex newInstance()
+    {
+        return newInstance(DEFAULT_COUNTRY_CODE);
+    }
+
+    /**
+     * @param defaultCountryCode The country code of numbers written without one, such as {@code 44} for the United Kingdom.
+     * @return
+     * @throws IllegalArgumentException If the country code is not between 1 and 999.
+     */
+    public static PhoneIndex newInstance(int defaultCountryCode) throws IllegalArgumentException
+    {
+        return new PhoneIndex(defaultCountryCode, Clock.systemUTC());
+    }
+
+    /**
+     * Wraps a {@link YelpAPI} so that every business returned by searches and details lookups is added to this index, and
+     * phone searches for numbers in the index are answered without a call.
+     * <p>
+     * Phone searches for numbers that aren't in the index are made with the number in E.164 form, and their results are
+     * added too.
+     *
+     * @param delegate The API to make the calls with.
+     * @return
+     * @throws IllegalArgumentException If the delegate is null.
+     */
+    public YelpAPI indexing(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new PhoneIndexingYelpAPI(delegate, this);
+    }
+
+    /**
+     * Converts a phone number to E.164 form. Spaces, punctuation, a {@code (0)} trunk prefix, and anything after the first
+     * letter (such as an extension) are ignored. International numbers may start with {@code +}, {@code 00}, or
+     * {@code 011}; others are taken to be in the default country, with any trunk prefix dropped.
+     *
+     * @param phone The phone number, as written.
+     * @return The number in E.164 form, such as {@code +14159083801}, or null if it isn't a phone number.
+     */
+    public String normalize(@Optional String phone)
+    {
+        return toE164(phone, defaultCountryCode);
+    }
+
+    /**
+     * Adds or replaces a business. Businesses without an id or a phone number are ignored.
+     *
+     * @param business The business to add.
+     * @return Whether the business was added.
+     */
+    public boolean add(@Optional YelpBusiness business)
+    {
+        if (business == null || isNullOrEmpty(business.id))
+        {
+            return false;
+        }
+
+        String phone = normalize(business.phone);
+
+        if (phone == null)
+        {
+            return false;
+        }
+
+        Entry entry = new Entry(YelpBusinessSnapshot.of(business), clock.millis());
+
+        lock.writeLock().lock();
+        try
+        {
+            release(business.id);
+            entriesByPhone.computeIfAbsent(phone, p -> new LinkedHashMap<>(2)).put(business.id, entry);
+            phonesById.put(business.id, phone);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds or replaces the business described by {@code details}. Details without an id or a phone number are ignored.
+     *
+     * @param details The details to add.
+     * @return Whether the business was added.
+     */
+    public boolean add(@Optional YelpBusinessDetails details)
+    {
+        if (details == null)
+        {
+            return false;
+        }
+
+        YelpBusiness business = new YelpBusiness();
+        business.id = details.id;
+        business.name = details.name;
+        business.url = details.url;
+        business.rating = details.rating;
+        business.phone = details.phone;
+        business.isClosed = details.isClosed;
+        business.categories = details.categories;
+        business.reviewCount = details.reviewCount;
+        business.coordinates = details.coordinates;
+        business.location = details.location;
+        business.imageURL = details.imageURL;
+
+        return add(business);
+    }
+
+    /**
+     * @param businesses The businesses to add. Businesses without an id or a phone number are ignored.
+     * @return The number of businesses added.
+     */
+    public int addAll(@Optional List<YelpBusiness> businesses)
+    {
+        if (businesses == null)
+        {
+            return 0;
+        }
+
+        int added = 0;
+
+        for (YelpBusiness business : businesses)
+        {
+            added += add(business) ? 1 : 0;
+        }
+
+        return added;
+    }
+
+    /**
+     * @return Whether a business with this id was removed.
+     */
+    public boolean remove(@Optional String businessId)
+    {
+        if (businessId == null)
+        {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            return release(businessId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the businesses known to be listed under a phone number, in the order they were first added. Each call
+     * returns new copies, without the {@linkplain YelpBusiness#distance distance} of the search they came from.
+     *
+     * @param phone The phone number, in any form {@link #normalize(java.lang.String) } understands.
+     * @return The businesses, or an empty list if there are none.
+     */
+    public List<YelpBusiness> lookup(@Optional String phone)
+    {
+        String normalized = normalize(phone);
+        List<YelpBusiness> results = new ArrayList<>();
+
+        if (normalized != null)
+        {
+            lock.readLock().lock();
+            try
+            {
+                Map<String, Entry> entries = entriesByPhone.get(normalized);
+
+                if (entries != null)
+                {
+                    entries.values().forEach(entry -> results.add(entry.toBusiness()));
+                }
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+
+        if (results.isEmpty())
+        {
+            misses.incrementAndGet();
+        }
+        else
+        {
+            hits.incrementAndGet();
+        }
+
+        return results;
+    }
+
+    /**
+     * Removes every business added longer ago than {@code maxAge}.
+     *
+     * @return The number of businesses removed.
+     * @throws IllegalArgumentException If {@code maxAge} is null or negative.
+     */
+    public int evictOlderThan(@Required Duration maxAge) throws IllegalArgumentException
+    {
+        checkThat(maxAge)
+            .usingMessage("maxAge cannot be null")
+            .is(notNull());
+
+        checkThat(maxAge.isNegative())
+            .usingMessage("maxAge cannot be negative")
+            .is(falseStatement());
+
+        long oldestAllowed = clock.millis() - maxAge.toMillis();
+        int removed = 0;
+
+        lock.writeLock().lock();
+        try
+        {
+            Iterator<Map<String, Entry>> phones = entriesByPhone.values().iterator();
+
+            while (phones.hasNext())
+            {
+                Map<String, Entry> entries = phones.next();
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+                while (iterator.hasNext())
+                {
+                    Map.Entry<String, Entry> next = iterator.next();
+
+                    if (next.getValue().addedAt < oldestAllowed)
+                    {
+                        iterator.remove();
+                        phonesById.remove(next.getKey());
+                        ++removed;
+                    }
+                }
+
+                if (entries.isEmpty())
+                {
+                    phones.remove();
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return removed;
+    }
+
+    /**
+     * @return The number of businesses in the index.
+     */
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return phonesById.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    public void clear()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            entriesByPhone.clear();
+            phonesById.clear();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of lookups that found at least one business.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of lookups that found no businesses.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PhoneIndex{" + "defaultCountryCode=" + defaultCountryCode + ", size=" + size() + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private boolean release(String businessId)
+    {
+        String phone = phonesById.remove(businessId);
+
+        if (phone == null)
+        {
+            return false;
+        }
+
+        Map<String, Entry> entries = entriesByPhone.get(phone);
+        entries.remove(businessId);
+
+        if (entries.isEmpty())
+        {
+            entriesByPhone.remove(phone);
+        }
+
+        return true;
+    }
+
+    static String toE164(String phone, int defaultCountryCode)
+    {
+        if (isNullOrEmpty(phone))
+        {
+            return null;
+        }
+
+        //A trunk prefix written as "(0)", as in +44 (0)20 7946 0958, isn't dialled
+        phone = phone.replace("(0)", "");
+
+        StringBuilder digits = new StringBuilder(MAX_DIGITS);
+        boolean international = false;
+
+        for (int i = 0; i < phone.length(); ++i)
+        {
+            char character = phone.charAt(i);
+
+            if (Character.isLetter(character))
+            {
+                break;
+            }
+
+            if (character >= '0' && character <= '9')
+            {
+                digits.append(character);
+            }
+            else if (character == '+' && digits.length() == 0)
+            {
+                international = true;
+            }
+        }
+
+        String number = digits.toString();
+
+        if (!international && number.startsWith("00"))
+        {
+            number = number.substring(2);
+            international = true;
+        }
+        else if (!international && defaultCountryCode == 1 && number.startsWith("011"))
+        {
+            number = number.substring(3);
+            international = true;
+        }
+
+        if (!international)
+        {
+            number = nationalToE164(number, defaultCountryCode);
+        }
+
+        if (number == null || number.length() < MIN_DIGITS || number.length() > MAX_DIGITS || number.charAt(0) == '0')
+        {
+            return null;
+        }
+
+        return "+" + number;
+    }
+
+    private static String nationalToE164(String number, int countryCode)
+    {
+        if (countryCode == 1)
+        {
+            //North American numbers are ten digits, sometimes written after a leading 1
+            if (number.length() == 11 && number.charAt(0) == '1')
+            {
+                number = number.substring(1);
+            }
+
+            return number.length() == 10 ? "1" + number : null;
+        }
+
+        //Elsewhere, a leading 0 is the trunk prefix, which isn't dialled from abroad
+        if (number.startsWith("0"))
+        {
+            number = number.substring(1);
+        }
+
+        return number.isEmpty() ? null : countryCode + number;
+    }
+
+    private static final class Entry
+    {
+
+        private final YelpBusinessSnapshot business;
+        private final long addedAt;
+
+        Entry(YelpBusinessSnapshot business, long addedAt)
+        {
+            this.business = business;
+            this.addedAt = addedAt;
+        }
+
+        YelpBusiness toBusiness()
+        {
+            YelpBusiness copy = business.toBusiness();
+            copy.distance = null;
+            return copy;
+        }
+
+    }
+
+}
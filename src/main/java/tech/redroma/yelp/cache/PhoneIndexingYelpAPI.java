@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.util.List;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Adds every business returned by the delegate to a {@link PhoneIndex}, and answers phone searches from it when it
+ * can.
+ *
+ * @author SirWellington
+ */
+@Internal
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+final class PhoneIndexingYelpAPI implements YelpAPI
+{
+
+    private final YelpAPI delegate;
+    private final PhoneIndex index;
+
+    PhoneIndexingYelpAPI(YelpAPI delegate, PhoneIndex index)
+    {
+        checkThat(delegate, index)
+            .usingMessage("delegate and index are required")
+            .are(notNull());
+
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId) throws YelpException
+    {
+        YelpBusinessDetails details = delegate.getBusinessDetails(businessId);
+        index.add(details);
+        return details;
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        List<YelpBusiness> results = delegate.searchForBusinesses(request);
+        index.addAll(results);
+        return results;
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
+    {
+        YelpSearchResults results = delegate.searchForBusinessesWithTotal(request);
+        index.addAll(results.getBusinesses());
+        return results;
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId) throws YelpException
+    {
+        return delegate.getReviewsForBusiness(businessId);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        String normalized = index.normalize(phone);
+
+        checkThat(normalized)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("not a phone number: " + phone)
+            .is(notNull());
+
+        List<YelpBusiness> known = index.lookup(normalized);
+
+        if (!known.isEmpty())
+        {
+            return known;
+        }
+
+        List<YelpBusiness> results = delegate.searchForBusinessesByPhone(normalized);
+        index.addAll(results);
+        return results;
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        List<YelpBusiness> results = delegate.matchBusinesses(name, address, coordinate);
+        index.addAll(results);
+        return results;
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        return delegate.getAutocompleteSuggestions(text, coordinate, locale);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PhoneIndexingYelpAPI{" + "delegate=" + delegate + ", index=" + index + '}';
+    }
+
+}
@@ -0,0 +1,532 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.SortType.DISTANCE;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Caches search results, and answers a search from a cached one that contains it.
+ * <p>
+ * A repeated search is answered from the cache as-is. A search {@linkplain YelpSearchRequest.SortType#DISTANCE sorted by
+ * distance} can also be answered from a cached search with the same term, categories, prices, attributes, locale and
+ * hours, when the cached results include every business the new search could return. A cached search is known to hold
+ * every matching business in:
+ * <ul>
+ * <li>All of its circle, if it returned fewer results than it asked for.
+ * <li>Otherwise, if it was itself sorted by distance, the circle out to its farthest result.
+ * </ul>
+ * A new search can be answered if its circle lies inside that known part, or if enough known businesses lie inside both
+ * to fill its page. So a cached search at 5km with {@code limit=50} answers the same search at 2km, or with
+ * {@code limit=20}, or often from a point nearby, without a round trip. The answer is filtered to the new circle,
+ * re-sorted by distance from the new center, and paged by the new limit and offset.
+ * <p>
+ * Searches by address can only be answered by an identical search. Cached results are kept as
+ * {@linkplain YelpBusinessSnapshot snapshots}, and each answer is a fresh copy that callers may change freely.
+ *
+ * @author SirWellington
+ * @see #caching(tech.redroma.yelp.YelpAPI)
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class SearchCache
+{
+
+    /** The number of results Yelp returns when a search doesn't set a limit. */
+    static final int DEFAULT_LIMIT = 20;
+
+    private final Clock clock;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+
+    //Guarded by 'this'
+    private final LinkedHashMap<YelpSearchRequest, Entry> entries;
+    private final Map<Shape, Set<Entry>> entriesByShape = new HashMap<>();
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong containedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private SearchCache(Builder builder, Clock clock)
+    {
+        this.clock = clock;
+        this.maxEntries = builder.maxEntries;
+        this.timeToLiveMillis = builder.timeToLive.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static Builder newBuilder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Wraps a {@link YelpAPI} so that its searches are answered from this cache when possible, and cached otherwise.
+     *
+     * @param delegate The API to make the calls with.
+     * @return
+     * @throws IllegalArgumentException If the delegate is null.
+     */
+    public YelpAPI caching(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new CachingYelpAPI(delegate, this);
+    }
+
+    /**
+     * Answers a search from the cache.
+     *
+     * @param request The search.
+     * @return The results, or null if the cache can't answer the search.
+     */
+    synchronized YelpSearchResults lookup(@Required YelpSearchRequest request)
+    {
+        long now = clock.millis();
+        Entry exact = entries.get(request);
+
+        if (exact != null && !isExpired(exact, now))
+        {
+            exactHits.incrementAndGet();
+            return exact.answerAsIs();
+        }
+
+        if (isContainable(request))
+        {
+            Coordinate center = Coordinate.of(request.getLatitude(), request.getLongitude());
+            int radius = request.getRadius();
+
+            for (Entry entry : entriesByShape.getOrDefault(new Shape(request), Collections.emptySet()))
+            {
+                YelpSearchResults answer = isExpired(entry, now) ? null : entry.answer(center, radius, limitOf(request), offsetOf(request));
+
+                if (answer != null)
+                {
+                    containedHits.incrementAndGet();
+
+                    //Counts as a use of the cached search, so it is kept over ones that aren't used
+                    entries.get(entry.request);
+
+                    return answer;
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the results of a search.
+     */
+    synchronized void put(@Required YelpSearchRequest request, @Optional YelpSearchResults results)
+    {
+        if (results == null)
+        {
+            return;
+        }
+
+        Entry entry = new Entry(request, results, clock.millis());
+
+        remove(entries.put(request, entry));
+
+        if (entry.knownRadius > 0)
+        {
+            entriesByShape.computeIfAbsent(new Shape(request), shape -> new LinkedHashSet<>()).add(entry);
+        }
+
+        evictExpiredAndEldest();
+    }
+
+    /**
+     * @return The number of searches answered by an identical cached search.
+     */
+    public long getExactHits()
+    {
+        return exactHits.get();
+    }
+
+    /**
+     * @return The number of searches answered by a cached search that contains them.
+     */
+    public long getContainedHits()
+    {
+        return containedHits.get();
+    }
+
+    /**
+     * @return The number of searches the cache couldn't answer.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+        entriesByShape.clear();
+    }
+
+    private boolean isExpired(Entry entry, long now)
+    {
+        return now - entry.cachedAt >= timeToLiveMillis;
+    }
+
+    private void evictExpiredAndEldest()
+    {
+        long now = clock.millis();
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        //Entries are in order of last use, so the eldest come first
+        while (iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+
+            if (entries.size() <= maxEntries && !isExpired(entry, now))
+            {
+                break;
+            }
+
+            iterator.remove();
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry)
+    {
+        if (entry == null)
+        {
+            return;
+        }
+
+        Shape shape = new Shape(entry.request);
+        Set<Entry> sameShape = entriesByShape.get(shape);
+
+        if (sameShape != null)
+        {
+            sameShape.remove(entry);
+
+            if (sameShape.isEmpty())
+            {
+                entriesByShape.remove(shape);
+            }
+        }
+    }
+
+    private static boolean isContainable(YelpSearchRequest request)
+    {
+        return !request.hasLocation() &&
+               request.hasLatitude() &&
+               request.hasLongitude() &&
+               request.hasRadius() &&
+               DISTANCE.text.equals(request.getSortBy());
+    }
+
+    private static int limitOf(YelpSearchRequest request)
+    {
+        return request.hasLimit() ? request.getLimit() : DEFAULT_LIMIT;
+    }
+
+    private static int offsetOf(YelpSearchRequest request)
+    {
+        return request.hasOffset() ? request.getOffset() : 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "SearchCache{" + "entries=" + entries.size() + ", maxEntries=" + maxEntries + ", exactHits=" + exactHits + ", containedHits=" + containedHits + ", misses=" + misses + '}';
+    }
+
+    /**
+     * The parts of a search that decide which businesses match, apart from where it is.
+     */
+    private static final class Shape
+    {
+
+        private final String searchTerm;
+        private final String categories;
+        private final String locale;
+        private final String prices;
+        private final Boolean openNow;
+        private final Integer openAt;
+        private final String attributes;
+
+        private Shape(YelpSearchRequest request)
+        {
+            this.searchTerm = request.getSearchTerm();
+            this.categories = request.getCategories();
+            this.locale = request.getLocale();
+            this.prices = request.getPrices();
+            this.openNow = request.getOpenNow();
+            this.openAt = request.getOpenAt();
+            this.attributes = request.getAttributes();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(searchTerm, categories, locale, prices, openNow, openAt, attributes);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Shape other = (Shape) obj;
+            return Objects.equals(this.searchTerm, other.searchTerm) &&
+                   Objects.equals(this.categories, other.categories) &&
+                   Objects.equals(this.locale, other.locale) &&
+                   Objects.equals(this.prices, other.prices) &&
+                   Objects.equals(this.openNow, other.openNow) &&
+                   Objects.equals(this.openAt, other.openAt) &&
+                   Objects.equals(this.attributes, other.attributes);
+        }
+
+    }
+
+    private static final class Entry
+    {
+
+        private final YelpSearchRequest request;
+        private final List<YelpBusinessSnapshot> businesses;
+        private final int total;
+        private final long cachedAt;
+
+        /** Every matching business this close to the center is in the results, or {@code -1} if that isn't known. */
+        private final double knownRadius;
+
+        /** Whether a business exactly {@link #knownRadius} away is known to be in the results. */
+        private final boolean knownRadiusIsInclusive;
+
+        private Entry(YelpSearchRequest request, YelpSearchResults results, long cachedAt)
+        {
+            this.request = request;
+            this.total = results.getTotal();
+            this.cachedAt = cachedAt;
+
+            List<YelpBusinessSnapshot> snapshots = new ArrayList<>(results.getBusinesses().size());
+            boolean allHaveCoordinates = true;
+
+            for (YelpBusiness business : results.getBusinesses())
+            {
+                if (business != null)
+                {
+                    snapshots.add(YelpBusinessSnapshot.of(business));
+                    allHaveCoordinates &= business.coordinates != null;
+                }
+            }
+
+            this.businesses = snapshots;
+
+            boolean coversArea = !request.hasLocation() &&
+                                 request.hasLatitude() &&
+                                 request.hasLongitude() &&
+                                 request.hasRadius() &&
+                                 offsetOf(request) == 0 &&
+                                 allHaveCoordinates;
+
+            boolean exhausted = snapshots.size() < limitOf(request) || (results.hasTotal() && snapshots.size() >= total);
+
+            if (coversArea && exhausted)
+            {
+                this.knownRadius = request.getRadius();
+                this.knownRadiusIsInclusive = true;
+            }
+            else if (coversArea && DISTANCE.text.equals(request.getSortBy()) && !snapshots.isEmpty())
+            {
+                Coordinate center = Coordinate.of(request.getLatitude(), request.getLongitude());
+
+                //Businesses as far as the last one may have been cut off by the limit
+                this.knownRadius = snapshots.stream()
+                    .mapToDouble(business -> GeoMath.distanceInMeters(center, business.getCoordinates()))
+                    .max()
+                    .orElse(-1);
+                this.knownRadiusIsInclusive = false;
+            }
+            else
+            {
+                this.knownRadius = -1;
+                this.knownRadiusIsInclusive = false;
+            }
+        }
+
+        private YelpSearchResults answerAsIs()
+        {
+            List<YelpBusiness> copies = new ArrayList<>(businesses.size());
+            businesses.forEach(business -> copies.add(business.toBusiness()));
+
+            return YelpSearchResults.of(copies, total);
+        }
+
+        /**
+         * Answers a search sorted by distance, if this entry holds every business it could return.
+         * <p>
+         * Every business within {@code knownRadius} of this entry's center is known, so every business within
+         * {@code knownRadius - d} of a center {@code d} away is known too. That answers the search if its whole circle
+         * is inside, or if enough of the known businesses are inside to fill the page; either way, no unknown business
+         * could be nearer than the ones returned.
+         *
+         * @return The answer, or null if this entry can't answer the search.
+         */
+        private YelpSearchResults answer(Coordinate center, int radius, int limit, int offset)
+        {
+            if (knownRadius <= 0)
+            {
+                return null;
+            }
+
+            Coordinate cachedCenter = Coordinate.of(request.getLatitude(), request.getLongitude());
+            double knownAroundCenter = knownRadius - GeoMath.distanceInMeters(cachedCenter, center);
+            boolean coversCircle = knownRadiusIsInclusive ? radius <= knownAroundCenter : radius < knownAroundCenter;
+
+            List<YelpBusiness> matches = new ArrayList<>();
+
+            for (YelpBusinessSnapshot snapshot : businesses)
+            {
+                double distance = GeoMath.distanceInMeters(center, snapshot.getCoordinates());
+                boolean known = coversCircle || distance < knownAroundCenter;
+
+                if (distance <= radius && known)
+                {
+                    YelpBusiness business = snapshot.toBusiness();
+                    business.distance = distance;
+                    matches.add(business);
+                }
+            }
+
+            if (!coversCircle && matches.size() < offset + limit)
+            {
+                return null;
+            }
+
+            matches.sort(Comparator.comparingDouble(business -> business.distance));
+
+            int from = Math.min(offset, matches.size());
+            int to = Math.min(from + limit, matches.size());
+            List<YelpBusiness> page = new ArrayList<>(matches.subList(from, to));
+
+            return coversCircle ? YelpSearchResults.of(page, matches.size()) : YelpSearchResults.withoutTotal(page);
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        public static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+        public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Sets the number of searches kept. Once full, the least recently used are dropped.
+         */
+        public Builder withMaxEntries(@Positive int maxEntries) throws IllegalArgumentException
+        {
+            checkThat(maxEntries)
+                .usingMessage("max entries must be > 0")
+                .is(positiveInteger());
+
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets how long cached results are used for.
+         */
+        public Builder withTimeToLive(@Required Duration timeToLive) throws IllegalArgumentException
+        {
+            checkThat(timeToLive)
+                .usingMessage("time to live cannot be null")
+                .is(notNull());
+
+            checkThat(!timeToLive.isNegative() && !timeToLive.isZero())
+                .usingMessage("time to live must be positive")
+                .is(trueStatement());
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public SearchCache build()
+        {
+            return build(Clock.systemUTC());
+        }
+
+        SearchCache build(Clock clock)
+        {
+            checkThat(clock)
+                .usingMessage("clock cannot be null")
+                .is(notNull());
+
+            return new SearchCache(this, clock);
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a message directly out of a {@link ByteBuffer}. Strings in the table are decoded straight from the buffer's
+ * backing array when it has one.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadUnsafe
+final class BinaryReader
+{
+
+    private final ByteBuffer buffer;
+    private final String[] strings;
+
+    private BinaryReader(ByteBuffer buffer, String[] strings)
+    {
+        this.buffer = buffer;
+        this.strings = strings;
+    }
+
+    /**
+     * Reads and validates the header and string table of a message.
+     *
+     * @throws IllegalArgumentException If the header does not match.
+     * @throws BufferUnderflowException If the message is truncated.
+     */
+    static BinaryReader open(ByteBuffer buffer, int expectedType) throws IllegalArgumentException, BufferUnderflowException
+    {
+        if (buffer.get() != YelpCodec.MAGIC_FIRST || buffer.get() != YelpCodec.MAGIC_SECOND)
+        {
+            throw new IllegalArgumentException("not a Yelp codec message");
+        }
+
+        int version = readVarInt(buffer);
+
+        if (version != YelpCodec.VERSION)
+        {
+            throw new IllegalArgumentException("unsupported codec version: " + version);
+        }
+
+        int type = readVarInt(buffer);
+
+        if (type != expectedType)
+        {
+            throw new IllegalArgumentException("expected message type " + expectedType + " but found " + type);
+        }
+
+        int count = readVarInt(buffer);
+
+        if (count < 0 || count > buffer.remaining())
+        {
+            throw new IllegalArgumentException("invalid string table size: " + count);
+        }
+
+        String[] strings = new String[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            strings[i] = readUtf8(buffer, readVarInt(buffer));
+        }
+
+        return new BinaryReader(buffer, strings);
+    }
+
+    int readVarInt()
+    {
+        return readVarInt(buffer);
+    }
+
+    /**
+     * Reads the number of elements in a list. Each element takes at least a byte, so a count larger than what is left in
+     * the buffer can only come from a corrupt message.
+     *
+     * @throws IllegalArgumentException If the count is negative, or larger than the rest of the buffer.
+     */
+    int readCount() throws IllegalArgumentException
+    {
+        int count = readVarInt(buffer);
+
+        if (count < 0 || count > buffer.remaining())
+        {
+            throw new IllegalArgumentException("invalid element count: " + count);
+        }
+
+        return count;
+    }
+
+    int readSignedVarInt()
+    {
+        int value = readVarInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    double readDouble()
+    {
+        return Double.longBitsToDouble(buffer.getLong());
+    }
+
+    String readString()
+    {
+        return strings[readVarInt(buffer)];
+    }
+
+    private static int readVarInt(ByteBuffer buffer)
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            byte next = buffer.get();
+            value |= (next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length)
+    {
+        if (length < 0 || length > buffer.remaining())
+        {
+            throw new BufferUnderflowException();
+        }
+
+        String result;
+
+        if (buffer.hasArray())
+        {
+            result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        else
+        {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            result = new String(bytes, UTF_8);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the body of a single message, collecting the Strings it references into a table that is written ahead of the
+ * body by {@link #toMessage(int) }.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadUnsafe
+final class BinaryWriter
+{
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private byte[] body = new byte[256];
+    private int length = 0;
+
+    void writeVarInt(int value)
+    {
+        ensureCapacity(5);
+
+        while ((value & ~0x7F) != 0)
+        {
+            body[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        body[length++] = (byte) value;
+    }
+
+    void writeSignedVarInt(int value)
+    {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeDouble(double value)
+    {
+        ensureCapacity(8);
+
+        long bits = Double.doubleToRawLongBits(value);
+
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            body[length++] = (byte) (bits >>> shift);
+        }
+    }
+
+    void writeString(String value)
+    {
+        Integer index = stringIndexes.get(value);
+
+        if (index == null)
+        {
+            index = strings.size();
+            strings.add(value);
+            stringIndexes.put(value, index);
+        }
+
+        writeVarInt(index);
+    }
+
+    byte[] toMessage(int type)
+    {
+        BinaryWriter header = new BinaryWriter();
+        header.ensureCapacity(4);
+        header.body[header.length++] = YelpCodec.MAGIC_FIRST;
+        header.body[header.length++] = YelpCodec.MAGIC_SECOND;
+        header.writeVarInt(YelpCodec.VERSION);
+        header.writeVarInt(type);
+        header.writeVarInt(strings.size());
+
+        for (String string : strings)
+        {
+            byte[] bytes = string.getBytes(UTF_8);
+            header.writeVarInt(bytes.length);
+            header.ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, header.body, header.length, bytes.length);
+            header.length += bytes.length;
+        }
+
+        byte[] message = Arrays.copyOf(header.body, header.length + length);
+        System.arraycopy(body, 0, message, header.length, length);
+        return message;
+    }
+
+    private void ensureCapacity(int additional)
+    {
+        int required = length + additional;
+
+        if (required > body.length)
+        {
+            body = Arrays.copyOf(body, Math.max(required, body.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,938 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A compact, versioned binary format for the Yelp model objects, intended for caching and persisting results.
+ * <p>
+ * Each message starts with a small header and a table of the distinct Strings it contains. Objects refer to those Strings
+ * by index, so repeated values such as cities and categories are only stored once. Integers are written as varints,
+ * {@linkplain Coordinate coordinates} and ratings as raw doubles, and each object starts with a bit mask of the optional
+ * fields that are present.
+ * <p>
+ * Decoding reads directly from the provided {@link ByteBuffer}, without first copying it into an array. The buffer's
+ * position is advanced past the message.
+ * <p>
+ * Null elements inside lists are not preserved, and are skipped when encoding.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class YelpCodec
+{
+
+    /** The version of the format written by this codec. */
+    public static final int VERSION = 1;
+
+    static final byte MAGIC_FIRST = 'Y';
+    static final byte MAGIC_SECOND = 'C';
+
+    static final int TYPE_BUSINESSES = 1;
+    static final int TYPE_DETAILS = 2;
+    static final int TYPE_REVIEWS = 3;
+
+    public static YelpCodec newInstance()
+    {
+        return new YelpCodec();
+    }
+
+    YelpCodec()
+    {
+    }
+
+    public byte[] encode(@Required YelpBusiness business) throws IllegalArgumentException
+    {
+        checkThat(business)
+            .usingMessage("business cannot be null")
+            .is(notNull());
+
+        List<YelpBusiness> businesses = new ArrayList<>(1);
+        businesses.add(business);
+
+        return encodeBusinesses(businesses);
+    }
+
+    public byte[] encodeBusinesses(@Required List<YelpBusiness> businesses) throws IllegalArgumentException
+    {
+        checkThat(businesses)
+            .usingMessage("businesses cannot be null")
+            .is(notNull());
+
+        BinaryWriter writer = new BinaryWriter();
+        writeBusinessList(writer, businesses);
+
+        return writer.toMessage(TYPE_BUSINESSES);
+    }
+
+    public byte[] encode(@Required YelpBusinessDetails details) throws IllegalArgumentException
+    {
+        checkThat(details)
+            .usingMessage("details cannot be null")
+            .is(notNull());
+
+        BinaryWriter writer = new BinaryWriter();
+        writeDetails(writer, details);
+
+        return writer.toMessage(TYPE_DETAILS);
+    }
+
+    public byte[] encodeReviews(@Required List<YelpReview> reviews) throws IllegalArgumentException
+    {
+        checkThat(reviews)
+            .usingMessage("reviews cannot be null")
+            .is(notNull());
+
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeVarInt(countNonNull(reviews));
+
+        for (YelpReview review : reviews)
+        {
+            if (review != null)
+            {
+                writeReview(writer, review);
+            }
+        }
+
+        return writer.toMessage(TYPE_REVIEWS);
+    }
+
+    /**
+     * Decodes a message written by {@link #encode(tech.redroma.yelp.YelpBusiness) }.
+     *
+     * @param buffer The buffer to read from.
+     * @return The first business in the message, or {@code null} if it is empty.
+     * @throws YelpBadArgumentException If the buffer does not contain a valid message.
+     */
+    public YelpBusiness decodeBusiness(@Required ByteBuffer buffer) throws YelpBadArgumentException
+    {
+        List<YelpBusiness> businesses = decodeBusinesses(buffer);
+        return businesses.isEmpty() ? null : businesses.get(0);
+    }
+
+    public List<YelpBusiness> decodeBusinesses(@Required ByteBuffer buffer) throws YelpBadArgumentException
+    {
+        BinaryReader reader = openMessage(buffer, TYPE_BUSINESSES);
+
+        try
+        {
+            return readBusinessList(reader);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            throw new YelpBadArgumentException("corrupt business message", ex);
+        }
+    }
+
+    public YelpBusinessDetails decodeDetails(@Required ByteBuffer buffer) throws YelpBadArgumentException
+    {
+        BinaryReader reader = openMessage(buffer, TYPE_DETAILS);
+
+        try
+        {
+            return readDetails(reader);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            throw new YelpBadArgumentException("corrupt business details message", ex);
+        }
+    }
+
+    public List<YelpReview> decodeReviews(@Required ByteBuffer buffer) throws YelpBadArgumentException
+    {
+        BinaryReader reader = openMessage(buffer, TYPE_REVIEWS);
+
+        try
+        {
+            int count = reader.readCount();
+            List<YelpReview> reviews = new ArrayList<>(count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                reviews.add(readReview(reader));
+            }
+
+            return reviews;
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            throw new YelpBadArgumentException("corrupt reviews message", ex);
+        }
+    }
+
+    private BinaryReader openMessage(ByteBuffer buffer, int expectedType)
+    {
+        checkThat(buffer)
+            .usingMessage("buffer cannot be null")
+            .is(notNull());
+
+        try
+        {
+            return BinaryReader.open(buffer, expectedType);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            throw new YelpBadArgumentException("corrupt message header", ex);
+        }
+    }
+
+    //==========================================
+    // BUSINESS
+    //==========================================
+
+    private static final int BUSINESS_ID = 1;
+    private static final int BUSINESS_NAME = 1 << 1;
+    private static final int BUSINESS_URL = 1 << 2;
+    private static final int BUSINESS_RATING = 1 << 3;
+    private static final int BUSINESS_PHONE = 1 << 4;
+    private static final int BUSINESS_HAS_IS_CLOSED = 1 << 5;
+    private static final int BUSINESS_IS_CLOSED = 1 << 6;
+    private static final int BUSINESS_CATEGORIES = 1 << 7;
+    private static final int BUSINESS_COORDINATES = 1 << 8;
+    private static final int BUSINESS_LOCATION = 1 << 9;
+    private static final int BUSINESS_IMAGE_URL = 1 << 10;
+    private static final int BUSINESS_DISTANCE = 1 << 11;
+
+    private void writeBusinessList(BinaryWriter writer, List<YelpBusiness> businesses)
+    {
+        writer.writeVarInt(countNonNull(businesses));
+
+        for (YelpBusiness business : businesses)
+        {
+            if (business != null)
+            {
+                writeBusiness(writer, business);
+            }
+        }
+    }
+
+    private List<YelpBusiness> readBusinessList(BinaryReader reader)
+    {
+        int count = reader.readCount();
+        List<YelpBusiness> businesses = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i)
+        {
+            businesses.add(readBusiness(reader));
+        }
+
+        return businesses;
+    }
+
+    private void writeBusiness(BinaryWriter writer, YelpBusiness business)
+    {
+        int presence = 0;
+        presence |= business.id != null ? BUSINESS_ID : 0;
+        presence |= business.name != null ? BUSINESS_NAME : 0;
+        presence |= business.url != null ? BUSINESS_URL : 0;
+        presence |= business.rating != null ? BUSINESS_RATING : 0;
+        presence |= business.phone != null ? BUSINESS_PHONE : 0;
+        presence |= business.isClosed != null ? BUSINESS_HAS_IS_CLOSED : 0;
+        presence |= Boolean.TRUE.equals(business.isClosed) ? BUSINESS_IS_CLOSED : 0;
+        presence |= business.categories != null ? BUSINESS_CATEGORIES : 0;
+        presence |= business.coordinates != null ? BUSINESS_COORDINATES : 0;
+        presence |= business.location != null ? BUSINESS_LOCATION : 0;
+        presence |= business.imageURL != null ? BUSINESS_IMAGE_URL : 0;
+        presence |= business.distance != null ? BUSINESS_DISTANCE : 0;
+
+        writer.writeVarInt(presence);
+
+        if (business.id != null)
+        {
+            writer.writeString(business.id);
+        }
+        if (business.name != null)
+        {
+            writer.writeString(business.name);
+        }
+        if (business.url != null)
+        {
+            writer.writeString(business.url);
+        }
+        if (business.rating != null)
+        {
+            writer.writeDouble(business.rating);
+        }
+        if (business.phone != null)
+        {
+            writer.writeString(business.phone);
+        }
+        if (business.categories != null)
+        {
+            writeCategories(writer, business.categories);
+        }
+
+        writer.writeSignedVarInt(business.reviewCount);
+
+        if (business.coordinates != null)
+        {
+            writeCoordinate(writer, business.coordinates);
+        }
+        if (business.location != null)
+        {
+            writeAddress(writer, business.location);
+        }
+        if (business.imageURL != null)
+        {
+            writer.writeString(business.imageURL);
+        }
+        if (business.distance != null)
+        {
+            writer.writeDouble(business.distance);
+        }
+    }
+
+    private YelpBusiness readBusiness(BinaryReader reader)
+    {
+        int presence = reader.readVarInt();
+        YelpBusiness business = new YelpBusiness();
+
+        if ((presence & BUSINESS_ID) != 0)
+        {
+            business.id = reader.readString();
+        }
+        if ((presence & BUSINESS_NAME) != 0)
+        {
+            business.name = reader.readString();
+        }
+        if ((presence & BUSINESS_URL) != 0)
+        {
+            business.url = reader.readString();
+        }
+        if ((presence & BUSINESS_RATING) != 0)
+        {
+            business.rating = reader.readDouble();
+        }
+        if ((presence & BUSINESS_PHONE) != 0)
+        {
+            business.phone = reader.readString();
+        }
+        if ((presence & BUSINESS_HAS_IS_CLOSED) != 0)
+        {
+            business.isClosed = (presence & BUSINESS_IS_CLOSED) != 0;
+        }
+        if ((presence & BUSINESS_CATEGORIES) != 0)
+        {
+            business.categories = readCategories(reader);
+        }
+
+        business.reviewCount = reader.readSignedVarInt();
+
+        if ((presence & BUSINESS_COORDINATES) != 0)
+        {
+            business.coordinates = readCoordinate(reader);
+        }
+        if ((presence & BUSINESS_LOCATION) != 0)
+        {
+            business.location = readAddress(reader);
+        }
+        if ((presence & BUSINESS_IMAGE_URL) != 0)
+        {
+            business.imageURL = reader.readString();
+        }
+        if ((presence & BUSINESS_DISTANCE) != 0)
+        {
+            business.distance = reader.readDouble();
+        }
+
+        return business;
+    }
+
+    //==========================================
+    // DETAILS
+    //==========================================
+
+    private static final int DETAILS_ID = 1;
+    private static final int DETAILS_NAME = 1 << 1;
+    private static final int DETAILS_IMAGE_URL = 1 << 2;
+    private static final int DETAILS_HAS_IS_CLAIMED = 1 << 3;
+    private static final int DETAILS_IS_CLAIMED = 1 << 4;
+    private static final int DETAILS_HAS_IS_CLOSED = 1 << 5;
+    private static final int DETAILS_IS_CLOSED = 1 << 6;
+    private static final int DETAILS_URL = 1 << 7;
+    private static final int DETAILS_PRICE = 1 << 8;
+    private static final int DETAILS_RATING = 1 << 9;
+    private static final int DETAILS_PHONE = 1 << 10;
+    private static final int DETAILS_PHOTOS = 1 << 11;
+    private static final int DETAILS_HOURS = 1 << 12;
+    private static final int DETAILS_CATEGORIES = 1 << 13;
+    private static final int DETAILS_COORDINATES = 1 << 14;
+    private static final int DETAILS_LOCATION = 1 << 15;
+
+    private void writeDetails(BinaryWriter writer, YelpBusinessDetails details)
+    {
+        int presence = 0;
+        presence |= details.id != null ? DETAILS_ID : 0;
+        presence |= details.name != null ? DETAILS_NAME : 0;
+        presence |= details.imageURL != null ? DETAILS_IMAGE_URL : 0;
+        presence |= details.isClaimed != null ? DETAILS_HAS_IS_CLAIMED : 0;
+        presence |= Boolean.TRUE.equals(details.isClaimed) ? DETAILS_IS_CLAIMED : 0;
+        presence |= details.isClosed != null ? DETAILS_HAS_IS_CLOSED : 0;
+        presence |= Boolean.TRUE.equals(details.isClosed) ? DETAILS_IS_CLOSED : 0;
+        presence |= details.url != null ? DETAILS_URL : 0;
+        presence |= details.price != null ? DETAILS_PRICE : 0;
+        presence |= details.rating != null ? DETAILS_RATING : 0;
+        presence |= details.phone != null ? DETAILS_PHONE : 0;
+        presence |= details.photosURLS != null ? DETAILS_PHOTOS : 0;
+        presence |= details.hours != null ? DETAILS_HOURS : 0;
+        presence |= details.categories != null ? DETAILS_CATEGORIES : 0;
+        presence |= details.coordinates != null ? DETAILS_COORDINATES : 0;
+        presence |= details.location != null ? DETAILS_LOCATION : 0;
+
+        writer.writeVarInt(presence);
+
+        if (details.id != null)
+        {
+            writer.writeString(details.id);
+        }
+        if (details.name != null)
+        {
+            writer.writeString(details.name);
+        }
+        if (details.imageURL != null)
+        {
+            writer.writeString(details.imageURL);
+        }
+        if (details.url != null)
+        {
+            writer.writeString(details.url);
+        }
+        if (details.price != null)
+        {
+            writer.writeString(details.price);
+        }
+        if (details.rating != null)
+        {
+            writer.writeDouble(details.rating);
+        }
+
+        writer.writeSignedVarInt(details.reviewCount);
+
+        if (details.phone != null)
+        {
+            writer.writeString(details.phone);
+        }
+        if (details.photosURLS != null)
+        {
+            writer.writeVarInt(countNonNull(details.photosURLS));
+
+            for (String photo : details.photosURLS)
+            {
+                if (photo != null)
+                {
+                    writer.writeString(photo);
+                }
+            }
+        }
+        if (details.hours != null)
+        {
+            writeHours(writer, details.hours);
+        }
+        if (details.categories != null)
+        {
+            writeCategories(writer, details.categories);
+        }
+        if (details.coordinates != null)
+        {
+            writeCoordinate(writer, details.coordinates);
+        }
+        if (details.location != null)
+        {
+            writeAddress(writer, details.location);
+        }
+    }
+
+    private YelpBusinessDetails readDetails(BinaryReader reader)
+    {
+        int presence = reader.readVarInt();
+        YelpBusinessDetails details = new YelpBusinessDetails();
+
+        if ((presence & DETAILS_ID) != 0)
+        {
+            details.id = reader.readString();
+        }
+        if ((presence & DETAILS_NAME) != 0)
+        {
+            details.name = reader.readString();
+        }
+        if ((presence & DETAILS_IMAGE_URL) != 0)
+        {
+            details.imageURL = reader.readString();
+        }
+        if ((presence & DETAILS_HAS_IS_CLAIMED) != 0)
+        {
+            details.isClaimed = (presence & DETAILS_IS_CLAIMED) != 0;
+        }
+        if ((presence & DETAILS_HAS_IS_CLOSED) != 0)
+        {
+            details.isClosed = (presence & DETAILS_IS_CLOSED) != 0;
+        }
+        if ((presence & DETAILS_URL) != 0)
+        {
+            details.url = reader.readString();
+        }
+        if ((presence & DETAILS_PRICE) != 0)
+        {
+            details.price = reader.readString();
+        }
+        if ((presence & DETAILS_RATING) != 0)
+        {
+            details.rating = reader.readDouble();
+        }
+
+        details.reviewCount = reader.readSignedVarInt();
+
+        if ((presence & DETAILS_PHONE) != 0)
+        {
+            details.phone = reader.readString();
+        }
+        if ((presence & DETAILS_PHOTOS) != 0)
+        {
+            int count = reader.readCount();
+            details.photosURLS = new ArrayList<>(count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                details.photosURLS.add(reader.readString());
+            }
+        }
+        if ((presence & DETAILS_HOURS) != 0)
+        {
+            details.hours = readHours(reader);
+        }
+        if ((presence & DETAILS_CATEGORIES) != 0)
+        {
+            details.categories = readCategories(reader);
+        }
+        if ((presence & DETAILS_COORDINATES) != 0)
+        {
+            details.coordinates = readCoordinate(reader);
+        }
+        if ((presence & DETAILS_LOCATION) != 0)
+        {
+            details.location = readAddress(reader);
+        }
+
+        return details;
+    }
+
+    private static final int HOURS_TYPE = 1;
+    private static final int HOURS_HAS_IS_OPEN_NOW = 1 << 1;
+    private static final int HOURS_IS_OPEN_NOW = 1 << 2;
+    private static final int HOURS_OPEN = 1 << 3;
+
+    private static final int TIMES_START = 1;
+    private static final int TIMES_END = 1 << 1;
+    private static final int TIMES_HAS_IS_OVERNIGHT = 1 << 2;
+    private static final int TIMES_IS_OVERNIGHT = 1 << 3;
+
+    private void writeHours(BinaryWriter writer, List<YelpBusinessDetails.Hours> hoursList)
+    {
+        writer.writeVarInt(countNonNull(hoursList));
+
+        for (YelpBusinessDetails.Hours hours : hoursList)
+        {
+            if (hours == null)
+            {
+                continue;
+            }
+
+            int presence = 0;
+            presence |= hours.hoursType != null ? HOURS_TYPE : 0;
+            presence |= hours.isOpenNow != null ? HOURS_HAS_IS_OPEN_NOW : 0;
+            presence |= Boolean.TRUE.equals(hours.isOpenNow) ? HOURS_IS_OPEN_NOW : 0;
+            presence |= hours.open != null ? HOURS_OPEN : 0;
+            writer.writeVarInt(presence);
+
+            if (hours.hoursType != null)
+            {
+                writer.writeString(hours.hoursType);
+            }
+
+            if (hours.open == null)
+            {
+                continue;
+            }
+
+            writer.writeVarInt(countNonNull(hours.open));
+
+            for (YelpBusinessDetails.Hours.OpenTimes times : hours.open)
+            {
+                if (times == null)
+                {
+                    continue;
+                }
+
+                int timesPresence = 0;
+                timesPresence |= times.start != null ? TIMES_START : 0;
+                timesPresence |= times.end != null ? TIMES_END : 0;
+                timesPresence |= times.isOvernight != null ? TIMES_HAS_IS_OVERNIGHT : 0;
+                timesPresence |= Boolean.TRUE.equals(times.isOvernight) ? TIMES_IS_OVERNIGHT : 0;
+                writer.writeVarInt(timesPresence);
+
+                writer.writeSignedVarInt(times.day);
+
+                if (times.start != null)
+                {
+                    writer.writeString(times.start);
+                }
+                if (times.end != null)
+                {
+                    writer.writeString(times.end);
+                }
+            }
+        }
+    }
+
+    private List<YelpBusinessDetails.Hours> readHours(BinaryReader reader)
+    {
+        int count = reader.readCount();
+        List<YelpBusinessDetails.Hours> hoursList = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i)
+        {
+            int presence = reader.readVarInt();
+            YelpBusinessDetails.Hours hours = new YelpBusinessDetails.Hours();
+
+            if ((presence & HOURS_TYPE) != 0)
+            {
+                hours.hoursType = reader.readString();
+            }
+            if ((presence & HOURS_HAS_IS_OPEN_NOW) != 0)
+            {
+                hours.isOpenNow = (presence & HOURS_IS_OPEN_NOW) != 0;
+            }
+            if ((presence & HOURS_OPEN) != 0)
+            {
+                int timesCount = reader.readCount();
+                hours.open = new ArrayList<>(timesCount);
+
+                for (int j = 0; j < timesCount; ++j)
+                {
+                    int timesPresence = reader.readVarInt();
+                    YelpBusinessDetails.Hours.OpenTimes times = new YelpBusinessDetails.Hours.OpenTimes();
+                    times.day = reader.readSignedVarInt();
+
+                    if ((timesPresence & TIMES_START) != 0)
+                    {
+                        times.start = reader.readString();
+                    }
+                    if ((timesPresence & TIMES_END) != 0)
+                    {
+                        times.end = reader.readString();
+                    }
+                    if ((timesPresence & TIMES_HAS_IS_OVERNIGHT) != 0)
+                    {
+                        times.isOvernight = (timesPresence & TIMES_IS_OVERNIGHT) != 0;
+                    }
+
+                    hours.open.add(times);
+                }
+            }
+
+            hoursList.add(hours);
+        }
+
+        return hoursList;
+    }
+
+    //==========================================
+    // REVIEWS
+    //==========================================
+
+    private static final int REVIEW_RATING = 1;
+    private static final int REVIEW_USER = 1 << 1;
+    private static final int REVIEW_USER_NAME = 1 << 2;
+    private static final int REVIEW_USER_IMAGE = 1 << 3;
+    private static final int REVIEW_TEXT = 1 << 4;
+    private static final int REVIEW_TIME_CREATED = 1 << 5;
+    private static final int REVIEW_URL = 1 << 6;
+
+    private void writeReview(BinaryWriter writer, YelpReview review)
+    {
+        YelpReview.User user = review.user;
+
+        int presence = 0;
+        presence |= review.rating != null ? REVIEW_RATING : 0;
+        presence |= user != null ? REVIEW_USER : 0;
+        presence |= user != null && user.name != null ? REVIEW_USER_NAME : 0;
+        presence |= user != null && user.imageURL != null ? REVIEW_USER_IMAGE : 0;
+        presence |= review.text != null ? REVIEW_TEXT : 0;
+        presence |= review.timeCreated != null ? REVIEW_TIME_CREATED : 0;
+        presence |= review.url != null ? REVIEW_URL : 0;
+        writer.writeVarInt(presence);
+
+        if (review.rating != null)
+        {
+            writer.writeDouble(review.rating);
+        }
+        if (user != null && user.name != null)
+        {
+            writer.writeString(user.name);
+        }
+        if (user != null && user.imageURL != null)
+        {
+            writer.writeString(user.imageURL);
+        }
+        if (review.text != null)
+        {
+            writer.writeString(review.text);
+        }
+        if (review.timeCreated != null)
+        {
+            writer.writeString(review.timeCreated);
+        }
+        if (review.url != null)
+        {
+            writer.writeString(review.url);
+        }
+    }
+
+    private YelpReview readReview(BinaryReader reader)
+    {
+        int presence = reader.readVarInt();
+        YelpReview review = new YelpReview();
+
+        if ((presence & REVIEW_RATING) != 0)
+        {
+            review.rating = reader.readDouble();
+        }
+        if ((presence & REVIEW_USER) != 0)
+        {
+            review.user = new YelpReview.User();
+        }
+        if ((presence & REVIEW_USER_NAME) != 0)
+        {
+            review.user.name = reader.readString();
+        }
+        if ((presence & REVIEW_USER_IMAGE) != 0)
+        {
+            review.user.imageURL = reader.readString();
+        }
+        if ((presence & REVIEW_TEXT) != 0)
+        {
+            review.text = reader.readString();
+        }
+        if ((presence & REVIEW_TIME_CREATED) != 0)
+        {
+            review.timeCreated = reader.readString();
+        }
+        if ((presence & REVIEW_URL) != 0)
+        {
+            review.url = reader.readString();
+        }
+
+        return review;
+    }
+
+    //==========================================
+    // SHARED TYPES
+    //==========================================
+
+    private static final int CATEGORY_ALIAS = 1;
+    private static final int CATEGORY_TITLE = 1 << 1;
+
+    private void writeCategories(BinaryWriter writer, List<Category> categories)
+    {
+        writer.writeVarInt(countNonNull(categories));
+
+        for (Category category : categories)
+        {
+            if (category == null)
+            {
+                continue;
+            }
+
+            int presence = 0;
+            presence |= category.alias != null ? CATEGORY_ALIAS : 0;
+            presence |= category.title != null ? CATEGORY_TITLE : 0;
+            writer.writeVarInt(presence);
+
+            if (category.alias != null)
+            {
+                writer.writeString(category.alias);
+            }
+            if (category.title != null)
+            {
+                writer.writeString(category.title);
+            }
+        }
+    }
+
+    private List<Category> readCategories(BinaryReader reader)
+    {
+        int count = reader.readCount();
+        List<Category> categories = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i)
+        {
+            int presence = reader.readVarInt();
+            Category category = new Category();
+
+            if ((presence & CATEGORY_ALIAS) != 0)
+            {
+                category.alias = reader.readString();
+            }
+            if ((presence & CATEGORY_TITLE) != 0)
+            {
+                category.title = reader.readString();
+            }
+
+            categories.add(category);
+        }
+
+        return categories;
+    }
+
+    private void writeCoordinate(BinaryWriter writer, Coordinate coordinate)
+    {
+        writer.writeDouble(coordinate.getLatitude());
+        writer.writeDouble(coordinate.getLongitude());
+    }
+
+    private Coordinate readCoordinate(BinaryReader reader)
+    {
+        double latitude = reader.readDouble();
+        double longitude = reader.readDouble();
+        return Coordinate.of(latitude, longitude);
+    }
+
+    private static final int ADDRESS_CITY = 1;
+    private static final int ADDRESS_STATE = 1 << 1;
+    private static final int ADDRESS_COUNTRY = 1 << 2;
+    private static final int ADDRESS_1 = 1 << 3;
+    private static final int ADDRESS_2 = 1 << 4;
+    private static final int ADDRESS_3 = 1 << 5;
+    private static final int ADDRESS_ZIP_CODE = 1 << 6;
+
+    private void writeAddress(BinaryWriter writer, Address address)
+    {
+        int presence = 0;
+        presence |= address.city != null ? ADDRESS_CITY : 0;
+        presence |= address.state != null ? ADDRESS_STATE : 0;
+        presence |= address.country != null ? ADDRESS_COUNTRY : 0;
+        presence |= address.address1 != null ? ADDRESS_1 : 0;
+        presence |= address.address2 != null ? ADDRESS_2 : 0;
+        presence |= address.address3 != null ? ADDRESS_3 : 0;
+        presence |= address.zipCode != null ? ADDRESS_ZIP_CODE : 0;
+        writer.writeVarInt(presence);
+
+        if (address.city != null)
+        {
+            writer.writeString(address.city);
+        }
+        if (address.state != null)
+        {
+            writer.writeString(address.state);
+        }
+        if (address.country != null)
+        {
+            writer.writeString(address.country);
+        }
+        if (address.address1 != null)
+        {
+            writer.writeString(address.address1);
+        }
+        if (address.address2 != null)
+        {
+            writer.writeString(address.address2);
+        }
+        if (address.address3 != null)
+        {
+            writer.writeString(address.address3);
+        }
+        if (address.zipCode != null)
+        {
+            writer.writeString(address.zipCode);
+        }
+    }
+
+    private Address readAddress(BinaryReader reader)
+    {
+        int presence = reader.readVarInt();
+        Address address = new Address();
+
+        if ((presence & ADDRESS_CITY) != 0)
+        {
+            address.city = reader.readString();
+        }
+        if ((presence & ADDRESS_STATE) != 0)
+        {
+            address.state = reader.readString();
+        }
+        if ((presence & ADDRESS_COUNTRY) != 0)
+        {
+            address.country = reader.readString();
+        }
+        if ((presence & ADDRESS_1) != 0)
+        {
+            address.address1 = reader.readString();
+        }
+        if ((presence & ADDRESS_2) != 0)
+        {
+            address.address2 = reader.readString();
+        }
+        if ((presence & ADDRESS_3) != 0)
+        {
+            address.address3 = reader.readString();
+        }
+        if ((presence & ADDRESS_ZIP_CODE) != 0)
+        {
+            address.zipCode = reader.readString();
+        }
+
+        return address;
+    }
+
+    private static int countNonNull(List<?> list)
+    {
+        int count = 0;
+
+        for (Object element : list)
+        {
+            if (element != null)
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpCodec{" + "version=" + VERSION + '}';
+    }
+
+}
@@ -0,0 +1,606 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Crawls every business in an area, no matter how dense it is.
+ * <p>
+ * Yelp only lets a search page through its first {@link YelpSearchRequest.Builder#MAX_OFFSET} results, and silently
+ * drops the rest. This crawler checks the {@linkplain YelpSearchResults#getTotal() total} of each cell it searches, and
+ * splits the cell into quadrants until every cell's total fits under that ceiling. The cells are crawled in parallel,
+ * under a shared rate limit, and each business is emitted exactly once.
+ * <p>
+ * Each cell is searched with a copy of a template request, with the template's coordinate and radius replaced by the
+ * circle around the cell. Everything else in the template, such as the term and categories, applies to every cell.
+ * <p>
+ * When the delegate doesn't report totals, a cell is split once its pages run into the ceiling instead.
+ *
+ * @author SirWellington
+ * @see YelpAPI#searchForBusinessesWithTotal(tech.redroma.yelp.YelpSearchRequest)
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class AdaptiveCrawler
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(AdaptiveCrawler.class);
+
+    private final YelpAPI yelp;
+    private final RateLimiter rateLimiter;
+    private final int concurrency;
+    private final double minimumCellSizeInMeters;
+    private final Executor executor;
+
+    private AdaptiveCrawler(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.rateLimiter = builder.rateLimiter != null ? builder.rateLimiter
+                         : builder.requestsPerSecond > 0 ? RateLimiter.create(builder.requestsPerSecond) : null;
+        this.concurrency = builder.concurrency;
+        this.minimumCellSizeInMeters = builder.minimumCellSizeInMeters;
+        this.executor = builder.executor;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Crawls an area and collects the results.
+     *
+     * @param template The request to run in each cell.
+     * @param area     The area to crawl.
+     * @return Every business found in the area.
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpException If any of the searches fail.
+     */
+    public List<YelpBusiness> crawl(@Required YelpSearchRequest template, @Required BoundingBox area) throws IllegalArgumentException, YelpException
+    {
+        List<YelpBusiness> results = new ArrayList<>();
+        crawl(template, area, results::add);
+        return results;
+    }
+
+    /**
+     * Crawls an area, passing each business to {@code sink} as soon as it is found. Each business is passed exactly once,
+     * and never by more than one thread at a time.
+     *
+     * @param template The request to run in each cell.
+     * @param area     The area to crawl.
+     * @param sink     Receives the businesses.
+     * @return A summary of the crawl.
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpException If any of the searches fail.
+     */
+    public Summary crawl(@Required YelpSearchRequest template,
+                         @Required BoundingBox area,
+                         @Required Consumer<? super YelpBusiness> sink) throws IllegalArgumentException, YelpException
+    {
+        checkThat(template, area, sink)
+            .usingMessage("template, area, and sink are required")
+            .are(notNull());
+
+        checkThat(template.hasLocation())
+            .usingMessage("template request cannot use an address location; use a coordinate instead")
+            .is(falseStatement());
+
+        return crawl(template, area, sink, Collections.singletonMap(Cells.ROOT, 0), ConcurrentHashMap.newKeySet(), CrawlProgress.NONE);
+    }
+
+    /**
+     * Resumes a crawl.
+     *
+     * @param frontier The paths of the cells left to crawl, and the offset to continue each one from.
+     * @param seen     The ids of the businesses already emitted. It is updated as the crawl goes.
+     * @param progress Told about each step of the crawl.
+     */
+    Summary crawl(YelpSearchRequest template,
+                  BoundingBox area,
+                  Consumer<? super YelpBusiness> sink,
+                  Map<String, Integer> frontier,
+                  Set<String> seen,
+                  CrawlProgress progress) throws YelpException
+    {
+        Run run = new Run(template, sink, seen, progress);
+
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(concurrency, this::newThread) : null;
+        Executor cellExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        try
+        {
+            CompletableFuture<?>[] futures = frontier.entrySet().stream()
+                .map(entry -> new Cell(entry.getKey(), Cells.boxOf(area, entry.getKey()), entry.getValue()))
+                .map(cell -> crawlCell(run, cell, cellExecutor))
+                .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(futures).join();
+        }
+        catch (CompletionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof YelpException)
+            {
+                throw (YelpException) cause;
+            }
+
+            throw new YelpOperationFailedException("crawl failed", cause);
+        }
+        finally
+        {
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+        }
+
+        Summary summary = run.toSummary();
+        LOG.info("Crawled {}: {}", area, summary);
+
+        return summary;
+    }
+
+    private CompletableFuture<Void> crawlCell(Run run, Cell cell, Executor cellExecutor)
+    {
+        return CompletableFuture
+            .supplyAsync(() -> visit(run, cell), cellExecutor)
+            .thenCompose(children ->
+            {
+                CompletableFuture<?>[] futures = children.stream()
+                    .map(child -> crawlCell(run, child, cellExecutor))
+                    .toArray(CompletableFuture[]::new);
+
+                return CompletableFuture.allOf(futures);
+            });
+    }
+
+    /**
+     * Searches a single cell.
+     *
+     * @return The cells to crawl next, if this one was split.
+     */
+    private List<Cell> visit(Run run, Cell cell)
+    {
+        if (run.failed)
+        {
+            return Collections.emptyList();
+        }
+
+        run.cells.incrementAndGet();
+
+        int radius = Cells.radiusAround(cell.box);
+
+        if (radius > MAX_RADIUS_IN_METERS)
+        {
+            return split(run, cell);
+        }
+
+        try
+        {
+            return search(run, cell, radius);
+        }
+        catch (RuntimeException ex)
+        {
+            run.failed = true;
+            throw ex;
+        }
+    }
+
+    private List<Cell> search(Run run, Cell cell, int radius)
+    {
+        int offset = cell.offset;
+
+        while (true)
+        {
+            YelpSearchRequest request = Cells.requestFor(run.template, cell.box, radius, offset, MAX_LIMIT);
+            YelpSearchResults results = searchWithinRateLimit(run, request);
+            List<YelpBusiness> page = results.getBusinesses();
+
+            List<String> emitted = emit(run, cell.box, page);
+            int fetched = offset + page.size();
+            run.progress.onPage(cell.path, offset + MAX_LIMIT, emitted);
+
+            if (results.hasTotal() && results.getTotal() > MAX_OFFSET && canSplit(cell.box))
+            {
+                LOG.debug("Splitting {} with {} results", cell, results.getTotal());
+                return split(run, cell);
+            }
+
+            boolean exhausted = page.size() < MAX_LIMIT || (results.hasTotal() && fetched >= results.getTotal());
+
+            if (exhausted)
+            {
+                run.progress.onDone(cell.path);
+                return Collections.emptyList();
+            }
+
+            offset += MAX_LIMIT;
+
+            if (offset + MAX_LIMIT > MAX_OFFSET)
+            {
+                if (canSplit(cell.box))
+                {
+                    LOG.debug("Splitting {} after paging to the offset ceiling", cell);
+                    return split(run, cell);
+                }
+
+                LOG.warn("Cell {} is too small to split, but has more than {} results. Some will be missed.", cell, MAX_OFFSET);
+                run.truncatedCells.incrementAndGet();
+                run.progress.onDone(cell.path);
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    private List<Cell> split(Run run, Cell cell)
+    {
+        List<BoundingBox> quadrants = Cells.quadrantsOf(cell.box);
+        List<Cell> children = new ArrayList<>(quadrants.size());
+
+        for (int i = 0; i < quadrants.size(); ++i)
+        {
+            children.add(new Cell(Cells.childOf(cell.path, i), quadrants.get(i), 0));
+        }
+
+        run.progress.onSplit(cell.path);
+        return children;
+    }
+
+    private YelpSearchResults searchWithinRateLimit(Run run, YelpSearchRequest request)
+    {
+        if (rateLimiter != null)
+        {
+            rateLimiter.acquire();
+        }
+
+        run.requests.incrementAndGet();
+        return yelp.searchForBusinessesWithTotal(request);
+    }
+
+    private List<String> emit(Run run, BoundingBox cell, List<YelpBusiness> businesses)
+    {
+        List<String> emitted = new ArrayList<>();
+
+        for (YelpBusiness business : businesses)
+        {
+            if (business == null || business.id == null)
+            {
+                continue;
+            }
+
+            //Each business belongs to the cell it is in, not every cell whose circle reaches it
+            if (business.coordinates != null && !cell.contains(business.coordinates))
+            {
+                continue;
+            }
+
+            if (run.seen.add(business.id))
+            {
+                synchronized (run)
+                {
+                    run.sink.accept(business);
+                }
+
+                emitted.add(business.id);
+            }
+        }
+
+        return emitted;
+    }
+
+    private boolean canSplit(BoundingBox cell)
+    {
+        double size = Math.min(cell.getHeightInMeters(), cell.getWidthInMeters());
+        return size / 2 >= minimumCellSizeInMeters;
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "yelp-adaptive-crawler");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AdaptiveCrawler{" + "rateLimiter=" + rateLimiter + ", concurrency=" + concurrency + ", minimumCellSizeInMeters=" + minimumCellSizeInMeters + '}';
+    }
+
+    /**
+     * A cell of the crawl, and the offset to search it from.
+     */
+    private static final class Cell
+    {
+
+        private final String path;
+        private final BoundingBox box;
+        private final int offset;
+
+        private Cell(String path, BoundingBox box, int offset)
+        {
+            this.path = path;
+            this.box = box;
+            this.offset = offset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Cell{" + "path=" + path + ", box=" + box + ", offset=" + offset + '}';
+        }
+
+    }
+
+    /**
+     * The state of a single crawl.
+     */
+    private static final class Run
+    {
+
+        private final YelpSearchRequest template;
+        private final Consumer<? super YelpBusiness> sink;
+        private final Set<String> seen;
+        private final CrawlProgress progress;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger cells = new AtomicInteger();
+        private final AtomicInteger truncatedCells = new AtomicInteger();
+        private volatile boolean failed = false;
+
+        private Run(YelpSearchRequest template, Consumer<? super YelpBusiness> sink, Set<String> seen, CrawlProgress progress)
+        {
+            this.template = template;
+            this.sink = sink;
+            this.seen = seen;
+            this.progress = progress;
+        }
+
+        private Summary toSummary()
+        {
+            return new Summary(seen.size(), requests.get(), cells.get(), truncatedCells.get());
+        }
+
+    }
+
+    /**
+     * Describes a finished crawl.
+     */
+    @Immutable
+    public static final class Summary
+    {
+
+        private final int businesses;
+        private final int requests;
+        private final int cells;
+        private final int truncatedCells;
+
+        Summary(int businesses, int requests, int cells, int truncatedCells)
+        {
+            this.businesses = businesses;
+            this.requests = requests;
+            this.cells = cells;
+            this.truncatedCells = truncatedCells;
+        }
+
+        /**
+         * @return The number of distinct businesses found.
+         */
+        public int getBusinesses()
+        {
+            return businesses;
+        }
+
+        /**
+         * @return The number of search requests made.
+         */
+        public int getRequests()
+        {
+            return requests;
+        }
+
+        /**
+         * @return The number of cells visited, including the ones that were split.
+         */
+        public int getCells()
+        {
+            return cells;
+        }
+
+        /**
+         * @return The number of cells that had more results than could be paged through, but were too small to split.
+         */
+        public int getTruncatedCells()
+        {
+            return truncatedCells;
+        }
+
+        /**
+         * @return Whether every business in the area was found.
+         */
+        public boolean isComplete()
+        {
+            return truncatedCells == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Summary{" + "businesses=" + businesses + ", requests=" + requests + ", cells=" + cells + ", truncatedCells=" + truncatedCells + '}';
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default rate limit. */
+        public static final double DEFAULT_REQUESTS_PER_SECOND = 5;
+
+        /** The default number of cells crawled at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        /** Cells are not split below this size by default. */
+        public static final double DEFAULT_MINIMUM_CELL_SIZE_IN_METERS = 50;
+
+        private final YelpAPI yelp;
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+        private RateLimiter rateLimiter;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private double minimumCellSizeInMeters = DEFAULT_MINIMUM_CELL_SIZE_IN_METERS;
+        private Executor executor;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Limits the rate of search requests across all of the crawler's threads.
+         *
+         * @param requestsPerSecond Must be {@code > 0}.
+         * @return
+         * @throws IllegalArgumentException If the rate is not positive.
+         */
+        public Builder withRequestsPerSecond(@Positive double requestsPerSecond) throws IllegalArgumentException
+        {
+            checkThat(requestsPerSecond > 0)
+                .usingMessage("requests per second must be > 0")
+                .is(trueStatement());
+
+            this.requestsPerSecond = requestsPerSecond;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Uses a rate limiter that other crawlers or batches also draw from, so that together they stay within
+         * one Yelp quota. It takes the place of any {@linkplain #withRequestsPerSecond(double) rate} set here.
+         */
+        public Builder withRateLimiter(@Required RateLimiter rateLimiter) throws IllegalArgumentException
+        {
+            checkThat(rateLimiter)
+                .usingMessage("rate limiter cannot be null")
+                .is(notNull());
+
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Removes the rate limit. Only suitable when the delegate enforces one itself.
+         */
+        public Builder withoutRateLimit()
+        {
+            this.requestsPerSecond = 0;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of cells crawled at the same time, when the crawler uses its own threads.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the size below which cells are no longer split. A cell this small with more results than can be paged
+         * through is crawled as far as possible, and counted as {@linkplain Summary#getTruncatedCells() truncated}.
+         */
+        public Builder withMinimumCellSizeInMeters(@Positive double meters) throws IllegalArgumentException
+        {
+            checkThat(meters > 0)
+                .usingMessage("minimum cell size must be > 0")
+                .is(trueStatement());
+
+            this.minimumCellSizeInMeters = meters;
+            return this;
+        }
+
+        /**
+         * Crawls cells on an existing executor, instead of threads owned by each crawl.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        public AdaptiveCrawler build()
+        {
+            return new AdaptiveCrawler(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThan;
+
+/**
+ * Operations on the rectangular cells that crawls are divided into.
+ *
+ * @author SirWellington
+ */
+@Internal
+@NonInstantiable
+final class Cells
+{
+
+    /** The path of the cell covering a whole crawl. Each quadrant's path adds its index to its parent's. */
+    static final String ROOT = "r";
+
+    Cells() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    /**
+     * @return The radius, in meters, of the smallest circle around the cell's center that contains the whole cell.
+     */
+    static int radiusAround(BoundingBox cell)
+    {
+        Coordinate center = cell.getCenter();
+
+        double radius = Math.max(
+            Math.max(GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMinLatitude(), cell.getMinLongitude()),
+                     GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMinLatitude(), cell.getMaxLongitude())),
+            Math.max(GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMaxLatitude(), cell.getMinLongitude()),
+                     GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMaxLatitude(), cell.getMaxLongitude())));
+
+        return Math.max(1, (int) Math.ceil(radius));
+    }
+
+    /**
+     * @return The four quadrants of a cell, in the order south-west, south-east, north-west, north-east.
+     */
+    static List<BoundingBox> quadrantsOf(BoundingBox cell)
+    {
+        double middleLatitude = (cell.getMinLatitude() + cell.getMaxLatitude()) / 2;
+        double middleLongitude = (cell.getMinLongitude() + cell.getMaxLongitude()) / 2;
+
+        return Arrays.asList(BoundingBox.of(cell.getMinLatitude(), cell.getMinLongitude(), middleLatitude, middleLongitude),
+                             BoundingBox.of(cell.getMinLatitude(), middleLongitude, middleLatitude, cell.getMaxLongitude()),
+                             BoundingBox.of(middleLatitude, cell.getMinLongitude(), cell.getMaxLatitude(), middleLongitude),
+                             BoundingBox.of(middleLatitude, middleLongitude, cell.getMaxLatitude(), cell.getMaxLongitude()));
+    }
+
+    /**
+     * @return The path of the quadrant {@code index} of the cell at {@code path}.
+     */
+    static String childOf(String path, int index)
+    {
+        return path + index;
+    }
+
+    /**
+     * @return The paths of every cell {@code depth} splits below the root, in order.
+     */
+    static List<String> pathsAtDepth(int depth)
+    {
+        checkThat(depth)
+            .usingMessage("depth must be >= 0")
+            .is(greaterThanOrEqualTo(0));
+
+        List<String> paths = Collections.singletonList(ROOT);
+
+        for (int level = 0; level < depth; ++level)
+        {
+            List<String> children = new ArrayList<>(paths.size() * 4);
+
+            for (String path : paths)
+            {
+                for (int i = 0; i < 4; ++i)
+                {
+                    children.add(childOf(path, i));
+                }
+            }
+
+            paths = children;
+        }
+
+        return paths;
+    }
+
+    /**
+     * Finds the cell at a path by splitting {@code root} one quadrant at a time.
+     *
+     * @throws IllegalArgumentException If the path is invalid.
+     */
+    static BoundingBox boxOf(BoundingBox root, String path) throws IllegalArgumentException
+    {
+        checkThat(path != null && path.startsWith(ROOT))
+            .usingMessage("invalid cell path: " + path)
+            .is(trueStatement());
+
+        BoundingBox box = root;
+
+        for (int i = ROOT.length(); i < path.length(); ++i)
+        {
+            int quadrant = path.charAt(i) - '0';
+
+            checkThat(quadrant)
+                .usingMessage("invalid cell path: " + path)
+                .is(greaterThanOrEqualTo(0))
+                .is(lessThan(4));
+
+            box = quadrantsOf(box).get(quadrant);
+        }
+
+        return box;
+    }
+
+    /**
+     * @return A copy of {@code template} that searches the circle around a cell.
+     */
+    static YelpSearchRequest requestFor(YelpSearchRequest template, BoundingBox cell, int radius, int offset, int limit)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(template)
+            .withCoordinate(cell.getCenter())
+            .withRadiusInMeters(radius)
+            .withLimit(limit);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+/**
+ * An append-only record of a crawl's progress, kept in a local file.
+ * <p>
+ * Each line is one record:
+ * <pre>
+ * yelp-crawl 1 {minLat} {minLon} {maxLat} {maxLon} {template hash}   the header, identifying the crawl
+ * P {path} {next offset} {count} {id}...                            a page of a cell was searched
+ * X {path}                                                          a cell was split into quadrants
+ * D {path}                                                          a cell was finished
+ * F                                                                 the crawl was finished
+ * </pre>
+ * Replaying the records rebuilds the frontier of unfinished cells, and the ids already emitted. Records are buffered, and
+ * written out and forced to disk every so many records or so much time. A crash, of the process or of the machine, loses
+ * at most the records since the last flush; the pages they cover are searched again on resume, so a business can be
+ * emitted more than once around a crash. A record cut off by a crash is detected, and dropped along with anything after
+ * it.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class CheckpointLog implements CrawlProgress, Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(CheckpointLog.class);
+
+    static final String MAGIC = "yelp-crawl";
+    static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Integer> frontier;
+    private final Set<String> seen;
+    private final int flushEvery;
+    private final long flushIntervalNanos;
+
+    private boolean finished;
+    private FileChannel channel;
+    private OutputStream output;
+    private int unflushedRecords = 0;
+    private long lastFlush = System.nanoTime();
+
+    private CheckpointLog(Path file, int flushEvery, long flushIntervalNanos)
+    {
+        this.file = file;
+        this.frontier = new LinkedHashMap<>();
+        this.seen = ConcurrentHashMap.newKeySet();
+        this.flushEvery = flushEvery;
+        this.flushIntervalNanos = flushIntervalNanos;
+    }
+
+    /**
+     * Opens a checkpoint file, replaying it if it exists, and creating it if it doesn't.
+     *
+     * @param header Identifies the crawl; an existing file must have the same header.
+     * @throws IllegalArgumentException If the file belongs to a different crawl.
+     * @throws YelpOperationFailedException If the file can't be read or written.
+     */
+    static CheckpointLog open(Path file, String header, int flushEvery, long flushInterval, TimeUnit unit) throws IllegalArgumentException, YelpOperationFailedException
+    {
+        CheckpointLog log = new CheckpointLog(file, flushEvery, unit.toNanos(flushInterval));
+
+        try
+        {
+            long validLength = Files.exists(file) ? log.replay(header) : 0;
+
+            log.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            log.channel.truncate(validLength);
+            log.channel.position(validLength);
+            log.output = new BufferedOutputStream(Channels.newOutputStream(log.channel), 64 * 1024);
+
+            if (validLength == 0)
+            {
+                log.frontier.clear();
+                log.frontier.put(Cells.ROOT, 0);
+                log.append(header);
+                log.flush();
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not open checkpoint at " + file, ex);
+        }
+
+        return log;
+    }
+
+    static String headerFor(BoundingBox area, int templateHash)
+    {
+        return MAGIC + " " + VERSION + " " +
+               area.getMinLatitude() + " " + area.getMinLongitude() + " " +
+               area.getMaxLatitude() + " " + area.getMaxLongitude() + " " +
+               templateHash;
+    }
+
+    /**
+     * @return The number of bytes holding complete, valid records.
+     */
+    private long replay(String header) throws IOException
+    {
+        long validLength = 0;
+        int records = 0;
+
+        frontier.put(Cells.ROOT, 0);
+
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 64 * 1024))
+        {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long position = 0;
+            int next;
+
+            while ((next = input.read()) != -1)
+            {
+                ++position;
+
+                if (next != '\n')
+                {
+                    line.write(next);
+                    continue;
+                }
+
+                String record = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                line.reset();
+
+                if (records == 0)
+                {
+                    if (!record.equals(header))
+                    {
+                        throw new IllegalArgumentException("checkpoint at " + file + " belongs to a different crawl: " + record);
+                    }
+                }
+                else if (!apply(record))
+                {
+                    LOG.warn("Ignoring damaged checkpoint record in {} at byte {}, and everything after it", file, validLength);
+                    break;
+                }
+
+                ++records;
+                validLength = position;
+            }
+        }
+
+        if (records == 0)
+        {
+            return 0;
+        }
+
+        LOG.info("Resuming crawl from {}: {} cells pending, {} businesses seen", file, frontier.size(), seen.size());
+        return validLength;
+    }
+
+    private boolean apply(String record)
+    {
+        String[] parts = record.split(" ");
+
+        try
+        {
+            switch (parts[0])
+            {
+                case "P":
+                {
+                    int count = Integer.parseInt(parts[3]);
+
+                    if (parts.length != 4 + count)
+                    {
+                        return false;
+                    }
+
+                    if (frontier.containsKey(parts[1]))
+                    {
+                        frontier.put(parts[1], Integer.parseInt(parts[2]));
+                    }
+
+                    for (int i = 4; i < parts.length; ++i)
+                    {
+                        seen.add(unescape(parts[i]));
+                    }
+
+                    return true;
+                }
+                case "X":
+                {
+                    if (parts.length != 2)
+                    {
+                        return false;
+                    }
+
+                    frontier.remove(parts[1]);
+
+                    for (int i = 0; i < 4; ++i)
+                    {
+                        frontier.put(Cells.childOf(parts[1], i), 0);
+                    }
+
+                    return true;
+                }
+                case "D":
+                {
+                    if (parts.length != 2)
+                    {
+                        return false;
+                    }
+
+                    frontier.remove(parts[1]);
+                    return true;
+                }
+                case "F":
+                {
+                    finished = parts.length == 1;
+                    return finished;
+                }
+                default:
+                    return false;
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            return false;
+        }
+    }
+
+    Map<String, Integer> getFrontier()
+    {
+        return frontier;
+    }
+
+    Set<String> getSeen()
+    {
+        return seen;
+    }
+
+    boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public void onPage(String path, int nextOffset, List<String> emitted)
+    {
+        StringBuilder record = new StringBuilder(16 + emitted.size() * 24)
+            .append("P ").append(path)
+            .append(' ').append(nextOffset)
+            .append(' ').append(emitted.size());
+
+        for (String id : emitted)
+        {
+            record.append(' ').append(escape(id));
+        }
+
+        append(record.toString());
+    }
+
+    @Override
+    public void onSplit(String path)
+    {
+        append("X " + path);
+    }
+
+    @Override
+    public void onDone(String path)
+    {
+        append("D " + path);
+    }
+
+    void finish()
+    {
+        finished = true;
+        append("F");
+        flush();
+    }
+
+    /**
+     * Writes out the buffered records, and forces them to disk.
+     */
+    synchronized void flush()
+    {
+        try
+        {
+            output.flush();
+            channel.force(false);
+            unflushedRecords = 0;
+            lastFlush = System.nanoTime();
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not write checkpoint at " + file, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (output == null)
+        {
+            return;
+        }
+
+        try
+        {
+            output.flush();
+            channel.force(false);
+            output.close();
+            output = null;
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not close checkpoint at " + file, ex);
+        }
+    }
+
+    private synchronized void append(String record)
+    {
+        try
+        {
+            output.write(record.getBytes(StandardCharsets.UTF_8));
+            output.write('\n');
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not write checkpoint at " + file, ex);
+        }
+
+        ++unflushedRecords;
+
+        if (unflushedRecords >= flushEvery || System.nanoTime() - lastFlush >= flushIntervalNanos)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Ids are written space-separated, so spaces, line breaks, and the escape character itself are percent-encoded.
+     */
+    static String escape(String id)
+    {
+        StringBuilder escaped = null;
+
+        for (int i = 0; i < id.length(); ++i)
+        {
+            char c = id.charAt(i);
+
+            if (c <= ' ' || c == '%')
+            {
+                if (escaped == null)
+                {
+                    escaped = new StringBuilder(id.length() + 8).append(id, 0, i);
+                }
+
+                escaped.append('%').append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+            else if (escaped != null)
+            {
+                escaped.append(c);
+            }
+        }
+
+        return escaped == null ? id : escaped.toString();
+    }
+
+    static String unescape(String id)
+    {
+        if (id.indexOf('%') < 0)
+        {
+            return id;
+        }
+
+        StringBuilder unescaped = new StringBuilder(id.length());
+
+        for (int i = 0; i < id.length(); ++i)
+        {
+            char c = id.charAt(i);
+
+            if (c == '%')
+            {
+                unescaped.append((char) Integer.parseInt(id.substring(i + 1, i + 3), 16));
+                i += 2;
+            }
+            else
+            {
+                unescaped.append(c);
+            }
+        }
+
+        return unescaped.toString();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+
+/**
+ * Shared state that lets several nodes split a {@linkplain DistributedCrawl distributed crawl} between them.
+ * <p>
+ * The store keeps the crawl's units of work, who holds a {@linkplain Lease lease} on each, and the results of the
+ * finished ones. Every operation must be atomic with respect to every node using the store.
+ * <p>
+ * To create one, see {@link #newInMemoryStore() } and {@link #newFileSystemStore(java.nio.file.Path) }.
+ *
+ * @author SirWellington
+ */
+public interface CoordinationStore
+{
+
+    /**
+     * Adds units of work. Units that already exist, including finished ones, are left alone, so every node can call this
+     * when it starts.
+     */
+    void addUnits(@Required Collection<String> unitIds) throws YelpException;
+
+    /**
+     * @return Every unit of work, finished or not.
+     */
+    Set<String> getUnits() throws YelpException;
+
+    /**
+     * @return The units of work that have been finished.
+     */
+    Set<String> getCompletedUnits() throws YelpException;
+
+    /**
+     * Claims a unit, if it isn't finished and no one else holds an unexpired lease on it.
+     *
+     * @param unitId    The unit to claim.
+     * @param owner     The node claiming it.
+     * @param now       The current time.
+     * @param expiresAt When the lease runs out, unless it is renewed.
+     * @return The new lease, or empty if the unit couldn't be claimed.
+     * @throws YelpException If the store can't be reached.
+     */
+    Optional<Lease> tryAcquire(@NonEmpty String unitId, @NonEmpty String owner, @Required Instant now, @Required Instant expiresAt) throws YelpException;
+
+    /**
+     * Extends a lease.
+     *
+     * @return The extended lease, or empty if the lease has been lost to another node, or the unit is finished.
+     * @throws YelpException If the store can't be reached.
+     */
+    Optional<Lease> renew(@Required Lease lease, @Required Instant expiresAt) throws YelpException;
+
+    /**
+     * Finishes a unit, and stores its results.
+     *
+     * @return Whether the unit was finished. It isn't if the lease was lost to another node.
+     * @throws YelpException If the store can't be reached.
+     */
+    boolean complete(@Required Lease lease, @Required byte[] results) throws YelpException;
+
+    /**
+     * @return The results stored for a finished unit, or empty if it isn't finished.
+     */
+    Optional<byte[]> getResults(@NonEmpty String unitId) throws YelpException;
+
+    /**
+     * Creates a store kept in memory, which can coordinate nodes running in the same JVM.
+     */
+    static CoordinationStore newInMemoryStore()
+    {
+        return new InMemoryCoordinationStore();
+    }
+
+    /**
+     * Creates a store kept in a directory, which can coordinate nodes in separate processes that share the directory.
+     * Operations are serialized with a file lock, so the file system must support them.
+     *
+     * @param directory The directory to keep the store in. It is created if it doesn't exist.
+     * @throws YelpException If the directory can't be created.
+     */
+    static CoordinationStore newFileSystemStore(@Required Path directory) throws IllegalArgumentException, YelpException
+    {
+        return new FileSystemCoordinationStore(directory);
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * A long-running {@linkplain AdaptiveCrawler crawl} that survives restarts.
+ * <p>
+ * As the crawl goes, the cells it finishes, the offsets it has paged to, the cells it splits, and the ids of the
+ * businesses it emits are appended to a checkpoint file. Running the job again with the same checkpoint file resumes the
+ * crawl from where it stopped, without repeating finished searches or emitting businesses again.
+ * <p>
+ * The checkpoint is only appended to, and written out in batches, so keeping it costs very little. The last batch can be
+ * lost in a crash; the pages it covered are searched again on resume, but their businesses are still only emitted once
+ * unless they were emitted just before the crash.
+ * <p>
+ * Once a crawl finishes, running it again does nothing. Delete the checkpoint file to crawl the area again.
+ *
+ * @author SirWellington
+ */
+@BuilderPattern(role = PRODUCT)
+public final class CrawlJob
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(CrawlJob.class);
+
+    private final AdaptiveCrawler crawler;
+    private final YelpSearchRequest template;
+    private final BoundingBox area;
+    private final Path checkpointFile;
+    private final int flushEvery;
+    private final Duration flushInterval;
+
+    private CrawlJob(Builder builder)
+    {
+        this.crawler = builder.crawler;
+        this.template = builder.template;
+        this.area = builder.area;
+        this.checkpointFile = builder.checkpointFile;
+        this.flushEvery = builder.flushEvery;
+        this.flushInterval = builder.flushInterval;
+    }
+
+    public static Builder newBuilder(@Required AdaptiveCrawler crawler) throws IllegalArgumentException
+    {
+        return new Builder(crawler);
+    }
+
+    /**
+     * Runs the crawl, or resumes it from its checkpoint.
+     *
+     * @param sink Receives the businesses found, each once, and never by more than one thread at a time.
+     * @return A summary of the crawl. Its count of businesses includes those emitted before a resume; its count of
+     *         requests and cells only covers this run.
+     * @throws IllegalArgumentException If the sink is null, or the checkpoint file belongs to a different crawl.
+     * @throws YelpException If any of the searches fail, or the checkpoint can't be written. The checkpoint keeps the
+     *                       progress made so far.
+     */
+    public AdaptiveCrawler.Summary run(@Required Consumer<? super YelpBusiness> sink) throws IllegalArgumentException, YelpException
+    {
+        checkThat(sink)
+            .usingMessage("sink cannot be null")
+            .is(notNull());
+
+        String header = CheckpointLog.headerFor(area, template.hashCode());
+
+        try (CheckpointLog log = CheckpointLog.open(checkpointFile, header, flushEvery, flushInterval.toNanos(), TimeUnit.NANOSECONDS))
+        {
+            if (log.isFinished())
+            {
+                LOG.info("Crawl in {} has already finished", checkpointFile);
+                return new AdaptiveCrawler.Summary(log.getSeen().size(), 0, 0, 0);
+            }
+
+            try
+            {
+                AdaptiveCrawler.Summary summary = crawler.crawl(template, area, sink, log.getFrontier(), log.getSeen(), log);
+                log.finish();
+                return summary;
+            }
+            finally
+            {
+                log.flush();
+            }
+        }
+    }
+
+    /**
+     * @return The file that the crawl's progress is kept in.
+     */
+    public Path getCheckpointFile()
+    {
+        return checkpointFile;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CrawlJob{" + "area=" + area + ", checkpointFile=" + checkpointFile + ", flushEvery=" + flushEvery + ", flushInterval=" + flushInterval + '}';
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** By default, the checkpoint is written out after this many records. */
+        public static final int DEFAULT_FLUSH_EVERY = 64;
+
+        /** By default, the checkpoint is written out at least this often while records come in. */
+        public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(5);
+
+        private final AdaptiveCrawler crawler;
+        private YelpSearchRequest template;
+        private BoundingBox area;
+        private Path checkpointFile;
+        private int flushEvery = DEFAULT_FLUSH_EVERY;
+        private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+        private Builder(AdaptiveCrawler crawler)
+        {
+            checkThat(crawler)
+                .usingMessage("crawler cannot be null")
+                .is(notNull());
+
+            this.crawler = crawler;
+        }
+
+        /**
+         * Sets the area to crawl, and the request to run in each of its cells.
+         */
+        public Builder withArea(@Required YelpSearchRequest template, @Required BoundingBox area) throws IllegalArgumentException
+        {
+            checkThat(template, area)
+                .usingMessage("template and area are required")
+                .are(notNull());
+
+            checkThat(template.hasLocation())
+                .usingMessage("template request cannot use an address location; use a coordinate instead")
+                .is(falseStatement());
+
+            this.template = template;
+            this.area = area;
+            return this;
+        }
+
+        /**
+         * Sets the file that the crawl's progress is kept in. It is created if it doesn't exist.
+         */
+        public Builder withCheckpointFile(@Required Path checkpointFile) throws IllegalArgumentException
+        {
+            checkThat(checkpointFile)
+                .usingMessage("checkpoint file cannot be null")
+                .is(notNull());
+
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        /**
+         * Sets how often the checkpoint is written out: after {@code records} records, or {@code interval} after the last
+         * write, whichever comes first.
+         */
+        public Builder withFlushPolicy(@Positive int records, @Required Duration interval) throws IllegalArgumentException
+        {
+            checkThat(records)
+                .usingMessage("records must be > 0")
+                .is(positiveInteger());
+
+            checkThat(interval)
+                .usingMessage("interval cannot be null")
+                .is(notNull());
+
+            checkThat(interval.isNegative())
+                .usingMessage("interval cannot be negative")
+                .is(falseStatement());
+
+            this.flushEvery = records;
+            this.flushInterval = interval;
+            return this;
+        }
+
+        public CrawlJob build() throws IllegalStateException
+        {
+            if (area == null)
+            {
+                throw new IllegalStateException("area is required");
+            }
+
+            if (checkpointFile == null)
+            {
+                throw new IllegalStateException("checkpoint file is required");
+            }
+
+            return new CrawlJob(this);
+        }
+
+    }
+
+}
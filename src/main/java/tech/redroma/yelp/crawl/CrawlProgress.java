@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.util.List;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * Told about each step of an {@link AdaptiveCrawler} crawl, so that it can be recorded and resumed. Calls can come from
+ * several threads at once.
+ *
+ * @author SirWellington
+ */
+@Internal
+interface CrawlProgress
+{
+
+    /**
+     * Called once a page of a cell has been searched, and its new businesses emitted.
+     *
+     * @param path       The cell's path.
+     * @param nextOffset The offset to resume the cell from.
+     * @param emitted    The ids of the businesses emitted from the page.
+     */
+    void onPage(String path, int nextOffset, List<String> emitted);
+
+    /**
+     * Called when a cell has been split into its quadrants, which take its place.
+     */
+    void onSplit(String path);
+
+    /**
+     * Called when every page of a cell has been searched.
+     */
+    void onDone(String path);
+
+    CrawlProgress NONE = new CrawlProgress()
+    {
+        @Override
+        public void onPage(String path, int nextOffset, List<String> emitted)
+        {
+        }
+
+        @Override
+        public void onSplit(String path)
+        {
+        }
+
+        @Override
+        public void onDone(String path)
+        {
+        }
+    };
+
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.codec.YelpCodec;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * An {@linkplain AdaptiveCrawler adaptive crawl} shared by several nodes.
+ * <p>
+ * The area is divided into a fixed grid of units, kept in a {@link CoordinationStore}. Each node, usually in its own
+ * process, {@linkplain #runNode() runs} the same crawl against the same store. A node claims a unit with a
+ * {@linkplain Lease lease}, crawls it, and stores its results, renewing the lease while it works. When a node stops, its
+ * leases expire and the units it held are taken over by the nodes still running; nodes that run out of units of their own
+ * keep claiming these until every unit is finished.
+ * <p>
+ * A node claims one unit at a time, so there is no backlog of units held by a slow node; an idle node takes any unit not
+ * yet claimed. A unit is only taken from a node once its lease expires, never while the node is still renewing it.
+ * <p>
+ * Once every unit is finished, {@link #collectResults() } merges their results, with each business appearing once.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class DistributedCrawl
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(DistributedCrawl.class);
+
+    private final AdaptiveCrawler crawler;
+    private final CoordinationStore store;
+    private final YelpSearchRequest template;
+    private final BoundingBox area;
+    private final List<String> units;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+    private final YelpCodec codec = YelpCodec.newInstance();
+
+    private DistributedCrawl(Builder builder)
+    {
+        this.crawler = builder.crawler;
+        this.store = builder.store;
+        this.template = builder.template;
+        this.area = builder.area;
+        this.units = Cells.pathsAtDepth(builder.partitionDepth);
+        this.nodeId = builder.nodeId;
+        this.leaseDuration = builder.leaseDuration;
+        this.pollInterval = builder.pollInterval;
+    }
+
+    public static Builder newBuilder(@Required AdaptiveCrawler crawler, @Required CoordinationStore store) throws IllegalArgumentException
+    {
+        return new Builder(crawler, store);
+    }
+
+    /**
+     * Works on the crawl until every unit is finished, by this node or by others.
+     *
+     * @return What this node did.
+     * @throws YelpException If a search fails, or the store can't be reached. The unit this node was working on is picked
+     *                       up by another node once its lease expires.
+     */
+    public NodeSummary runNode() throws YelpException
+    {
+        store.addUnits(units);
+
+        //Each node starts at a different unit, so they don't all race for the same ones
+        int start = Math.floorMod(nodeId.hashCode(), units.size());
+
+        ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(this::newThread);
+
+        int completed = 0;
+        int lost = 0;
+        int businesses = 0;
+
+        try
+        {
+            while (true)
+            {
+                Set<String> finished = store.getCompletedUnits();
+
+                if (finished.containsAll(units))
+                {
+                    break;
+                }
+
+                Optional<Lease> lease = claimNextUnit(start, finished);
+
+                if (!lease.isPresent())
+                {
+                    //The remaining units are held by other nodes; wait for them to finish, or for their leases to expire
+                    sleep(pollInterval);
+                    continue;
+                }
+
+                List<YelpBusiness> results = crawlUnit(lease.get(), renewals);
+
+                if (results == null)
+                {
+                    lost += 1;
+                }
+                else
+                {
+                    completed += 1;
+                    businesses += results.size();
+                }
+            }
+        }
+        finally
+        {
+            renewals.shutdownNow();
+        }
+
+        NodeSummary summary = new NodeSummary(completed, lost, businesses);
+        LOG.info("Node {} is done: {}", nodeId, summary);
+
+        return summary;
+    }
+
+    /**
+     * @return Whether every unit of the crawl is finished.
+     */
+    public boolean isFinished() throws YelpException
+    {
+        return store.getCompletedUnits().containsAll(units);
+    }
+
+    /**
+     * Merges the results of every finished unit. A business found in more than one unit appears once.
+     *
+     * @return The businesses found so far. Call this once {@link #isFinished() } to get every business in the area.
+     * @throws YelpException If the store can't be reached, or holds damaged results.
+     */
+    public List<YelpBusiness> collectResults() throws YelpException
+    {
+        Map<String, YelpBusiness> merged = new LinkedHashMap<>();
+
+        for (String unit : units)
+        {
+            Optional<byte[]> results = store.getResults(unit);
+
+            if (!results.isPresent())
+            {
+                continue;
+            }
+
+            for (YelpBusiness business : codec.decodeBusinesses(ByteBuffer.wrap(results.get())))
+            {
+                merged.putIfAbsent(business.id, business);
+            }
+        }
+
+        return new ArrayList<>(merged.values());
+    }
+
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    private Optional<Lease> claimNextUnit(int start, Set<String> finished)
+    {
+        for (int i = 0; i < units.size(); ++i)
+        {
+            String unit = units.get((start + i) % units.size());
+
+            if (finished.contains(unit))
+            {
+                continue;
+            }
+
+            Instant now = Instant.now();
+            Optional<Lease> lease = store.tryAcquire(unit, nodeId, now, now.plus(leaseDuration));
+
+            if (lease.isPresent())
+            {
+                return lease;
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @return The unit's results, or null if its lease was lost before they could be stored.
+     */
+    private List<YelpBusiness> crawlUnit(Lease lease, ScheduledExecutorService renewals)
+    {
+        String unit = lease.getUnitId();
+        AtomicReference<Lease> current = new AtomicReference<>(lease);
+
+        long period = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(() -> renew(current), period, period, TimeUnit.MILLISECONDS);
+
+        List<YelpBusiness> results;
+
+        try
+        {
+            LOG.debug("Node {} is crawling unit {}", nodeId, unit);
+            results = crawler.crawl(template, Cells.boxOf(area, unit));
+        }
+        finally
+        {
+            renewal.cancel(false);
+        }
+
+        Lease held = current.get();
+
+        if (held == null || !store.complete(held, codec.encodeBusinesses(results)))
+        {
+            LOG.warn("Node {} lost its lease on unit {}; its results are discarded", nodeId, unit);
+            return null;
+        }
+
+        return results;
+    }
+
+    private void renew(AtomicReference<Lease> current)
+    {
+        Lease lease = current.get();
+
+        if (lease == null)
+        {
+            return;
+        }
+
+        try
+        {
+            current.set(store.renew(lease, Instant.now().plus(leaseDuration)).orElse(null));
+        }
+        catch (RuntimeException ex)
+        {
+            //The lease may still be renewed next time, before it expires
+            LOG.warn("Node {} could not renew its lease on unit {}", nodeId, lease.getUnitId(), ex);
+        }
+    }
+
+    private static void sleep(Duration duration)
+    {
+        try
+        {
+            Thread.sleep(duration.toMillis());
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while waiting for units", ex);
+        }
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "yelp-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DistributedCrawl{" + "store=" + store + ", area=" + area + ", units=" + units.size() + ", nodeId=" + nodeId + ", leaseDuration=" + leaseDuration + '}';
+    }
+
+    /**
+     * Describes what a single node did.
+     */
+    @Immutable
+    public static final class NodeSummary
+    {
+
+        private final int completedUnits;
+        private final int lostUnits;
+        private final int businesses;
+
+        NodeSummary(int completedUnits, int lostUnits, int businesses)
+        {
+            this.completedUnits = completedUnits;
+            this.lostUnits = lostUnits;
+            this.businesses = businesses;
+        }
+
+        /**
+         * @return The number of units this node finished.
+         */
+        public int getCompletedUnits()
+        {
+            return completedUnits;
+        }
+
+        /**
+         * @return The number of units this node crawled, but lost to another node before it could store the results.
+         */
+        public int getLostUnits()
+        {
+            return lostUnits;
+        }
+
+        /**
+         * @return The number of businesses in the units this node finished.
+         */
+        public int getBusinesses()
+        {
+            return businesses;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "NodeSummary{" + "completedUnits=" + completedUnits + ", lostUnits=" + lostUnits + ", businesses=" + businesses + '}';
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** By default, the area is split this many times, into 4<sup>depth</sup> units. */
+        public static final int DEFAULT_PARTITION_DEPTH = 3;
+
+        /** The deepest the area can be split, which makes 4,096 units. */
+        public static final int MAX_PARTITION_DEPTH = 6;
+
+        public static final Duration DEFAULT_LEASE_DURATION = Duration.ofMinutes(2);
+
+        public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+        private final AdaptiveCrawler crawler;
+        private final CoordinationStore store;
+        private YelpSearchRequest template;
+        private BoundingBox area;
+        private int partitionDepth = DEFAULT_PARTITION_DEPTH;
+        private String nodeId = UUID.randomUUID().toString();
+        private Duration leaseDuration = DEFAULT_LEASE_DURATION;
+        private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+
+        private Builder(AdaptiveCrawler crawler, CoordinationStore store)
+        {
+            checkThat(crawler, store)
+                .usingMessage("crawler and store are required")
+                .are(notNull());
+
+            this.crawler = crawler;
+            this.store = store;
+        }
+
+        /**
+         * Sets the area to crawl, and the request to run in each of its cells. Every node must use the same area.
+         */
+        public Builder withArea(@Required YelpSearchRequest template, @Required BoundingBox area) throws IllegalArgumentException
+        {
+            checkThat(template, area)
+                .usingMessage("template and area are required")
+                .are(notNull());
+
+            checkThat(template.hasLocation())
+                .usingMessage("template request cannot use an address location; use a coordinate instead")
+                .is(falseStatement());
+
+            this.template = template;
+            this.area = area;
+            return this;
+        }
+
+        /**
+         * Sets how many times the area is split into quadrants to make the units. Every node must use the same depth.
+         */
+        public Builder withPartitionDepth(int depth) throws IllegalArgumentException
+        {
+            checkThat(depth)
+                .usingMessage("partition depth must be between 0 and " + MAX_PARTITION_DEPTH)
+                .is(greaterThanOrEqualTo(0))
+                .is(lessThanOrEqualTo(MAX_PARTITION_DEPTH));
+
+            this.partitionDepth = depth;
+            return this;
+        }
+
+        /**
+         * Sets the id this node claims units with. It must be unique among the nodes. Defaults to a random id.
+         */
+        public Builder withNodeId(@NonEmpty String nodeId) throws IllegalArgumentException
+        {
+            checkThat(nodeId)
+                .usingMessage("node id cannot be empty")
+                .is(nonEmptyString());
+
+            this.nodeId = nodeId;
+            return this;
+        }
+
+        /**
+         * Sets how long a lease lasts without being renewed. Leases are renewed every third of this while a unit is
+         * crawled, so a node that stops has its units taken over after at most this long.
+         */
+        public Builder withLeaseDuration(@Required Duration leaseDuration) throws IllegalArgumentException
+        {
+            checkThat(leaseDuration)
+                .usingMessage("lease duration cannot be null")
+                .is(notNull());
+
+            checkThat(!leaseDuration.isNegative() && !leaseDuration.isZero())
+                .usingMessage("lease duration must be positive")
+                .is(trueStatement());
+
+            this.leaseDuration = leaseDuration;
+            return this;
+        }
+
+        /**
+         * Sets how long a node waits before checking again, when every unfinished unit is held by another node.
+         */
+        public Builder withPollInterval(@Required Duration pollInterval) throws IllegalArgumentException
+        {
+            checkThat(pollInterval)
+                .usingMessage("poll interval cannot be null")
+                .is(notNull());
+
+            checkThat(pollInterval.isNegative())
+                .usingMessage("poll interval cannot be negative")
+                .is(falseStatement());
+
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        public DistributedCrawl build() throws IllegalStateException
+        {
+            if (area == null)
+            {
+                throw new IllegalStateException("area is required");
+            }
+
+            return new DistributedCrawl(this);
+        }
+
+    }
+
+}
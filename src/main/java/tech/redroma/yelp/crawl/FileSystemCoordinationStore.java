@@ -0,0 +1,374 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * A {@link CoordinationStore} kept in a directory:
+ * <pre>
+ * units/{unit}      one empty file per unit
+ * leases/{unit}     "{owner} {token} {expiration}" for the unit's latest lease
+ * results/{unit}    the results of a finished unit
+ * .lock             locked while any operation runs
+ * </pre>
+ * Leases and results are written to a temporary file and moved into place, so a unit is only ever seen with a whole
+ * lease, and as finished with all of its results. A lease that can't be read anyway, such as one damaged by hand, is
+ * treated as expired, and the next lease on the unit gets a token larger than any it could have held.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class FileSystemCoordinationStore implements CoordinationStore
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(FileSystemCoordinationStore.class);
+
+    //Owns the stand-in for a lease that can't be read
+    private static final String UNKNOWN_OWNER = "unknown";
+
+    //File locks are held by the whole JVM, so threads in it also have to take turns
+    private static final ConcurrentMap<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Path units;
+    private final Path leases;
+    private final Path results;
+    private final Path lockFile;
+    private final Object jvmLock;
+
+    FileSystemCoordinationStore(Path directory) throws IllegalArgumentException, YelpOperationFailedException
+    {
+        checkThat(directory)
+            .usingMessage("directory cannot be null")
+            .is(notNull());
+
+        this.directory = directory.toAbsolutePath().normalize();
+        this.units = this.directory.resolve("units");
+        this.leases = this.directory.resolve("leases");
+        this.results = this.directory.resolve("results");
+        this.lockFile = this.directory.resolve(".lock");
+        this.jvmLock = JVM_LOCKS.computeIfAbsent(this.directory, path -> new Object());
+
+        try
+        {
+            Files.createDirectories(units);
+            Files.createDirectories(leases);
+            Files.createDirectories(results);
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not create coordination store at " + directory, ex);
+        }
+    }
+
+    @Override
+    public void addUnits(Collection<String> unitIds)
+    {
+        checkThat(unitIds)
+            .usingMessage("unit ids cannot be null")
+            .is(notNull());
+
+        unitIds.forEach(id -> checkThat(id).usingMessage("unit ids cannot be empty").is(nonEmptyString()));
+
+        locked(() ->
+        {
+            for (String unitId : unitIds)
+            {
+                Path unit = units.resolve(fileNameOf(unitId));
+
+                if (!Files.exists(unit))
+                {
+                    Files.createFile(unit);
+                }
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> getUnits()
+    {
+        return locked(() -> idsIn(units));
+    }
+
+    @Override
+    public Set<String> getCompletedUnits()
+    {
+        return locked(() -> idsIn(results));
+    }
+
+    @Override
+    public Optional<Lease> tryAcquire(String unitId, String owner, Instant now, Instant expiresAt)
+    {
+        checkThat(unitId, owner)
+            .usingMessage("unit id and owner are required")
+            .are(nonEmptyString());
+
+        checkThat(now, expiresAt)
+            .usingMessage("times cannot be null")
+            .are(notNull());
+
+        return locked(() ->
+        {
+            String fileName = fileNameOf(unitId);
+
+            if (!Files.exists(units.resolve(fileName)) || Files.exists(results.resolve(fileName)))
+            {
+                return Optional.empty();
+            }
+
+            Optional<Lease> current = readLease(unitId);
+
+            if (current.isPresent() && !current.get().isExpiredAt(now))
+            {
+                return Optional.empty();
+            }
+
+            long token = current.map(Lease::getToken).orElse(0L) + 1;
+            Lease lease = new Lease(unitId, owner, token, expiresAt);
+            writeLease(lease);
+
+            return Optional.of(lease);
+        });
+    }
+
+    @Override
+    public Optional<Lease> renew(Lease lease, Instant expiresAt)
+    {
+        checkThat(lease, expiresAt)
+            .usingMessage("lease and expiration are required")
+            .are(notNull());
+
+        return locked(() ->
+        {
+            if (!holds(lease))
+            {
+                return Optional.empty();
+            }
+
+            Lease renewed = lease.extendedTo(expiresAt);
+            writeLease(renewed);
+
+            return Optional.of(renewed);
+        });
+    }
+
+    @Override
+    public boolean complete(Lease lease, byte[] data)
+    {
+        checkThat(lease, data)
+            .usingMessage("lease and results are required")
+            .are(notNull());
+
+        return locked(() ->
+        {
+            if (!holds(lease))
+            {
+                return false;
+            }
+
+            writeAtomically(results.resolve(fileNameOf(lease.getUnitId())), data);
+            return true;
+        });
+    }
+
+    @Override
+    public Optional<byte[]> getResults(String unitId)
+    {
+        checkThat(unitId)
+            .usingMessage("unit id cannot be empty")
+            .is(nonEmptyString());
+
+        return locked(() ->
+        {
+            Path file = results.resolve(fileNameOf(unitId));
+            return Files.exists(file) ? Optional.of(Files.readAllBytes(file)) : Optional.<byte[]>empty();
+        });
+    }
+
+    private boolean holds(Lease lease) throws IOException
+    {
+        if (Files.exists(results.resolve(fileNameOf(lease.getUnitId()))))
+        {
+            return false;
+        }
+
+        return readLease(lease.getUnitId())
+            .map(current -> current.getToken() == lease.getToken())
+            .orElse(false);
+    }
+
+    private Optional<Lease> readLease(String unitId) throws IOException
+    {
+        Path file = leases.resolve(fileNameOf(unitId));
+
+        if (!Files.exists(file))
+        {
+            return Optional.empty();
+        }
+
+        String[] parts = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split(" ");
+
+        try
+        {
+            if (parts.length == 3)
+            {
+                return Optional.of(new Lease(unitId, decode(parts[0]), Long.parseLong(parts[1]), Instant.parse(parts[2])));
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.debug("Could not parse the lease at {}", file, ex);
+        }
+
+        //Tokens count up from 1, so the current time in milliseconds is past any the damaged lease had
+        LOG.warn("The lease for unit {} at {} is damaged; treating it as expired", unitId, file);
+        return Optional.of(new Lease(unitId, UNKNOWN_OWNER, System.currentTimeMillis(), Instant.EPOCH));
+    }
+
+    private void writeLease(Lease lease) throws IOException
+    {
+        String text = fileNameOf(lease.getOwner()) + " " + lease.getToken() + " " + lease.getExpiresAt();
+        writeAtomically(leases.resolve(fileNameOf(lease.getUnitId())), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeAtomically(Path target, byte[] data) throws IOException
+    {
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try
+        {
+            Files.write(temporary, data);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static Set<String> idsIn(Path folder) throws IOException
+    {
+        Set<String> ids = new TreeSet<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder))
+        {
+            for (Path file : files)
+            {
+                ids.add(decode(file.getFileName().toString()));
+            }
+        }
+
+        return ids;
+    }
+
+    private <T> T locked(IOOperation<T> operation)
+    {
+        synchronized (jvmLock)
+        {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+            {
+                FileLock lock = channel.lock();
+
+                try
+                {
+                    return operation.run();
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new YelpOperationFailedException("coordination store at " + directory + " failed", ex);
+            }
+        }
+    }
+
+    private static String fileNameOf(String id)
+    {
+        try
+        {
+            String encoded = URLEncoder.encode(id, "UTF-8");
+
+            //URLEncoder leaves dots alone, which would make "." and ".." special
+            return encoded.replace(".", "%2E");
+        }
+        catch (UnsupportedEncodingException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String decode(String fileName)
+    {
+        try
+        {
+            return URLDecoder.decode(fileName, "UTF-8");
+        }
+        catch (UnsupportedEncodingException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FileSystemCoordinationStore{" + "directory=" + directory + '}';
+    }
+
+    @FunctionalInterface
+    private interface IOOperation<T>
+    {
+
+        T run() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * A {@link CoordinationStore} kept in memory.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class InMemoryCoordinationStore implements CoordinationStore
+{
+
+    private final Set<String> units = new LinkedHashSet<>();
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final Map<String, Long> tokens = new HashMap<>();
+    private final Map<String, byte[]> results = new HashMap<>();
+
+    @Override
+    public synchronized void addUnits(Collection<String> unitIds)
+    {
+        checkThat(unitIds)
+            .usingMessage("unit ids cannot be null")
+            .is(notNull());
+
+        unitIds.forEach(id -> checkThat(id).usingMessage("unit ids cannot be empty").is(nonEmptyString()));
+        units.addAll(unitIds);
+    }
+
+    @Override
+    public synchronized Set<String> getUnits()
+    {
+        return new LinkedHashSet<>(units);
+    }
+
+    @Override
+    public synchronized Set<String> getCompletedUnits()
+    {
+        return new LinkedHashSet<>(results.keySet());
+    }
+
+    @Override
+    public synchronized Optional<Lease> tryAcquire(String unitId, String owner, Instant now, Instant expiresAt)
+    {
+        checkThat(unitId, owner)
+            .usingMessage("unit id and owner are required")
+            .are(nonEmptyString());
+
+        checkThat(now, expiresAt)
+            .usingMessage("times cannot be null")
+            .are(notNull());
+
+        if (!units.contains(unitId) || results.containsKey(unitId))
+        {
+            return Optional.empty();
+        }
+
+        Lease current = leases.get(unitId);
+
+        if (current != null && !current.isExpiredAt(now))
+        {
+            return Optional.empty();
+        }
+
+        long token = tokens.merge(unitId, 1L, Long::sum);
+        Lease lease = new Lease(unitId, owner, token, expiresAt);
+        leases.put(unitId, lease);
+
+        return Optional.of(lease);
+    }
+
+    @Override
+    public synchronized Optional<Lease> renew(Lease lease, Instant expiresAt)
+    {
+        checkThat(lease, expiresAt)
+            .usingMessage("lease and expiration are required")
+            .are(notNull());
+
+        if (!holds(lease))
+        {
+            return Optional.empty();
+        }
+
+        Lease renewed = lease.extendedTo(expiresAt);
+        leases.put(lease.getUnitId(), renewed);
+
+        return Optional.of(renewed);
+    }
+
+    @Override
+    public synchronized boolean complete(Lease lease, byte[] results)
+    {
+        checkThat(lease, results)
+            .usingMessage("lease and results are required")
+            .are(notNull());
+
+        if (!holds(lease))
+        {
+            return false;
+        }
+
+        this.results.put(lease.getUnitId(), results.clone());
+        leases.remove(lease.getUnitId());
+
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<byte[]> getResults(String unitId)
+    {
+        checkThat(unitId)
+            .usingMessage("unit id cannot be empty")
+            .is(nonEmptyString());
+
+        return Optional.ofNullable(results.get(unitId)).map(byte[]::clone);
+    }
+
+    private boolean holds(Lease lease)
+    {
+        Lease current = leases.get(lease.getUnitId());
+
+        return current != null && current.getToken() == lease.getToken() && !results.containsKey(lease.getUnitId());
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "InMemoryCoordinationStore{" + "units=" + units.size() + ", leases=" + leases.size() + ", completed=" + results.size() + '}';
+    }
+
+}
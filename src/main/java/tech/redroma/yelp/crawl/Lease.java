@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.time.Instant;
+import java.util.Objects;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * A node's claim on a unit of work, good until it expires.
+ * <p>
+ * Each time a unit is claimed, its lease gets a larger {@linkplain #getToken() token}. A store only accepts renewals and
+ * completions carrying the unit's latest token, so a node whose lease expired and was taken over can't overwrite the work
+ * of the node that took it.
+ *
+ * @author SirWellington
+ * @see CoordinationStore
+ */
+@Immutable
+public final class Lease
+{
+
+    private final String unitId;
+    private final String owner;
+    private final long token;
+    private final Instant expiresAt;
+
+    public Lease(@NonEmpty String unitId, @NonEmpty String owner, long token, @Required Instant expiresAt) throws IllegalArgumentException
+    {
+        checkThat(unitId, owner)
+            .usingMessage("unit id and owner are required")
+            .are(nonEmptyString());
+
+        checkThat(expiresAt)
+            .usingMessage("expiration cannot be null")
+            .is(notNull());
+
+        this.unitId = unitId;
+        this.owner = owner;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUnitId()
+    {
+        return unitId;
+    }
+
+    /**
+     * @return The id of the node holding the lease.
+     */
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public long getToken()
+    {
+        return token;
+    }
+
+    public Instant getExpiresAt()
+    {
+        return expiresAt;
+    }
+
+    public boolean isExpiredAt(@Required Instant now)
+    {
+        return !now.isBefore(expiresAt);
+    }
+
+    /**
+     * @return A copy of this lease, with a new expiration.
+     */
+    public Lease extendedTo(@Required Instant expiresAt)
+    {
+        return new Lease(unitId, owner, token, expiresAt);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 5;
+        hash = 23 * hash + Objects.hashCode(this.unitId);
+        hash = 23 * hash + Objects.hashCode(this.owner);
+        hash = 23 * hash + (int) (this.token ^ (this.token >>> 32));
+        hash = 23 * hash + Objects.hashCode(this.expiresAt);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final Lease other = (Lease) obj;
+        if (this.token != other.token)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.unitId, other.unitId))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.owner, other.owner))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.expiresAt, other.expiresAt))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Lease{" + "unitId=" + unitId + ", owner=" + owner + ", token=" + token + ", expiresAt=" + expiresAt + '}';
+    }
+
+}
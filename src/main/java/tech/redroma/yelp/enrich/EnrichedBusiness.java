@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.enrich;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * A business from a search, together with its details and reviews. Each of these is looked up separately, so either
+ * may have failed while the other succeeded; a failed lookup leaves its value {@code null} and records why.
+ *
+ * @author SirWellington
+ * @see EnrichmentPipeline
+ */
+@Immutable
+public final class EnrichedBusiness
+{
+
+    private final YelpBusiness business;
+    private final YelpBusinessDetails details;
+    private final RuntimeException detailsFailure;
+    private final List<YelpReview> reviews;
+    private final RuntimeException reviewsFailure;
+
+    EnrichedBusiness(@Required YelpBusiness business,
+                     @Optional YelpBusinessDetails details,
+                     @Optional RuntimeException detailsFailure,
+                     @Optional List<YelpReview> reviews,
+                     @Optional RuntimeException reviewsFailure)
+    {
+        this.business = business;
+        this.details = details;
+        this.detailsFailure = detailsFailure;
+        this.reviews = reviews == null ? null : Collections.unmodifiableList(new ArrayList<>(reviews));
+        this.reviewsFailure = reviewsFailure;
+    }
+
+    /**
+     * @return The business, as returned by the search.
+     */
+    public YelpBusiness getBusiness()
+    {
+        return business;
+    }
+
+    /**
+     * @return The business's details, or {@code null} if they couldn't be looked up.
+     */
+    public YelpBusinessDetails getDetails()
+    {
+        return details;
+    }
+
+    public boolean hasDetails()
+    {
+        return details != null;
+    }
+
+    /**
+     * @return Why looking up the details failed, or {@code null} if it didn't.
+     */
+    public RuntimeException getDetailsFailure()
+    {
+        return detailsFailure;
+    }
+
+    /**
+     * @return The business's reviews, or {@code null} if they couldn't be looked up.
+     */
+    public List<YelpReview> getReviews()
+    {
+        return reviews;
+    }
+
+    public boolean hasReviews()
+    {
+        return reviews != null;
+    }
+
+    /**
+     * @return Why looking up the reviews failed, or {@code null} if it didn't.
+     */
+    public RuntimeException getReviewsFailure()
+    {
+        return reviewsFailure;
+    }
+
+    /**
+     * @return Whether both the details and the reviews were looked up without failing.
+     */
+    public boolean isComplete()
+    {
+        return detailsFailure == null && reviewsFailure == null;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 3;
+        hash = 67 * hash + Objects.hashCode(this.business);
+        hash = 67 * hash + Objects.hashCode(this.details);
+        hash = 67 * hash + Objects.hashCode(this.detailsFailure);
+        hash = 67 * hash + Objects.hashCode(this.reviews);
+        hash = 67 * hash + Objects.hashCode(this.reviewsFailure);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final EnrichedBusiness other = (EnrichedBusiness) obj;
+        if (!Objects.equals(this.business, other.business))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.details, other.details))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.detailsFailure, other.detailsFailure))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.reviews, other.reviews))
+        {
+            return false;
+        }
+        return Objects.equals(this.reviewsFailure, other.reviewsFailure);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EnrichedBusiness{" + "business=" + business + ", details=" + details + ", detailsFailure=" + detailsFailure + ", reviews=" + reviews + ", reviewsFailure=" + reviewsFailure + '}';
+    }
+
+}
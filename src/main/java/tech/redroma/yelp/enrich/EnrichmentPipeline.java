@@ -0,0 +1,403 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.enrich;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Searches for businesses and looks up the details and reviews of each one, as a pipeline instead of one call after
+ * another.
+ * <p>
+ * Search results are handed to the details and reviews stages as soon as each page arrives. The two lookups for a
+ * business run at the same time, and each stage has its own concurrency limit. Each {@link EnrichedBusiness} is given to
+ * the consumer as soon as both of its lookups finish, so businesses arrive in the order they complete rather than the
+ * order they were found.
+ * <p>
+ * At most {@linkplain Builder#withMaxInFlight(int) a bounded number} of businesses are being looked up or waiting for the
+ * consumer at once. When the consumer falls behind, no new lookups start until it catches up.
+ * <p>
+ * A failed lookup doesn't stop the pipeline; the business is still emitted, with the failure recorded. A failed search
+ * does stop it, and is thrown once the lookups already in flight are abandoned.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class EnrichmentPipeline
+{
+
+    //Marks the end of the records in the queue
+    private static final EnrichedBusiness END = new EnrichedBusiness(null, null, null, null, null);
+
+    private final YelpAPI yelp;
+    private final int detailsConcurrency;
+    private final int reviewsConcurrency;
+    private final int maxInFlight;
+    private final int maxPages;
+
+    private EnrichmentPipeline(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.detailsConcurrency = builder.detailsConcurrency;
+        this.reviewsConcurrency = builder.reviewsConcurrency;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxPages = builder.maxPages;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Searches for businesses and enriches each one.
+     * <p>
+     * The consumer is called on the calling thread, one business at a time, and this method returns once every business
+     * found has been consumed. Each call uses its own threads, which are released when it returns.
+     *
+     * @param request  The search. With more than one {@linkplain Builder#withMaxPages(int) page}, paging starts at its
+     *                 offset, if it has one.
+     * @param consumer Receives each enriched business as soon as it is ready.
+     * @return The number of businesses consumed.
+     * @throws IllegalArgumentException If any argument is null.
+     * @throws YelpException If a search fails, or the calling thread is interrupted.
+     */
+    public int enrich(@Required YelpSearchRequest request, @Required Consumer<EnrichedBusiness> consumer) throws IllegalArgumentException, YelpException
+    {
+        checkThat(request, consumer)
+            .usingMessage("request and consumer are required")
+            .are(notNull());
+
+        ExecutorService searches = Executors.newSingleThreadExecutor(runnable -> newThread(runnable, "search"));
+        ExecutorService details = Executors.newFixedThreadPool(detailsConcurrency, runnable -> newThread(runnable, "details"));
+        ExecutorService reviews = Executors.newFixedThreadPool(reviewsConcurrency, runnable -> newThread(runnable, "reviews"));
+
+        //Only admitted businesses take space in the queue, so it never holds more than maxInFlight
+        Semaphore admissions = new Semaphore(maxInFlight);
+        BlockingQueue<EnrichedBusiness> ready = new LinkedBlockingQueue<>();
+        AtomicReference<YelpException> searchFailure = new AtomicReference<>();
+
+        try
+        {
+            searches.execute(() -> search(request, admissions, ready, searchFailure, details, reviews));
+
+            int consumed = 0;
+
+            while (true)
+            {
+                EnrichedBusiness next = ready.take();
+
+                if (next == END)
+                {
+                    break;
+                }
+
+                consumer.accept(next);
+                admissions.release();
+                ++consumed;
+            }
+
+            if (searchFailure.get() != null)
+            {
+                throw searchFailure.get();
+            }
+
+            return consumed;
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while enriching businesses", ex);
+        }
+        finally
+        {
+            searches.shutdownNow();
+            details.shutdownNow();
+            reviews.shutdownNow();
+        }
+    }
+
+    private void search(YelpSearchRequest request,
+                        Semaphore admissions,
+                        BlockingQueue<EnrichedBusiness> ready,
+                        AtomicReference<YelpException> searchFailure,
+                        ExecutorService details,
+                        ExecutorService reviews)
+    {
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        try
+        {
+            int limit = request.hasLimit() ? request.getLimit() : MAX_LIMIT;
+            int offset = request.hasOffset() ? request.getOffset() : 0;
+
+            for (int page = 0; page < maxPages; ++page)
+            {
+                YelpSearchRequest pageRequest = maxPages == 1 ? request : pageOf(request, offset, limit);
+                List<YelpBusiness> businesses = yelp.searchForBusinesses(pageRequest);
+
+                if (businesses == null)
+                {
+                    break;
+                }
+
+                for (YelpBusiness business : businesses)
+                {
+                    //Results can shift between pages, repeating a business
+                    if (business == null || (business.id != null && !seen.add(business.id)))
+                    {
+                        continue;
+                    }
+
+                    admissions.acquire();
+                    lookups.add(lookUp(business, ready, details, reviews));
+                }
+
+                offset += limit;
+
+                if (businesses.size() < limit || offset + limit > MAX_OFFSET)
+                {
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            //The pipeline is shutting down
+            return;
+        }
+        catch (YelpException ex)
+        {
+            searchFailure.set(ex);
+            ready.add(END);
+            return;
+        }
+        catch (RuntimeException ex)
+        {
+            searchFailure.set(new YelpOperationFailedException("search failed", ex));
+            ready.add(END);
+            return;
+        }
+
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((result, ex) -> ready.add(END));
+    }
+
+    private CompletableFuture<Void> lookUp(YelpBusiness business,
+                                           BlockingQueue<EnrichedBusiness> ready,
+                                           ExecutorService details,
+                                           ExecutorService reviews)
+    {
+        CompletableFuture<Outcome<YelpBusinessDetails>> detailsLookup =
+            CompletableFuture.supplyAsync(() -> Outcome.of(() -> yelp.getBusinessDetails(business)), details);
+
+        CompletableFuture<Outcome<List<YelpReview>>> reviewsLookup =
+            CompletableFuture.supplyAsync(() -> Outcome.of(() -> yelp.getReviewsForBusiness(business)), reviews);
+
+        return detailsLookup
+            .thenCombine(reviewsLookup, (detail, review) -> new EnrichedBusiness(business,
+                                                                                 detail.value,
+                                                                                 detail.failure,
+                                                                                 review.value,
+                                                                                 review.failure))
+            .thenAccept(ready::add);
+    }
+
+    private static YelpSearchRequest pageOf(YelpSearchRequest request, int offset, int limit)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(request)
+            .withLimit(limit);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+        else
+        {
+            builder.withoutOffset();
+        }
+
+        return builder.build();
+    }
+
+    private Thread newThread(Runnable runnable, String stage)
+    {
+        Thread thread = new Thread(runnable, "YelpEnrichment-" + stage);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EnrichmentPipeline{" + "yelp=" + yelp + ", detailsConcurrency=" + detailsConcurrency + ", reviewsConcurrency=" + reviewsConcurrency + ", maxInFlight=" + maxInFlight + ", maxPages=" + maxPages + '}';
+    }
+
+    /**
+     * The value or failure of a single lookup.
+     */
+    private static final class Outcome<T>
+    {
+
+        private final T value;
+        private final RuntimeException failure;
+
+        private Outcome(T value, RuntimeException failure)
+        {
+            this.value = value;
+            this.failure = failure;
+        }
+
+        static <T> Outcome<T> of(Supplier<T> lookup)
+        {
+            try
+            {
+                return new Outcome<>(lookup.get(), null);
+            }
+            catch (RuntimeException ex)
+            {
+                return new Outcome<>(null, ex);
+            }
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default number of details looked up at once. */
+        public static final int DEFAULT_DETAILS_CONCURRENCY = 4;
+
+        /** The default number of review lookups at once. */
+        public static final int DEFAULT_REVIEWS_CONCURRENCY = 4;
+
+        /** The default number of businesses being looked up or waiting for the consumer at once. */
+        public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+        private final YelpAPI yelp;
+        private int detailsConcurrency = DEFAULT_DETAILS_CONCURRENCY;
+        private int reviewsConcurrency = DEFAULT_REVIEWS_CONCURRENCY;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxPages = 1;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Sets the maximum number of business details looked up at the same time.
+         */
+        public Builder withDetailsConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("details concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.detailsConcurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of review lookups at the same time.
+         */
+        public Builder withReviewsConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("reviews concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.reviewsConcurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of businesses being looked up or waiting for the consumer. This bounds the memory a
+         * pipeline uses, and how far it runs ahead of a slow consumer.
+         */
+        public Builder withMaxInFlight(@Positive int maxInFlight) throws IllegalArgumentException
+        {
+            checkThat(maxInFlight)
+                .usingMessage("max in flight must be > 0")
+                .is(positiveInteger());
+
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages of search results to enrich. By default, only the request itself is run. With more
+         * pages, each page asks for the request's limit, or {@link YelpSearchRequest.Builder#MAX_LIMIT} if it has none,
+         * and paging stops early once a page comes back short.
+         */
+        public Builder withMaxPages(@Positive int maxPages) throws IllegalArgumentException
+        {
+            checkThat(maxPages)
+                .usingMessage("max pages must be in (0, " + MAX_OFFSET / MAX_LIMIT + "]")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(MAX_OFFSET / MAX_LIMIT));
+
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        public EnrichmentPipeline build()
+        {
+            return new EnrichmentPipeline(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.CollectionAssertions.nonEmptyList;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+
+/**
+ * The conditions a business must meet to be found by a {@link FilteredSearch}.
+ * <p>
+ * Conditions that a {@link YelpSearchRequest} can express, such as categories, prices and being open now, are sent to
+ * Yelp with the search, so that Yelp doesn't return businesses that fail them. The rest, such as a minimum rating or a
+ * pattern for the name, are checked against each business as it comes back.
+ *
+ * @author SirWellington
+ */
+@Immutable
+@BuilderPattern(role = PRODUCT)
+public final class BusinessFilter
+{
+
+    private final List<Category> categories;
+    private final List<Price> prices;
+    private final boolean openNow;
+
+    private final Double minRating;
+    private final Integer minReviewCount;
+    private final Pattern namePattern;
+    private final boolean excludeClosed;
+    private final List<Predicate<YelpBusiness>> predicates;
+
+    private BusinessFilter(Builder builder)
+    {
+        this.categories = Collections.unmodifiableList(new ArrayList<>(builder.categories));
+        this.prices = Collections.unmodifiableList(new ArrayList<>(builder.prices));
+        this.openNow = builder.openNow;
+        this.minRating = builder.minRating;
+        this.minReviewCount = builder.minReviewCount;
+        this.namePattern = builder.namePattern;
+        this.excludeClosed = builder.excludeClosed;
+        this.predicates = Collections.unmodifiableList(new ArrayList<>(builder.predicates));
+    }
+
+    public static Builder newBuilder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * @return A copy of {@code template} that also asks Yelp for the conditions it can check. They replace any
+     *         categories or prices already in the template.
+     * @throws IllegalArgumentException If the template is null.
+     */
+    public YelpSearchRequest pushDownTo(@Required YelpSearchRequest template) throws IllegalArgumentException
+    {
+        checkThat(template)
+            .usingMessage("template request cannot be null")
+            .is(notNull());
+
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(template);
+
+        if (!categories.isEmpty())
+        {
+            builder.withCategories(categories);
+        }
+
+        if (!prices.isEmpty())
+        {
+            builder.withPrices(prices);
+        }
+
+        if (openNow)
+        {
+            builder.lookingForOpenNow();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Checks the conditions that Yelp can't. The conditions {@linkplain #pushDownTo(tech.redroma.yelp.YelpSearchRequest)
+     * pushed down} to Yelp are not checked again.
+     *
+     * @return True if the business meets every condition checked locally.
+     */
+    public boolean matchesLocally(YelpBusiness business)
+    {
+        if (business == null)
+        {
+            return false;
+        }
+
+        if (minRating != null && (business.rating == null || business.rating < minRating))
+        {
+            return false;
+        }
+
+        if (minReviewCount != null && business.reviewCount < minReviewCount)
+        {
+            return false;
+        }
+
+        if (namePattern != null && (business.name == null || !namePattern.matcher(business.name).find()))
+        {
+            return false;
+        }
+
+        if (excludeClosed && Boolean.TRUE.equals(business.isClosed))
+        {
+            return false;
+        }
+
+        return predicates.stream().allMatch(predicate -> predicate.test(business));
+    }
+
+    /**
+     * @return True if any condition has to be checked locally.
+     */
+    public boolean hasLocalConditions()
+    {
+        return minRating != null || minReviewCount != null || namePattern != null || excludeClosed || !predicates.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BusinessFilter{" + "categories=" + categories + ", prices=" + prices + ", openNow=" + openNow + ", minRating=" + minRating + ", minReviewCount=" + minReviewCount + ", namePattern=" + namePattern + ", excludeClosed=" + excludeClosed + ", predicates=" + predicates.size() + '}';
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        private final List<Category> categories = new ArrayList<>();
+        private final List<Price> prices = new ArrayList<>();
+        private boolean openNow = false;
+
+        private Double minRating;
+        private Integer minReviewCount;
+        private Pattern namePattern;
+        private boolean excludeClosed = false;
+        private final List<Predicate<YelpBusiness>> predicates = new ArrayList<>();
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Only finds businesses in at least one of these categories. Checked by Yelp.
+         */
+        public Builder inCategories(@NonEmpty List<Category> categories) throws IllegalArgumentException
+        {
+            checkThat(categories)
+                .usingMessage("categories cannot be empty")
+                .is(notNull())
+                .is(nonEmptyList());
+
+            this.categories.addAll(categories);
+            return this;
+        }
+
+        /**
+         * Only finds businesses at one of these prices. Checked by Yelp.
+         */
+        public Builder withPrices(@NonEmpty List<Price> prices) throws IllegalArgumentException
+        {
+            checkThat(prices)
+                .usingMessage("prices cannot be empty")
+                .is(notNull())
+                .is(nonEmptyList());
+
+            this.prices.addAll(prices);
+            return this;
+        }
+
+        /**
+         * Only finds businesses that are open now. Checked by Yelp.
+         */
+        public Builder openNow()
+        {
+            this.openNow = true;
+            return this;
+        }
+
+        /**
+         * Only finds businesses rated at least this well. Checked locally.
+         */
+        public Builder withMinRating(double minRating) throws IllegalArgumentException
+        {
+            checkThat(minRating)
+                .usingMessage("min rating must be in [0, 5]")
+                .is(greaterThanOrEqualTo(0.0))
+                .is(lessThanOrEqualTo(5.0));
+
+            this.minRating = minRating;
+            return this;
+        }
+
+        /**
+         * Only finds businesses with at least this many reviews. Checked locally.
+         */
+        public Builder withMinReviewCount(int minReviewCount) throws IllegalArgumentException
+        {
+            checkThat(minReviewCount)
+                .usingMessage("min review count must be >= 0")
+                .is(greaterThanOrEqualTo(0));
+
+            this.minReviewCount = minReviewCount;
+            return this;
+        }
+
+        /**
+         * Only finds businesses whose name contains a match for the pattern. Checked locally.
+         */
+        public Builder withNameMatching(@Required Pattern pattern) throws IllegalArgumentException
+        {
+            checkThat(pattern)
+                .usingMessage("pattern cannot be null")
+                .is(notNull());
+
+            this.namePattern = pattern;
+            return this;
+        }
+
+        /**
+         * Skips businesses that have closed for good. Checked locally.
+         */
+        public Builder excludingClosed()
+        {
+            this.excludeClosed = true;
+            return this;
+        }
+
+        /**
+         * Only finds businesses that pass a predicate. Checked locally.
+         */
+        public Builder matching(@Required Predicate<YelpBusiness> predicate) throws IllegalArgumentException
+        {
+            checkThat(predicate)
+                .usingMessage("predicate cannot be null")
+                .is(notNull());
+
+            this.predicates.add(predicate);
+            return this;
+        }
+
+        public BusinessFilter build()
+        {
+            return new BusinessFilter(this);
+        }
+
+    }
+
+}
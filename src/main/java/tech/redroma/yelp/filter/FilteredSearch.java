@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Finds the first businesses that match a {@link BusinessFilter}, fetching only as many pages as it takes.
+ * <p>
+ * The conditions Yelp can check are sent with the search. The rest are checked as each page comes back, and paging
+ * stops as soon as enough businesses match, when the results run out, or after the
+ * {@linkplain Builder#withMaxPages(int) maximum number of pages}. When every condition is checked by Yelp, each page
+ * asks for no more businesses than are still needed.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class FilteredSearch
+{
+
+    private final YelpAPI yelp;
+    private final int maxPages;
+
+    private FilteredSearch(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.maxPages = builder.maxPages;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Finds the first {@code count} businesses that match a filter, in the order Yelp returns them.
+     *
+     * @param template The search to filter, such as its term and location. Paging starts at its offset, if it has one.
+     * @param filter   The conditions the businesses must meet.
+     * @param count    The number of businesses wanted.
+     * @return Up to {@code count} matching businesses. Fewer are returned if Yelp runs out of results first.
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpException If a search fails.
+     */
+    public List<YelpBusiness> findFirst(@Required YelpSearchRequest template,
+                                        @Required BusinessFilter filter,
+                                        @Positive int count) throws IllegalArgumentException, YelpException
+    {
+        checkThat(template, filter)
+            .usingMessage("template and filter are required")
+            .are(notNull());
+
+        checkThat(count)
+            .usingMessage("count must be > 0")
+            .is(positiveInteger());
+
+        YelpSearchRequest pushedDown = filter.pushDownTo(template);
+        boolean checksLocally = filter.hasLocalConditions();
+
+        List<YelpBusiness> matches = new ArrayList<>(count);
+        Set<String> seen = new HashSet<>();
+        int offset = pushedDown.hasOffset() ? pushedDown.getOffset() : 0;
+
+        for (int page = 0; page < maxPages && matches.size() < count; ++page)
+        {
+            //Without local conditions, every business returned is a match
+            int limit = checksLocally ? MAX_LIMIT : Math.min(MAX_LIMIT, count - matches.size());
+            limit = Math.min(limit, MAX_OFFSET - offset);
+
+            if (limit <= 0)
+            {
+                break;
+            }
+
+            YelpSearchResults results = yelp.searchForBusinessesWithTotal(pageOf(pushedDown, offset, limit));
+            List<YelpBusiness> businesses = results == null ? Collections.emptyList() : results.getBusinesses();
+
+            for (YelpBusiness business : businesses)
+            {
+                if (matches.size() >= count)
+                {
+                    break;
+                }
+
+                //Results can shift between pages, repeating a business
+                boolean isNew = business != null && (business.id == null || seen.add(business.id));
+
+                if (isNew && filter.matchesLocally(business))
+                {
+                    matches.add(business);
+                }
+            }
+
+            offset += limit;
+
+            if (businesses.size() < limit || (results.hasTotal() && offset >= results.getTotal()))
+            {
+                break;
+            }
+        }
+
+        return matches;
+    }
+
+    private static YelpSearchRequest pageOf(YelpSearchRequest request, int offset, int limit)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(request)
+            .withLimit(limit);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FilteredSearch{" + "yelp=" + yelp + ", maxPages=" + maxPages + '}';
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** By default, pages until Yelp's {@linkplain YelpSearchRequest.Builder#MAX_OFFSET maximum offset}. */
+        public static final int DEFAULT_MAX_PAGES = MAX_OFFSET / MAX_LIMIT;
+
+        private final YelpAPI yelp;
+        private int maxPages = DEFAULT_MAX_PAGES;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Sets the most pages fetched by a single search, which bounds its cost when few businesses match.
+         */
+        public Builder withMaxPages(@Positive int maxPages) throws IllegalArgumentException
+        {
+            checkThat(maxPages)
+                .usingMessage("max pages must be in (0, " + DEFAULT_MAX_PAGES + "]")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(DEFAULT_MAX_PAGES));
+
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        public FilteredSearch build()
+        {
+            return new FilteredSearch(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import tech.redroma.yelp.Coordinate;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.GeolocationAssertions.validLatitude;
+import static tech.sirwellington.alchemy.arguments.assertions.GeolocationAssertions.validLongitude;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * A rectangle of latitude and longitude. Boxes that cross the antimeridian are not supported.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class BoundingBox
+{
+
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+
+    private BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude)
+    {
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    /**
+     * @return
+     * @throws IllegalArgumentException If any coordinate is invalid, or the minimums exceed the maximums.
+     */
+    public static BoundingBox of(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) throws IllegalArgumentException
+    {
+        checkThat(minLatitude, maxLatitude).are(validLatitude());
+        checkThat(minLongitude, maxLongitude).are(validLongitude());
+
+        checkThat(maxLatitude)
+            .usingMessage("maxLatitude must be >= minLatitude")
+            .is(greaterThanOrEqualTo(minLatitude));
+
+        checkThat(maxLongitude)
+            .usingMessage("maxLongitude must be >= minLongitude")
+            .is(greaterThanOrEqualTo(minLongitude));
+
+        return new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    /**
+     * @param southWest The south-west corner.
+     * @param northEast The north-east corner.
+     * @return
+     * @throws IllegalArgumentException If either corner is null, or they are the wrong way around.
+     */
+    public static BoundingBox of(@Required Coordinate southWest, @Required Coordinate northEast) throws IllegalArgumentException
+    {
+        checkThat(southWest, northEast)
+            .usingMessage("corners cannot be null")
+            .are(notNull());
+
+        return of(southWest.getLatitude(), southWest.getLongitude(), northEast.getLatitude(), northEast.getLongitude());
+    }
+
+    /**
+     * Creates the smallest box that contains a circle. The box is clipped at the poles and the antimeridian.
+     *
+     * @param center The center of the circle.
+     * @param radiusInMeters The radius of the circle.
+     * @return
+     * @throws IllegalArgumentException If the center is null or the radius is negative.
+     */
+    public static BoundingBox around(@Required Coordinate center, double radiusInMeters) throws IllegalArgumentException
+    {
+        checkThat(center)
+            .usingMessage("center cannot be null")
+            .is(notNull());
+
+        checkThat(radiusInMeters)
+            .usingMessage("radius must be >= 0")
+            .is(greaterThanOrEqualTo(0.0));
+
+        double latitudeDelta = radiusInMeters / GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+        double minLatitude = GeoMath.clampLatitude(center.getLatitude() - latitudeDelta);
+        double maxLatitude = GeoMath.clampLatitude(center.getLatitude() + latitudeDelta);
+
+        //Longitude degrees are narrowest at the latitude furthest from the equator.
+        double widest = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        double metersPerDegree = GeoMath.metersPerDegreeOfLongitude(widest);
+        double longitudeDelta = metersPerDegree <= 0 ? 180 : Math.min(180, radiusInMeters / metersPerDegree);
+
+        double minLongitude = Math.max(-180, center.getLongitude() - longitudeDelta);
+        double maxLongitude = Math.min(180, center.getLongitude() + longitudeDelta);
+
+        return new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    public double getMinLatitude()
+    {
+        return minLatitude;
+    }
+
+    public double getMinLongitude()
+    {
+        return minLongitude;
+    }
+
+    public double getMaxLatitude()
+    {
+        return maxLatitude;
+    }
+
+    public double getMaxLongitude()
+    {
+        return maxLongitude;
+    }
+
+    public Coordinate getCenter()
+    {
+        return Coordinate.of((minLatitude + maxLatitude) / 2, (minLongitude + maxLongitude) / 2);
+    }
+
+    /**
+     * @return The height of the box, in meters.
+     */
+    public double getHeightInMeters()
+    {
+        return (maxLatitude - minLatitude) * GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+    }
+
+    /**
+     * @return The width of the box at its widest latitude, in meters.
+     */
+    public double getWidthInMeters()
+    {
+        double narrowest = minLatitude <= 0 && maxLatitude >= 0 ? 0 : Math.min(Math.abs(minLatitude), Math.abs(maxLatitude));
+        return (maxLongitude - minLongitude) * GeoMath.metersPerDegreeOfLongitude(narrowest);
+    }
+
+    public boolean contains(double latitude, double longitude)
+    {
+        return latitude >= minLatitude && latitude <= maxLatitude &&
+               longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    /**
+     * @return Whether the coordinate is inside the box. Always false for {@code null}.
+     */
+    public boolean contains(Coordinate coordinate)
+    {
+        return coordinate != null && contains(coordinate.getLatitude(), coordinate.getLongitude());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 37 * hash + (int) (Double.doubleToLongBits(this.minLatitude) ^ (Double.doubleToLongBits(this.minLatitude) >>> 32));
+        hash = 37 * hash + (int) (Double.doubleToLongBits(this.minLongitude) ^ (Double.doubleToLongBits(this.minLongitude) >>> 32));
+        hash = 37 * hash + (int) (Double.doubleToLongBits(this.maxLatitude) ^ (Double.doubleToLongBits(this.maxLatitude) >>> 32));
+        hash = 37 * hash + (int) (Double.doubleToLongBits(this.maxLongitude) ^ (Double.doubleToLongBits(this.maxLongitude) >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final BoundingBox other = (BoundingBox) obj;
+        if (Double.doubleToLongBits(this.minLatitude) != Double.doubleToLongBits(other.minLatitude))
+        {
+            return false;
+        }
+        if (Double.doubleToLongBits(this.minLongitude) != Double.doubleToLongBits(other.minLongitude))
+        {
+            return false;
+        }
+        if (Double.doubleToLongBits(this.maxLatitude) != Double.doubleToLongBits(other.maxLatitude))
+        {
+            return false;
+        }
+        if (Double.doubleToLongBits(this.maxLongitude) != Double.doubleToLongBits(other.maxLongitude))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingBox{" + "minLatitude=" + minLatitude + ", minLongitude=" + minLongitude + ", maxLatitude=" + maxLatitude + ", maxLongitude=" + maxLongitude + '}';
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+
+/**
+ * Runs a copy of a template search around each of a set of circles, a bounded number at a time, and merges the results.
+ * <p>
+ * A circle whose last page comes back full of businesses inside it may have more than were returned, so it is split
+ * into seven circles of half its radius, which cover it, and those are searched in turn. Businesses outside the circle
+ * don't count, since Yelp widens the radius of searches in sparse areas. A circle that is still full at the minimum
+ * radius, or that can't be split without going over the maximum number of circles, keeps the businesses it returned and
+ * is {@linkplain #getTruncatedCircles() counted as truncated}.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class CircleSearches
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(CircleSearches.class);
+
+    //Seven circles of half the radius cover a circle: one at its center, and six around it at this fraction of the radius
+    private static final double SPLIT_DISTANCE_FACTOR = Math.sqrt(3) / 2;
+
+    private static final int SPLIT_COUNT = 7;
+
+    private final YelpAPI yelp;
+    private final int concurrency;
+    private final int pagesPerCircle;
+    private final int minimumRadiusInMeters;
+    private final int maxCircles;
+    private final Executor executor;
+    private final String threadName;
+
+    private final AtomicLong truncatedCircles = new AtomicLong();
+
+    CircleSearches(YelpAPI yelp,
+                   int concurrency,
+                   int pagesPerCircle,
+                   int minimumRadiusInMeters,
+                   int maxCircles,
+                   Executor executor,
+                   String threadName)
+    {
+        this.yelp = yelp;
+        this.concurrency = concurrency;
+        this.pagesPerCircle = pagesPerCircle;
+        this.minimumRadiusInMeters = minimumRadiusInMeters;
+        this.maxCircles = maxCircles;
+        this.executor = executor;
+        this.threadName = threadName;
+    }
+
+    /**
+     * @param template         The request to run in each circle.
+     * @param centers          The centers of the circles.
+     * @param radiusInMeters   The radius of every circle.
+     * @param insideArea       Which of the results to keep. Results without an id or coordinates are always dropped.
+     * @return The results kept, by id, in the order they were first found.
+     */
+    Map<String, YelpBusiness> search(YelpSearchRequest template,
+                                     List<Coordinate> centers,
+                                     int radiusInMeters,
+                                     Predicate<YelpBusiness> insideArea) throws IllegalArgumentException, YelpException
+    {
+        checkThat(template)
+            .usingMessage("template request cannot be null")
+            .is(notNull());
+
+        checkThat(template.hasLocation())
+            .usingMessage("template request cannot use an address location; use a coordinate instead")
+            .is(falseStatement());
+
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(concurrency, this::newThread) : null;
+        Executor circleExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        CompletionService<CircleResult> completions = new ExecutorCompletionService<>(circleExecutor);
+        List<Future<CircleResult>> futures = new ArrayList<>(concurrency);
+        Deque<Circle> pending = new ArrayDeque<>(centers.size());
+        Map<String, YelpBusiness> results = new LinkedHashMap<>();
+
+        centers.forEach(center -> pending.add(new Circle(center, radiusInMeters)));
+
+        //Every circle searched or waiting to be, including those split off
+        int circles = pending.size();
+
+        try
+        {
+            while (true)
+            {
+                //Keep at most 'concurrency' circles in flight, even on a shared executor
+                while (futures.size() < concurrency && !pending.isEmpty())
+                {
+                    Circle circle = pending.poll();
+                    futures.add(completions.submit(() -> searchCircle(template, circle)));
+                }
+
+                if (futures.isEmpty())
+                {
+                    break;
+                }
+
+                Future<CircleResult> done = completions.take();
+                futures.remove(done);
+                CircleResult result = done.get();
+
+                if (result.full)
+                {
+                    if (canSplit(result.circle) && circles + SPLIT_COUNT <= maxCircles)
+                    {
+                        pending.addAll(split(result.circle));
+                        circles += SPLIT_COUNT;
+                    }
+                    else
+                    {
+                        truncatedCircles.incrementAndGet();
+                        LOG.warn("The circle of radius {}m at {} has more businesses than can be returned; keeping the first {}",
+                                 result.circle.radiusInMeters, result.circle.center, result.businesses.size());
+                    }
+                }
+
+                for (YelpBusiness business : result.businesses)
+                {
+                    if (business != null && business.id != null && business.coordinates != null && insideArea.test(business))
+                    {
+                        results.putIfAbsent(business.id, business);
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while searching", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof YelpException)
+            {
+                throw (YelpException) cause;
+            }
+
+            throw new YelpOperationFailedException("search failed", cause);
+        }
+        finally
+        {
+            futures.forEach(future -> future.cancel(true));
+
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * @return The number of full circles whose businesses weren't all returned, over every search so far.
+     */
+    long getTruncatedCircles()
+    {
+        return truncatedCircles.get();
+    }
+
+    /**
+     * @return Whether a circle is large enough to be split.
+     */
+    boolean canSplit(Circle circle)
+    {
+        int radius = (circle.radiusInMeters + 1) / 2;
+
+        return radius >= minimumRadiusInMeters && radius < circle.radiusInMeters;
+    }
+
+    /**
+     * @return Seven circles of half the radius that cover a circle, which must be {@linkplain #canSplit(Circle) large
+     *         enough to split}.
+     */
+    List<Circle> split(Circle circle)
+    {
+        int radius = (circle.radiusInMeters + 1) / 2;
+
+        LOG.debug("Splitting a full circle of radius {}m at {}", circle.radiusInMeters, circle.center);
+
+        double latitude = circle.center.getLatitude();
+        double longitude = circle.center.getLongitude();
+        double distance = circle.radiusInMeters * SPLIT_DISTANCE_FACTOR;
+
+        List<Circle> circles = new ArrayList<>(SPLIT_COUNT);
+        circles.add(new Circle(circle.center, radius));
+
+        for (int bearing = 0; bearing < 360; bearing += 60)
+        {
+            circles.add(new Circle(GeoMath.destination(latitude, longitude, bearing, distance), radius));
+        }
+
+        return circles;
+    }
+
+    private CircleResult searchCircle(YelpSearchRequest template, Circle circle)
+    {
+        List<YelpBusiness> results = new ArrayList<>();
+        int limit = template.hasLimit() ? template.getLimit() : MAX_LIMIT;
+        boolean full = false;
+
+        for (int page = 0; page < pagesPerCircle; ++page)
+        {
+            int offset = page * limit;
+
+            if (offset + limit > MAX_OFFSET)
+            {
+                break;
+            }
+
+            YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(template)
+                .withCoordinate(circle.center)
+                .withRadiusInMeters(circle.radiusInMeters)
+                .withLimit(limit);
+
+            if (offset > 0)
+            {
+                builder.withOffset(offset);
+            }
+
+            List<YelpBusiness> businesses = yelp.searchForBusinesses(builder.build());
+
+            if (businesses == null)
+            {
+                full = false;
+                break;
+            }
+
+            results.addAll(businesses);
+            full = countInside(circle, businesses) >= limit;
+
+            if (!full)
+            {
+                break;
+            }
+        }
+
+        return new CircleResult(circle, results, full);
+    }
+
+    /**
+     * Counts the businesses inside a circle. Those without coordinates may be, so they are counted too.
+     */
+    private static int countInside(Circle circle, List<YelpBusiness> businesses)
+    {
+        int count = 0;
+
+        for (YelpBusiness business : businesses)
+        {
+            if (business != null && (business.coordinates == null ||
+                                     GeoMath.distanceInMeters(circle.center, business.coordinates) <= circle.radiusInMeters))
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    static final class Circle
+    {
+
+        final Coordinate center;
+        final int radiusInMeters;
+
+        Circle(Coordinate center, int radiusInMeters)
+        {
+            this.center = center;
+            this.radiusInMeters = radiusInMeters;
+        }
+
+    }
+
+    private static final class CircleResult
+    {
+
+        private final Circle circle;
+        private final List<YelpBusiness> businesses;
+        private final boolean full;
+
+        private CircleResult(Circle circle, List<YelpBusiness> businesses, boolean full)
+        {
+            this.circle = circle;
+            this.businesses = businesses;
+            this.full = full;
+        }
+
+    }
+
+}
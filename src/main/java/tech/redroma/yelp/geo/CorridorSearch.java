@@ -0,0 +1,450 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpAreaTooLargeException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Finds the businesses along a route: those within a given distance of a polyline.
+ * <p>
+ * The corridor is covered with search circles centered on the route. For a corridor reaching {@code d} meters to each
+ * side, circles of radius {@code d * sqrt(2)}, spaced {@code 2d} apart, cover it while searching the least area per meter of
+ * route; every vertex of the route also gets a circle, so the corners are covered too. The circles are searched in
+ * parallel, the results de-duplicated by business id, and then filtered by their exact distance to the route.
+ * <p>
+ * Each segment of the route is treated as a straight line on a local flat projection, which is accurate for segments
+ * up to a few hundred kilometers away from the poles.
+ * <p>
+ * Each circle is searched with a copy of a template request, with the template's coordinate and radius replaced by the
+ * circle's. Everything else in the template, such as the term and categories, applies to every circle.
+ * <p>
+ * Yelp returns only so many results for each search, ranked by relevance rather than distance. A circle whose last page
+ * comes back full of businesses inside it, as in a dense city center, is split into smaller circles that cover it, down
+ * to a {@linkplain Builder#withMinimumRadiusInMeters(int) minimum radius} and up to the
+ * {@linkplain Builder#withMaxCircles(int) maximum number of circles}. One that can't be split keeps the businesses it
+ * returned, and is {@linkplain #getTruncatedCircles() counted}, rather than leaving them out without saying so.
+ *
+ * @author SirWellington
+ * @see TiledSearch
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class CorridorSearch
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(CorridorSearch.class);
+
+    //Leaves some slack for the error of treating each segment as flat
+    private static final double COVERAGE_FACTOR = 0.98;
+
+    private final int maxCircles;
+    private final int concurrency;
+    private final CircleSearches searches;
+
+    private CorridorSearch(Builder builder)
+    {
+        this.maxCircles = builder.maxCircles;
+        this.concurrency = builder.concurrency;
+        this.searches = new CircleSearches(builder.yelp,
+                                           concurrency,
+                                           builder.pagesPerCircle,
+                                           builder.minimumRadiusInMeters,
+                                           maxCircles,
+                                           builder.executor,
+                                           "yelp-corridor-search");
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Finds the businesses within {@code maxDistanceInMeters} of a route, in the order they are passed when travelling it.
+     * The {@linkplain YelpBusiness#distance distance} of each result is its distance from the route.
+     *
+     * @param template            The request to run in each circle.
+     * @param route               The points of the route, in order. A single point searches the circle around it.
+     * @param maxDistanceInMeters How far from the route, on either side, to search.
+     * @return
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpAreaTooLargeException If the route needs more than the maximum number of circles.
+     * @throws YelpException If any of the searches fail.
+     */
+    public List<YelpBusiness> search(@Required YelpSearchRequest template,
+                                     @NonEmpty List<Coordinate> route,
+                                     @Positive double maxDistanceInMeters) throws IllegalArgumentException, YelpException
+    {
+        checkThat(template)
+            .usingMessage("template request cannot be null")
+            .is(notNull());
+
+        List<Coordinate> circles = circlesAlong(route, maxDistanceInMeters);
+        int radius = circleRadiusFor(maxDistanceInMeters);
+
+        LOG.debug("Searching {} circles of radius {}m along a route of {} points", circles.size(), radius, route.size());
+
+        Polyline polyline = new Polyline(route);
+
+        Map<String, YelpBusiness> results = searches.search(template,
+                                                            circles,
+                                                            radius,
+                                                            business -> polyline.locate(business.coordinates).distance <= maxDistanceInMeters);
+
+        Map<YelpBusiness, Position> positions = new IdentityHashMap<>(results.size());
+        results.values().forEach(business -> positions.put(business, polyline.locate(business.coordinates)));
+
+        List<YelpBusiness> businesses = new ArrayList<>(results.values());
+        businesses.forEach(business -> business.distance = positions.get(business).distance);
+        businesses.sort(Comparator.comparingDouble((YelpBusiness business) -> positions.get(business).along)
+            .thenComparingDouble(business -> business.distance));
+
+        return businesses;
+    }
+
+    /**
+     * @return The centers of the circles needed to cover the corridor around a route. Each circle has a radius of
+     *         {@code maxDistanceInMeters * sqrt(2)}, up to {@link YelpSearchRequest.Builder#MAX_RADIUS_IN_METERS}.
+     * @throws IllegalArgumentException If the route is empty, or the distance is not positive or too large.
+     * @throws YelpAreaTooLargeException If the route needs more than the maximum number of circles.
+     */
+    public List<Coordinate> circlesAlong(@NonEmpty List<Coordinate> route, @Positive double maxDistanceInMeters) throws IllegalArgumentException, YelpAreaTooLargeException
+    {
+        checkThat(route)
+            .usingMessage("route cannot be null")
+            .is(notNull());
+
+        checkThat(!route.isEmpty() && !route.contains(null))
+            .usingMessage("route must have at least one point, and no null points")
+            .is(trueStatement());
+
+        int radius = circleRadiusFor(maxDistanceInMeters);
+        double spacing = 2 * Math.sqrt((double) radius * radius - maxDistanceInMeters * maxDistanceInMeters) * COVERAGE_FACTOR;
+
+        List<Coordinate> circles = new ArrayList<>();
+        circles.add(route.get(0));
+
+        for (int i = 1; i < route.size(); ++i)
+        {
+            Coordinate start = route.get(i - 1);
+            Coordinate end = route.get(i);
+
+            double length = Polyline.lengthOf(start, end);
+
+            if (length == 0)
+            {
+                continue;
+            }
+
+            int steps = Math.max(1, (int) Math.ceil(length / spacing));
+
+            for (int step = 1; step <= steps; ++step)
+            {
+                circles.add(Polyline.interpolate(start, end, (double) step / steps));
+
+                if (circles.size() > maxCircles)
+                {
+                    throw new YelpAreaTooLargeException("route needs more than " + maxCircles + " circles of radius " + radius);
+                }
+            }
+        }
+
+        return circles;
+    }
+
+    private static int circleRadiusFor(double maxDistanceInMeters)
+    {
+        checkThat(maxDistanceInMeters > 0)
+            .usingMessage("distance from the route must be > 0")
+            .is(trueStatement());
+
+        checkThat(maxDistanceInMeters < MAX_RADIUS_IN_METERS * COVERAGE_FACTOR)
+            .usingMessage("distance from the route must be < " + (int) (MAX_RADIUS_IN_METERS * COVERAGE_FACTOR))
+            .is(trueStatement());
+
+        double ideal = Math.ceil(maxDistanceInMeters * Math.sqrt(2));
+
+        return (int) Math.min(MAX_RADIUS_IN_METERS, ideal);
+    }
+
+    /**
+     * @return The number of circles, over every search so far, that had more businesses than were returned and couldn't
+     *         be split any further. Their searches left some businesses out.
+     */
+    public long getTruncatedCircles()
+    {
+        return searches.getTruncatedCircles();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CorridorSearch{" + "maxCircles=" + maxCircles + ", concurrency=" + concurrency + '}';
+    }
+
+    /**
+     * Where a point lies relative to a route.
+     */
+    static final class Position
+    {
+
+        /** How far along the route the point's nearest spot is, in meters. */
+        final double along;
+
+        /** How far the point is from the route, in meters. */
+        final double distance;
+
+        Position(double along, double distance)
+        {
+            this.along = along;
+            this.distance = distance;
+        }
+
+    }
+
+    /**
+     * A route, made of straight segments.
+     */
+    static final class Polyline
+    {
+
+        private final List<Coordinate> points;
+        private final double[] startsAt;
+
+        Polyline(List<Coordinate> points)
+        {
+            this.points = points;
+            this.startsAt = new double[points.size()];
+
+            for (int i = 1; i < points.size(); ++i)
+            {
+                startsAt[i] = startsAt[i - 1] + lengthOf(points.get(i - 1), points.get(i));
+            }
+        }
+
+        Position locate(Coordinate point)
+        {
+            if (points.size() == 1)
+            {
+                return new Position(0, GeoMath.distanceInMeters(points.get(0), point));
+            }
+
+            Position nearest = null;
+
+            for (int i = 1; i < points.size(); ++i)
+            {
+                Coordinate start = points.get(i - 1);
+                Coordinate end = points.get(i);
+
+                //Project onto a flat plane around the segment, with the start at the origin
+                double metersPerDegreeOfLongitude = GeoMath.metersPerDegreeOfLongitude((start.getLatitude() + end.getLatitude()) / 2);
+
+                double endX = longitudeDelta(start, end) * metersPerDegreeOfLongitude;
+                double endY = (end.getLatitude() - start.getLatitude()) * GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+                double pointX = longitudeDelta(start, point) * metersPerDegreeOfLongitude;
+                double pointY = (point.getLatitude() - start.getLatitude()) * GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+
+                double lengthSquared = endX * endX + endY * endY;
+                double t = lengthSquared == 0 ? 0 : (pointX * endX + pointY * endY) / lengthSquared;
+                t = Math.max(0, Math.min(1, t));
+
+                double distance = Math.hypot(pointX - t * endX, pointY - t * endY);
+
+                if (nearest == null || distance < nearest.distance)
+                {
+                    nearest = new Position(startsAt[i - 1] + t * (startsAt[i] - startsAt[i - 1]), distance);
+                }
+            }
+
+            return nearest;
+        }
+
+        static double lengthOf(Coordinate start, Coordinate end)
+        {
+            double metersPerDegreeOfLongitude = GeoMath.metersPerDegreeOfLongitude((start.getLatitude() + end.getLatitude()) / 2);
+
+            return Math.hypot(longitudeDelta(start, end) * metersPerDegreeOfLongitude,
+                              (end.getLatitude() - start.getLatitude()) * GeoMath.METERS_PER_DEGREE_OF_LATITUDE);
+        }
+
+        static Coordinate interpolate(Coordinate start, Coordinate end, double fraction)
+        {
+            double latitude = start.getLatitude() + fraction * (end.getLatitude() - start.getLatitude());
+            double longitude = start.getLongitude() + fraction * longitudeDelta(start, end);
+
+            return Coordinate.of(GeoMath.clampLatitude(latitude), GeoMath.normalizeLongitude(longitude));
+        }
+
+        //Segments take the short way around, across the antimeridian if needed
+        private static double longitudeDelta(Coordinate from, Coordinate to)
+        {
+            double delta = to.getLongitude() - from.getLongitude();
+
+            if (delta > 180)
+            {
+                delta -= 360;
+            }
+            else if (delta < -180)
+            {
+                delta += 360;
+            }
+
+            return delta;
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default maximum number of circles in a single search. */
+        public static final int DEFAULT_MAX_CIRCLES = 500;
+
+        /** The default number of circles searched at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        /** The default number of pages requested from each circle. */
+        public static final int DEFAULT_PAGES_PER_CIRCLE = 4;
+
+        /** By default, full circles are not split into circles smaller than this. */
+        public static final int DEFAULT_MINIMUM_RADIUS_IN_METERS = 50;
+
+        private final YelpAPI yelp;
+        private int maxCircles = DEFAULT_MAX_CIRCLES;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private int pagesPerCircle = DEFAULT_PAGES_PER_CIRCLE;
+        private int minimumRadiusInMeters = DEFAULT_MINIMUM_RADIUS_IN_METERS;
+        private Executor executor;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Sets the maximum number of circles a single search may use, including those split off full circles. Longer
+         * routes fail with a {@link YelpAreaTooLargeException}; full circles past it are not split.
+         */
+        public Builder withMaxCircles(@Positive int maxCircles) throws IllegalArgumentException
+        {
+            checkThat(maxCircles)
+                .usingMessage("max circles must be > 0")
+                .is(positiveInteger());
+
+            this.maxCircles = maxCircles;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of circles searched at the same time.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages requested from each circle. A circle stops early once a page comes back short.
+         * One whose last page comes back full is split into smaller circles.
+         */
+        public Builder withPagesPerCircle(@Positive int pages) throws IllegalArgumentException
+        {
+            checkThat(pages)
+                .usingMessage("pages per circle must be > 0")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(MAX_OFFSET / MAX_LIMIT));
+
+            this.pagesPerCircle = pages;
+            return this;
+        }
+
+        /**
+         * Sets the smallest radius a full circle is split down to. A circle this small that still comes back full keeps
+         * the businesses it returned, and is {@linkplain CorridorSearch#getTruncatedCircles() counted as truncated}.
+         */
+        public Builder withMinimumRadiusInMeters(@Positive int radius) throws IllegalArgumentException
+        {
+            checkThat(radius)
+                .usingMessage("minimum radius must be > 0")
+                .is(positiveInteger());
+
+            this.minimumRadiusInMeters = radius;
+            return this;
+        }
+
+        /**
+         * Runs the circle searches on an existing executor. By default, each search uses its own threads, which are
+         * released when it completes. Either way, no more than the {@linkplain #withConcurrency(int) concurrency} run at
+         * once.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        public CorridorSearch build()
+        {
+            return new CorridorSearch(this);
+        }
+
+    }
+
+}
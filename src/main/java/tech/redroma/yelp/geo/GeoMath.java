@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import tech.redroma.yelp.Coordinate;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Basic spherical geometry, accurate enough for the distances involved in local search.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+public final class GeoMath
+{
+
+    /** The mean radius of the Earth. */
+    public static final double EARTH_RADIUS_IN_METERS = 6_371_008.8;
+
+    /** The length of one degree of latitude. */
+    public static final double METERS_PER_DEGREE_OF_LATITUDE = Math.PI * EARTH_RADIUS_IN_METERS / 180.0;
+
+    GeoMath() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    /**
+     * Computes the great-circle distance between two points, using the haversine formula.
+     *
+     * @return The distance, in meters.
+     */
+    public static double distanceInMeters(double latitude, double longitude, double otherLatitude, double otherLongitude)
+    {
+        double deltaLatitude = Math.toRadians(otherLatitude - latitude);
+        double deltaLongitude = Math.toRadians(otherLongitude - longitude);
+
+        double sinLatitude = Math.sin(deltaLatitude / 2);
+        double sinLongitude = Math.sin(deltaLongitude / 2);
+
+        double a = sinLatitude * sinLatitude +
+                   Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(otherLatitude)) * sinLongitude * sinLongitude;
+
+        return 2 * EARTH_RADIUS_IN_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * @return The great-circle distance between two coordinates, in meters.
+     * @throws IllegalArgumentException If either coordinate is null.
+     */
+    public static double distanceInMeters(@Required Coordinate first, @Required Coordinate second) throws IllegalArgumentException
+    {
+        checkThat(first, second)
+            .usingMessage("coordinates cannot be null")
+            .are(notNull());
+
+        return distanceInMeters(first.getLatitude(), first.getLongitude(), second.getLatitude(), second.getLongitude());
+    }
+
+    /**
+     * @return The length of one degree of longitude at the given latitude, in meters. This is {@code 0} at the poles.
+     */
+    public static double metersPerDegreeOfLongitude(double latitude)
+    {
+        return Math.max(0.0, METERS_PER_DEGREE_OF_LATITUDE * Math.cos(Math.toRadians(latitude)));
+    }
+
+    /**
+     * Finds the point reached by travelling {@code meters} from a starting point along a bearing.
+     *
+     * @param bearingInDegrees The initial bearing, clockwise from north.
+     * @return
+     */
+    public static Coordinate destination(double latitude, double longitude, double bearingInDegrees, double meters)
+    {
+        double angularDistance = meters / EARTH_RADIUS_IN_METERS;
+        double bearing = Math.toRadians(bearingInDegrees);
+        double startLatitude = Math.toRadians(latitude);
+        double startLongitude = Math.toRadians(longitude);
+
+        double endLatitude = Math.asin(Math.sin(startLatitude) * Math.cos(angularDistance) +
+                                       Math.cos(startLatitude) * Math.sin(angularDistance) * Math.cos(bearing));
+
+        double endLongitude = startLongitude +
+                              Math.atan2(Math.sin(bearing) * Math.sin(angularDistance) * Math.cos(startLatitude),
+                                         Math.cos(angularDistance) - Math.sin(startLatitude) * Math.sin(endLatitude));
+
+        return Coordinate.of(clampLatitude(Math.toDegrees(endLatitude)), normalizeLongitude(Math.toDegrees(endLongitude)));
+    }
+
+    /**
+     * @return The longitude, wrapped into {@code [-180, 180]}.
+     */
+    public static double normalizeLongitude(double longitude)
+    {
+        if (longitude >= -180 && longitude <= 180)
+        {
+            return longitude;
+        }
+
+        double wrapped = ((longitude + 180) % 360 + 360) % 360 - 180;
+        return wrapped == -180 && longitude > 0 ? 180 : wrapped;
+    }
+
+    /**
+     * @return The latitude, clamped to {@code [-90, 90]}.
+     */
+    public static double clampLatitude(double latitude)
+    {
+        return Math.max(-90.0, Math.min(90.0, latitude));
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+/**
+ * Geohash cells of a fixed precision, represented as {@code long}s rather than base-32 Strings.
+ * <p>
+ * A cell is identified by the index of its row of latitude and its column of longitude. The geohash itself interleaves
+ * the bits of the two, longitude first, exactly as in the base-32 form.
+ *
+ * @author SirWellington
+ */
+@Internal
+@NonInstantiable
+final class Geohash
+{
+
+    private static final char[] BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /** The number of geohash characters used for index cells, which are about 4.9km by 4.9km at the equator. */
+    static final int CHARACTERS = 5;
+
+    static final int LONGITUDE_BITS = (CHARACTERS * 5 + 1) / 2;
+    static final int LATITUDE_BITS = CHARACTERS * 5 / 2;
+
+    static final int LONGITUDE_CELLS = 1 << LONGITUDE_BITS;
+    static final int LATITUDE_CELLS = 1 << LATITUDE_BITS;
+
+    static final double CELL_WIDTH_IN_DEGREES = 360.0 / LONGITUDE_CELLS;
+    static final double CELL_HEIGHT_IN_DEGREES = 180.0 / LATITUDE_CELLS;
+
+    Geohash() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    static int rowOf(double latitude)
+    {
+        int row = (int) Math.floor((latitude + 90.0) / CELL_HEIGHT_IN_DEGREES);
+        return Math.max(0, Math.min(LATITUDE_CELLS - 1, row));
+    }
+
+    static int columnOf(double longitude)
+    {
+        int column = (int) Math.floor((longitude + 180.0) / CELL_WIDTH_IN_DEGREES);
+        return Math.floorMod(column, LONGITUDE_CELLS);
+    }
+
+    static long cellOf(double latitude, double longitude)
+    {
+        return cellOf(rowOf(latitude), columnOf(longitude));
+    }
+
+    static long cellOf(int row, int column)
+    {
+        long hash = 0;
+
+        //With an odd number of characters there is one more longitude bit than latitude bits.
+        for (int bit = LONGITUDE_BITS - 1; bit >= 0; --bit)
+        {
+            hash = (hash << 1) | ((column >>> bit) & 1);
+
+            if (bit > 0)
+            {
+                hash = (hash << 1) | ((row >>> (bit - 1)) & 1);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * @return The base-32 form of a cell, as used on geohash.org.
+     */
+    static String toString(long cell)
+    {
+        char[] chars = new char[CHARACTERS];
+
+        for (int i = CHARACTERS - 1; i >= 0; --i)
+        {
+            chars[i] = BASE_32[(int) (cell & 31)];
+            cell >>>= 5;
+        }
+
+        return new String(chars);
+    }
+
+}
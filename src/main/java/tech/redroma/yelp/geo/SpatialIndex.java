@@ -0,0 +1,776 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * An in-memory index of businesses by location, for answering proximity queries without calling Yelp.
+ * <p>
+ * Locations are kept in primitive arrays and bucketed by geohash cells of roughly 4.9km. Radius and bounding-box queries
+ * only visit the cells that overlap the area, and nearest-neighbour queries widen their search until enough businesses
+ * are found.
+ * <p>
+ * Each business records when it was last added. Every query can be limited to businesses fetched within a maximum age,
+ * and {@link #evictOlderThan(java.time.Duration) } drops stale entries.
+ * <p>
+ * To populate the index automatically from search and details responses, see {@link #indexing(tech.redroma.yelp.YelpAPI) }.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class SpatialIndex
+{
+
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private double[] latitudes = new double[64];
+    private double[] longitudes = new double[64];
+    private long[] cellOfSlot = new long[64];
+    private long[] fetchedAt = new long[64];
+    private YelpBusinessSnapshot[] businesses = new YelpBusinessSnapshot[64];
+
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int highWater = 0;
+
+    SpatialIndex(Clock clock)
+    {
+        checkThat(clock)
+            .usingMessage("clock cannot be null")
+            .is(notNull());
+
+        this.clock = clock;
+    }
+
+    public static SpatialIndex newInstance()
+    {
+        return new SpatialIndex(Clock.systemUTC());
+    }
+
+    /**
+     * Wraps a {@link YelpAPI} so that every business returned by
+     * {@linkplain YelpAPI#searchForBusinesses(tech.redroma.yelp.YelpSearchRequest) searches} and
+     * {@linkplain YelpAPI#getBusinessDetails(java.lang.String) details lookups} is added to this index.
+     *
+     * @param delegate The API to make the calls with.
+     * @return
+     * @throws IllegalArgumentException If the delegate is null.
+     */
+    public YelpAPI indexing(@Required YelpAPI delegate) throws IllegalArgumentException
+    {
+        return new IndexingYelpAPI(delegate, this);
+    }
+
+    /**
+     * Adds or replaces a business. Businesses without an id or coordinates are ignored.
+     *
+     * @param business The business to add.
+     * @return Whether the business was added.
+     */
+    public boolean add(@Optional YelpBusiness business)
+    {
+        if (business == null || isNullOrEmpty(business.id) || business.coordinates == null)
+        {
+            return false;
+        }
+
+        YelpBusinessSnapshot snapshot = YelpBusinessSnapshot.of(business);
+        Coordinate coordinates = snapshot.getCoordinates();
+
+        lock.writeLock().lock();
+        try
+        {
+            put(snapshot, coordinates.getLatitude(), coordinates.getLongitude(), clock.millis());
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds or replaces the business described by {@code details}. Details without an id or coordinates are ignored.
+     *
+     * @param details The details to add.
+     * @return Whether the business was added.
+     */
+    public boolean add(@Optional YelpBusinessDetails details)
+    {
+        if (details == null)
+        {
+            return false;
+        }
+
+        YelpBusiness business = new YelpBusiness();
+        business.id = details.id;
+        business.name = details.name;
+        business.url = details.url;
+        business.rating = details.rating;
+        business.phone = details.phone;
+        business.isClosed = details.isClosed;
+        business.categories = details.categories;
+        business.reviewCount = details.reviewCount;
+        business.coordinates = details.coordinates;
+        business.location = details.location;
+        business.imageURL = details.imageURL;
+
+        return add(business);
+    }
+
+    /**
+     * @param businesses The businesses to add. Businesses without an id or coordinates are ignored.
+     * @return The number of businesses added.
+     */
+    public int addAll(@Optional List<YelpBusiness> businesses)
+    {
+        if (businesses == null)
+        {
+            return 0;
+        }
+
+        int added = 0;
+
+        for (YelpBusiness business : businesses)
+        {
+            added += add(business) ? 1 : 0;
+        }
+
+        return added;
+    }
+
+    /**
+     * @return Whether a business with this id was removed.
+     */
+    public boolean remove(@Optional String businessId)
+    {
+        if (businessId == null)
+        {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            Integer slot = slotsById.get(businessId);
+
+            if (slot == null)
+            {
+                return false;
+            }
+
+            release(slot);
+            return true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every business fetched longer ago than {@code maxAge}.
+     *
+     * @return The number of businesses removed.
+     * @throws IllegalArgumentException If {@code maxAge} is null or negative.
+     */
+    public int evictOlderThan(@Required Duration maxAge) throws IllegalArgumentException
+    {
+        long oldestAllowed = oldestAllowed(maxAge);
+        int removed = 0;
+
+        lock.writeLock().lock();
+        try
+        {
+            for (int slot = 0; slot < highWater; ++slot)
+            {
+                if (businesses[slot] != null && fetchedAt[slot] < oldestAllowed)
+                {
+                    release(slot);
+                    ++removed;
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return removed;
+    }
+
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return slotsById.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * @return The business with this id, or {@code null} if it is not in the index. The hit has no distance.
+     */
+    public Hit get(@Optional String businessId)
+    {
+        if (businessId == null)
+        {
+            return null;
+        }
+
+        long now = clock.millis();
+
+        lock.readLock().lock();
+        try
+        {
+            Integer slot = slotsById.get(businessId);
+            return slot == null ? null : hitAt(slot, Double.NaN, now);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the businesses within a distance of {@code center}, nearest first.
+     *
+     * @throws IllegalArgumentException If the center is null or the radius is negative.
+     */
+    public List<Hit> withinRadius(@Required Coordinate center, double radiusInMeters) throws IllegalArgumentException
+    {
+        return withinRadius(center, radiusInMeters, null);
+    }
+
+    /**
+     * Finds the businesses within a distance of {@code center} that were fetched within {@code maxAge}, nearest first.
+     *
+     * @param maxAge The maximum age of results. {@code null} allows any age.
+     * @throws IllegalArgumentException If the center is null or the radius is negative.
+     */
+    public List<Hit> withinRadius(@Required Coordinate center, double radiusInMeters, @Optional Duration maxAge) throws IllegalArgumentException
+    {
+        checkThat(center)
+            .usingMessage("center cannot be null")
+            .is(notNull());
+
+        checkThat(radiusInMeters)
+            .usingMessage("radius must be >= 0")
+            .is(greaterThanOrEqualTo(0.0));
+
+        long now = clock.millis();
+        long oldestAllowed = maxAge == null ? Long.MIN_VALUE : oldestAllowed(maxAge);
+
+        lock.readLock().lock();
+        try
+        {
+            List<Hit> hits = searchRadius(center.getLatitude(), center.getLongitude(), radiusInMeters, oldestAllowed, now);
+            hits.sort((first, second) -> Double.compare(first.distanceInMeters, second.distanceInMeters));
+            return hits;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the businesses inside a box. The hits have no distance.
+     *
+     * @throws IllegalArgumentException If the box is null.
+     */
+    public List<Hit> withinBounds(@Required BoundingBox box) throws IllegalArgumentException
+    {
+        return withinBounds(box, null);
+    }
+
+    /**
+     * Finds the businesses inside a box that were fetched within {@code maxAge}. The hits have no distance.
+     *
+     * @param maxAge The maximum age of results. {@code null} allows any age.
+     * @throws IllegalArgumentException If the box is null.
+     */
+    public List<Hit> withinBounds(@Required BoundingBox box, @Optional Duration maxAge) throws IllegalArgumentException
+    {
+        checkThat(box)
+            .usingMessage("bounding box cannot be null")
+            .is(notNull());
+
+        long now = clock.millis();
+        long oldestAllowed = maxAge == null ? Long.MIN_VALUE : oldestAllowed(maxAge);
+
+        int firstRow = Geohash.rowOf(box.getMinLatitude());
+        int lastRow = Geohash.rowOf(box.getMaxLatitude());
+        int firstColumn = (int) Math.floor((box.getMinLongitude() + 180.0) / Geohash.CELL_WIDTH_IN_DEGREES);
+        int lastColumn = (int) Math.floor((box.getMaxLongitude() + 180.0) / Geohash.CELL_WIDTH_IN_DEGREES);
+
+        List<Hit> hits = new ArrayList<>();
+
+        lock.readLock().lock();
+        try
+        {
+            if (isCheaperToScan(firstRow, lastRow, firstColumn, lastColumn))
+            {
+                for (int slot = 0; slot < highWater; ++slot)
+                {
+                    if (businesses[slot] != null && fetchedAt[slot] >= oldestAllowed &&
+                        box.contains(latitudes[slot], longitudes[slot]))
+                    {
+                        hits.add(hitAt(slot, Double.NaN, now));
+                    }
+                }
+
+                return hits;
+            }
+
+            for (int row = firstRow; row <= lastRow; ++row)
+            {
+                for (int column = firstColumn; column <= lastColumn; ++column)
+                {
+                    Cell cell = cells.get(Geohash.cellOf(row, Math.floorMod(column, Geohash.LONGITUDE_CELLS)));
+
+                    if (cell == null)
+                    {
+                        continue;
+                    }
+
+                    for (int i = 0; i < cell.size; ++i)
+                    {
+                        int slot = cell.slots[i];
+
+                        if (fetchedAt[slot] >= oldestAllowed && box.contains(latitudes[slot], longitudes[slot]))
+                        {
+                            hits.add(hitAt(slot, Double.NaN, now));
+                        }
+                    }
+                }
+            }
+
+            return hits;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the {@code k} businesses nearest to {@code center}, nearest first.
+     *
+     * @throws IllegalArgumentException If the center is null or {@code k} is not positive.
+     */
+    public List<Hit> nearest(@Required Coordinate center, @Positive int k) throws IllegalArgumentException
+    {
+        return nearest(center, k, null);
+    }
+
+    /**
+     * Finds the {@code k} businesses nearest to {@code center} that were fetched within {@code maxAge}, nearest first.
+     *
+     * @param maxAge The maximum age of results. {@code null} allows any age.
+     * @throws IllegalArgumentException If the center is null or {@code k} is not positive.
+     */
+    public List<Hit> nearest(@Required Coordinate center, @Positive int k, @Optional Duration maxAge) throws IllegalArgumentException
+    {
+        checkThat(center)
+            .usingMessage("center cannot be null")
+            .is(notNull());
+
+        checkThat(k)
+            .usingMessage("k must be > 0")
+            .is(positiveInteger());
+
+        long now = clock.millis();
+        long oldestAllowed = maxAge == null ? Long.MIN_VALUE : oldestAllowed(maxAge);
+
+        double maximumDistance = Math.PI * GeoMath.EARTH_RADIUS_IN_METERS;
+        double radius = Geohash.CELL_HEIGHT_IN_DEGREES * GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+
+        lock.readLock().lock();
+        try
+        {
+            //Every business within the radius is found, so once there are k of them they are the nearest k.
+            while (true)
+            {
+                List<Hit> hits = searchRadius(center.getLatitude(), center.getLongitude(), radius, oldestAllowed, now);
+
+                if (hits.size() >= k || radius >= maximumDistance)
+                {
+                    hits.sort((first, second) -> Double.compare(first.distanceInMeters, second.distanceInMeters));
+                    return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+                }
+
+                radius = Math.min(maximumDistance, radius * 2);
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> searchRadius(double latitude, double longitude, double radius, long oldestAllowed, long now)
+    {
+        double latitudeDelta = radius / GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+        double minLatitude = GeoMath.clampLatitude(latitude - latitudeDelta);
+        double maxLatitude = GeoMath.clampLatitude(latitude + latitudeDelta);
+
+        double widest = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        double metersPerDegree = GeoMath.metersPerDegreeOfLongitude(widest);
+        double longitudeDelta = metersPerDegree <= 0 ? 180 : radius / metersPerDegree;
+
+        int firstRow = Geohash.rowOf(minLatitude);
+        int lastRow = Geohash.rowOf(maxLatitude);
+        int firstColumn;
+        int lastColumn;
+
+        if (longitudeDelta >= 180 || maxLatitude >= 90 || minLatitude <= -90)
+        {
+            firstColumn = 0;
+            lastColumn = Geohash.LONGITUDE_CELLS - 1;
+        }
+        else
+        {
+            firstColumn = (int) Math.floor((longitude - longitudeDelta + 180.0) / Geohash.CELL_WIDTH_IN_DEGREES);
+            lastColumn = (int) Math.floor((longitude + longitudeDelta + 180.0) / Geohash.CELL_WIDTH_IN_DEGREES);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+
+        if (isCheaperToScan(firstRow, lastRow, firstColumn, lastColumn))
+        {
+            for (int slot = 0; slot < highWater; ++slot)
+            {
+                if (businesses[slot] != null)
+                {
+                    collectIfWithin(slot, latitude, longitude, radius, oldestAllowed, now, hits);
+                }
+            }
+
+            return hits;
+        }
+
+        for (int row = firstRow; row <= lastRow; ++row)
+        {
+            for (int column = firstColumn; column <= lastColumn; ++column)
+            {
+                Cell cell = cells.get(Geohash.cellOf(row, Math.floorMod(column, Geohash.LONGITUDE_CELLS)));
+
+                if (cell == null)
+                {
+                    continue;
+                }
+
+                for (int i = 0; i < cell.size; ++i)
+                {
+                    collectIfWithin(cell.slots[i], latitude, longitude, radius, oldestAllowed, now, hits);
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    private void collectIfWithin(int slot,
+                                 double latitude,
+                                 double longitude,
+                                 double radius,
+                                 long oldestAllowed,
+                                 long now,
+                                 List<Hit> hits)
+    {
+        if (fetchedAt[slot] < oldestAllowed)
+        {
+            return;
+        }
+
+        double distance = GeoMath.distanceInMeters(latitude, longitude, latitudes[slot], longitudes[slot]);
+
+        if (distance <= radius)
+        {
+            hits.add(hitAt(slot, distance, now));
+        }
+    }
+
+    private boolean isCheaperToScan(int firstRow, int lastRow, int firstColumn, int lastColumn)
+    {
+        long cellsToVisit = (long) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+        return cellsToVisit > cells.size();
+    }
+
+    private Hit hitAt(int slot, double distance, long now)
+    {
+        return new Hit(businesses[slot], distance, fetchedAt[slot], now);
+    }
+
+    private long oldestAllowed(Duration maxAge)
+    {
+        checkThat(maxAge)
+            .usingMessage("maxAge cannot be null")
+            .is(notNull());
+
+        checkThat(maxAge.isNegative())
+            .usingMessage("maxAge cannot be negative")
+            .is(falseStatement());
+
+        return clock.millis() - maxAge.toMillis();
+    }
+
+    private void put(YelpBusinessSnapshot business, double latitude, double longitude, long time)
+    {
+        Integer existing = slotsById.get(business.getId());
+
+        if (existing != null)
+        {
+            release(existing);
+        }
+
+        int slot = allocate();
+        long cell = Geohash.cellOf(latitude, longitude);
+
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        cellOfSlot[slot] = cell;
+        fetchedAt[slot] = time;
+        businesses[slot] = business;
+
+        slotsById.put(business.getId(), slot);
+        cells.computeIfAbsent(cell, c -> new Cell()).add(slot);
+    }
+
+    private int allocate()
+    {
+        if (freeCount > 0)
+        {
+            return freeSlots[--freeCount];
+        }
+
+        if (highWater == latitudes.length)
+        {
+            int capacity = latitudes.length * 2;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            cellOfSlot = Arrays.copyOf(cellOfSlot, capacity);
+            fetchedAt = Arrays.copyOf(fetchedAt, capacity);
+            businesses = Arrays.copyOf(businesses, capacity);
+        }
+
+        return highWater++;
+    }
+
+    private void release(int slot)
+    {
+        Cell cell = cells.get(cellOfSlot[slot]);
+
+        if (cell != null && cell.remove(slot) && cell.size == 0)
+        {
+            cells.remove(cellOfSlot[slot]);
+        }
+
+        slotsById.remove(businesses[slot].getId());
+        businesses[slot] = null;
+
+        if (freeCount == freeSlots.length)
+        {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+
+        freeSlots[freeCount++] = slot;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SpatialIndex{" + "size=" + size() + '}';
+    }
+
+    /**
+     * The slots of the businesses in one geohash cell.
+     */
+    private static final class Cell
+    {
+
+        private int[] slots = new int[4];
+        private int size = 0;
+
+        void add(int slot)
+        {
+            if (size == slots.length)
+            {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+
+            slots[size++] = slot;
+        }
+
+        boolean remove(int slot)
+        {
+            for (int i = 0; i < size; ++i)
+            {
+                if (slots[i] == slot)
+                {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+    }
+
+    /**
+     * A business found by a query, along with its distance and freshness.
+     */
+    @Immutable
+    public static final class Hit
+    {
+
+        private final YelpBusinessSnapshot business;
+        private final double distanceInMeters;
+        private final long fetchedAt;
+        private final long queriedAt;
+
+        Hit(YelpBusinessSnapshot business, double distanceInMeters, long fetchedAt, long queriedAt)
+        {
+            this.business = business;
+            this.distanceInMeters = distanceInMeters;
+            this.fetchedAt = fetchedAt;
+            this.queriedAt = queriedAt;
+        }
+
+        public YelpBusinessSnapshot getBusiness()
+        {
+            return business;
+        }
+
+        /**
+         * @return The distance from the center of the query, in meters, or {@code NaN} if the query had no center.
+         */
+        public double getDistanceInMeters()
+        {
+            return distanceInMeters;
+        }
+
+        /**
+         * @return When the business was last added to the index.
+         */
+        public Instant getFetchedAt()
+        {
+            return Instant.ofEpochMilli(fetchedAt);
+        }
+
+        /**
+         * @return How long before the query the business was last added to the index.
+         */
+        public Duration getAge()
+        {
+            return Duration.ofMillis(Math.max(0, queriedAt - fetchedAt));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = 3;
+            hash = 29 * hash + Objects.hashCode(this.business);
+            hash = 29 * hash + (int) (Double.doubleToLongBits(this.distanceInMeters) ^ (Double.doubleToLongBits(this.distanceInMeters) >>> 32));
+            hash = 29 * hash + (int) (this.fetchedAt ^ (this.fetchedAt >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Hit other = (Hit) obj;
+            if (Double.doubleToLongBits(this.distanceInMeters) != Double.doubleToLongBits(other.distanceInMeters))
+            {
+                return false;
+            }
+            if (this.fetchedAt != other.fetchedAt)
+            {
+                return false;
+            }
+            if (!Objects.equals(this.business, other.business))
+            {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Hit{" + "business=" + business.getId() + ", distanceInMeters=" + distanceInMeters + ", fetchedAt=" + getFetchedAt() + '}';
+        }
+
+    }
+
+}
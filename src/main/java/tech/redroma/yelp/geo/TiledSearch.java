@@ -0,0 +1,383 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpAreaTooLargeException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Searches areas larger than Yelp's {@linkplain YelpSearchRequest.Builder#MAX_RADIUS_IN_METERS maximum radius} by
+ * covering them with overlapping circular tiles, and searching the tiles in parallel.
+ * <p>
+ * The tiles are laid out on a grid of squares, each inscribed in its tile's circle, so that every point of the area is
+ * covered. Results from all tiles are de-duplicated by business id, clipped to the requested area, and ordered by their
+ * distance from its center.
+ * <p>
+ * Each tile is searched with a copy of a template request, with the template's coordinate and radius replaced by the
+ * tile's. Everything else in the template, such as the term and categories, applies to every tile.
+ * <p>
+ * Yelp returns only so many results for each search, ranked by relevance rather than distance. A tile whose last page
+ * comes back full of businesses inside it is split into smaller circles that cover it, down to a
+ * {@linkplain Builder#withMinimumRadiusInMeters(int) minimum radius} and up to the
+ * {@linkplain Builder#withMaxTiles(int) maximum number of tiles}. One that can't be split keeps the businesses it
+ * returned, and is {@linkplain #getTruncatedTiles() counted}, rather than leaving them out without saying so.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class TiledSearch
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(TiledSearch.class);
+
+    //Leaves some slack for the error of treating each tile as flat
+    private static final double COVERAGE_FACTOR = 0.98;
+
+    private final int tileRadiusInMeters;
+    private final int maxTiles;
+    private final int concurrency;
+    private final int pagesPerTile;
+    private final CircleSearches searches;
+
+    private TiledSearch(Builder builder)
+    {
+        this.tileRadiusInMeters = builder.tileRadiusInMeters;
+        this.maxTiles = builder.maxTiles;
+        this.concurrency = builder.concurrency;
+        this.pagesPerTile = builder.pagesPerTile;
+        this.searches = new CircleSearches(builder.yelp,
+                                           concurrency,
+                                           pagesPerTile,
+                                           builder.minimumRadiusInMeters,
+                                           maxTiles,
+                                           builder.executor,
+                                           "yelp-tiled-search");
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Finds the businesses within {@code radiusInMeters} of {@code center}. The {@linkplain YelpBusiness#distance distance}
+     * of each result is measured from {@code center}.
+     *
+     * @param template The request to run in each tile.
+     * @param center The center of the area.
+     * @param radiusInMeters The radius of the area. It can exceed {@link YelpSearchRequest.Builder#MAX_RADIUS_IN_METERS}.
+     * @return
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpAreaTooLargeException If the area needs more than the maximum number of tiles.
+     * @throws YelpException If any of the searches fail.
+     */
+    public List<YelpBusiness> searchCircle(@Required YelpSearchRequest template,
+                                           @Required Coordinate center,
+                                           @Positive double radiusInMeters) throws IllegalArgumentException, YelpException
+    {
+        List<Coordinate> tiles = tilesCovering(center, radiusInMeters);
+
+        return search(template, tiles, center, business -> GeoMath.distanceInMeters(center, business.coordinates) <= radiusInMeters);
+    }
+
+    /**
+     * Finds the businesses inside a bounding box. The {@linkplain YelpBusiness#distance distance} of each result is measured
+     * from the center of the box.
+     *
+     * @param template The request to run in each tile.
+     * @param box The area to search.
+     * @return
+     * @throws IllegalArgumentException If any argument is invalid.
+     * @throws YelpAreaTooLargeException If the area needs more than the maximum number of tiles.
+     * @throws YelpException If any of the searches fail.
+     */
+    public List<YelpBusiness> searchBox(@Required YelpSearchRequest template, @Required BoundingBox box) throws IllegalArgumentException, YelpException
+    {
+        List<Coordinate> tiles = tilesCovering(box);
+
+        return search(template, tiles, box.getCenter(), business -> box.contains(business.coordinates));
+    }
+
+    /**
+     * @return The centers of the tiles needed to cover a circle.
+     * @throws IllegalArgumentException If the center is null or the radius is not positive.
+     * @throws YelpAreaTooLargeException If the area needs more than the maximum number of tiles.
+     */
+    public List<Coordinate> tilesCovering(@Required Coordinate center, @Positive double radiusInMeters) throws IllegalArgumentException, YelpAreaTooLargeException
+    {
+        checkThat(center)
+            .usingMessage("center cannot be null")
+            .is(notNull());
+
+        checkThat(radiusInMeters > 0)
+            .usingMessage("radius must be > 0")
+            .is(trueStatement());
+
+        BoundingBox bounds = BoundingBox.around(center, radiusInMeters);
+
+        return layTiles(bounds, tile -> GeoMath.distanceInMeters(center, tile) <= radiusInMeters + tileRadiusInMeters);
+    }
+
+    /**
+     * @return The centers of the tiles needed to cover a box.
+     * @throws IllegalArgumentException If the box is null.
+     * @throws YelpAreaTooLargeException If the area needs more than the maximum number of tiles.
+     */
+    public List<Coordinate> tilesCovering(@Required BoundingBox box) throws IllegalArgumentException, YelpAreaTooLargeException
+    {
+        checkThat(box)
+            .usingMessage("bounding box cannot be null")
+            .is(notNull());
+
+        return layTiles(box, tile -> true);
+    }
+
+    private List<Coordinate> layTiles(BoundingBox bounds, Predicate<Coordinate> overlapsArea)
+    {
+        double side = tileRadiusInMeters * Math.sqrt(2) * COVERAGE_FACTOR;
+        double latitudeStep = side / GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+
+        int rows = Math.max(1, (int) Math.ceil((bounds.getMaxLatitude() - bounds.getMinLatitude()) / latitudeStep));
+        List<Coordinate> tiles = new ArrayList<>();
+
+        for (int row = 0; row < rows; ++row)
+        {
+            double south = bounds.getMinLatitude() + row * latitudeStep;
+            double north = Math.min(90, south + latitudeStep);
+            double latitude = GeoMath.clampLatitude((south + north) / 2);
+
+            //Degrees of longitude are widest at the edge of the row nearest the equator
+            double equatorward = south <= 0 && north >= 0 ? 0 : Math.min(Math.abs(south), Math.abs(north));
+            double metersPerDegree = GeoMath.metersPerDegreeOfLongitude(equatorward);
+            double longitudeSpan = bounds.getMaxLongitude() - bounds.getMinLongitude();
+            double longitudeStep = metersPerDegree <= 0 ? 360 : side / metersPerDegree;
+
+            int columns = Math.max(1, (int) Math.ceil(longitudeSpan / longitudeStep));
+            double actualStep = longitudeSpan / columns;
+
+            for (int column = 0; column < columns; ++column)
+            {
+                double longitude = bounds.getMinLongitude() + (column + 0.5) * actualStep;
+                Coordinate tile = Coordinate.of(latitude, GeoMath.normalizeLongitude(longitude));
+
+                if (overlapsArea.test(tile))
+                {
+                    tiles.add(tile);
+                }
+
+                if (tiles.size() > maxTiles)
+                {
+                    throw new YelpAreaTooLargeException("area needs more than " + maxTiles + " tiles of radius " + tileRadiusInMeters);
+                }
+            }
+        }
+
+        return tiles;
+    }
+
+    private List<YelpBusiness> search(YelpSearchRequest template,
+                                      List<Coordinate> tiles,
+                                      Coordinate center,
+                                      Predicate<YelpBusiness> insideArea)
+    {
+        LOG.debug("Searching {} tiles of radius {}m with concurrency {}", tiles.size(), tileRadiusInMeters, concurrency);
+
+        Map<String, YelpBusiness> results = searches.search(template, tiles, tileRadiusInMeters, insideArea);
+
+        List<YelpBusiness> businesses = new ArrayList<>(results.values());
+        businesses.forEach(business -> business.distance = GeoMath.distanceInMeters(center, business.coordinates));
+        businesses.sort(Comparator.comparingDouble(business -> business.distance));
+
+        return businesses;
+    }
+
+    /**
+     * @return The number of tiles, over every search so far, that had more businesses than were returned and couldn't be
+     *         split any further. Their searches left some businesses out.
+     */
+    public long getTruncatedTiles()
+    {
+        return searches.getTruncatedCircles();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TiledSearch{" + "tileRadiusInMeters=" + tileRadiusInMeters + ", maxTiles=" + maxTiles + ", concurrency=" + concurrency + ", pagesPerTile=" + pagesPerTile + '}';
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default radius of each tile. */
+        public static final int DEFAULT_TILE_RADIUS_IN_METERS = 10_000;
+
+        /** The default maximum number of tiles in a single search. */
+        public static final int DEFAULT_MAX_TILES = 500;
+
+        /** The default number of tiles searched at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        /** The default number of pages requested from each tile. */
+        public static final int DEFAULT_PAGES_PER_TILE = 4;
+
+        /** By default, full tiles are not split into tiles smaller than this. */
+        public static final int DEFAULT_MINIMUM_RADIUS_IN_METERS = 50;
+
+        private final YelpAPI yelp;
+        private int tileRadiusInMeters = DEFAULT_TILE_RADIUS_IN_METERS;
+        private int maxTiles = DEFAULT_MAX_TILES;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private int pagesPerTile = DEFAULT_PAGES_PER_TILE;
+        private int minimumRadiusInMeters = DEFAULT_MINIMUM_RADIUS_IN_METERS;
+        private Executor executor;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Sets the radius of each tile. Smaller tiles return more of the businesses in dense areas, at the cost of more
+         * requests.
+         *
+         * @param radius The radius, up to {@link YelpSearchRequest.Builder#MAX_RADIUS_IN_METERS}.
+         * @return
+         * @throws IllegalArgumentException If the radius is not positive or too large.
+         */
+        public Builder withTileRadiusInMeters(@Positive int radius) throws IllegalArgumentException
+        {
+            checkThat(radius)
+                .usingMessage("tile radius must be in (0, " + MAX_RADIUS_IN_METERS + "]")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(MAX_RADIUS_IN_METERS));
+
+            this.tileRadiusInMeters = radius;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tiles a single search may use, including those split off full tiles. Larger areas
+         * fail with a {@link YelpAreaTooLargeException}; full tiles past it are not split.
+         */
+        public Builder withMaxTiles(@Positive int maxTiles) throws IllegalArgumentException
+        {
+            checkThat(maxTiles)
+                .usingMessage("max tiles must be > 0")
+                .is(positiveInteger());
+
+            this.maxTiles = maxTiles;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tiles searched at the same time.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages requested from each tile. A tile stops early once a page comes back short.
+         * One whose last page comes back full is split into smaller tiles.
+         */
+        public Builder withPagesPerTile(@Positive int pages) throws IllegalArgumentException
+        {
+            checkThat(pages)
+                .usingMessage("pages per tile must be > 0")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(MAX_OFFSET / MAX_LIMIT));
+
+            this.pagesPerTile = pages;
+            return this;
+        }
+
+        /**
+         * Sets the smallest radius a full tile is split down to. A tile this small that still comes back full keeps the
+         * businesses it returned, and is {@linkplain TiledSearch#getTruncatedTiles() counted as truncated}.
+         */
+        public Builder withMinimumRadiusInMeters(@Positive int radius) throws IllegalArgumentException
+        {
+            checkThat(radius)
+                .usingMessage("minimum radius must be > 0")
+                .is(positiveInteger());
+
+            this.minimumRadiusInMeters = radius;
+            return this;
+        }
+
+        /**
+         * Runs the tile searches on an existing executor. By default, each search uses its own threads, which are released
+         * when it completes. Either way, no more than the {@linkplain #withConcurrency(int) concurrency} run at once.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        public TiledSearch build()
+        {
+            return new TiledSearch(this);
+        }
+
+    }
+
+}
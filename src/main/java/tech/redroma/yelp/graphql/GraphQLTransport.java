@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.graphql;
+
+import com.google.gson.JsonObject;
+import java.util.concurrent.TimeUnit;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.oauth.OAuthTokenProvider;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.http.AlchemyHttp;
+
+/**
+ * Sends queries to <a href="https://www.yelp.com/developers/graphql/guides/intro">Yelp's GraphQL endpoint</a>.
+ *
+ * @author SirWellington
+ * @see GraphQLYelpAPI
+ */
+@FunctionalInterface
+public interface GraphQLTransport
+{
+
+    /** Yelp's GraphQL endpoint. */
+    public static final String DEFAULT_URL = YelpAPI.DEFAULT_BASE_URL + "/graphql";
+
+    /**
+     * Runs a query.
+     *
+     * @param query     The GraphQL query.
+     * @param variables The values of the variables declared by the query.
+     * @return The whole response, with its {@code data} and any {@code errors}.
+     * @throws YelpException If the query could not be run at all. Errors in parts of the query are reported in the
+     *                       response instead.
+     */
+    @Required
+    JsonObject execute(@NonEmpty String query, @Required JsonObject variables) throws YelpException;
+
+    /**
+     * Creates a transport to Yelp's GraphQL endpoint.
+     *
+     * @param tokenProvider Provides the token that authenticates each query.
+     * @return
+     * @throws IllegalArgumentException If the token provider is null.
+     */
+    static GraphQLTransport newInstance(@Required OAuthTokenProvider tokenProvider) throws IllegalArgumentException
+    {
+        AlchemyHttp http = AlchemyHttp.Factory.newBuilder()
+            .usingTimeout(60, TimeUnit.SECONDS)
+            .build();
+
+        return newInstance(http, tokenProvider, DEFAULT_URL);
+    }
+
+    /**
+     * Creates a transport to a GraphQL endpoint. A URL other than {@link #DEFAULT_URL} should only be used for testing
+     * purposes.
+     *
+     * @param http          The HTTP client to send queries with.
+     * @param tokenProvider Provides the token that authenticates each query.
+     * @param url           The URL of the endpoint.
+     * @return
+     * @throws IllegalArgumentException If any argument is null, or the URL is invalid.
+     */
+    static GraphQLTransport newInstance(@Required AlchemyHttp http,
+                                        @Required OAuthTokenProvider tokenProvider,
+                                        @NonEmpty String url) throws IllegalArgumentException
+    {
+        return new HttpGraphQLTransport(http, tokenProvider, url);
+    }
+
+}
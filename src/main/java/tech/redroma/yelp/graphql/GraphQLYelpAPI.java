@@ -0,0 +1,671 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.graphql;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Coalesces concurrent business lookups into single queries to Yelp's GraphQL endpoint.
+ * <p>
+ * The first lookup waits a few milliseconds for others. The lookups that arrive in that window are then made as one
+ * query, with an aliased field for each business, and each caller is answered with its own part of the response. Asking
+ * for details of 50 businesses at once takes a single request instead of 50. A lookup that no other caller joins in its
+ * window is made through the delegate, as usual, and so are searches.
+ * <p>
+ * Reviews are looked up through the delegate, unless {@linkplain Builder#withReviews() batched as well}.
+ * <p>
+ * Yelp's GraphQL schema has no {@linkplain YelpBusinessDetails#imageURL image URL}, so it is set to the first of the
+ * business's {@linkplain YelpBusinessDetails#photosURLS photos}. A business the query couldn't find fails with a
+ * {@link YelpBadArgumentException}, as it would over REST, without failing the rest of its batch. Each caller gets its own
+ * copy of the results.
+ *
+ * @author SirWellington
+ * @see GraphQLTransport
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+public final class GraphQLYelpAPI implements YelpAPI
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(GraphQLYelpAPI.class);
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * The fields of a business that {@link YelpBusinessDetails} holds. Fields are aliased to the names the model is parsed
+     * from where Yelp's GraphQL and REST names differ.
+     */
+    static final String DETAILS_FRAGMENT = "fragment details on Business { " +
+                                           "id name url phone price rating is_claimed is_closed photos " +
+                                           "reviewCount: review_count " +
+                                           "hours { hours_type is_open_now open { day start end is_overnight } } " +
+                                           "categories { alias title } " +
+                                           "coordinates { latitude longitude } " +
+                                           "location { address1 address2 address3 city state zip_code country } " +
+                                           "}";
+
+    /** The fields of a review that {@link YelpReview} holds. */
+    static final String REVIEW_FIELDS = "review { rating text url timeCreated: time_created user { name image_url } }";
+
+    private final YelpAPI delegate;
+    private final GraphQLTransport transport;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final boolean batchReviews;
+
+    //Guarded by 'this'
+    private Batch openBatch;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    private GraphQLYelpAPI(Builder builder)
+    {
+        this.delegate = builder.delegate;
+        this.transport = builder.transport;
+        this.windowNanos = builder.window.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+        this.batchReviews = builder.batchReviews;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI delegate, @Required GraphQLTransport transport) throws IllegalArgumentException
+    {
+        return new Builder(delegate, transport);
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId) throws YelpException
+    {
+        checkThat(businessId)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("Business ID cannot be empty")
+            .is(nonEmptyString());
+
+        JsonElement result = lookUp(Kind.DETAILS, businessId);
+
+        if (result == null)
+        {
+            return delegate.getBusinessDetails(businessId);
+        }
+
+        return toDetails(result);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request) throws YelpException
+    {
+        return delegate.searchForBusinesses(request);
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request) throws YelpException
+    {
+        return delegate.searchForBusinessesWithTotal(request);
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId) throws YelpException
+    {
+        if (!batchReviews)
+        {
+            return delegate.getReviewsForBusiness(businessId);
+        }
+
+        checkThat(businessId)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("Business ID cannot be empty")
+            .is(nonEmptyString());
+
+        JsonElement result = lookUp(Kind.REVIEWS, businessId);
+
+        if (result == null)
+        {
+            return delegate.getReviewsForBusiness(businessId);
+        }
+
+        return toReviews(result);
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinessesByPhone(String phone) throws YelpException
+    {
+        return delegate.searchForBusinessesByPhone(phone);
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate) throws YelpException
+    {
+        return delegate.matchBusinesses(name, address, coordinate);
+    }
+
+    @Override
+    public YelpAutocompleteResults getAutocompleteSuggestions(String text, Coordinate coordinate, Locale locale) throws YelpException
+    {
+        return delegate.getAutocompleteSuggestions(text, coordinate, locale);
+    }
+
+    /**
+     * @return The number of GraphQL queries made.
+     */
+    public long getQueries()
+    {
+        return queries.get();
+    }
+
+    /**
+     * @return The number of lookups answered by a GraphQL query.
+     */
+    public long getLookups()
+    {
+        return lookups.get();
+    }
+
+    /**
+     * Joins the open batch, or opens one, and waits for its answer.
+     *
+     * @return The part of the response for the business, or null if the lookup should be made through the delegate.
+     */
+    private JsonElement lookUp(Kind kind, String businessId)
+    {
+        if (maxBatchSize == 1)
+        {
+            return null;
+        }
+
+        Batch batch;
+        Lookup lookup;
+        boolean isLeader = false;
+
+        synchronized (this)
+        {
+            if (openBatch == null)
+            {
+                openBatch = new Batch();
+                isLeader = true;
+            }
+
+            batch = openBatch;
+            lookup = batch.join(kind, businessId);
+
+            if (batch.size() >= maxBatchSize)
+            {
+                close(batch);
+            }
+        }
+
+        if (isLeader)
+        {
+            List<Lookup> members = awaitMembers(batch);
+
+            //No longer changes once the batch is closed
+            if (batch.callers == 1)
+            {
+                return null;
+            }
+
+            run(members);
+        }
+
+        return await(lookup);
+    }
+
+    //Must hold 'this'
+    private void close(Batch batch)
+    {
+        if (!batch.closed)
+        {
+            batch.closed = true;
+
+            if (openBatch == batch)
+            {
+                openBatch = null;
+            }
+
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits out the window, or until the batch is full, and closes the batch.
+     */
+    private synchronized List<Lookup> awaitMembers(Batch batch)
+    {
+        long deadline = System.nanoTime() + windowNanos;
+
+        try
+        {
+            for (long remaining = windowNanos; !batch.closed && remaining > 0; remaining = deadline - System.nanoTime())
+            {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            //The others are waiting on this lookup, so it goes ahead now
+            Thread.currentThread().interrupt();
+        }
+
+        close(batch);
+        return batch.members();
+    }
+
+    private void run(List<Lookup> members)
+    {
+        try
+        {
+            JsonObject variables = new JsonObject();
+            String query = queryFor(members, variables);
+
+            JsonObject response = transport.execute(query, variables);
+            queries.incrementAndGet();
+
+            answer(members, response);
+        }
+        catch (RuntimeException ex)
+        {
+            members.forEach(member -> member.answer.completeExceptionally(ex));
+        }
+        finally
+        {
+            //Never leaves the others waiting
+            members.forEach(member -> member.answer.completeExceptionally(new YelpOperationFailedException("GraphQL query did not complete")));
+        }
+    }
+
+    private JsonElement await(Lookup lookup)
+    {
+        try
+        {
+            return lookup.answer.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while waiting for a GraphQL query", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof YelpException)
+            {
+                throw (YelpException) cause;
+            }
+
+            throw new YelpOperationFailedException("GraphQL query failed", cause);
+        }
+    }
+
+    /**
+     * Writes one query for every lookup, with an alias and a variable for each.
+     *
+     * @param members   The lookups, which are assigned their aliases.
+     * @param variables Receives the business id of each alias.
+     * @return
+     */
+    static String queryFor(List<Lookup> members, JsonObject variables)
+    {
+        StringBuilder declarations = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        boolean hasDetails = false;
+
+        for (int i = 0; i < members.size(); ++i)
+        {
+            Lookup member = members.get(i);
+            member.alias = member.kind.prefix + i;
+
+            variables.addProperty(member.alias, member.businessId);
+
+            if (declarations.length() > 0)
+            {
+                declarations.append(", ");
+            }
+
+            declarations.append('$').append(member.alias).append(": String");
+
+            fields.append(' ').append(member.alias).append(": ");
+
+            if (member.kind == Kind.DETAILS)
+            {
+                hasDetails = true;
+                fields.append("business(id: $").append(member.alias).append(") { ...details }");
+            }
+            else
+            {
+                fields.append("reviews(business: $").append(member.alias).append(") { ").append(REVIEW_FIELDS).append(" }");
+            }
+        }
+
+        String query = "query Lookups(" + declarations + ") {" + fields + " }";
+
+        return hasDetails ? query + " " + DETAILS_FRAGMENT : query;
+    }
+
+    /**
+     * Completes each lookup with its part of the response, or with the error reported for it.
+     */
+    private void answer(List<Lookup> members, JsonObject response)
+    {
+        JsonObject data = objectIn(response, "data");
+        Map<String, String> errorsByAlias = new HashMap<>();
+        String queryError = null;
+
+        JsonElement errors = response.get("errors");
+
+        if (errors != null && errors.isJsonArray())
+        {
+            for (JsonElement error : errors.getAsJsonArray())
+            {
+                String message = messageOf(error);
+                String alias = aliasOf(error);
+
+                if (alias != null)
+                {
+                    errorsByAlias.putIfAbsent(alias, message);
+                }
+                else if (queryError == null)
+                {
+                    queryError = message;
+                }
+            }
+        }
+
+        for (Lookup member : members)
+        {
+            JsonElement result = data == null ? null : data.get(member.alias);
+
+            if (result != null && !result.isJsonNull())
+            {
+                lookups.incrementAndGet();
+                member.answer.complete(result);
+            }
+            else if (errorsByAlias.containsKey(member.alias))
+            {
+                String message = "business " + member.businessId + ": " + errorsByAlias.get(member.alias);
+                member.answer.completeExceptionally(new YelpBadArgumentException(message));
+            }
+            else if (queryError != null)
+            {
+                LOG.warn("GraphQL query failed: {}", queryError);
+                member.answer.completeExceptionally(new YelpOperationFailedException("GraphQL query failed: " + queryError));
+            }
+            else
+            {
+                member.answer.completeExceptionally(new YelpOperationFailedException("no result for business " + member.businessId));
+            }
+        }
+    }
+
+    private static JsonObject objectIn(JsonObject object, String member)
+    {
+        JsonElement element = object.get(member);
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    private static String messageOf(JsonElement error)
+    {
+        if (error.isJsonObject() && error.getAsJsonObject().has("message"))
+        {
+            return error.getAsJsonObject().get("message").getAsString();
+        }
+
+        return String.valueOf(error);
+    }
+
+    /**
+     * @return The alias at the start of the error's path, or null if the error isn't about a single alias.
+     */
+    private static String aliasOf(JsonElement error)
+    {
+        if (!error.isJsonObject())
+        {
+            return null;
+        }
+
+        JsonElement path = error.getAsJsonObject().get("path");
+
+        if (path == null || !path.isJsonArray() || path.getAsJsonArray().size() == 0)
+        {
+            return null;
+        }
+
+        JsonElement first = path.getAsJsonArray().get(0);
+        return first.isJsonPrimitive() ? first.getAsString() : null;
+    }
+
+    static YelpBusinessDetails toDetails(JsonElement result)
+    {
+        YelpBusinessDetails details = GSON.fromJson(result, YelpBusinessDetails.class);
+
+        if (details.imageURL == null && !Lists.isEmpty(details.photosURLS))
+        {
+            details.imageURL = details.photosURLS.get(0);
+        }
+
+        return details;
+    }
+
+    static List<YelpReview> toReviews(JsonElement result)
+    {
+        List<YelpReview> reviews = new ArrayList<>();
+
+        JsonElement review = result.isJsonObject() ? result.getAsJsonObject().get("review") : null;
+
+        if (review != null && review.isJsonArray())
+        {
+            for (JsonElement element : (JsonArray) review)
+            {
+                reviews.add(GSON.fromJson(element, YelpReview.class));
+            }
+        }
+
+        return reviews;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GraphQLYelpAPI{" + "delegate=" + delegate + ", transport=" + transport + ", windowNanos=" + windowNanos + ", maxBatchSize=" + maxBatchSize + ", batchReviews=" + batchReviews + ", queries=" + queries + ", lookups=" + lookups + '}';
+    }
+
+    enum Kind
+    {
+        DETAILS("d"),
+        REVIEWS("r");
+
+        private final String prefix;
+
+        private Kind(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+    }
+
+    private static final class Batch
+    {
+
+        //Guarded by the GraphQLYelpAPI; a business looked up twice in a batch is queried once
+        private final Map<String, Lookup> details = new LinkedHashMap<>();
+        private final Map<String, Lookup> reviews = new LinkedHashMap<>();
+        private int callers = 0;
+        private boolean closed = false;
+
+        private Lookup join(Kind kind, String businessId)
+        {
+            callers += 1;
+
+            Map<String, Lookup> lookups = kind == Kind.DETAILS ? details : reviews;
+            return lookups.computeIfAbsent(businessId, id -> new Lookup(kind, id));
+        }
+
+        private int size()
+        {
+            return details.size() + reviews.size();
+        }
+
+        private List<Lookup> members()
+        {
+            List<Lookup> members = new ArrayList<>(size());
+            members.addAll(details.values());
+            members.addAll(reviews.values());
+            return members;
+        }
+
+    }
+
+    static final class Lookup
+    {
+
+        private final Kind kind;
+        private final String businessId;
+        private final CompletableFuture<JsonElement> answer = new CompletableFuture<>();
+
+        //Assigned when the query is written
+        private String alias;
+
+        Lookup(Kind kind, String businessId)
+        {
+            this.kind = kind;
+            this.businessId = businessId;
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default time the first lookup waits for others to join it. */
+        public static final Duration DEFAULT_WINDOW = Duration.ofMillis(5);
+
+        /** The default maximum number of lookups in a single query. */
+        public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+        private final YelpAPI delegate;
+        private final GraphQLTransport transport;
+        private Duration window = DEFAULT_WINDOW;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private boolean batchReviews = false;
+
+        private Builder(YelpAPI delegate, GraphQLTransport transport)
+        {
+            checkThat(delegate)
+                .usingMessage("delegate cannot be null")
+                .is(notNull());
+
+            checkThat(transport)
+                .usingMessage("transport cannot be null")
+                .is(notNull());
+
+            this.delegate = delegate;
+            this.transport = transport;
+        }
+
+        /**
+         * Sets how long the first lookup waits for others to join it. Every lookup waits at most this long before it is
+         * made.
+         */
+        public Builder withWindow(@Required Duration window) throws IllegalArgumentException
+        {
+            checkThat(window)
+                .usingMessage("window cannot be null")
+                .is(notNull());
+
+            checkThat(!window.isNegative())
+                .usingMessage("window cannot be negative")
+                .is(trueStatement());
+
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of lookups in a single query. A batch that fills up is made without waiting out the
+         * window. A size of 1 turns batching off.
+         */
+        public Builder withMaxBatchSize(@Positive int maxBatchSize) throws IllegalArgumentException
+        {
+            checkThat(maxBatchSize)
+                .usingMessage("max batch size must be >= 1")
+                .is(greaterThanOrEqualTo(1));
+
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Batches lookups of reviews along with lookups of details.
+         */
+        public Builder withReviews()
+        {
+            this.batchReviews = true;
+            return this;
+        }
+
+        public GraphQLYelpAPI build()
+        {
+            return new GraphQLYelpAPI(this);
+        }
+
+    }
+
+}
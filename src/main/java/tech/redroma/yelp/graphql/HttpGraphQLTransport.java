@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.graphql;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.exceptions.YelpAuthenticationException;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.oauth.OAuthTokenProvider;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.http.AlchemyHttp;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validURL;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Posts queries to a GraphQL endpoint over HTTP, the way {@link tech.redroma.yelp.YelpAPI} makes its REST calls.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class HttpGraphQLTransport implements GraphQLTransport
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(HttpGraphQLTransport.class);
+
+    private final AlchemyHttp http;
+    private final OAuthTokenProvider tokenProvider;
+    private final String url;
+
+    HttpGraphQLTransport(AlchemyHttp http, OAuthTokenProvider tokenProvider, String url)
+    {
+        checkThat(http, tokenProvider)
+            .are(notNull());
+
+        checkThat(url)
+            .is(nonEmptyString())
+            .is(validURL());
+
+        this.http = http;
+        this.tokenProvider = tokenProvider;
+        this.url = url;
+    }
+
+    @Override
+    public JsonObject execute(String query, JsonObject variables) throws YelpException
+    {
+        checkThat(query)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("query cannot be empty")
+            .is(nonEmptyString());
+
+        checkThat(variables)
+            .throwing(YelpBadArgumentException.class)
+            .usingMessage("variables cannot be null")
+            .is(notNull());
+
+        String token = tokenProvider.getToken();
+
+        checkThat(token)
+            .throwing(YelpAuthenticationException.class)
+            .usingMessage("No token available to make API call")
+            .is(nonEmptyString());
+
+        JsonObject body = new JsonObject();
+        body.addProperty("query", query);
+        body.add("variables", variables);
+
+        HttpResponse response;
+        try
+        {
+            response = http.go()
+                .post()
+                .body(body)
+                .usingHeader("Authorization", "Bearer " + token)
+                .at(url);
+        }
+        catch (AlchemyHttpException ex)
+        {
+            LOG.warn("GraphQL query at {} failed", url, ex);
+
+            int status = ex.hasResponse() ? ex.getResponse().statusCode() : 0;
+
+            if (status == 401)
+            {
+                throw new YelpAuthenticationException(ex);
+            }
+            else if (status == 400)
+            {
+                throw new YelpBadArgumentException(ex);
+            }
+            else
+            {
+                throw new YelpOperationFailedException(ex);
+            }
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to make GraphQL query at {}", url, ex);
+            throw new YelpOperationFailedException("could not query Yelp at: " + url, ex);
+        }
+
+        JsonElement result;
+        try
+        {
+            result = response == null ? null : response.body();
+        }
+        catch (RuntimeException ex)
+        {
+            throw new YelpOperationFailedException("Received an unreadable response from: " + url, ex);
+        }
+
+        if (result == null || !result.isJsonObject())
+        {
+            LOG.warn("Received unexpected response from {}: {}", url, result);
+            throw new YelpOperationFailedException("Received unexpected response from: " + url);
+        }
+
+        return result.getAsJsonObject();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HttpGraphQLTransport{" + "http=" + http + ", tokenProvider=" + tokenProvider + ", url=" + url + '}';
+    }
+
+}
@@ -0,0 +1,1099 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.redroma.yelp.geo.SpatialIndex;
+import tech.redroma.yelp.match.MatchResult.Resolution;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Matches many places, such as the entries of a catalogue, to their Yelp businesses, calling Yelp as little as possible.
+ * <p>
+ * Businesses are kept in a {@link SpatialIndex} as they are found, and each place is first compared with the businesses
+ * already known around it. A candidate is scored from 0 to 1 by how alike its name is, and how close it is; one scoring at
+ * least the {@linkplain Builder#withMinimumScore(double) minimum score} is taken as the match, without a call. When both
+ * the place and the candidate have a street address or a zip code, those must agree, so a branch of a chain down the
+ * street isn't taken for the place.
+ * <p>
+ * Places are grouped into {@linkplain Builder#withClusterSizeInMeters(double) square clusters} by coordinate. When several
+ * places in a cluster have no match yet, a single search around them fetches the businesses nearby, which often matches
+ * most of them at once. Only the places left over are sent to
+ * {@linkplain YelpAPI#matchBusinesses(java.lang.String, tech.redroma.yelp.Address, tech.redroma.yelp.Coordinate) Yelp's
+ * business match}, one call each. Places without a coordinate always are. The businesses it returns are scored the same
+ * way, and a place whose best one falls short of the minimum score is left unmatched.
+ * <p>
+ * Clusters are matched a few at a time, under a shared rate limit. A run with a checkpoint file can be stopped and
+ * resumed; see {@link #match(java.util.List, java.util.function.Consumer, java.nio.file.Path) }.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class BusinessMatcher
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(BusinessMatcher.class);
+
+    /** How much of a score comes from the name; the rest comes from the distance. */
+    static final double NAME_WEIGHT = 0.75;
+
+    /**
+     * The similarity of two names when every word of one is in the other, as in "Blue Bottle" and "Blue Bottle Coffee".
+     * It only applies when the shorter name has more than one word, since a single word like "Pizza" is in many names.
+     */
+    static final double CONTAINED_NAME_SIMILARITY = 0.9;
+
+    /** How alike two streets must be, after their numbers, to be the same street. */
+    static final double SAME_STREET_SIMILARITY = 0.6;
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList("the", "and", "of", "a"));
+
+    private static final int CHECKPOINT_FLUSH_EVERY = 64;
+    private static final long CHECKPOINT_FLUSH_INTERVAL_SECONDS = 5;
+
+    private final YelpAPI yelp;
+    private final SpatialIndex index;
+    private final RateLimiter rateLimiter;
+    private final int concurrency;
+    private final Executor executor;
+    private final double radiusInMeters;
+    private final double minimumScore;
+    private final double clusterSizeInMeters;
+    private final int clusterSearchThreshold;
+    private final Duration maxAge;
+
+    private BusinessMatcher(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.index = builder.index != null ? builder.index : SpatialIndex.newInstance();
+        this.rateLimiter = builder.rateLimiter != null ? builder.rateLimiter
+                         : builder.requestsPerSecond > 0 ? RateLimiter.create(builder.requestsPerSecond) : null;
+        this.concurrency = builder.concurrency;
+        this.executor = builder.executor;
+        this.radiusInMeters = builder.radiusInMeters;
+        this.minimumScore = builder.minimumScore;
+        this.clusterSizeInMeters = builder.clusterSizeInMeters;
+        this.clusterSearchThreshold = builder.clusterSearchThreshold;
+        this.maxAge = builder.maxAge;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Matches a single place, on the calling thread.
+     *
+     * @param input The place to match.
+     * @return
+     * @throws IllegalArgumentException If the input is null.
+     */
+    public MatchResult match(@Required MatchInput input) throws IllegalArgumentException
+    {
+        checkThat(input)
+            .usingMessage("input cannot be null")
+            .is(notNull());
+
+        return resolve(Collections.singletonList(input), new AtomicInteger()).get(0);
+    }
+
+    /**
+     * Matches every place and collects the results.
+     *
+     * @param inputs The places to match. Their keys must be unique.
+     * @return The outcome for each place, in the same order as the inputs.
+     * @throws IllegalArgumentException If the inputs are null, contain null, or repeat a key.
+     * @throws YelpException If the calling thread is interrupted.
+     */
+    public List<MatchResult> matchAll(@Required List<MatchInput> inputs) throws IllegalArgumentException, YelpException
+    {
+        checkInputs(inputs);
+
+        Map<String, Integer> positions = new HashMap<>(inputs.size() * 2);
+
+        for (int i = 0; i < inputs.size(); ++i)
+        {
+            positions.put(inputs.get(i).getKey(), i);
+        }
+
+        MatchResult[] results = new MatchResult[inputs.size()];
+        match(inputs, result -> results[positions.get(result.getInput().getKey())] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Matches every place, passing each outcome to {@code sink} as soon as it is known. The sink is called on the calling
+     * thread, one outcome at a time, with the places of each cluster together.
+     *
+     * @param inputs The places to match. Their keys must be unique.
+     * @param sink   Receives the outcome for each place.
+     * @return A summary of the run.
+     * @throws IllegalArgumentException If any argument is null, or the inputs contain null or repeat a key.
+     * @throws YelpException If the calling thread is interrupted. Failed calls are reported to the sink instead.
+     */
+    public Summary match(@Required List<MatchInput> inputs, @Required Consumer<? super MatchResult> sink) throws IllegalArgumentException, YelpException
+    {
+        checkInputs(inputs);
+
+        checkThat(sink)
+            .usingMessage("sink cannot be null")
+            .is(notNull());
+
+        return run(inputs, sink, null);
+    }
+
+    /**
+     * Like {@link #match(java.util.List, java.util.function.Consumer) }, but keeps track of the places resolved in a
+     * checkpoint file. Running again with the same file skips the places already resolved, which are not passed to the
+     * sink again. Places whose calls failed are not recorded, so they are tried again.
+     *
+     * @param inputs         The places to match. Their keys must be unique.
+     * @param sink           Receives the outcome for each place not already resolved.
+     * @param checkpointFile The file to keep the run's progress in. It is created if it doesn't exist.
+     * @return A summary of the run.
+     * @throws IllegalArgumentException If any argument is null, the inputs contain null or repeat a key, or the file isn't
+     *                                  a match checkpoint.
+     * @throws YelpException If the calling thread is interrupted, or the checkpoint can't be read or written.
+     */
+    public Summary match(@Required List<MatchInput> inputs,
+                         @Required Consumer<? super MatchResult> sink,
+                         @Required Path checkpointFile) throws IllegalArgumentException, YelpException
+    {
+        checkInputs(inputs);
+
+        checkThat(sink, checkpointFile)
+            .usingMessage("sink and checkpoint file are required")
+            .are(notNull());
+
+        try (MatchLog log = MatchLog.open(checkpointFile, CHECKPOINT_FLUSH_EVERY, CHECKPOINT_FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS))
+        {
+            try
+            {
+                return run(inputs, sink, log);
+            }
+            finally
+            {
+                log.flush();
+            }
+        }
+    }
+
+    /**
+     * @return The index that businesses are kept in as they are found.
+     */
+    public SpatialIndex getIndex()
+    {
+        return index;
+    }
+
+    private Summary run(List<MatchInput> inputs, Consumer<? super MatchResult> sink, MatchLog log) throws YelpException
+    {
+        Set<String> resolved = log != null ? log.getResolved() : Collections.emptySet();
+        List<MatchInput> pending = new ArrayList<>(inputs.size());
+
+        for (MatchInput input : inputs)
+        {
+            if (!resolved.contains(input.getKey()))
+            {
+                pending.add(input);
+            }
+        }
+
+        List<List<MatchInput>> clusters = clustersOf(pending);
+
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(concurrency, this::newThread) : null;
+        Executor matchExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        CompletionService<List<MatchResult>> completions = new ExecutorCompletionService<>(matchExecutor);
+        //Only the clusters in flight, so the results already passed to the sink can be collected
+        Set<Future<List<MatchResult>>> futures = new HashSet<>(concurrency * 2);
+        AtomicInteger requests = new AtomicInteger();
+        int[] counts = new int[Resolution.values().length];
+        long start = System.currentTimeMillis();
+
+        try
+        {
+            int submitted = 0;
+
+            //Keep at most 'concurrency' clusters in flight, even on a shared executor
+            while (submitted < clusters.size() && submitted < concurrency)
+            {
+                futures.add(submit(completions, clusters.get(submitted++), requests));
+            }
+
+            for (int completed = 0; completed < clusters.size(); ++completed)
+            {
+                Future<List<MatchResult>> done = completions.take();
+                futures.remove(done);
+                List<MatchResult> results = done.get();
+
+                if (submitted < clusters.size())
+                {
+                    futures.add(submit(completions, clusters.get(submitted++), requests));
+                }
+
+                for (MatchResult result : results)
+                {
+                    ++counts[result.getResolution().ordinal()];
+
+                    if (log != null)
+                    {
+                        log.onResult(result);
+                    }
+
+                    sink.accept(result);
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while matching businesses", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            //Clusters catch their own failures, so this is unexpected
+            throw new YelpOperationFailedException("business matching failed", ex.getCause());
+        }
+        finally
+        {
+            futures.forEach(future -> future.cancel(true));
+
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+        }
+
+        Summary summary = new Summary(inputs.size() - pending.size(), counts, requests.get(), System.currentTimeMillis() - start);
+        LOG.debug("Matched businesses: {}", summary);
+
+        return summary;
+    }
+
+    private Future<List<MatchResult>> submit(CompletionService<List<MatchResult>> completions,
+                                             List<MatchInput> cluster,
+                                             AtomicInteger requests)
+    {
+        return completions.submit(() -> resolve(cluster, requests));
+    }
+
+    /**
+     * Matches the places of a cluster: first against the businesses already known, then against those found by a search
+     * around the cluster, and finally with Yelp's business match.
+     */
+    private List<MatchResult> resolve(List<MatchInput> cluster, AtomicInteger requests)
+    {
+        MatchResult[] results = new MatchResult[cluster.size()];
+        List<MatchInput> unresolvedNearby = new ArrayList<>();
+
+        for (int i = 0; i < cluster.size(); ++i)
+        {
+            MatchInput input = cluster.get(i);
+
+            if (input.hasCoordinate())
+            {
+                results[i] = matchLocally(input, Resolution.CACHED);
+
+                if (results[i] == null)
+                {
+                    unresolvedNearby.add(input);
+                }
+            }
+        }
+
+        if (clusterSearchThreshold > 0 && unresolvedNearby.size() >= clusterSearchThreshold && searchAround(unresolvedNearby, requests))
+        {
+            for (int i = 0; i < cluster.size(); ++i)
+            {
+                if (results[i] == null && cluster.get(i).hasCoordinate())
+                {
+                    results[i] = matchLocally(cluster.get(i), Resolution.CLUSTER_SEARCH);
+                }
+            }
+        }
+
+        for (int i = 0; i < cluster.size(); ++i)
+        {
+            if (results[i] == null)
+            {
+                results[i] = matchWithYelp(cluster.get(i), requests);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private MatchResult matchLocally(MatchInput input, Resolution resolution)
+    {
+        SpatialIndex.Hit best = null;
+        double bestScore = 0;
+
+        for (SpatialIndex.Hit hit : index.withinRadius(input.getCoordinate(), radiusInMeters, maxAge))
+        {
+            double score = scoreOf(input, hit.getBusiness(), hit.getDistanceInMeters(), radiusInMeters);
+
+            if (score > bestScore)
+            {
+                best = hit;
+                bestScore = score;
+            }
+        }
+
+        if (best == null || bestScore < minimumScore)
+        {
+            return null;
+        }
+
+        return MatchResult.matched(input, best.getBusiness(), bestScore, resolution);
+    }
+
+    /**
+     * Searches for the businesses around some places, and adds them to the index.
+     *
+     * @return Whether the search succeeded.
+     */
+    private boolean searchAround(List<MatchInput> inputs, AtomicInteger requests)
+    {
+        double latitude = 0;
+        double longitude = 0;
+
+        for (MatchInput input : inputs)
+        {
+            latitude += input.getCoordinate().getLatitude() / inputs.size();
+            longitude += input.getCoordinate().getLongitude() / inputs.size();
+        }
+
+        double farthest = 0;
+
+        for (MatchInput input : inputs)
+        {
+            Coordinate coordinate = input.getCoordinate();
+            farthest = Math.max(farthest, GeoMath.distanceInMeters(latitude, longitude, coordinate.getLatitude(), coordinate.getLongitude()));
+        }
+
+        int radius = (int) Math.min(YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS, Math.ceil(farthest + radiusInMeters));
+
+        YelpSearchRequest request = YelpSearchRequest.newBuilder()
+            .withCoordinate(Coordinate.of(latitude, longitude))
+            .withRadiusInMeters(Math.max(1, radius))
+            .withLimit(YelpSearchRequest.Builder.MAX_LIMIT)
+            .withSortBy(YelpSearchRequest.SortType.DISTANCE)
+            .build();
+
+        acquirePermit(requests);
+
+        try
+        {
+            index.addAll(yelp.searchForBusinesses(request));
+            return true;
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.warn("Failed to search around {} places at {},{}; matching them one at a time", inputs.size(), latitude, longitude, ex);
+            return false;
+        }
+    }
+
+    private MatchResult matchWithYelp(MatchInput input, AtomicInteger requests)
+    {
+        acquirePermit(requests);
+
+        try
+        {
+            List<YelpBusiness> matches = yelp.matchBusinesses(input.getName(), input.getAddress(), input.getCoordinate());
+            index.addAll(matches);
+
+            if (matches == null)
+            {
+                return MatchResult.unmatched(input);
+            }
+
+            //Yelp's matches can be other branches of a chain, so they have to score as well as the ones known locally
+            YelpBusinessSnapshot best = null;
+            double bestScore = 0;
+
+            for (YelpBusiness match : matches)
+            {
+                if (match == null || isNullOrEmpty(match.id))
+                {
+                    continue;
+                }
+
+                double distance = Double.NaN;
+
+                if (input.hasCoordinate() && match.coordinates != null)
+                {
+                    distance = GeoMath.distanceInMeters(input.getCoordinate(), match.coordinates);
+                }
+
+                YelpBusinessSnapshot business = YelpBusinessSnapshot.of(match);
+                double score = scoreOf(input, business, distance, radiusInMeters);
+
+                if (score > bestScore)
+                {
+                    best = business;
+                    bestScore = score;
+                }
+            }
+
+            if (best == null || bestScore < minimumScore)
+            {
+                return MatchResult.unmatched(input);
+            }
+
+            return MatchResult.matched(input, best, bestScore, Resolution.BUSINESS_MATCH);
+        }
+        catch (YelpException ex)
+        {
+            return MatchResult.failure(input, ex);
+        }
+        catch (RuntimeException ex)
+        {
+            return MatchResult.failure(input, new YelpOperationFailedException("business match failed for " + input.getKey(), ex));
+        }
+    }
+
+    private void acquirePermit(AtomicInteger requests)
+    {
+        if (rateLimiter != null)
+        {
+            rateLimiter.acquire();
+        }
+
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Groups places into square cells of about {@link #clusterSizeInMeters} on a side, in the order they first appear.
+     * Places without a coordinate are each a cluster of their own.
+     */
+    List<List<MatchInput>> clustersOf(List<MatchInput> inputs)
+    {
+        List<List<MatchInput>> clusters = new ArrayList<>();
+        Map<Long, List<MatchInput>> cells = new LinkedHashMap<>();
+
+        for (MatchInput input : inputs)
+        {
+            if (!input.hasCoordinate())
+            {
+                clusters.add(Collections.singletonList(input));
+                continue;
+            }
+
+            cells.computeIfAbsent(cellOf(input.getCoordinate()), cell -> new ArrayList<>()).add(input);
+        }
+
+        clusters.addAll(cells.values());
+        return clusters;
+    }
+
+    private long cellOf(Coordinate coordinate)
+    {
+        long row = (long) Math.floor(coordinate.getLatitude() * GeoMath.METERS_PER_DEGREE_OF_LATITUDE / clusterSizeInMeters);
+
+        //Cells in a row share a width, measured at the row's middle
+        double rowLatitude = (row + 0.5) * clusterSizeInMeters / GeoMath.METERS_PER_DEGREE_OF_LATITUDE;
+        long column = (long) Math.floor(coordinate.getLongitude() * GeoMath.metersPerDegreeOfLongitude(rowLatitude) / clusterSizeInMeters);
+
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Scores how likely a business is to be a place, from 0 to 1. A business whose address differs from the place's
+     * scores 0; one whose address agrees counts as close as can be.
+     *
+     * @param distanceInMeters How far apart they are, or {@code NaN} if that isn't known.
+     * @param radiusInMeters   The distance at which closeness stops counting.
+     */
+    static double scoreOf(MatchInput input, YelpBusinessSnapshot business, double distanceInMeters, double radiusInMeters)
+    {
+        AddressMatch addressMatch = compareAddresses(input.getAddress(), business.getAddress1(), business.getZipCode());
+
+        switch (addressMatch)
+        {
+            case DIFFERENT:
+                return 0;
+            case SAME:
+                return scoreOf(input.getName(), business.getName(), 0, radiusInMeters);
+            default:
+                return scoreOf(input.getName(), business.getName(), distanceInMeters, radiusInMeters);
+        }
+    }
+
+    /**
+     * Scores how likely a business is to be a place by name and distance alone, from 0 to 1.
+     *
+     * @param distanceInMeters How far apart they are, or {@code NaN} if that isn't known, in which case only the names
+     *                         count.
+     * @param radiusInMeters   The distance at which closeness stops counting.
+     */
+    static double scoreOf(String name, String businessName, double distanceInMeters, double radiusInMeters)
+    {
+        double nameSimilarity = nameSimilarity(name, businessName);
+
+        if (Double.isNaN(distanceInMeters))
+        {
+            return nameSimilarity;
+        }
+
+        double closeness = Math.max(0, 1 - distanceInMeters / radiusInMeters);
+        return NAME_WEIGHT * nameSimilarity + (1 - NAME_WEIGHT) * closeness;
+    }
+
+    /**
+     * Compares two names, ignoring case, accents, punctuation, and words like "the". Names with the same words are
+     * identical; otherwise they are compared by the pairs of adjacent letters they share.
+     *
+     * @return The similarity, from 0 to 1.
+     */
+    static double nameSimilarity(@Optional String first, @Optional String second)
+    {
+        List<String> firstWords = wordsOf(first);
+        List<String> secondWords = wordsOf(second);
+
+        if (firstWords.isEmpty() || secondWords.isEmpty())
+        {
+            return 0;
+        }
+
+        String firstLetters = String.join("", firstWords);
+        String secondLetters = String.join("", secondWords);
+
+        if (firstLetters.equals(secondLetters))
+        {
+            return 1.0;
+        }
+
+        double similarity = diceCoefficient(firstLetters, secondLetters);
+
+        List<String> shorter = firstWords.size() <= secondWords.size() ? firstWords : secondWords;
+        List<String> longer = shorter == firstWords ? secondWords : firstWords;
+
+        if (shorter.size() > 1 && longer.containsAll(shorter))
+        {
+            similarity = Math.max(similarity, CONTAINED_NAME_SIMILARITY);
+        }
+
+        return similarity;
+    }
+
+    enum AddressMatch
+    {
+        SAME,
+        DIFFERENT,
+        UNKNOWN
+    }
+
+    /**
+     * Compares a place's address with a business's. Addresses differ when their zip codes or street numbers differ, or
+     * their streets aren't alike. They are the same only when their streets are, since many places share a zip code.
+     */
+    static AddressMatch compareAddresses(@Optional Address address, @Optional String businessAddress1, @Optional String businessZipCode)
+    {
+        if (address == null)
+        {
+            return AddressMatch.UNKNOWN;
+        }
+
+        if (address.hasZipCode() && !isNullOrEmpty(businessZipCode) && !zipCodeOf(address.zipCode).equals(zipCodeOf(businessZipCode)))
+        {
+            return AddressMatch.DIFFERENT;
+        }
+
+        if (!address.hasAddress1() || isNullOrEmpty(businessAddress1))
+        {
+            return AddressMatch.UNKNOWN;
+        }
+
+        List<String> street = wordsOf(address.address1);
+        List<String> businessStreet = wordsOf(businessAddress1);
+        String number = streetNumberOf(street);
+        String businessNumber = streetNumberOf(businessStreet);
+
+        if (number != null && businessNumber != null && !number.equals(businessNumber))
+        {
+            return AddressMatch.DIFFERENT;
+        }
+
+        if (nameSimilarity(address.address1, businessAddress1) < SAME_STREET_SIMILARITY)
+        {
+            return AddressMatch.DIFFERENT;
+        }
+
+        return AddressMatch.SAME;
+    }
+
+    /**
+     * @return The zip code without spaces or the extension of a US ZIP+4 code.
+     */
+    private static String zipCodeOf(String zipCode)
+    {
+        String plain = zipCode.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+        int dash = plain.indexOf('-');
+
+        return dash > 0 ? plain.substring(0, dash) : plain;
+    }
+
+    private static String streetNumberOf(List<String> words)
+    {
+        return words.isEmpty() || !words.get(0).matches("\\d+") ? null : words.get(0);
+    }
+
+    private static List<String> wordsOf(String name)
+    {
+        if (isNullOrEmpty(name))
+        {
+            return Collections.emptyList();
+        }
+
+        String plain = Normalizer.normalize(name, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .replaceAll("['\u2019]", "")
+            .toLowerCase(Locale.ROOT);
+
+        List<String> words = new ArrayList<>();
+
+        for (String word : plain.split("[^\\p{L}\\p{N}]+"))
+        {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word))
+            {
+                words.add(word);
+            }
+        }
+
+        return words;
+    }
+
+    private static double diceCoefficient(String first, String second)
+    {
+        if (first.length() < 2 || second.length() < 2)
+        {
+            return 0;
+        }
+
+        Map<Integer, Integer> pairs = new HashMap<>(first.length() * 2);
+
+        for (int i = 0; i < first.length() - 1; ++i)
+        {
+            pairs.merge(pairOf(first, i), 1, Integer::sum);
+        }
+
+        int shared = 0;
+
+        for (int i = 0; i < second.length() - 1; ++i)
+        {
+            Integer count = pairs.get(pairOf(second, i));
+
+            if (count != null && count > 0)
+            {
+                pairs.put(pairOf(second, i), count - 1);
+                ++shared;
+            }
+        }
+
+        return 2.0 * shared / (first.length() - 1 + second.length() - 1);
+    }
+
+    private static int pairOf(String text, int index)
+    {
+        return text.charAt(index) << 16 | text.charAt(index + 1);
+    }
+
+    private static void checkInputs(List<MatchInput> inputs)
+    {
+        checkThat(inputs)
+            .usingMessage("inputs cannot be null")
+            .is(notNull());
+
+        Set<String> keys = new HashSet<>(inputs.size() * 2);
+
+        for (MatchInput input : inputs)
+        {
+            checkThat(input)
+                .usingMessage("inputs cannot contain null")
+                .is(notNull());
+
+            checkThat(keys.add(input.getKey()))
+                .usingMessage("input keys must be unique: " + input.getKey())
+                .is(trueStatement());
+        }
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "YelpBusinessMatcher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BusinessMatcher{" + "yelp=" + yelp + ", rateLimiter=" + rateLimiter + ", concurrency=" + concurrency + ", radiusInMeters=" + radiusInMeters + ", minimumScore=" + minimumScore + ", clusterSizeInMeters=" + clusterSizeInMeters + ", clusterSearchThreshold=" + clusterSearchThreshold + ", maxAge=" + maxAge + '}';
+    }
+
+    /**
+     * Describes a finished run.
+     */
+    @Immutable
+    public static final class Summary
+    {
+
+        private final int skipped;
+        private final int[] counts;
+        private final int requests;
+        private final long elapsedMillis;
+
+        Summary(int skipped, int[] counts, int requests, long elapsedMillis)
+        {
+            this.skipped = skipped;
+            this.counts = counts.clone();
+            this.requests = requests;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return The number of places skipped because a checkpoint showed them already resolved.
+         */
+        public int getSkipped()
+        {
+            return skipped;
+        }
+
+        /**
+         * @return The number of places resolved a particular way in this run.
+         */
+        public int getCount(@Required Resolution resolution) throws IllegalArgumentException
+        {
+            checkThat(resolution)
+                .usingMessage("resolution cannot be null")
+                .is(notNull());
+
+            return counts[resolution.ordinal()];
+        }
+
+        /**
+         * @return The number of places matched to a business in this run.
+         */
+        public int getMatched()
+        {
+            return getCount(Resolution.CACHED) + getCount(Resolution.CLUSTER_SEARCH) + getCount(Resolution.BUSINESS_MATCH);
+        }
+
+        /**
+         * @return The number of places whose calls failed.
+         */
+        public int getFailures()
+        {
+            return getCount(Resolution.FAILED);
+        }
+
+        /**
+         * @return The number of calls made to Yelp, searches and matches together.
+         */
+        public int getRequests()
+        {
+            return requests;
+        }
+
+        public long getElapsedMillis()
+        {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return Whether every place was resolved.
+         */
+        public boolean isComplete()
+        {
+            return getFailures() == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Summary{" + "skipped=" + skipped + ", counts=" + Arrays.toString(counts) + ", requests=" + requests + ", elapsedMillis=" + elapsedMillis + '}';
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** The default rate limit. */
+        public static final double DEFAULT_REQUESTS_PER_SECOND = 5;
+
+        /** The default number of clusters matched at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        /** By default, businesses farther than this from a place aren't considered. */
+        public static final double DEFAULT_RADIUS_IN_METERS = 250;
+
+        /** By default, a known business must score at least this to be taken as a match. */
+        public static final double DEFAULT_MINIMUM_SCORE = 0.8;
+
+        /** The default size of a cluster. */
+        public static final double DEFAULT_CLUSTER_SIZE_IN_METERS = 500;
+
+        /** By default, a cluster is searched when at least this many of its places have no match yet. */
+        public static final int DEFAULT_CLUSTER_SEARCH_THRESHOLD = 3;
+
+        private final YelpAPI yelp;
+        private SpatialIndex index;
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+        private RateLimiter rateLimiter;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private Executor executor;
+        private double radiusInMeters = DEFAULT_RADIUS_IN_METERS;
+        private double minimumScore = DEFAULT_MINIMUM_SCORE;
+        private double clusterSizeInMeters = DEFAULT_CLUSTER_SIZE_IN_METERS;
+        private int clusterSearchThreshold = DEFAULT_CLUSTER_SEARCH_THRESHOLD;
+        private Duration maxAge;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Keeps the businesses found in an existing index, so that businesses found earlier, such as by a crawl, are
+         * matched without a call. By default, each matcher has an index of its own.
+         */
+        public Builder withIndex(@Required SpatialIndex index) throws IllegalArgumentException
+        {
+            checkThat(index)
+                .usingMessage("index cannot be null")
+                .is(notNull());
+
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Limits the rate of calls to Yelp across all of the matcher's threads.
+         *
+         * @param requestsPerSecond Must be {@code > 0}.
+         * @return
+         * @throws IllegalArgumentException If the rate is not positive.
+         */
+        public Builder withRequestsPerSecond(@Positive double requestsPerSecond) throws IllegalArgumentException
+        {
+            checkThat(requestsPerSecond > 0)
+                .usingMessage("requests per second must be > 0")
+                .is(trueStatement());
+
+            this.requestsPerSecond = requestsPerSecond;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Draws match and search requests from a rate limiter shared with other clients of the same API key.
+         * It takes the place of any {@linkplain #withRequestsPerSecond(double) rate} set on this matcher.
+         */
+        public Builder withRateLimiter(@Required RateLimiter rateLimiter) throws IllegalArgumentException
+        {
+            checkThat(rateLimiter)
+                .usingMessage("rate limiter cannot be null")
+                .is(notNull());
+
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Removes the rate limit. Only suitable when the delegate enforces one itself.
+         */
+        public Builder withoutRateLimit()
+        {
+            this.requestsPerSecond = 0;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of clusters matched at the same time, when the matcher uses its own threads.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Matches clusters on an existing executor, instead of threads owned by each run.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets how far from a place a known business can be and still match it. Closer businesses score higher.
+         */
+        public Builder withRadiusInMeters(@Positive double radiusInMeters) throws IllegalArgumentException
+        {
+            checkThat(radiusInMeters > 0)
+                .usingMessage("radius must be > 0")
+                .is(trueStatement());
+
+            this.radiusInMeters = radiusInMeters;
+            return this;
+        }
+
+        /**
+         * Sets the score a known business needs to be taken as a match without a call.
+         *
+         * @param minimumScore Must be in {@code (0, 1]}.
+         * @return
+         * @throws IllegalArgumentException If the score is out of range.
+         */
+        public Builder withMinimumScore(double minimumScore) throws IllegalArgumentException
+        {
+            checkThat(minimumScore > 0 && minimumScore <= 1)
+                .usingMessage("minimum score must be in (0, 1]")
+                .is(trueStatement());
+
+            this.minimumScore = minimumScore;
+            return this;
+        }
+
+        /**
+         * Sets the size of the square cells that places are clustered in.
+         */
+        public Builder withClusterSizeInMeters(@Positive double clusterSizeInMeters) throws IllegalArgumentException
+        {
+            checkThat(clusterSizeInMeters > 0)
+                .usingMessage("cluster size must be > 0")
+                .is(trueStatement());
+
+            this.clusterSizeInMeters = clusterSizeInMeters;
+            return this;
+        }
+
+        /**
+         * Sets how many places of a cluster must be without a match before the cluster is searched.
+         */
+        public Builder withClusterSearchThreshold(@Positive int threshold) throws IllegalArgumentException
+        {
+            checkThat(threshold)
+                .usingMessage("threshold must be > 0")
+                .is(positiveInteger());
+
+            this.clusterSearchThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Never searches around clusters, so places without a known match always go to Yelp's business match.
+         */
+        public Builder withoutClusterSearches()
+        {
+            this.clusterSearchThreshold = 0;
+            return this;
+        }
+
+        /**
+         * Only matches places with known businesses fetched within {@code maxAge}. By default, any age will do.
+         */
+        public Builder withMaxAge(@Required Duration maxAge) throws IllegalArgumentException
+        {
+            checkThat(maxAge)
+                .usingMessage("maxAge cannot be null")
+                .is(notNull());
+
+            checkThat(maxAge.isNegative())
+                .usingMessage("maxAge cannot be negative")
+                .is(falseStatement());
+
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        public BusinessMatcher build()
+        {
+            return new BusinessMatcher(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import java.util.Objects;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * A place to find on Yelp with a {@link BusinessMatcher}: its name, its address, and, if known, its coordinate.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class MatchInput
+{
+
+    private final String key;
+    private final String name;
+    private final Address address;
+    private final Coordinate coordinate;
+
+    private MatchInput(String key, String name, Address address, Coordinate coordinate)
+    {
+        this.key = key;
+        this.name = name;
+        this.address = address;
+        this.coordinate = coordinate;
+    }
+
+    /**
+     * @param key        Identifies the place to the caller, such as the id in their own catalogue. Keys must be unique
+     *                   within a run.
+     * @param name       The name of the place.
+     * @param address    Where the place is. Yelp needs at least its city, state, and country.
+     * @param coordinate Where the place is, if known. Places without one can only be matched by Yelp.
+     * @return
+     * @throws IllegalArgumentException If the key or name are empty, or the address is null.
+     */
+    public static MatchInput of(@NonEmpty String key,
+                                @NonEmpty String name,
+                                @Required Address address,
+                                @Optional Coordinate coordinate) throws IllegalArgumentException
+    {
+        checkThat(key, name)
+            .usingMessage("key and name cannot be empty")
+            .are(nonEmptyString());
+
+        checkThat(address)
+            .usingMessage("address cannot be null")
+            .is(notNull());
+
+        return new MatchInput(key, name, copyOf(address), copyOf(coordinate));
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return A copy of the address.
+     */
+    public Address getAddress()
+    {
+        return copyOf(address);
+    }
+
+    /**
+     * @return The coordinate, or {@code null} if it isn't known.
+     */
+    public Coordinate getCoordinate()
+    {
+        return copyOf(coordinate);
+    }
+
+    public boolean hasCoordinate()
+    {
+        return coordinate != null;
+    }
+
+    private static Address copyOf(Address address)
+    {
+        Address copy = new Address();
+        copy.address1 = address.address1;
+        copy.address2 = address.address2;
+        copy.address3 = address.address3;
+        copy.city = address.city;
+        copy.state = address.state;
+        copy.country = address.country;
+        copy.zipCode = address.zipCode;
+        return copy;
+    }
+
+    private static Coordinate copyOf(Coordinate coordinate)
+    {
+        return coordinate == null ? null : Coordinate.of(coordinate.getLatitude(), coordinate.getLongitude());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 59 * hash + Objects.hashCode(this.key);
+        hash = 59 * hash + Objects.hashCode(this.name);
+        hash = 59 * hash + Objects.hashCode(this.address);
+        hash = 59 * hash + Objects.hashCode(this.coordinate);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final MatchInput other = (MatchInput) obj;
+        if (!Objects.equals(this.key, other.key))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.name, other.name))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.address, other.address))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.coordinate, other.coordinate))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MatchInput{" + "key=" + key + ", name=" + name + ", address=" + address + ", coordinate=" + coordinate + '}';
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+/**
+ * An append-only record of the inputs a {@link BusinessMatcher} has resolved, kept in a local file.
+ * <p>
+ * Each line is one record:
+ * <pre>
+ * yelp-match 1              the header
+ * M {key} {business id}     the input was matched
+ * N {key}                   the input has no match on Yelp
+ * </pre>
+ * Failed inputs aren't recorded, so they are tried again on resume. Records are buffered, and written out and forced to
+ * disk every so many records or so much time, so a crash, even of the machine, loses at most the records since the last
+ * flush; those inputs are matched again. A record cut off by a crash is detected, and dropped along with anything after
+ * it.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class MatchLog implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(MatchLog.class);
+
+    static final String HEADER = "yelp-match 1";
+
+    private final Path file;
+    private final Set<String> resolved = new HashSet<>();
+    private final int flushEvery;
+    private final long flushIntervalNanos;
+
+    private FileChannel channel;
+    private OutputStream output;
+    private int unflushedRecords = 0;
+    private long lastFlush = System.nanoTime();
+
+    private MatchLog(Path file, int flushEvery, long flushIntervalNanos)
+    {
+        this.file = file;
+        this.flushEvery = flushEvery;
+        this.flushIntervalNanos = flushIntervalNanos;
+    }
+
+    /**
+     * Opens a checkpoint file, replaying it if it exists, and creating it if it doesn't.
+     *
+     * @throws IllegalArgumentException If the file isn't a match checkpoint.
+     * @throws YelpOperationFailedException If the file can't be read or written.
+     */
+    static MatchLog open(Path file, int flushEvery, long flushInterval, TimeUnit unit) throws IllegalArgumentException, YelpOperationFailedException
+    {
+        MatchLog log = new MatchLog(file, flushEvery, unit.toNanos(flushInterval));
+
+        try
+        {
+            long validLength = Files.exists(file) ? log.replay() : 0;
+
+            log.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            log.channel.truncate(validLength);
+            log.channel.position(validLength);
+            log.output = new BufferedOutputStream(Channels.newOutputStream(log.channel), 64 * 1024);
+
+            if (validLength == 0)
+            {
+                log.resolved.clear();
+                log.append(HEADER);
+                log.flush();
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not open checkpoint at " + file, ex);
+        }
+
+        return log;
+    }
+
+    /**
+     * @return The number of bytes holding complete, valid records.
+     */
+    private long replay() throws IOException
+    {
+        long validLength = 0;
+        int records = 0;
+
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 64 * 1024))
+        {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            long position = 0;
+            int next;
+
+            while ((next = input.read()) != -1)
+            {
+                ++position;
+
+                if (next != '\n')
+                {
+                    line.write(next);
+                    continue;
+                }
+
+                String record = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                line.reset();
+
+                if (records == 0)
+                {
+                    if (!record.equals(HEADER))
+                    {
+                        throw new IllegalArgumentException("checkpoint at " + file + " is not a match checkpoint: " + record);
+                    }
+                }
+                else if (!apply(record))
+                {
+                    LOG.warn("Ignoring damaged checkpoint record in {} at byte {}, and everything after it", file, validLength);
+                    break;
+                }
+
+                ++records;
+                validLength = position;
+            }
+        }
+
+        if (records == 0)
+        {
+            return 0;
+        }
+
+        LOG.info("Resuming match from {}: {} inputs already resolved", file, resolved.size());
+        return validLength;
+    }
+
+    private boolean apply(String record)
+    {
+        String[] parts = record.split(" ");
+
+        try
+        {
+            switch (parts[0])
+            {
+                case "M":
+                    if (parts.length != 3)
+                    {
+                        return false;
+                    }
+
+                    resolved.add(unescape(parts[1]));
+                    return true;
+                case "N":
+                    if (parts.length != 2)
+                    {
+                        return false;
+                    }
+
+                    resolved.add(unescape(parts[1]));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return The keys of the inputs resolved so far.
+     */
+    Set<String> getResolved()
+    {
+        return resolved;
+    }
+
+    /**
+     * Records the outcome of an input. Failures aren't recorded.
+     */
+    void onResult(MatchResult result)
+    {
+        String key = escape(result.getInput().getKey());
+
+        if (result.isMatched())
+        {
+            append("M " + key + " " + escape(result.getBusinessId()));
+        }
+        else if (result.getResolution() == MatchResult.Resolution.NO_MATCH)
+        {
+            append("N " + key);
+        }
+    }
+
+    /**
+     * Writes out the buffered records, and forces them to disk.
+     */
+    synchronized void flush()
+    {
+        try
+        {
+            output.flush();
+            channel.force(false);
+            unflushedRecords = 0;
+            lastFlush = System.nanoTime();
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not write checkpoint at " + file, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (output == null)
+        {
+            return;
+        }
+
+        try
+        {
+            output.flush();
+            channel.force(false);
+            output.close();
+            output = null;
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not close checkpoint at " + file, ex);
+        }
+    }
+
+    private synchronized void append(String record)
+    {
+        try
+        {
+            output.write(record.getBytes(StandardCharsets.UTF_8));
+            output.write('\n');
+        }
+        catch (IOException ex)
+        {
+            throw new YelpOperationFailedException("could not write checkpoint at " + file, ex);
+        }
+
+        ++unflushedRecords;
+
+        if (unflushedRecords >= flushEvery || System.nanoTime() - lastFlush >= flushIntervalNanos)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Keys and ids are written space-separated, so spaces, line breaks, and the escape character itself are
+     * percent-encoded.
+     */
+    static String escape(String value)
+    {
+        StringBuilder escaped = null;
+
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+
+            if (c <= ' ' || c == '%')
+            {
+                if (escaped == null)
+                {
+                    escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+
+                escaped.append('%').append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+            else if (escaped != null)
+            {
+                escaped.append(c);
+            }
+        }
+
+        return escaped == null ? value : escaped.toString();
+    }
+
+    static String unescape(String value)
+    {
+        if (value.indexOf('%') < 0)
+        {
+            return value;
+        }
+
+        StringBuilder unescaped = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+
+            if (c == '%')
+            {
+                unescaped.append((char) Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                i += 2;
+            }
+            else
+            {
+                unescaped.append(c);
+            }
+        }
+
+        return unescaped.toString();
+    }
+
+}
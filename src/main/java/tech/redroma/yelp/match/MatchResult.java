@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import java.util.Objects;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * The outcome of matching one {@link MatchInput}: the Yelp business it matched, how it was found, or why it failed.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class MatchResult
+{
+
+    /**
+     * How a match was found, or not.
+     */
+    public enum Resolution
+    {
+        /** Matched to a business that was already known nearby, without a call. */
+        CACHED,
+        /** Matched to a business found by a search around a cluster of nearby inputs. */
+        CLUSTER_SEARCH,
+        /** Matched by Yelp's business match endpoint. */
+        BUSINESS_MATCH,
+        /** Yelp has no business that matches. */
+        NO_MATCH,
+        /** A call failed; the input can be matched again later. */
+        FAILED;
+    }
+
+    private final MatchInput input;
+    private final YelpBusinessSnapshot business;
+    private final double score;
+    private final Resolution resolution;
+    private final YelpException failure;
+
+    private MatchResult(MatchInput input, YelpBusinessSnapshot business, double score, Resolution resolution, YelpException failure)
+    {
+        this.input = input;
+        this.business = business;
+        this.score = score;
+        this.resolution = resolution;
+        this.failure = failure;
+    }
+
+    static MatchResult matched(MatchInput input, YelpBusinessSnapshot business, double score, Resolution resolution)
+    {
+        return new MatchResult(input, business, score, resolution, null);
+    }
+
+    static MatchResult unmatched(MatchInput input)
+    {
+        return new MatchResult(input, null, 0, Resolution.NO_MATCH, null);
+    }
+
+    static MatchResult failure(MatchInput input, YelpException failure)
+    {
+        return new MatchResult(input, null, 0, Resolution.FAILED, failure);
+    }
+
+    public MatchInput getInput()
+    {
+        return input;
+    }
+
+    /**
+     * @return The matched business, or {@code null} if there was no match.
+     */
+    public YelpBusinessSnapshot getBusiness()
+    {
+        return business;
+    }
+
+    /**
+     * @return The id of the matched business, or {@code null} if there was no match.
+     */
+    public String getBusinessId()
+    {
+        return business == null ? null : business.getId();
+    }
+
+    /**
+     * @return How alike the input and the business are, from 0 to 1, judged by name and distance. Matches made by Yelp
+     *         are kept whatever their score.
+     */
+    public double getScore()
+    {
+        return score;
+    }
+
+    public Resolution getResolution()
+    {
+        return resolution;
+    }
+
+    /**
+     * @return Why matching failed, or {@code null} if it didn't.
+     */
+    public YelpException getFailure()
+    {
+        return failure;
+    }
+
+    public boolean isMatched()
+    {
+        return business != null;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 5;
+        hash = 67 * hash + Objects.hashCode(this.input);
+        hash = 67 * hash + Objects.hashCode(this.business);
+        hash = 67 * hash + (int) (Double.doubleToLongBits(this.score) ^ (Double.doubleToLongBits(this.score) >>> 32));
+        hash = 67 * hash + Objects.hashCode(this.resolution);
+        hash = 67 * hash + Objects.hashCode(this.failure);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final MatchResult other = (MatchResult) obj;
+        if (Double.doubleToLongBits(this.score) != Double.doubleToLongBits(other.score))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.input, other.input))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.business, other.business))
+        {
+            return false;
+        }
+        if (this.resolution != other.resolution)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.failure, other.failure))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MatchResult{" + "input=" + input + ", business=" + getBusinessId() + ", score=" + score + ", resolution=" + resolution + ", failure=" + failure + '}';
+    }
+
+}
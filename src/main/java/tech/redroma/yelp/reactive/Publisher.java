@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.reactive;
+
+/**
+ * A source of items that are only sent as a {@link Subscriber} asks for them.
+ * <p>
+ * This has the same methods and contract as {@code java.util.concurrent.Flow.Publisher} and
+ * {@code org.reactivestreams.Publisher}, neither of which is available to this library, so either can be adapted to with
+ * a method reference.
+ *
+ * @param <T> The type of items published.
+ * @author SirWellington
+ */
+@FunctionalInterface
+public interface Publisher<T>
+{
+
+    /**
+     * Starts sending items to a subscriber, beginning with a call to its
+     * {@link Subscriber#onSubscribe(tech.redroma.yelp.reactive.Subscription) onSubscribe}.
+     *
+     * @param subscriber
+     * @throws IllegalArgumentException If the subscriber is null.
+     */
+    void subscribe(Subscriber<? super T> subscriber) throws IllegalArgumentException;
+
+}
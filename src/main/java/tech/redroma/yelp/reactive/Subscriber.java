@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.reactive;
+
+/**
+ * Receives the items of a {@link Publisher}. Its methods are never called concurrently, and nothing is sent to it after
+ * {@link #onError(java.lang.Throwable) onError} or {@link #onComplete() onComplete}.
+ *
+ * @param <T> The type of items received.
+ * @author SirWellington
+ * @see Publisher
+ */
+public interface Subscriber<T>
+{
+
+    /**
+     * Called first, with the subscription used to ask for items.
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with each item asked for.
+     */
+    void onNext(T item);
+
+    /**
+     * Called once if the publisher fails. No more items follow.
+     */
+    void onError(Throwable failure);
+
+    /**
+     * Called once when there are no more items.
+     */
+    void onComplete();
+
+}
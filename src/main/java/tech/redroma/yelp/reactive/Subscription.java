@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.reactive;
+
+/**
+ * Links a {@link Subscriber} to a {@link Publisher}, and lets it control how many items it is sent.
+ *
+ * @author SirWellington
+ * @see Publisher
+ */
+public interface Subscription
+{
+
+    /**
+     * Asks for up to {@code n} more items. Requests add up, and {@link Long#MAX_VALUE} asks for everything.
+     *
+     * @param n Must be {@code > 0}; otherwise the subscriber is sent an {@link IllegalArgumentException} through
+     *          {@link Subscriber#onError(java.lang.Throwable) onError}.
+     */
+    void request(long n);
+
+    /**
+     * Asks the publisher to stop sending items, and to release what it holds. Some items may still arrive while it
+     * stops.
+     */
+    void cancel();
+
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.reactive;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_LIMIT;
+import static tech.redroma.yelp.YelpSearchRequest.Builder.MAX_OFFSET;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+
+/**
+ * Publishes the results of a search as a {@link Publisher}, fetching pages from Yelp only as subscribers ask for more.
+ * <p>
+ * A page is fetched only when a subscriber has asked for more businesses than are already buffered, and at most one page
+ * per subscriber is in flight at a time, so a subscriber that stops asking stops the paging, and no thread is held while
+ * it waits. Cancelling a subscription interrupts the page in flight, if there is one, and drops the rest.
+ * <p>
+ * Pages are fetched through {@link YelpAPI#searchForBusinessesWithTotal(tech.redroma.yelp.YelpSearchRequest) }, so a
+ * client built with {@link YelpAPI#newInstance(java.lang.String, java.lang.String) } constructs each page's request and
+ * maps its errors exactly as it does for any other search. Failures reach subscribers as
+ * {@link YelpException YelpExceptions}.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class YelpPublisher
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(YelpPublisher.class);
+
+    private final YelpAPI yelp;
+    private final Executor executor;
+    private final int pageSize;
+    private final int maxPages;
+
+    private YelpPublisher(Builder builder)
+    {
+        this.yelp = builder.yelp;
+        this.executor = builder.executor != null ? builder.executor : newDefaultExecutor();
+        this.pageSize = builder.pageSize;
+        this.maxPages = builder.maxPages;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Creates a publisher of a search's results. Nothing is fetched until a subscriber asks for businesses, and each
+     * subscriber pages through the results on its own.
+     *
+     * @param request The search. Paging starts at its offset, if it has one. Its limit is replaced by the
+     *                {@linkplain Builder#withPageSize(int) page size}.
+     * @return
+     * @throws IllegalArgumentException If the request is null.
+     */
+    public Publisher<YelpBusiness> search(@Required YelpSearchRequest request) throws IllegalArgumentException
+    {
+        checkThat(request)
+            .usingMessage("request cannot be null")
+            .is(notNull());
+
+        return subscriber ->
+        {
+            checkThat(subscriber)
+                .usingMessage("subscriber cannot be null")
+                .is(notNull());
+
+            SearchSubscription subscription = new SearchSubscription(request, subscriber);
+            subscriber.onSubscribe(subscription);
+        };
+    }
+
+    private static ExecutorService newDefaultExecutor()
+    {
+        return Executors.newCachedThreadPool(runnable ->
+        {
+            Thread thread = new Thread(runnable, "YelpPublisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        return "YelpPublisher{" + "yelp=" + yelp + ", pageSize=" + pageSize + ", maxPages=" + maxPages + '}';
+    }
+
+    /**
+     * Pages through one search for one subscriber.
+     * <p>
+     * Signals are only sent from {@link #drain()}, which runs on one thread at a time: whichever thread enters it first
+     * keeps draining until no other thread has asked it to in the meantime.
+     */
+    private final class SearchSubscription implements Subscription
+    {
+
+        private final YelpSearchRequest request;
+        private final Subscriber<? super YelpBusiness> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger drains = new AtomicInteger();
+        private final Queue<YelpBusiness> buffer = new ConcurrentLinkedQueue<>();
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean cancelled = false;
+        private volatile boolean fetching = false;
+        private volatile boolean exhausted = false;
+        private volatile Throwable failure;
+        private volatile FutureTask<Void> inFlight;
+
+        //Only changed by the page in flight
+        private volatile int offset;
+        private volatile int pages = 0;
+
+        private SearchSubscription(YelpSearchRequest request, Subscriber<? super YelpBusiness> subscriber)
+        {
+            this.request = request;
+            this.subscriber = subscriber;
+            this.offset = request.hasOffset() ? request.getOffset() : 0;
+            this.exhausted = offset >= MAX_OFFSET;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                failure = new IllegalArgumentException("request must be > 0, but was " + n);
+                buffer.clear();
+                exhausted = true;
+            }
+            else
+            {
+                demand.accumulateAndGet(n, (current, more) -> current + more < 0 ? Long.MAX_VALUE : current + more);
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            buffer.clear();
+
+            FutureTask<Void> page = inFlight;
+
+            if (page != null)
+            {
+                page.cancel(true);
+            }
+        }
+
+        private void drain()
+        {
+            if (drains.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+
+            do
+            {
+                long requested = demand.get();
+                long emitted = 0;
+
+                while (emitted != requested && !cancelled && failure == null)
+                {
+                    YelpBusiness next = buffer.poll();
+
+                    if (next == null)
+                    {
+                        break;
+                    }
+
+                    if (!emit(next))
+                    {
+                        return;
+                    }
+
+                    ++emitted;
+                }
+
+                if (emitted > 0 && requested != Long.MAX_VALUE)
+                {
+                    demand.addAndGet(-emitted);
+                }
+
+                if (cancelled)
+                {
+                    buffer.clear();
+                    return;
+                }
+
+                if (!fetching && (buffer.isEmpty() || failure != null))
+                {
+                    if (failure != null)
+                    {
+                        cancelled = true;
+                        subscriber.onError(failure);
+                        return;
+                    }
+
+                    if (exhausted)
+                    {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    if (demand.get() > 0)
+                    {
+                        fetchNextPage();
+                    }
+                }
+
+                missed = drains.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private boolean emit(YelpBusiness business)
+        {
+            try
+            {
+                subscriber.onNext(business);
+                return true;
+            }
+            catch (RuntimeException ex)
+            {
+                LOG.warn("Subscriber failed on a business; cancelling its subscription", ex);
+                cancel();
+                return false;
+            }
+        }
+
+        private void fetchNextPage()
+        {
+            fetching = true;
+
+            FutureTask<Void> page = new FutureTask<>(this::fetch, null);
+            inFlight = page;
+            executor.execute(page);
+        }
+
+        private void fetch()
+        {
+            try
+            {
+                if (cancelled)
+                {
+                    return;
+                }
+
+                int limit = Math.min(pageSize, MAX_OFFSET - offset);
+                YelpSearchResults results = yelp.searchForBusinessesWithTotal(pageOf(request, offset, limit));
+                List<YelpBusiness> businesses = results == null ? Collections.emptyList() : results.getBusinesses();
+
+                for (YelpBusiness business : businesses)
+                {
+                    //Results can shift between pages, repeating a business
+                    if (business != null && (business.id == null || seen.add(business.id)))
+                    {
+                        buffer.add(business);
+                    }
+                }
+
+                offset += limit;
+                pages += 1;
+
+                exhausted = businesses.size() < limit ||
+                            (results.hasTotal() && offset >= results.getTotal()) ||
+                            offset >= MAX_OFFSET ||
+                            pages >= maxPages;
+            }
+            catch (YelpException ex)
+            {
+                failure = ex;
+            }
+            catch (RuntimeException ex)
+            {
+                failure = new YelpOperationFailedException("search failed", ex);
+            }
+            finally
+            {
+                inFlight = null;
+                fetching = false;
+                drain();
+            }
+        }
+
+    }
+
+    private static YelpSearchRequest pageOf(YelpSearchRequest request, int offset, int limit)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(request)
+            .withLimit(limit);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+        else
+        {
+            builder.withoutOffset();
+        }
+
+        return builder.build();
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** By default, pages until Yelp's {@linkplain YelpSearchRequest.Builder#MAX_OFFSET maximum offset}. */
+        public static final int DEFAULT_MAX_PAGES = MAX_OFFSET / MAX_LIMIT;
+
+        private final YelpAPI yelp;
+        private Executor executor;
+        private int pageSize = MAX_LIMIT;
+        private int maxPages = DEFAULT_MAX_PAGES;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Fetches pages on an existing executor. By default, pages are fetched on threads owned by the publisher, which
+         * are released when idle.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the number of businesses asked for in each page. Smaller pages follow demand more closely, at the cost of
+         * more requests. Defaults to {@link YelpSearchRequest.Builder#MAX_LIMIT}.
+         */
+        public Builder withPageSize(@Positive int pageSize) throws IllegalArgumentException
+        {
+            checkThat(pageSize)
+                .usingMessage("page size must be in (0, " + MAX_LIMIT + "]")
+                .is(positiveInteger())
+                .is(lessThanOrEqualTo(MAX_LIMIT));
+
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets the most pages fetched for a single subscriber.
+         */
+        public Builder withMaxPages(@Positive int maxPages) throws IllegalArgumentException
+        {
+            checkThat(maxPages)
+                .usingMessage("max pages must be > 0")
+                .is(positiveInteger());
+
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        public YelpPublisher build()
+        {
+            return new YelpPublisher(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,946 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.CategoryRegistry;
+import tech.redroma.yelp.CategorySet;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.falseStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThan;
+
+/**
+ * A column-oriented table of {@linkplain YelpBusiness businesses}, for scoring and ranking large numbers of results.
+ * <p>
+ * Instead of one object per business, each field is stored in its own primitive array: coordinates, ratings and
+ * distances as {@code double[]}, review counts as {@code int[]}, cities as codes into a dictionary, categories as
+ * {@linkplain CategoryRegistry registry ids}, and names and other free text in a packed character heap. Missing numbers
+ * are stored as {@code NaN}.
+ * <p>
+ * Rows are addressed by their number, from {@code 0} to {@link #size() } {@code - 1}. Use {@link #query() } to filter,
+ * sort and rank rows, and {@link #row(int) } or {@link #toBusiness(int) } to read them back as objects.
+ *
+ * @author SirWellington
+ */
+@Immutable
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class BusinessTable
+{
+
+    /**
+     * The numeric columns that rows can be sorted and ranked by.
+     */
+    public enum Column
+    {
+        LATITUDE,
+        LONGITUDE,
+        RATING,
+        DISTANCE,
+        REVIEW_COUNT
+    }
+
+    static final byte CLOSED_UNKNOWN = -1;
+    static final byte CLOSED_FALSE = 0;
+    static final byte CLOSED_TRUE = 1;
+
+    private final int size;
+    private final CategoryRegistry registry;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] ratings;
+    private final double[] distances;
+    private final double[] reviewCountsAsDoubles;
+    private final int[] reviewCounts;
+    private final byte[] closed;
+
+    private final int[] cityCodes;
+    private final int[] stateCodes;
+    private final int[] countryCodes;
+    private final Dictionary cities;
+    private final Dictionary states;
+    private final Dictionary countries;
+
+    private final int[] categoryStarts;
+    private final int[] categoryIds;
+
+    private final StringHeap ids;
+    private final StringHeap names;
+    private final StringHeap urls;
+    private final StringHeap phones;
+    private final StringHeap imageURLs;
+    private final StringHeap addresses1;
+    private final StringHeap addresses2;
+    private final StringHeap addresses3;
+    private final StringHeap zipCodes;
+
+    private BusinessTable(Builder builder)
+    {
+        this.size = builder.size;
+        this.registry = builder.registry;
+        this.latitudes = Arrays.copyOf(builder.latitudes, size);
+        this.longitudes = Arrays.copyOf(builder.longitudes, size);
+        this.ratings = Arrays.copyOf(builder.ratings, size);
+        this.distances = Arrays.copyOf(builder.distances, size);
+        this.reviewCounts = Arrays.copyOf(builder.reviewCounts, size);
+        this.closed = Arrays.copyOf(builder.closed, size);
+        this.cityCodes = Arrays.copyOf(builder.cityCodes, size);
+        this.stateCodes = Arrays.copyOf(builder.stateCodes, size);
+        this.countryCodes = Arrays.copyOf(builder.countryCodes, size);
+        this.cities = builder.cities;
+        this.states = builder.states;
+        this.countries = builder.countries;
+        this.categoryStarts = Arrays.copyOf(builder.categoryStarts, size + 1);
+        this.categoryIds = Arrays.copyOf(builder.categoryIds, builder.categoryStarts[size]);
+        this.ids = builder.ids.compact();
+        this.names = builder.names.compact();
+        this.urls = builder.urls.compact();
+        this.phones = builder.phones.compact();
+        this.imageURLs = builder.imageURLs.compact();
+        this.addresses1 = builder.addresses1.compact();
+        this.addresses2 = builder.addresses2.compact();
+        this.addresses3 = builder.addresses3.compact();
+        this.zipCodes = builder.zipCodes.compact();
+
+        this.reviewCountsAsDoubles = new double[size];
+        for (int i = 0; i < size; ++i)
+        {
+            reviewCountsAsDoubles[i] = reviewCounts[i];
+        }
+    }
+
+    /**
+     * Creates a table with its own {@link CategoryRegistry}.
+     *
+     * @param businesses The businesses to include. {@code null} elements are skipped.
+     * @return
+     * @throws IllegalArgumentException If {@code businesses} is null.
+     */
+    public static BusinessTable of(@Required List<YelpBusiness> businesses) throws IllegalArgumentException
+    {
+        return newBuilder(CategoryRegistry.newInstance())
+            .addAll(businesses)
+            .build();
+    }
+
+    /**
+     * @param registry The registry used to encode categories. Category filters must use sets from the same registry.
+     * @return
+     * @throws IllegalArgumentException If the registry is null.
+     */
+    public static Builder newBuilder(@Required CategoryRegistry registry) throws IllegalArgumentException
+    {
+        return new Builder(registry);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public CategoryRegistry getRegistry()
+    {
+        return registry;
+    }
+
+    /**
+     * @return A new query over every row of this table.
+     */
+    public Query query()
+    {
+        int[] rows = new int[size];
+
+        for (int i = 0; i < size; ++i)
+        {
+            rows[i] = i;
+        }
+
+        return new Query(rows, size);
+    }
+
+    public String getId(int row)
+    {
+        return ids.get(checkRow(row));
+    }
+
+    public String getName(int row)
+    {
+        return names.get(checkRow(row));
+    }
+
+    /**
+     * @return The latitude of the row, or {@code NaN} if it has no coordinates.
+     */
+    public double getLatitude(int row)
+    {
+        return latitudes[checkRow(row)];
+    }
+
+    /**
+     * @return The longitude of the row, or {@code NaN} if it has no coordinates.
+     */
+    public double getLongitude(int row)
+    {
+        return longitudes[checkRow(row)];
+    }
+
+    /**
+     * @return The rating of the row, or {@code NaN} if it has none.
+     */
+    public double getRating(int row)
+    {
+        return ratings[checkRow(row)];
+    }
+
+    /**
+     * @return The distance of the row from the search location, or {@code NaN} if it has none.
+     */
+    public double getDistance(int row)
+    {
+        return distances[checkRow(row)];
+    }
+
+    public int getReviewCount(int row)
+    {
+        return reviewCounts[checkRow(row)];
+    }
+
+    public String getCity(int row)
+    {
+        return cities.decode(cityCodes[checkRow(row)]);
+    }
+
+    /**
+     * @return The categories of the row, as a set from this table's {@linkplain #getRegistry() registry}.
+     */
+    public CategorySet getCategories(int row)
+    {
+        checkRow(row);
+
+        CategorySet.Builder builder = CategorySet.newBuilder(registry);
+
+        for (int i = categoryStarts[row]; i < categoryStarts[row + 1]; ++i)
+        {
+            builder.add(categoryIds[i]);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return A lightweight view of the row.
+     */
+    public Row row(int row)
+    {
+        return new Row(checkRow(row));
+    }
+
+    /**
+     * @return A new, mutable {@link YelpBusiness} with the data in the row. Its categories are the
+     *         {@linkplain CategoryRegistry#canonical(tech.redroma.yelp.Category) shared instances} from the registry,
+     *         in their original order.
+     */
+    public YelpBusiness toBusiness(int row)
+    {
+        checkRow(row);
+
+        YelpBusiness business = new YelpBusiness();
+        business.id = ids.get(row);
+        business.name = names.get(row);
+        business.url = urls.get(row);
+        business.phone = phones.get(row);
+        business.imageURL = imageURLs.get(row);
+        business.rating = boxed(ratings[row]);
+        business.distance = boxed(distances[row]);
+        business.reviewCount = reviewCounts[row];
+        business.isClosed = closed[row] == CLOSED_UNKNOWN ? null : closed[row] == CLOSED_TRUE;
+
+        if (!Double.isNaN(latitudes[row]))
+        {
+            business.coordinates = Coordinate.of(latitudes[row], longitudes[row]);
+        }
+
+        business.categories = new ArrayList<>(categoryStarts[row + 1] - categoryStarts[row]);
+        for (int i = categoryStarts[row]; i < categoryStarts[row + 1]; ++i)
+        {
+            business.categories.add(registry.categoryWithId(categoryIds[i]));
+        }
+
+        business.location = addressOf(row);
+
+        return business;
+    }
+
+    private Address addressOf(int row)
+    {
+        if (cityCodes[row] == Dictionary.NULL_CODE &&
+            stateCodes[row] == Dictionary.NULL_CODE &&
+            countryCodes[row] == Dictionary.NULL_CODE &&
+            addresses1.get(row) == null &&
+            zipCodes.get(row) == null &&
+            addresses2.get(row) == null &&
+            addresses3.get(row) == null)
+        {
+            return null;
+        }
+
+        Address address = new Address();
+        address.city = cities.decode(cityCodes[row]);
+        address.state = states.decode(stateCodes[row]);
+        address.country = countries.decode(countryCodes[row]);
+        address.address1 = addresses1.get(row);
+        address.address2 = addresses2.get(row);
+        address.address3 = addresses3.get(row);
+        address.zipCode = zipCodes.get(row);
+        return address;
+    }
+
+    private double[] columnOf(Column column)
+    {
+        switch (column)
+        {
+            case LATITUDE:
+                return latitudes;
+            case LONGITUDE:
+                return longitudes;
+            case RATING:
+                return ratings;
+            case DISTANCE:
+                return distances;
+            default:
+                return reviewCountsAsDoubles;
+        }
+    }
+
+    private int checkRow(int row)
+    {
+        checkThat(row)
+            .usingMessage("row must be in [0, " + size + ")")
+            .is(greaterThanOrEqualTo(0))
+            .is(lessThan(size));
+
+        return row;
+    }
+
+    private static Double boxed(double value)
+    {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BusinessTable{" + "size=" + size + ", cities=" + cities.size() + ", categories=" + registry.size() + '}';
+    }
+
+    /**
+     * A read-only view over one row of a {@link BusinessTable}. Views are cheap to create and read their values from the
+     * table's columns.
+     */
+    @Immutable
+    public final class Row
+    {
+
+        private final int row;
+
+        private Row(int row)
+        {
+            this.row = row;
+        }
+
+        public int getRowNumber()
+        {
+            return row;
+        }
+
+        public String getId()
+        {
+            return ids.get(row);
+        }
+
+        public String getName()
+        {
+            return names.get(row);
+        }
+
+        public String getUrl()
+        {
+            return urls.get(row);
+        }
+
+        public String getPhone()
+        {
+            return phones.get(row);
+        }
+
+        public String getImageURL()
+        {
+            return imageURLs.get(row);
+        }
+
+        public Double getRating()
+        {
+            return boxed(ratings[row]);
+        }
+
+        public Double getDistance()
+        {
+            return boxed(distances[row]);
+        }
+
+        public int getReviewCount()
+        {
+            return reviewCounts[row];
+        }
+
+        public Boolean isClosed()
+        {
+            return closed[row] == CLOSED_UNKNOWN ? null : closed[row] == CLOSED_TRUE;
+        }
+
+        public Coordinate getCoordinates()
+        {
+            return Double.isNaN(latitudes[row]) ? null : Coordinate.of(latitudes[row], longitudes[row]);
+        }
+
+        public String getCity()
+        {
+            return cities.decode(cityCodes[row]);
+        }
+
+        public CategorySet getCategories()
+        {
+            return BusinessTable.this.getCategories(row);
+        }
+
+        public YelpBusiness toBusiness()
+        {
+            return BusinessTable.this.toBusiness(row);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Row{" + "row=" + row + ", id=" + getId() + ", name=" + getName() + '}';
+        }
+
+    }
+
+    /**
+     * Filters, sorts and ranks the rows of a {@link BusinessTable}. Each filter makes a single pass over the primitive
+     * columns of the rows still selected, so filters are cheapest when the most selective one comes first.
+     * <p>
+     * Queries are not thread-safe, but any number of them can run concurrently against the same table.
+     */
+    @ThreadUnsafe
+    public final class Query
+    {
+
+        private final int[] rows;
+        private int count;
+
+        private Query(int[] rows, int count)
+        {
+            this.rows = rows;
+            this.count = count;
+        }
+
+        /**
+         * Keeps rows with a rating of at least {@code minimum}. Rows without a rating are removed.
+         */
+        public Query ratingAtLeast(double minimum)
+        {
+            return keepAtLeast(ratings, minimum);
+        }
+
+        public Query reviewCountAtLeast(int minimum)
+        {
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += reviewCounts[row] >= minimum ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Keeps rows no further than {@code maximum} from the search location. Rows without a distance are removed.
+         */
+        public Query distanceAtMost(double maximum)
+        {
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += distances[row] <= maximum ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Keeps rows inside the bounding box. Rows without coordinates are removed.
+         */
+        public Query withinBounds(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude)
+        {
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                double latitude = latitudes[row];
+                double longitude = longitudes[row];
+
+                rows[kept] = row;
+                kept += (latitude >= minLatitude & latitude <= maxLatitude &
+                         longitude >= minLongitude & longitude <= maxLongitude) ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Removes rows that are known to be permanently closed.
+         */
+        public Query excludingClosed()
+        {
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += closed[row] != CLOSED_TRUE ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Keeps rows in the city. The city is looked up once, and rows are compared by code.
+         */
+        public Query inCity(String city)
+        {
+            int code = cities.find(city);
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += cityCodes[row] == code ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Keeps rows with at least one of the categories.
+         *
+         * @param categories A set from the table's {@linkplain BusinessTable#getRegistry() registry}.
+         * @return
+         * @throws IllegalArgumentException If the set is null or from another registry.
+         */
+        public Query withAnyCategory(@Required CategorySet categories) throws IllegalArgumentException
+        {
+            checkCategories(categories);
+
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                boolean matches = false;
+
+                for (int j = categoryStarts[row]; j < categoryStarts[row + 1] && !matches; ++j)
+                {
+                    matches = categories.contains(categoryIds[j]);
+                }
+
+                rows[kept] = row;
+                kept += matches ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Keeps rows that have every one of the categories.
+         *
+         * @param categories A set from the table's {@linkplain BusinessTable#getRegistry() registry}.
+         * @return
+         * @throws IllegalArgumentException If the set is null or from another registry.
+         */
+        public Query withAllCategories(@Required CategorySet categories) throws IllegalArgumentException
+        {
+            checkCategories(categories);
+
+            int required = categories.size();
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                int found = 0;
+
+                for (int j = categoryStarts[row]; j < categoryStarts[row + 1]; ++j)
+                {
+                    found += categories.contains(categoryIds[j]) ? 1 : 0;
+                }
+
+                rows[kept] = row;
+                kept += found >= required ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        /**
+         * Sorts the selected rows by a column. Rows with missing values come last, and rows with equal values keep their
+         * current order.
+         */
+        public Query sortBy(@Required Column column, boolean descending) throws IllegalArgumentException
+        {
+            checkThat(column)
+                .usingMessage("column cannot be null")
+                .is(notNull());
+
+            RowSorter.sort(rows, count, columnOf(column), descending);
+            return this;
+        }
+
+        /**
+         * Keeps only the {@code k} best rows by a column, in order. This is much cheaper than sorting every row when
+         * {@code k} is small.
+         *
+         * @throws IllegalArgumentException If {@code k} is negative.
+         */
+        public Query topK(@Required Column column, int k, boolean descending) throws IllegalArgumentException
+        {
+            checkThat(column)
+                .usingMessage("column cannot be null")
+                .is(notNull());
+
+            checkThat(k)
+                .usingMessage("k must be >= 0")
+                .is(greaterThanOrEqualTo(0));
+
+            int[] best = RowSorter.topK(rows, count, k, columnOf(column), descending);
+            System.arraycopy(best, 0, rows, 0, best.length);
+            count = best.length;
+            return this;
+        }
+
+        public Query limit(int maximum) throws IllegalArgumentException
+        {
+            checkThat(maximum)
+                .usingMessage("limit must be >= 0")
+                .is(greaterThanOrEqualTo(0));
+
+            count = Math.min(count, maximum);
+            return this;
+        }
+
+        /**
+         * @return The number of rows currently selected.
+         */
+        public int count()
+        {
+            return count;
+        }
+
+        /**
+         * @return The row numbers currently selected, in order.
+         */
+        public int[] rowNumbers()
+        {
+            return Arrays.copyOf(rows, count);
+        }
+
+        public List<Row> rows()
+        {
+            List<Row> result = new ArrayList<>(count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                result.add(new Row(rows[i]));
+            }
+
+            return result;
+        }
+
+        public List<YelpBusiness> toBusinesses()
+        {
+            List<YelpBusiness> result = new ArrayList<>(count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                result.add(toBusiness(rows[i]));
+            }
+
+            return result;
+        }
+
+        private Query keepAtLeast(double[] column, double minimum)
+        {
+            int kept = 0;
+
+            for (int i = 0; i < count; ++i)
+            {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += column[row] >= minimum ? 1 : 0;
+            }
+
+            count = kept;
+            return this;
+        }
+
+        private void checkCategories(CategorySet categories)
+        {
+            checkThat(categories)
+                .usingMessage("categories cannot be null")
+                .is(notNull());
+
+            if (categories.getRegistry() != registry)
+            {
+                throw new IllegalArgumentException("categories belong to a different registry than this table");
+            }
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    @ThreadUnsafe
+    public static final class Builder
+    {
+
+        private final CategoryRegistry registry;
+
+        private int size = 0;
+        private double[] latitudes = new double[64];
+        private double[] longitudes = new double[64];
+        private double[] ratings = new double[64];
+        private double[] distances = new double[64];
+        private int[] reviewCounts = new int[64];
+        private byte[] closed = new byte[64];
+        private int[] cityCodes = new int[64];
+        private int[] stateCodes = new int[64];
+        private int[] countryCodes = new int[64];
+        private int[] categoryStarts = new int[65];
+        private int[] categoryIds = new int[128];
+
+        private final Dictionary cities = new Dictionary();
+        private final Dictionary states = new Dictionary();
+        private final Dictionary countries = new Dictionary();
+
+        private final StringHeap ids = new StringHeap();
+        private final StringHeap names = new StringHeap();
+        private final StringHeap urls = new StringHeap();
+        private final StringHeap phones = new StringHeap();
+        private final StringHeap imageURLs = new StringHeap();
+        private final StringHeap addresses1 = new StringHeap();
+        private final StringHeap addresses2 = new StringHeap();
+        private final StringHeap addresses3 = new StringHeap();
+        private final StringHeap zipCodes = new StringHeap();
+
+        private boolean built = false;
+
+        private Builder(CategoryRegistry registry)
+        {
+            checkThat(registry)
+                .usingMessage("registry cannot be null")
+                .is(notNull());
+
+            this.registry = registry;
+        }
+
+        public Builder add(@Required YelpBusiness business) throws IllegalArgumentException
+        {
+            checkThat(business)
+                .usingMessage("business cannot be null")
+                .is(notNull());
+
+            checkThat(built)
+                .usingMessage("table has already been built")
+                .is(falseStatement());
+
+            ensureCapacity();
+
+            int row = size;
+            Coordinate coordinates = business.coordinates;
+            Address location = business.location;
+
+            latitudes[row] = coordinates == null ? Double.NaN : coordinates.getLatitude();
+            longitudes[row] = coordinates == null ? Double.NaN : coordinates.getLongitude();
+            ratings[row] = business.rating == null ? Double.NaN : business.rating;
+            distances[row] = business.distance == null ? Double.NaN : business.distance;
+            reviewCounts[row] = business.reviewCount;
+            closed[row] = business.isClosed == null ? CLOSED_UNKNOWN : (business.isClosed ? CLOSED_TRUE : CLOSED_FALSE);
+
+            cityCodes[row] = cities.encode(location == null ? null : location.city);
+            stateCodes[row] = states.encode(location == null ? null : location.state);
+            countryCodes[row] = countries.encode(location == null ? null : location.country);
+
+            addCategories(row, business.categories);
+
+            ids.add(business.id);
+            names.add(business.name);
+            urls.add(business.url);
+            phones.add(business.phone);
+            imageURLs.add(business.imageURL);
+            addresses1.add(location == null ? null : location.address1);
+            addresses2.add(location == null ? null : location.address2);
+            addresses3.add(location == null ? null : location.address3);
+            zipCodes.add(location == null ? null : location.zipCode);
+
+            size = row + 1;
+            return this;
+        }
+
+        /**
+         * @param businesses The businesses to add. {@code null} elements are skipped.
+         * @return
+         * @throws IllegalArgumentException If {@code businesses} is null.
+         */
+        public Builder addAll(@Required List<YelpBusiness> businesses) throws IllegalArgumentException
+        {
+            checkThat(businesses)
+                .usingMessage("businesses cannot be null")
+                .is(notNull());
+
+            for (YelpBusiness business : businesses)
+            {
+                if (business != null)
+                {
+                    add(business);
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Builds the table. The builder cannot be used afterwards.
+         */
+        public BusinessTable build()
+        {
+            built = true;
+            return new BusinessTable(this);
+        }
+
+        private void addCategories(int row, List<Category> categories)
+        {
+            int next = categoryStarts[row];
+
+            if (categories != null)
+            {
+                for (Category category : categories)
+                {
+                    if (category == null || category.alias == null)
+                    {
+                        continue;
+                    }
+
+                    if (next == categoryIds.length)
+                    {
+                        categoryIds = Arrays.copyOf(categoryIds, next * 2);
+                    }
+
+                    int id = registry.idOf(category);
+
+                    if (!containsId(categoryStarts[row], next, id))
+                    {
+                        categoryIds[next++] = id;
+                    }
+                }
+            }
+
+            categoryStarts[row + 1] = next;
+        }
+
+        private boolean containsId(int from, int to, int id)
+        {
+            for (int i = from; i < to; ++i)
+            {
+                if (categoryIds[i] == id)
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void ensureCapacity()
+        {
+            if (size < latitudes.length)
+            {
+                return;
+            }
+
+            int capacity = latitudes.length * 2;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            reviewCounts = Arrays.copyOf(reviewCounts, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+            cityCodes = Arrays.copyOf(cityCodes, capacity);
+            stateCodes = Arrays.copyOf(stateCodes, capacity);
+            countryCodes = Arrays.copyOf(countryCodes, capacity);
+            categoryStarts = Arrays.copyOf(categoryStarts, capacity + 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * Assigns dense codes to a low-cardinality column such as cities, so that each row only needs to store an {@code int}.
+ * A {@code null} value is encoded as {@link #NULL_CODE}.
+ *
+ * @author SirWellington
+ */
+@Internal
+final class Dictionary
+{
+
+    static final int NULL_CODE = -1;
+
+    /** Returned by {@link #find(java.lang.String) } for values that no row contains. */
+    static final int ABSENT_CODE = Integer.MIN_VALUE;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value)
+    {
+        if (value == null)
+        {
+            return NULL_CODE;
+        }
+
+        Integer code = codes.get(value);
+
+        if (code == null)
+        {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+
+        return code;
+    }
+
+    int find(String value)
+    {
+        if (value == null)
+        {
+            return NULL_CODE;
+        }
+
+        Integer code = codes.get(value);
+        return code == null ? ABSENT_CODE : code;
+    }
+
+    String decode(int code)
+    {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    int size()
+    {
+        return values.size();
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.table;
+
+import java.util.Arrays;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+
+/**
+ * Sorts and ranks row numbers by a {@code double} column, without boxing. Missing values ({@code NaN}) always come last,
+ * and rows with equal keys keep their original order.
+ *
+ * @author SirWellington
+ */
+@Internal
+@NonInstantiable
+final class RowSorter
+{
+
+    RowSorter() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    /**
+     * Sorts {@code rows[0..count)} in place, using {@code column[row]} as the key.
+     */
+    static void sort(int[] rows, int count, double[] column, boolean descending)
+    {
+        int[] buffer = Arrays.copyOf(rows, count);
+        mergeSort(buffer, rows, 0, count, column, descending);
+    }
+
+    /**
+     * Finds the {@code k} best rows of {@code rows[0..count)}, using a bounded heap. Rows with equal keys are ranked by
+     * row number.
+     *
+     * @return The best rows, in order.
+     */
+    static int[] topK(int[] rows, int count, int k, double[] column, boolean descending)
+    {
+        int limit = Math.min(k, count);
+
+        //The root of the heap is the worst of the rows kept so far.
+        int[] heap = new int[limit];
+        int heapSize = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int row = rows[i];
+
+            if (heapSize < limit)
+            {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize, column, descending);
+                ++heapSize;
+            }
+            else if (limit > 0 && precedes(row, heap[0], column, descending))
+            {
+                heap[0] = row;
+                siftDown(heap, heapSize, column, descending);
+            }
+        }
+
+        //Ties are ordered by row number, as in the heap.
+        Arrays.sort(heap, 0, heapSize);
+        sort(heap, heapSize, column, descending);
+        return heap;
+    }
+
+    /**
+     * @return Whether {@code left} should be ordered strictly before {@code right}. Ties are broken by row number, which
+     *         keeps the results stable.
+     */
+    private static boolean precedes(int left, int right, double[] column, boolean descending)
+    {
+        int comparison = compare(column[left], column[right], descending);
+        return comparison < 0 || (comparison == 0 && left < right);
+    }
+
+    private static int compare(double left, double right, boolean descending)
+    {
+        boolean leftMissing = Double.isNaN(left);
+        boolean rightMissing = Double.isNaN(right);
+
+        if (leftMissing || rightMissing)
+        {
+            return leftMissing == rightMissing ? 0 : (leftMissing ? 1 : -1);
+        }
+
+        return descending ? Double.compare(right, left) : Double.compare(left, right);
+    }
+
+    private static void mergeSort(int[] source, int[] target, int from, int to, double[] column, boolean descending)
+    {
+        int length = to - from;
+
+        if (length < 2)
+        {
+            return;
+        }
+
+        if (length <= 16)
+        {
+            insertionSort(target, from, to, column, descending);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(target, source, from, middle, column, descending);
+        mergeSort(target, source, middle, to, column, descending);
+
+        int left = from;
+        int right = middle;
+
+        for (int i = from; i < to; ++i)
+        {
+            if (right >= to || (left < middle && compare(column[source[left]], column[source[right]], descending) <= 0))
+            {
+                target[i] = source[left++];
+            }
+            else
+            {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    private static void insertionSort(int[] rows, int from, int to, double[] column, boolean descending)
+    {
+        for (int i = from + 1; i < to; ++i)
+        {
+            int row = rows[i];
+            int j = i - 1;
+
+            while (j >= from && compare(column[rows[j]], column[row], descending) > 0)
+            {
+                rows[j + 1] = rows[j];
+                --j;
+            }
+
+            rows[j + 1] = row;
+        }
+    }
+
+    private static void siftUp(int[] heap, int index, double[] column, boolean descending)
+    {
+        int row = heap[index];
+
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+
+            if (!precedes(heap[parent], row, column, descending))
+            {
+                break;
+            }
+
+            heap[index] = heap[parent];
+            index = parent;
+        }
+
+        heap[index] = row;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] column, boolean descending)
+    {
+        int index = 0;
+        int row = heap[0];
+
+        while (true)
+        {
+            int child = 2 * index + 1;
+
+            if (child >= size)
+            {
+                break;
+            }
+
+            if (child + 1 < size && precedes(heap[child], heap[child + 1], column, descending))
+            {
+                ++child;
+            }
+
+            if (!precedes(row, heap[child], column, descending))
+            {
+                break;
+            }
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = row;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.table;
+
+import java.util.Arrays;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * A column of mostly-unique Strings, such as names and ids, packed into a single {@code char[]}. Values are only
+ * materialized as Strings when they are read.
+ *
+ * @author SirWellington
+ */
+@Internal
+final class StringHeap
+{
+
+    private static final int NULL_LENGTH = -1;
+
+    private char[] chars = new char[1024];
+    private int[] starts = new int[64];
+    private int[] lengths = new int[64];
+    private int size = 0;
+    private int used = 0;
+
+    void add(String value)
+    {
+        if (size == starts.length)
+        {
+            starts = Arrays.copyOf(starts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+
+        if (value == null)
+        {
+            starts[size] = used;
+            lengths[size] = NULL_LENGTH;
+            ++size;
+            return;
+        }
+
+        int length = value.length();
+
+        if (used + length > chars.length)
+        {
+            chars = Arrays.copyOf(chars, Math.max(used + length, chars.length * 2));
+        }
+
+        value.getChars(0, length, chars, used);
+        starts[size] = used;
+        lengths[size] = length;
+        used += length;
+        ++size;
+    }
+
+    String get(int row)
+    {
+        int length = lengths[row];
+        return length == NULL_LENGTH ? null : new String(chars, starts[row], length);
+    }
+
+    /**
+     * Trims the backing arrays down to the values actually stored.
+     */
+    StringHeap compact()
+    {
+        chars = Arrays.copyOf(chars, used);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        return this;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.watch;
+
+import java.time.Instant;
+import java.util.Objects;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.WeeklyHours;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * A change to one watched field of a business, found by a {@link BusinessWatcher}, such as {@code rating 4.0->4.5} or
+ * {@code isClosed false->true}.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class BusinessChange
+{
+
+    /**
+     * The fields that are watched, and the types of their values.
+     */
+    public enum Field
+    {
+        /** The rating, as a {@link Double} to a tenth. */
+        RATING("rating"),
+        /** The price level, as a {@link Price}. */
+        PRICE("price"),
+        /** Whether the business is permanently closed, as a {@link Boolean}. */
+        CLOSED("isClosed"),
+        /**
+         * The regular opening hours, as {@link WeeklyHours}. Only the hours after the change are known; the hours before
+         * are always null.
+         */
+        HOURS("hours");
+
+        private final String name;
+
+        private Field(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * @return The name of the field in a business's details.
+         */
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    private final String businessId;
+    private final Field field;
+    private final Object before;
+    private final Object after;
+    private final Instant detectedAt;
+
+    private BusinessChange(String businessId, Field field, Object before, Object after, Instant detectedAt)
+    {
+        this.businessId = businessId;
+        this.field = field;
+        this.before = before;
+        this.after = after;
+        this.detectedAt = detectedAt;
+    }
+
+    static BusinessChange of(String businessId, Field field, Object before, Object after, Instant detectedAt)
+    {
+        return new BusinessChange(businessId, field, before, after, detectedAt);
+    }
+
+    public String getBusinessId()
+    {
+        return businessId;
+    }
+
+    public Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * @return The value before the change, which may be null. Its type depends on the {@linkplain #getField() field}.
+     */
+    public Object getBefore()
+    {
+        return before;
+    }
+
+    /**
+     * @return The value after the change, which may be null. Its type depends on the {@linkplain #getField() field}.
+     */
+    public Object getAfter()
+    {
+        return after;
+    }
+
+    /**
+     * @return When the business was fetched and found changed.
+     */
+    public Instant getDetectedAt()
+    {
+        return detectedAt;
+    }
+
+    /**
+     * @return The change in short, such as {@code rating 4.0->4.5}.
+     */
+    public String describe()
+    {
+        return field.getName() + " " + before + "->" + after;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 5;
+        hash = 67 * hash + Objects.hashCode(this.businessId);
+        hash = 67 * hash + Objects.hashCode(this.field);
+        hash = 67 * hash + Objects.hashCode(this.before);
+        hash = 67 * hash + Objects.hashCode(this.after);
+        hash = 67 * hash + Objects.hashCode(this.detectedAt);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final BusinessChange other = (BusinessChange) obj;
+        if (!Objects.equals(this.businessId, other.businessId))
+        {
+            return false;
+        }
+        if (this.field != other.field)
+        {
+            return false;
+        }
+        if (!Objects.equals(this.before, other.before))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.after, other.after))
+        {
+            return false;
+        }
+        if (!Objects.equals(this.detectedAt, other.detectedAt))
+        {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BusinessChange{" + "businessId=" + businessId + ", field=" + field + ", before=" + before + ", after=" + after + ", detectedAt=" + detectedAt + '}';
+    }
+
+}
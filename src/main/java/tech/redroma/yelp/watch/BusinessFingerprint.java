@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.watch;
+
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.WeeklyHours;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.sirwellington.alchemy.annotations.access.NonInstantiable;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+
+/**
+ * Packs the watched fields of a business into a single {@code long}, so that a large number of businesses can be watched
+ * without keeping their details, and an unchanged business is recognized with a single comparison.
+ * <pre>
+ * bits  0-31: hash of the regular opening hours, as compiled by {@link WeeklyHours}
+ * bits 32-39: rating in tenths, or 255 when there is none
+ * bits 40-42: price level from 1 to 4, or 0 when there is none
+ * bits 43-44: 1 when open, 2 when closed, or 0 when unknown
+ * </pre>
+ * The rating, price and closure can be read back from a fingerprint. The hours can't; only whether they changed can be
+ * told, and two different sets of hours share a hash about once in four billion times. Whether a business is open
+ * <i>now</i> is not part of its hours, so that it doesn't change through the day.
+ *
+ * @author SirWellington
+ */
+@NonInstantiable
+public final class BusinessFingerprint
+{
+
+    /** Stands for a business that hasn't been fetched yet. No fingerprint of a business is negative. */
+    public static final long UNKNOWN = -1L;
+
+    private static final int RATING_SHIFT = 32;
+    private static final int PRICE_SHIFT = 40;
+    private static final int CLOSED_SHIFT = 43;
+
+    private static final long HOURS_MASK = 0xFFFF_FFFFL;
+    private static final int RATING_MASK = 0xFF;
+    private static final int PRICE_MASK = 0x7;
+    private static final int CLOSED_MASK = 0x3;
+
+    private static final int NO_RATING = 0xFF;
+    private static final int MAX_RATING = 0xFE;
+
+    private static final int OPEN = 1;
+    private static final int CLOSED = 2;
+
+    BusinessFingerprint() throws IllegalAccessException
+    {
+        throw new IllegalAccessException("cannot instantiate");
+    }
+
+    /**
+     * @param details The business to fingerprint. Null has the fingerprint {@link #UNKNOWN}.
+     * @return
+     */
+    public static long of(@Optional YelpBusinessDetails details)
+    {
+        if (details == null)
+        {
+            return UNKNOWN;
+        }
+
+        long fingerprint = hoursHashOf(details) & HOURS_MASK;
+        fingerprint |= (long) ratingBitsOf(details.rating) << RATING_SHIFT;
+        fingerprint |= (long) priceBitsOf(details.price) << PRICE_SHIFT;
+        fingerprint |= (long) closedBitsOf(details.isClosed) << CLOSED_SHIFT;
+        return fingerprint;
+    }
+
+    /**
+     * @return The rating in a fingerprint, to a tenth, or null if there is none.
+     */
+    public static Double ratingOf(long fingerprint)
+    {
+        int bits = (int) (fingerprint >>> RATING_SHIFT) & RATING_MASK;
+
+        if (fingerprint == UNKNOWN || bits == NO_RATING)
+        {
+            return null;
+        }
+
+        return bits / 10.0;
+    }
+
+    /**
+     * @return The price level in a fingerprint, or null if there is none.
+     */
+    public static Price priceOf(long fingerprint)
+    {
+        int bits = (int) (fingerprint >>> PRICE_SHIFT) & PRICE_MASK;
+
+        if (fingerprint == UNKNOWN || bits == 0)
+        {
+            return null;
+        }
+
+        return Price.fromNumber(bits);
+    }
+
+    /**
+     * @return Whether a fingerprint is of a permanently closed business, or null if that is unknown.
+     */
+    public static Boolean isClosedIn(long fingerprint)
+    {
+        int bits = (int) (fingerprint >>> CLOSED_SHIFT) & CLOSED_MASK;
+
+        if (fingerprint == UNKNOWN || bits == 0)
+        {
+            return null;
+        }
+
+        return bits == CLOSED;
+    }
+
+    /**
+     * @return The hash of the hours in a fingerprint. Only useful for comparing with another fingerprint's.
+     */
+    public static int hoursHashOf(long fingerprint)
+    {
+        return (int) (fingerprint & HOURS_MASK);
+    }
+
+    private static int hoursHashOf(YelpBusinessDetails details)
+    {
+        return WeeklyHours.of(details.hours).hashCode();
+    }
+
+    private static int ratingBitsOf(Double rating)
+    {
+        if (rating == null || rating.isNaN())
+        {
+            return NO_RATING;
+        }
+
+        long tenths = Math.round(rating * 10);
+        return (int) Math.max(0, Math.min(MAX_RATING, tenths));
+    }
+
+    private static int priceBitsOf(String price)
+    {
+        for (Price level : Price.values())
+        {
+            if (level.asString().equals(price))
+            {
+                return level.ordinal() + 1;
+            }
+        }
+
+        return 0;
+    }
+
+    private static int closedBitsOf(Boolean isClosed)
+    {
+        if (isClosed == null)
+        {
+            return 0;
+        }
+
+        return isClosed ? CLOSED : OPEN;
+    }
+
+}
@@ -0,0 +1,944 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.watch;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.WeeklyHours;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.watch.BusinessChange.Field;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Positive;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.BUILDER;
+import static tech.sirwellington.alchemy.annotations.designs.patterns.BuilderPattern.Role.PRODUCT;
+import static tech.sirwellington.alchemy.arguments.Arguments.checkThat;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveInteger;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Watches many businesses for changes to their rating, price, opening hours and closure, and reports each change as a
+ * {@link BusinessChange}, instead of whole details.
+ * <p>
+ * Each business is fetched again with {@link YelpAPI#getBusinessDetails(java.lang.String) } once every
+ * {@linkplain Builder#withInterval(java.time.Duration) interval}. Only a {@linkplain BusinessFingerprint fingerprint} of
+ * its watched fields is kept between fetches, and a business whose fingerprint hasn't changed costs a single comparison.
+ * The first fetch of a business sets its fingerprint, without reporting any changes.
+ * <p>
+ * Businesses are checked in the order they are due, at most a {@linkplain Builder#withBatchSize(int) batch} per
+ * {@link #checkDue(java.util.function.Consumer) check}, a few at a time and under a shared rate limit. The rate limit
+ * must allow for every business within the interval: watching 500,000 businesses once a day takes about 6 requests a
+ * second. {@link #start(java.util.function.Consumer) } checks on a schedule, until the watcher is closed.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+@BuilderPattern(role = PRODUCT)
+public final class BusinessWatcher implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(BusinessWatcher.class);
+
+    private static final Comparator<Watched> BY_DUE_TIME = Comparator
+        .comparingLong((Watched watched) -> watched.dueAt)
+        .thenComparingLong(watched -> watched.order);
+
+    private final YelpAPI yelp;
+    private final Clock clock;
+    private final RateLimiter rateLimiter;
+    private final int concurrency;
+    private final Executor executor;
+    private final long intervalMillis;
+    private final long retryDelayMillis;
+    private final long pollIntervalMillis;
+    private final int batchSize;
+
+    //Guards the businesses, their schedule and the scheduler
+    private final Object lock = new Object();
+    private final Map<String, Watched> watched = new HashMap<>();
+    private final PriorityQueue<Watched> schedule = new PriorityQueue<>(BY_DUE_TIME);
+    private long order;
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    //Keeps checks from overlapping
+    private final Lock checking = new ReentrantLock();
+
+    private BusinessWatcher(Builder builder, Clock clock)
+    {
+        this.yelp = builder.yelp;
+        this.clock = clock;
+        this.rateLimiter = builder.rateLimiter != null ? builder.rateLimiter
+                         : builder.requestsPerSecond > 0 ? RateLimiter.create(builder.requestsPerSecond) : null;
+        this.concurrency = builder.concurrency;
+        this.executor = builder.executor;
+        this.intervalMillis = builder.interval.toMillis();
+        this.retryDelayMillis = builder.retryDelay.toMillis();
+        this.pollIntervalMillis = builder.pollInterval.toMillis();
+        this.batchSize = builder.batchSize;
+    }
+
+    public static Builder newBuilder(@Required YelpAPI yelp) throws IllegalArgumentException
+    {
+        return new Builder(yelp);
+    }
+
+    /**
+     * Starts watching a business. It is due to be fetched right away, to set its fingerprint.
+     *
+     * @param businessId The Yelp ID of the business.
+     * @return Whether the business wasn't already watched.
+     * @throws IllegalArgumentException If the ID is empty.
+     */
+    public boolean watch(@NonEmpty String businessId) throws IllegalArgumentException
+    {
+        checkBusinessId(businessId);
+
+        synchronized (lock)
+        {
+            return add(businessId, BusinessFingerprint.UNKNOWN, clock.millis());
+        }
+    }
+
+    /**
+     * Starts watching a business from details already fetched, such as by a crawl. Its fingerprint is set from them, and
+     * it is next fetched after the interval.
+     *
+     * @param details The details of the business. Its ID is required.
+     * @return Whether the business wasn't already watched. A business already watched takes its fingerprint from the
+     *         details.
+     * @throws IllegalArgumentException If the details are null or have no ID.
+     */
+    public boolean watch(@Required YelpBusinessDetails details) throws IllegalArgumentException
+    {
+        checkThat(details)
+            .usingMessage("details cannot be null")
+            .is(notNull());
+
+        return watch(details.id, BusinessFingerprint.of(details));
+    }
+
+    /**
+     * Starts watching a business from a fingerprint kept earlier, such as one saved with {@link #getFingerprint(java.lang.String)
+     * } before a restart. It is next fetched after the interval, or right away if the fingerprint is
+     * {@link BusinessFingerprint#UNKNOWN}.
+     *
+     * @param businessId  The Yelp ID of the business.
+     * @param fingerprint The business's fingerprint.
+     * @return Whether the business wasn't already watched. A business already watched takes the given fingerprint.
+     * @throws IllegalArgumentException If the ID is empty.
+     */
+    public boolean watch(@NonEmpty String businessId, long fingerprint) throws IllegalArgumentException
+    {
+        checkBusinessId(businessId);
+
+        long now = clock.millis();
+
+        synchronized (lock)
+        {
+            Watched existing = watched.get(businessId);
+
+            if (existing != null)
+            {
+                existing.fingerprint = fingerprint;
+                return false;
+            }
+
+            long dueAt = fingerprint == BusinessFingerprint.UNKNOWN ? now : now + intervalMillis;
+            return add(businessId, fingerprint, dueAt);
+        }
+    }
+
+    /**
+     * Starts watching many businesses. Their first fetches are spread evenly over the interval, rather than all being due
+     * at once.
+     *
+     * @param businessIds The Yelp IDs of the businesses.
+     * @return The number of businesses that weren't already watched.
+     * @throws IllegalArgumentException If the IDs are null or contain an empty ID.
+     */
+    public int watchAll(@Required Collection<String> businessIds) throws IllegalArgumentException
+    {
+        checkThat(businessIds)
+            .usingMessage("business IDs cannot be null")
+            .is(notNull());
+
+        Set<String> ids = new LinkedHashSet<>(businessIds);
+        ids.forEach(this::checkBusinessId);
+
+        long now = clock.millis();
+        int added = 0;
+        int position = 0;
+
+        synchronized (lock)
+        {
+            for (String id : ids)
+            {
+                long offset = (long) ((double) intervalMillis * position++ / ids.size());
+
+                if (add(id, BusinessFingerprint.UNKNOWN, now + offset))
+                {
+                    ++added;
+                }
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Stops watching a business. A fetch of it already under way is not reported.
+     *
+     * @return Whether the business was watched.
+     */
+    public boolean unwatch(@NonEmpty String businessId) throws IllegalArgumentException
+    {
+        checkBusinessId(businessId);
+
+        synchronized (lock)
+        {
+            Watched removed = watched.remove(businessId);
+
+            if (removed == null)
+            {
+                return false;
+            }
+
+            removed.removed = true;
+            schedule.remove(removed);
+            return true;
+        }
+    }
+
+    public boolean isWatching(@NonEmpty String businessId) throws IllegalArgumentException
+    {
+        checkBusinessId(businessId);
+
+        synchronized (lock)
+        {
+            return watched.containsKey(businessId);
+        }
+    }
+
+    /**
+     * @return The fingerprint of a business, or {@link BusinessFingerprint#UNKNOWN} if it isn't watched or hasn't been
+     *         fetched yet.
+     */
+    public long getFingerprint(@NonEmpty String businessId) throws IllegalArgumentException
+    {
+        checkBusinessId(businessId);
+
+        synchronized (lock)
+        {
+            Watched business = watched.get(businessId);
+            return business != null ? business.fingerprint : BusinessFingerprint.UNKNOWN;
+        }
+    }
+
+    /**
+     * @return The number of businesses watched.
+     */
+    public int size()
+    {
+        synchronized (lock)
+        {
+            return watched.size();
+        }
+    }
+
+    /**
+     * @return The number of businesses due to be fetched now.
+     */
+    public int getDue()
+    {
+        long now = clock.millis();
+
+        synchronized (lock)
+        {
+            return (int) schedule.stream().filter(business -> business.dueAt <= now).count();
+        }
+    }
+
+    /**
+     * Fetches the businesses that are due, up to a batch of them, and passes each change found to {@code sink}. The sink is
+     * called on the calling thread, one change at a time, with the changes to each business together. A business whose
+     * fetch fails is tried again after the {@linkplain Builder#withRetryDelay(java.time.Duration) retry delay}.
+     *
+     * @param sink Receives the changes found.
+     * @return A summary of the check.
+     * @throws IllegalArgumentException If the sink is null.
+     * @throws YelpException If the calling thread is interrupted. Businesses not yet checked stay due.
+     */
+    public Summary checkDue(@Required Consumer<? super BusinessChange> sink) throws IllegalArgumentException, YelpException
+    {
+        checkThat(sink)
+            .usingMessage("sink cannot be null")
+            .is(notNull());
+
+        checking.lock();
+
+        try
+        {
+            return check(sink);
+        }
+        finally
+        {
+            checking.unlock();
+        }
+    }
+
+    /**
+     * Checks for due businesses every {@linkplain Builder#withPollInterval(java.time.Duration) poll interval}, on a
+     * thread of the watcher's own, until it is {@linkplain #close() closed}. A check that fails, or a sink that throws,
+     * is logged, and doesn't stop the next check.
+     *
+     * @param sink Receives the changes found. It is called on the watcher's thread.
+     * @throws IllegalArgumentException If the sink is null.
+     * @throws IllegalStateException If the watcher is already started, or closed.
+     */
+    public void start(@Required Consumer<? super BusinessChange> sink) throws IllegalArgumentException, IllegalStateException
+    {
+        checkThat(sink)
+            .usingMessage("sink cannot be null")
+            .is(notNull());
+
+        synchronized (lock)
+        {
+            if (closed)
+            {
+                throw new IllegalStateException("watcher is closed");
+            }
+
+            if (scheduler != null)
+            {
+                throw new IllegalStateException("watcher is already started");
+            }
+
+            scheduler = Executors.newSingleThreadScheduledExecutor(this::newThread);
+            scheduler.scheduleWithFixedDelay(() -> checkOnSchedule(sink), 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops checking on a schedule. The businesses watched are kept, and can still be checked with
+     * {@link #checkDue(java.util.function.Consumer) }.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (lock)
+        {
+            closed = true;
+
+            if (scheduler != null)
+            {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+    }
+
+    private void checkOnSchedule(Consumer<? super BusinessChange> sink)
+    {
+        try
+        {
+            checkDue(sink);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.error("Scheduled check of watched businesses failed", ex);
+        }
+    }
+
+    private Summary check(Consumer<? super BusinessChange> sink) throws YelpException
+    {
+        long start = clock.millis();
+        List<Watched> due = takeDue(start);
+
+        if (due.isEmpty())
+        {
+            return new Summary(0, 0, 0, 0, 0);
+        }
+
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(concurrency, this::newThread) : null;
+        Executor fetchExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        CompletionService<Fetch> completions = new ExecutorCompletionService<>(fetchExecutor);
+        List<Future<Fetch>> futures = new ArrayList<>(due.size());
+        Set<Watched> pending = new LinkedHashSet<>(due);
+        int changedBusinesses = 0;
+        int changes = 0;
+        int failures = 0;
+
+        try
+        {
+            int submitted = 0;
+
+            //Keep at most 'concurrency' fetches in flight, even on a shared executor
+            while (submitted < due.size() && submitted < concurrency)
+            {
+                futures.add(submit(completions, due.get(submitted++)));
+            }
+
+            for (int completed = 0; completed < due.size(); ++completed)
+            {
+                Fetch fetch = completions.take().get();
+                pending.remove(fetch.business);
+
+                if (submitted < due.size())
+                {
+                    futures.add(submit(completions, due.get(submitted++)));
+                }
+
+                if (fetch.failure != null)
+                {
+                    ++failures;
+                    reschedule(fetch.business, fetch.business.fingerprint, fetch.fetchedAt + retryDelayMillis);
+                    continue;
+                }
+
+                List<BusinessChange> found = apply(fetch);
+
+                if (!found.isEmpty())
+                {
+                    ++changedBusinesses;
+                    changes += found.size();
+                    found.forEach(sink);
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new YelpOperationFailedException("interrupted while checking watched businesses", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            //Fetches catch their own failures, so this is unexpected
+            throw new YelpOperationFailedException("checking watched businesses failed", ex.getCause());
+        }
+        finally
+        {
+            futures.forEach(future -> future.cancel(true));
+
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+
+            //Businesses not checked stay due
+            pending.forEach(business -> reschedule(business, business.fingerprint, business.dueAt));
+        }
+
+        Summary summary = new Summary(due.size(), changedBusinesses, changes, failures, clock.millis() - start);
+        LOG.debug("Checked watched businesses: {}", summary);
+
+        return summary;
+    }
+
+    private List<Watched> takeDue(long now)
+    {
+        List<Watched> due = new ArrayList<>();
+
+        synchronized (lock)
+        {
+            while (due.size() < batchSize && !schedule.isEmpty() && schedule.peek().dueAt <= now)
+            {
+                due.add(schedule.poll());
+            }
+        }
+
+        return due;
+    }
+
+    private Future<Fetch> submit(CompletionService<Fetch> completions, Watched business)
+    {
+        return completions.submit(() -> fetch(business));
+    }
+
+    private Fetch fetch(Watched business)
+    {
+        if (rateLimiter != null)
+        {
+            rateLimiter.acquire();
+        }
+
+        try
+        {
+            YelpBusinessDetails details = yelp.getBusinessDetails(business.id);
+
+            if (details == null)
+            {
+                throw new YelpOperationFailedException("no details returned for " + business.id);
+            }
+
+            return new Fetch(business, details, null, clock.millis());
+        }
+        catch (YelpException ex)
+        {
+            LOG.warn("Failed to fetch watched business {}", business.id, ex);
+            return new Fetch(business, null, ex, clock.millis());
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.warn("Failed to fetch watched business {}", business.id, ex);
+            return new Fetch(business, null, new YelpOperationFailedException("failed to fetch " + business.id, ex), clock.millis());
+        }
+    }
+
+    private List<BusinessChange> apply(Fetch fetch)
+    {
+        Watched business = fetch.business;
+        long after = BusinessFingerprint.of(fetch.details);
+        long before;
+
+        synchronized (lock)
+        {
+            //A fingerprint given while the business was being fetched is the one to compare against
+            before = business.fingerprint;
+
+            if (business.removed)
+            {
+                return new ArrayList<>();
+            }
+
+            reschedule(business, after, fetch.fetchedAt + intervalMillis);
+        }
+
+        if (before == after || before == BusinessFingerprint.UNKNOWN)
+        {
+            return new ArrayList<>();
+        }
+
+        return changesBetween(business.id, before, after, fetch.details, Instant.ofEpochMilli(fetch.fetchedAt));
+    }
+
+    /**
+     * Lists the watched fields that differ between two known fingerprints.
+     */
+    static List<BusinessChange> changesBetween(String businessId,
+                                               long before,
+                                               long after,
+                                               YelpBusinessDetails details,
+                                               Instant detectedAt)
+    {
+        List<BusinessChange> changes = new ArrayList<>(Field.values().length);
+
+        Double ratingBefore = BusinessFingerprint.ratingOf(before);
+        Double ratingAfter = BusinessFingerprint.ratingOf(after);
+
+        if (!Objects.equals(ratingBefore, ratingAfter))
+        {
+            changes.add(BusinessChange.of(businessId, Field.RATING, ratingBefore, ratingAfter, detectedAt));
+        }
+
+        Price priceBefore = BusinessFingerprint.priceOf(before);
+        Price priceAfter = BusinessFingerprint.priceOf(after);
+
+        if (priceBefore != priceAfter)
+        {
+            changes.add(BusinessChange.of(businessId, Field.PRICE, priceBefore, priceAfter, detectedAt));
+        }
+
+        Boolean closedBefore = BusinessFingerprint.isClosedIn(before);
+        Boolean closedAfter = BusinessFingerprint.isClosedIn(after);
+
+        if (!Objects.equals(closedBefore, closedAfter))
+        {
+            changes.add(BusinessChange.of(businessId, Field.CLOSED, closedBefore, closedAfter, detectedAt));
+        }
+
+        if (BusinessFingerprint.hoursHashOf(before) != BusinessFingerprint.hoursHashOf(after))
+        {
+            changes.add(BusinessChange.of(businessId, Field.HOURS, null, WeeklyHours.of(details.hours), detectedAt));
+        }
+
+        return changes;
+    }
+
+    private void reschedule(Watched business, long fingerprint, long dueAt)
+    {
+        synchronized (lock)
+        {
+            if (business.removed)
+            {
+                return;
+            }
+
+            business.fingerprint = fingerprint;
+            business.dueAt = dueAt;
+            business.order = order++;
+            schedule.add(business);
+        }
+    }
+
+    //Called with the lock held
+    private boolean add(String businessId, long fingerprint, long dueAt)
+    {
+        if (watched.containsKey(businessId))
+        {
+            return false;
+        }
+
+        Watched business = new Watched(businessId);
+        watched.put(businessId, business);
+        reschedule(business, fingerprint, dueAt);
+        return true;
+    }
+
+    private void checkBusinessId(String businessId)
+    {
+        checkThat(businessId)
+            .usingMessage("business ID cannot be empty")
+            .is(nonEmptyString());
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "YelpBusinessWatcher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BusinessWatcher{" + "yelp=" + yelp + ", rateLimiter=" + rateLimiter + ", concurrency=" + concurrency + ", intervalMillis=" + intervalMillis + ", retryDelayMillis=" + retryDelayMillis + ", pollIntervalMillis=" + pollIntervalMillis + ", batchSize=" + batchSize + '}';
+    }
+
+    /**
+     * A watched business, and when it is next due. It is in the schedule unless it is being fetched.
+     */
+    private static final class Watched
+    {
+
+        private final String id;
+        private long fingerprint = BusinessFingerprint.UNKNOWN;
+        private long dueAt;
+        private long order;
+        private boolean removed;
+
+        private Watched(String id)
+        {
+            this.id = id;
+        }
+
+    }
+
+    private static final class Fetch
+    {
+
+        private final Watched business;
+        private final YelpBusinessDetails details;
+        private final YelpException failure;
+        private final long fetchedAt;
+
+        private Fetch(Watched business, YelpBusinessDetails details, YelpException failure, long fetchedAt)
+        {
+            this.business = business;
+            this.details = details;
+            this.failure = failure;
+            this.fetchedAt = fetchedAt;
+        }
+
+    }
+
+    /**
+     * What a single {@linkplain #checkDue(java.util.function.Consumer) check} did.
+     */
+    @Immutable
+    public static final class Summary
+    {
+
+        private final int checked;
+        private final int changedBusinesses;
+        private final int changes;
+        private final int failures;
+        private final long elapsedMillis;
+
+        Summary(int checked, int changedBusinesses, int changes, int failures, long elapsedMillis)
+        {
+            this.checked = checked;
+            this.changedBusinesses = changedBusinesses;
+            this.changes = changes;
+            this.failures = failures;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return The number of businesses that were due and fetched, or tried to be.
+         */
+        public int getChecked()
+        {
+            return checked;
+        }
+
+        /**
+         * @return The number of businesses with at least one change.
+         */
+        public int getChangedBusinesses()
+        {
+            return changedBusinesses;
+        }
+
+        /**
+         * @return The number of changes passed to the sink.
+         */
+        public int getChanges()
+        {
+            return changes;
+        }
+
+        /**
+         * @return The number of businesses whose fetches failed.
+         */
+        public int getFailures()
+        {
+            return failures;
+        }
+
+        public long getElapsedMillis()
+        {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Summary{" + "checked=" + checked + ", changedBusinesses=" + changedBusinesses + ", changes=" + changes + ", failures=" + failures + ", elapsedMillis=" + elapsedMillis + '}';
+        }
+
+    }
+
+    @BuilderPattern(role = BUILDER)
+    public static final class Builder
+    {
+
+        /** By default, each business is fetched once a day. */
+        public static final Duration DEFAULT_INTERVAL = Duration.ofDays(1);
+
+        /** By default, a business whose fetch failed is tried again after this long. */
+        public static final Duration DEFAULT_RETRY_DELAY = Duration.ofMinutes(10);
+
+        /** By default, a started watcher checks for due businesses this often. */
+        public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMinutes(1);
+
+        /** By default, a check fetches at most this many businesses. */
+        public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+        /** The default rate limit. */
+        public static final double DEFAULT_REQUESTS_PER_SECOND = 6;
+
+        /** The default number of businesses fetched at once. */
+        public static final int DEFAULT_CONCURRENCY = 4;
+
+        private final YelpAPI yelp;
+        private Duration interval = DEFAULT_INTERVAL;
+        private Duration retryDelay = DEFAULT_RETRY_DELAY;
+        private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+        private RateLimiter rateLimiter;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private Executor executor;
+
+        private Builder(YelpAPI yelp)
+        {
+            checkThat(yelp)
+                .usingMessage("yelp API cannot be null")
+                .is(notNull());
+
+            this.yelp = yelp;
+        }
+
+        /**
+         * Sets how often each business is fetched.
+         */
+        public Builder withInterval(@Required Duration interval) throws IllegalArgumentException
+        {
+            checkPositive(interval, "interval");
+
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Sets how long after a failed fetch a business is tried again.
+         */
+        public Builder withRetryDelay(@Required Duration retryDelay) throws IllegalArgumentException
+        {
+            checkPositive(retryDelay, "retry delay");
+
+            this.retryDelay = retryDelay;
+            return this;
+        }
+
+        /**
+         * Sets how often a {@linkplain BusinessWatcher#start(java.util.function.Consumer) started} watcher checks for due
+         * businesses.
+         */
+        public Builder withPollInterval(@Required Duration pollInterval) throws IllegalArgumentException
+        {
+            checkPositive(pollInterval, "poll interval");
+
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * Sets the most businesses fetched by a single check. The rest stay due for the next one.
+         */
+        public Builder withBatchSize(@Positive int batchSize) throws IllegalArgumentException
+        {
+            checkThat(batchSize)
+                .usingMessage("batch size must be > 0")
+                .is(positiveInteger());
+
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Limits the rate of calls to Yelp across all of the watcher's threads.
+         *
+         * @param requestsPerSecond Must be {@code > 0}.
+         * @return
+         * @throws IllegalArgumentException If the rate is not positive.
+         */
+        public Builder withRequestsPerSecond(@Positive double requestsPerSecond) throws IllegalArgumentException
+        {
+            checkThat(requestsPerSecond > 0)
+                .usingMessage("requests per second must be > 0")
+                .is(trueStatement());
+
+            this.requestsPerSecond = requestsPerSecond;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Polls under a rate limiter shared with the rest of the application, so that background refreshes
+         * and foreground requests split one quota. It takes the place of any
+         * {@linkplain #withRequestsPerSecond(double) rate} set on this watcher.
+         */
+        public Builder withRateLimiter(@Required RateLimiter rateLimiter) throws IllegalArgumentException
+        {
+            checkThat(rateLimiter)
+                .usingMessage("rate limiter cannot be null")
+                .is(notNull());
+
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Removes the rate limit. Only suitable when the delegate enforces one itself.
+         */
+        public Builder withoutRateLimit()
+        {
+            this.requestsPerSecond = 0;
+            this.rateLimiter = null;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of businesses fetched at the same time, when the watcher uses its own threads.
+         */
+        public Builder withConcurrency(@Positive int concurrency) throws IllegalArgumentException
+        {
+            checkThat(concurrency)
+                .usingMessage("concurrency must be > 0")
+                .is(positiveInteger());
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Fetches businesses on an existing executor, instead of threads owned by each check.
+         */
+        public Builder withExecutor(@Required Executor executor) throws IllegalArgumentException
+        {
+            checkThat(executor)
+                .usingMessage("executor cannot be null")
+                .is(notNull());
+
+            this.executor = executor;
+            return this;
+        }
+
+        public BusinessWatcher build()
+        {
+            return build(Clock.systemUTC());
+        }
+
+        BusinessWatcher build(Clock clock)
+        {
+            return new BusinessWatcher(this, clock);
+        }
+
+        private static void checkPositive(Duration duration, String name)
+        {
+            checkThat(duration)
+                .usingMessage(name + " cannot be null")
+                .is(notNull());
+
+            checkThat(!duration.isNegative() && !duration.isZero())
+                .usingMessage(name + " must be positive")
+                .is(trueStatement());
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class CategoryRegistryTest
+{
+
+    @GeneratePojo
+    private YelpBusiness business;
+
+    @GeneratePojo
+    private Category category;
+
+    @GenerateString
+    private String alias;
+
+    private CategoryRegistry instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = CategoryRegistry.newInstance();
+    }
+
+    @Test
+    public void testIdOf()
+    {
+        int first = instance.idOf(alias);
+        int second = instance.idOf(alias + "-other");
+
+        assertThat(first, is(0));
+        assertThat(second, is(1));
+        assertThat(instance.idOf(alias), is(first));
+        assertThat(instance.size(), is(2));
+    }
+
+    @Test
+    public void testIdOfCategory()
+    {
+        int id = instance.idOf(category);
+
+        Category result = instance.categoryWithId(id);
+        assertThat(result, is(category));
+        assertThat(result, not(sameInstance(category)));
+    }
+
+    @Test
+    public void testFindId()
+    {
+        assertThat(instance.findId(alias), is(-1));
+        assertThat(instance.findId(null), is(-1));
+
+        int id = instance.idOf(alias);
+        assertThat(instance.findId(alias), is(id));
+    }
+
+    @Test
+    public void testCanonical()
+    {
+        Category copy = new Category();
+        copy.alias = category.alias;
+        copy.title = category.title;
+
+        Category first = instance.canonical(category);
+        Category second = instance.canonical(copy);
+
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    public void testCanonicalize()
+    {
+        instance.canonicalize(business);
+        List<Category> first = business.categories;
+
+        instance.canonicalize(business);
+
+        for (int i = 0; i < first.size(); ++i)
+        {
+            assertThat(business.categories.get(i), sameInstance(first.get(i)));
+        }
+    }
+
+    @Test
+    public void testSetOf()
+    {
+        CategorySet result = instance.setOf(business);
+
+        assertThat(result.size(), is((int) business.categories.stream().map(c -> c.alias).distinct().count()));
+
+        for (Category c : business.categories)
+        {
+            assertThat(result.contains(c.alias), is(true));
+        }
+    }
+
+    @Test
+    public void testSetOfWithNull()
+    {
+        CategorySet result = instance.setOf((YelpBusiness) null);
+        assertThat(result.isEmpty(), is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithBadArgs()
+    {
+        assertThrows(() -> instance.idOf("")).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.idOf((Category) null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.categoryWithId(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.categoryWithId(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testGrowsBeyondInitialCapacity()
+    {
+        for (int i = 0; i < 1_000; ++i)
+        {
+            assertThat(instance.idOf("category-" + i), is(i));
+        }
+
+        assertThat(instance.categoryWithId(999).alias, is("category-999"));
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class CategorySetTest
+{
+
+    private CategoryRegistry registry;
+
+    private CategorySet coffeeAndBars;
+    private CategorySet barsAndPizza;
+
+    private int highId;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        registry = CategoryRegistry.newInstance();
+
+        coffeeAndBars = registry.setOfAliases("coffee", "bars");
+        barsAndPizza = registry.setOfAliases("bars", "pizza");
+
+        highId = one(integers(64, 1_000));
+    }
+
+    @Test
+    public void testContains()
+    {
+        assertThat(coffeeAndBars.contains("coffee"), is(true));
+        assertThat(coffeeAndBars.contains("bars"), is(true));
+        assertThat(coffeeAndBars.contains("pizza"), is(false));
+        assertThat(coffeeAndBars.contains("unknown"), is(false));
+        assertThat(coffeeAndBars.contains(-1), is(false));
+        assertThat(coffeeAndBars.contains(highId), is(false));
+    }
+
+    @Test
+    public void testIntersects()
+    {
+        CategorySet pizza = registry.setOfAliases("pizza");
+
+        assertThat(coffeeAndBars.intersects(barsAndPizza), is(true));
+        assertThat(coffeeAndBars.intersects(pizza), is(false));
+    }
+
+    @Test
+    public void testContainsAll()
+    {
+        CategorySet coffee = registry.setOfAliases("coffee");
+
+        assertThat(coffeeAndBars.containsAll(coffee), is(true));
+        assertThat(coffee.containsAll(coffeeAndBars), is(false));
+    }
+
+    @Test
+    public void testUnionAndIntersection()
+    {
+        CategorySet union = coffeeAndBars.union(barsAndPizza);
+        CategorySet intersection = coffeeAndBars.intersection(barsAndPizza);
+
+        assertThat(union, is(registry.setOfAliases("coffee", "bars", "pizza")));
+        assertThat(intersection, is(registry.setOfAliases("bars")));
+        assertThat(intersection.hashCode(), is(registry.setOfAliases("bars").hashCode()));
+    }
+
+    @Test
+    public void testWithHighIds()
+    {
+        CategorySet high = CategorySet.newBuilder(registry).add(highId).build();
+
+        assertThat(high.contains(highId), is(true));
+        assertThat(high.size(), is(1));
+        assertThat(high.ids()[0], is(highId));
+        assertThat(high.union(coffeeAndBars).size(), is(3));
+        assertThat(high.intersection(coffeeAndBars).isEmpty(), is(true));
+        assertThat(high.intersection(coffeeAndBars), is(CategorySet.newBuilder(registry).build()));
+    }
+
+    @Test
+    public void testToAliasString()
+    {
+        assertThat(coffeeAndBars.toAliasString(), is("coffee,bars"));
+        assertThat(coffeeAndBars.toCategories().get(0), is(registry.categoryWithId(0)));
+    }
+
+    @Test
+    public void testEquals()
+    {
+        assertThat(coffeeAndBars, is(registry.setOfAliases("bars", "coffee")));
+        assertThat(coffeeAndBars, not(barsAndPizza));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithDifferentRegistries()
+    {
+        CategorySet other = CategoryRegistry.newInstance().setOfAliases("coffee", "bars");
+
+        assertThat(other, not(coffeeAndBars));
+        assertThrows(() -> coffeeAndBars.intersects(other)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> coffeeAndBars.union(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> CategorySet.newBuilder(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> CategorySet.newBuilder(registry).add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -75,6 +75,14 @@ public class NoOpYelpTest
             
     }
 
+    @Test
+    public void testSearchForBusinessesWithTotal()
+    {
+        YelpSearchResults results = instance.searchForBusinessesWithTotal(null);
+        assertThat(results.getBusinesses(), empty());
+        assertThat(results.hasTotal(), is(false));
+    }
+
     @Test
     public void testGetReviewsForBusiness()
     {
@@ -83,4 +91,28 @@ public class NoOpYelpTest
         assertThat(results, is(empty()));
     }
 
+    @Test
+    public void testSearchForBusinessesByPhone()
+    {
+        List<YelpBusiness> results = instance.searchForBusinessesByPhone("+14159083801");
+        assertThat(results, notNullValue());
+        assertThat(results.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testMatchBusinesses()
+    {
+        List<YelpBusiness> results = instance.matchBusinesses(businessId, new Address(), null);
+        assertThat(results, notNullValue());
+        assertThat(results.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetAutocompleteSuggestions()
+    {
+        YelpAutocompleteResults results = instance.getAutocompleteSuggestions(businessId, null, null);
+        assertThat(results, notNullValue());
+        assertThat(results.isEmpty(), is(true));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.Resources.GSON;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class StringPoolTest
+{
+
+    @GenerateString
+    private String value;
+
+    private StringPool instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = new StringPool(100);
+    }
+
+    @Test
+    public void testIntern()
+    {
+        String copy = new String(value);
+
+        String first = instance.intern(value);
+        String second = instance.intern(copy);
+
+        assertThat(first, sameInstance(value));
+        assertThat(second, sameInstance(value));
+        assertThat(instance.size(), is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testInternWithNull()
+    {
+        assertThat(instance.intern(null), nullValue());
+        assertThat(instance.size(), is(0));
+    }
+
+    @Test
+    public void testInternWhenFull()
+    {
+        instance = new StringPool(1);
+        instance.intern(value);
+
+        String other = value + "-other";
+        String copy = new String(other);
+
+        assertThat(instance.intern(other), sameInstance(other));
+        assertThat(instance.intern(copy), sameInstance(copy));
+        assertThat(instance.size(), is(1));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        instance = StringPool.disabled();
+
+        String copy = new String(value);
+        instance.intern(value);
+
+        assertThat(instance.isEnabled(), is(false));
+        assertThat(instance.intern(copy), sameInstance(copy));
+        assertThat(instance.size(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructorWithBadArgs()
+    {
+        assertThrows(() -> new StringPool(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testInternAllWithBusinesses() throws IOException
+    {
+        String json = Resources.loadResource("business.json");
+        YelpBusiness first = GSON.fromJson(json, YelpBusiness.class);
+        YelpBusiness second = GSON.fromJson(json, YelpBusiness.class);
+        assertThat(first.location.city, not(sameInstance(second.location.city)));
+
+        instance.internAll(first);
+        instance.internAll(second);
+
+        assertThat(second, is(first));
+        assertThat(second.location.city, sameInstance(first.location.city));
+        assertThat(second.location.state, sameInstance(first.location.state));
+        assertThat(second.location.country, sameInstance(first.location.country));
+        assertThat(second.categories.get(0).alias, sameInstance(first.categories.get(0).alias));
+        assertThat(second.categories.get(0).title, sameInstance(first.categories.get(0).title));
+    }
+
+    @DontRepeat
+    @Test
+    public void testInternAllWithDetails() throws IOException
+    {
+        String json = Resources.loadResource("business-details.json");
+        YelpBusinessDetails first = GSON.fromJson(json, YelpBusinessDetails.class);
+        YelpBusinessDetails second = GSON.fromJson(json, YelpBusinessDetails.class);
+
+        instance.internAll(first);
+        instance.internAll(second);
+
+        assertThat(second, is(first));
+        assertThat(second.location.city, sameInstance(first.location.city));
+        assertThat(second.hours.get(0).hoursType, sameInstance(first.hours.get(0).hoursType));
+    }
+
+    @DontRepeat
+    @Test
+    public void testInternAllWithAutocompleteResults() throws IOException
+    {
+        String json = Resources.loadResource("autocomplete.json");
+        YelpAutocompleteResults first = GSON.fromJson(json, YelpAutocompleteResults.class);
+        YelpAutocompleteResults second = GSON.fromJson(json, YelpAutocompleteResults.class);
+
+        instance.internAll(first);
+        instance.internAll(second);
+
+        assertThat(second, is(first));
+        assertThat(second.categories.get(0).title, sameInstance(first.categories.get(0).title));
+    }
+
+    @DontRepeat
+    @Test
+    public void testInternAllWithNull()
+    {
+        instance.internAll((YelpBusiness) null);
+        instance.internAll((YelpBusinessDetails) null);
+        instance.internAll((YelpAutocompleteResults) null);
+        assertThat(instance.size(), is(0));
+    }
+
+}
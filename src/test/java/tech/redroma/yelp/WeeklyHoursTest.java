@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.WeeklyHours.MINUTES_PER_DAY;
+import static tech.redroma.yelp.WeeklyHours.MINUTES_PER_WEEK;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class WeeklyHoursTest
+{
+
+    /** A Monday. */
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2017, 1, 2, 0, 0);
+
+    private List<YelpBusinessDetails.Hours> hours;
+
+    private WeeklyHours instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        //Weekdays 9am to 5pm, and Friday and Saturday nights from 8pm to 2am
+        hours = hours(times(0, "0900", "1700"),
+                      times(1, "0900", "1700"),
+                      times(2, "0900", "1700"),
+                      times(3, "0900", "1700"),
+                      times(4, "0900", "1700"),
+                      overnight(4, "2000", "0200"),
+                      overnight(5, "2000", "0200"));
+
+        instance = WeeklyHours.of(hours);
+    }
+
+    @Test
+    public void testIsOpenAt()
+    {
+        assertThat(instance.isOpenAt(at(DayOfWeek.MONDAY, 9, 0)), is(true));
+        assertThat(instance.isOpenAt(at(DayOfWeek.MONDAY, 16, 59)), is(true));
+        assertThat(instance.isOpenAt(at(DayOfWeek.MONDAY, 17, 0)), is(false));
+        assertThat(instance.isOpenAt(at(DayOfWeek.MONDAY, 8, 59)), is(false));
+        assertThat(instance.isOpenAt(at(DayOfWeek.SATURDAY, 1, 30)), is(true));
+        assertThat(instance.isOpenAt(at(DayOfWeek.SATURDAY, 12, 0)), is(false));
+        assertThat(instance.isOpenAt(at(DayOfWeek.SUNDAY, 1, 59)), is(true));
+        assertThat(instance.isOpenAt(at(DayOfWeek.SUNDAY, 2, 0)), is(false));
+    }
+
+    @Test
+    public void testMatchesParsingEveryTime()
+    {
+        int minute = one(integers(0, MINUTES_PER_WEEK));
+        LocalDateTime time = MONDAY.plusMinutes(minute);
+
+        assertThat(instance.isOpenAt(minute), is(isOpenByParsing(hours, time)));
+    }
+
+    @Test
+    public void testIsOpenAtZonedDateTime()
+    {
+        ZonedDateTime time = at(DayOfWeek.TUESDAY, 10, 30).atZone(ZoneId.of("America/Los_Angeles"));
+
+        assertThat(instance.isOpenAt(time), is(true));
+        assertThat(instance.isOpenAt(time.withZoneSameInstant(ZoneId.of("Asia/Tokyo"))), is(false));
+    }
+
+    @Test
+    public void testIsOpenFor()
+    {
+        ZonedDateTime time = at(DayOfWeek.WEDNESDAY, 16, 0).atZone(ZoneId.of("UTC"));
+
+        assertThat(instance.isOpenFor(time, 60), is(true));
+        assertThat(instance.isOpenFor(time, 61), is(false));
+        assertThat(instance.isOpenFor(time, 0), is(true));
+    }
+
+    @Test
+    public void testMinutesOpenFrom()
+    {
+        assertThat(instance.minutesOpenFrom(WeeklyHours.minuteOfWeek(at(DayOfWeek.FRIDAY, 23, 0))), is(180));
+        assertThat(instance.minutesOpenFrom(WeeklyHours.minuteOfWeek(at(DayOfWeek.SUNDAY, 0, 0))), is(120));
+        assertThat(instance.minutesOpenFrom(WeeklyHours.minuteOfWeek(at(DayOfWeek.SUNDAY, 12, 0))), is(0));
+    }
+
+    @Test
+    public void testAcrossTheEndOfTheWeek()
+    {
+        WeeklyHours sundayNights = WeeklyHours.of(hours(overnight(6, "2200", "0300"), times(0, "0300", "0500")));
+
+        assertThat(sundayNights.isOpenAt(at(DayOfWeek.SUNDAY, 23, 0)), is(true));
+        assertThat(sundayNights.isOpenAt(at(DayOfWeek.MONDAY, 4, 0)), is(true));
+        assertThat(sundayNights.isOpenAt(at(DayOfWeek.MONDAY, 5, 0)), is(false));
+        assertThat(sundayNights.minutesOpenFrom(WeeklyHours.minuteOfWeek(at(DayOfWeek.SUNDAY, 23, 0))), is(6 * 60));
+    }
+
+    @Test
+    public void testAlwaysOpen()
+    {
+        List<YelpBusinessDetails.Hours.OpenTimes> everyDay = new ArrayList<>();
+
+        for (int day = 0; day < 7; ++day)
+        {
+            everyDay.add(times(day, "0000", "2400"));
+        }
+
+        WeeklyHours always = WeeklyHours.of(hours(everyDay.toArray(new YelpBusinessDetails.Hours.OpenTimes[0])));
+        int minute = one(integers(0, MINUTES_PER_WEEK));
+
+        assertThat(always.isAlwaysOpen(), is(true));
+        assertThat(always.isOpenAt(minute), is(true));
+        assertThat(always.minutesOpenFrom(minute), is(MINUTES_PER_WEEK));
+        assertThat(always.isOpenFor(MONDAY.plusMinutes(minute).atZone(ZoneId.of("UTC")), MINUTES_PER_WEEK), is(true));
+    }
+
+    @Test
+    public void testOpenAt()
+    {
+        List<WeeklyHours> businesses = Arrays.asList(instance, WeeklyHours.NEVER_OPEN, null, instance);
+        int minute = WeeklyHours.minuteOfWeek(at(DayOfWeek.THURSDAY, 12, 0));
+
+        BitSet open = WeeklyHours.openAt(businesses, minute);
+
+        assertThat(open.get(0), is(true));
+        assertThat(open.get(1), is(false));
+        assertThat(open.get(2), is(false));
+        assertThat(open.get(3), is(true));
+    }
+
+    @Test
+    public void testSkipsUnreadableTimes()
+    {
+        WeeklyHours result = WeeklyHours.of(hours(times(0, "9am", "1700"),
+                                                  times(1, "0960", "1700"),
+                                                  times(9, "0900", "1700"),
+                                                  times(2, null, "1700"),
+                                                  times(3, "0900", "1700")));
+
+        assertThat(result, is(WeeklyHours.of(hours(times(3, "0900", "1700")))));
+    }
+
+    @Test
+    public void testMinutesOf()
+    {
+        assertThat(WeeklyHours.minutesOf("0000"), is(0));
+        assertThat(WeeklyHours.minutesOf("300"), is(180));
+        assertThat(WeeklyHours.minutesOf("1830"), is(18 * 60 + 30));
+        assertThat(WeeklyHours.minutesOf("2400"), is(MINUTES_PER_DAY));
+        assertThat(WeeklyHours.minutesOf("2401"), is(-1));
+        assertThat(WeeklyHours.minutesOf("12345"), is(-1));
+        assertThat(WeeklyHours.minutesOf(""), is(-1));
+    }
+
+    @Test
+    public void testIgnoresOtherKindsOfHours()
+    {
+        List<YelpBusinessDetails.Hours> special = hours(times(0, "0000", "2400"));
+        special.get(0).hoursType = "HOLIDAY";
+
+        assertThat(WeeklyHours.of(special).isNeverOpen(), is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithNoHours()
+    {
+        assertThat(WeeklyHours.of(null), is(WeeklyHours.NEVER_OPEN));
+        assertThat(WeeklyHours.of(Collections.emptyList()).isNeverOpen(), is(true));
+        assertThat(WeeklyHours.NEVER_OPEN.minutesOpenFrom(0), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> instance.isOpenAt(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.isOpenAt(MINUTES_PER_WEEK)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.isOpenAt((ZonedDateTime) null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.isOpenFor(null, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> WeeklyHours.openAt(null, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> WeeklyHours.minuteOfWeek(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static boolean isOpenByParsing(List<YelpBusinessDetails.Hours> hours, LocalDateTime time)
+    {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        int today = time.getDayOfWeek().getValue() - 1;
+        int yesterday = (today + 6) % 7;
+
+        for (YelpBusinessDetails.Hours.OpenTimes times : hours.get(0).open)
+        {
+            int start = Integer.parseInt(times.start.substring(0, 2)) * 60 + Integer.parseInt(times.start.substring(2));
+            int end = Integer.parseInt(times.end.substring(0, 2)) * 60 + Integer.parseInt(times.end.substring(2));
+
+            if (times.isOvernight)
+            {
+                if ((times.day == today && minuteOfDay >= start) || (times.day == yesterday && minuteOfDay < end))
+                {
+                    return true;
+                }
+            }
+            else if (times.day == today && minuteOfDay >= start && minuteOfDay < end)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static LocalDateTime at(DayOfWeek day, int hour, int minute)
+    {
+        return MONDAY.with(TemporalAdjusters.nextOrSame(day)).withHour(hour).withMinute(minute);
+    }
+
+    private static List<YelpBusinessDetails.Hours> hours(YelpBusinessDetails.Hours.OpenTimes... open)
+    {
+        YelpBusinessDetails.Hours hours = new YelpBusinessDetails.Hours();
+        hours.hoursType = "REGULAR";
+        hours.isOpenNow = false;
+        hours.open = new ArrayList<>(Arrays.asList(open));
+
+        List<YelpBusinessDetails.Hours> list = new ArrayList<>();
+        list.add(hours);
+        return list;
+    }
+
+    private static YelpBusinessDetails.Hours.OpenTimes times(int day, String start, String end)
+    {
+        YelpBusinessDetails.Hours.OpenTimes times = new YelpBusinessDetails.Hours.OpenTimes();
+        times.day = day;
+        times.start = start;
+        times.end = end;
+        times.isOvernight = false;
+        return times;
+    }
+
+    private static YelpBusinessDetails.Hours.OpenTimes overnight(int day, String start, String end)
+    {
+        YelpBusinessDetails.Hours.OpenTimes times = times(day, start, end);
+        times.isOvernight = true;
+        return times;
+    }
+
+}
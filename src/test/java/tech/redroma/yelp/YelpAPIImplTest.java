@@ -97,6 +97,12 @@ public class YelpAPIImplTest
     @GeneratePojo
     private YelpBusinessDetails businessDetails;
     
+    @GeneratePojo
+    private YelpAutocompleteResults autocompleteResults;
+    
+    @GeneratePojo
+    private Address address;
+    
     private YelpAPIImpl instance;
     
     private String expectedGetBusinessDetailsURL;
@@ -105,6 +111,12 @@ public class YelpAPIImplTest
     
     private String expectedReviewsURL;
     
+    private String expectedAutocompleteURL;
+    
+    private String expectedPhoneSearchURL;
+    
+    private String expectedMatchURL;
+    
     @Before
     public void setUp() throws Exception
     {
@@ -132,6 +144,9 @@ public class YelpAPIImplTest
         expectedGetBusinessDetailsURL = baseURL + URLS.BUSINESSES + "/" + businessID;
         expectedSearchURL = baseURL + URLS.BUSINESS_SEARCH;
         expectedReviewsURL = baseURL + URLS.BUSINESSES + "/" + businessID + URLS.REVIEWS;
+        expectedAutocompleteURL = baseURL + URLS.AUTOCOMPLETE;
+        expectedPhoneSearchURL = baseURL + URLS.PHONE_SEARCH;
+        expectedMatchURL = baseURL + URLS.BUSINESS_MATCHES;
     }
     
     private void setupMocks() throws Exception
@@ -210,7 +225,27 @@ public class YelpAPIImplTest
         assertThat(results, is(businesses));
         AlchemyHttpMock.verifyAllRequestsMade(http);
     }
-    
+
+    @Test
+    public void testSearchForBusinessesWithTotal() throws Exception
+    {
+        searchResponse.total = one(integers(businesses.size(), 100_000));
+
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .anyBody()
+            .at(expectedSearchURL)
+            .thenReturnPOJO(searchResponse)
+            .build();
+
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+
+        YelpSearchResults results = instance.searchForBusinessesWithTotal(request);
+        assertThat(results.getBusinesses(), is(businesses));
+        assertThat(results.getTotal(), is(searchResponse.total));
+        assertThat(results.hasTotal(), is(true));
+    }
+
     @DontRepeat
     @Test
     public void testSearchForBusinessesWhenFails() throws Exception
@@ -321,6 +356,154 @@ public class YelpAPIImplTest
             .isInstanceOf(YelpAuthenticationException.class);
     }
 
+    @Test
+    public void testGetAutocompleteSuggestions() throws Exception
+    {
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedAutocompleteURL)
+            .thenReturnPOJO(autocompleteResults)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        YelpAutocompleteResults results = instance.getAutocompleteSuggestions(searchTerm,
+                                                                              Coordinate.of(latitude, longitude),
+                                                                              enumValueOf(Locale.Locales.class).get());
+        assertThat(results, is(autocompleteResults));
+        
+        AlchemyHttpMock.verifyAllRequestsMade(http);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testGetAutocompleteSuggestionsWhenTokenInvalid() throws Exception
+    {
+        AlchemyHttpException ex = createAlchemyExceptionWithStatus(401);
+        
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedAutocompleteURL)
+            .thenThrow(ex)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        assertThrows(() -> instance.getAutocompleteSuggestions(searchTerm, null))
+            .isInstanceOf(YelpAuthenticationException.class);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testGetAutocompleteSuggestionsWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.getAutocompleteSuggestions("", null))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @Test
+    public void testSearchForBusinessesByPhone() throws Exception
+    {
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedPhoneSearchURL)
+            .thenReturnPOJO(searchResponse)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        List<YelpBusiness> results = instance.searchForBusinessesByPhone("+14159083801");
+        assertThat(results, is(businesses));
+        
+        AlchemyHttpMock.verifyAllRequestsMade(http);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testSearchForBusinessesByPhoneWhenTokenInvalid() throws Exception
+    {
+        AlchemyHttpException ex = createAlchemyExceptionWithStatus(401);
+        
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedPhoneSearchURL)
+            .thenThrow(ex)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        assertThrows(() -> instance.searchForBusinessesByPhone("+14159083801"))
+            .isInstanceOf(YelpAuthenticationException.class);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testSearchForBusinessesByPhoneWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.searchForBusinessesByPhone(""))
+            .isInstanceOf(YelpBadArgumentException.class);
+        
+        assertThrows(() -> instance.searchForBusinessesByPhone("4159083801"))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @Test
+    public void testMatchBusinesses() throws Exception
+    {
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedMatchURL)
+            .thenReturnPOJO(searchResponse)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        List<YelpBusiness> results = instance.matchBusinesses(searchTerm, address, Coordinate.of(latitude, longitude));
+        assertThat(results, is(businesses));
+        
+        AlchemyHttpMock.verifyAllRequestsMade(http);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testMatchBusinessesWhenTokenInvalid() throws Exception
+    {
+        AlchemyHttpException ex = createAlchemyExceptionWithStatus(401);
+        
+        http = AlchemyHttpMock.begin()
+            .whenGet()
+            .noBody()
+            .at(expectedMatchURL)
+            .thenThrow(ex)
+            .build();
+        
+        instance = new YelpAPIImpl(http, tokenProvider, baseURL.toString());
+        
+        assertThrows(() -> instance.matchBusinesses(searchTerm, address, null))
+            .isInstanceOf(YelpAuthenticationException.class);
+    }
+    
+    @DontRepeat
+    @Test
+    public void testMatchBusinessesWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.matchBusinesses("", address, null))
+            .isInstanceOf(YelpBadArgumentException.class);
+        
+        assertThrows(() -> instance.matchBusinesses(searchTerm, null, null))
+            .isInstanceOf(YelpBadArgumentException.class);
+        
+        address.country = null;
+        
+        assertThrows(() -> instance.matchBusinesses(searchTerm, address, null))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
     private AlchemyHttpException createAlchemyExceptionWithStatus(int code)
     {
         HttpResponse fakeResponse = createFakeHttpResponseWithCode(code);
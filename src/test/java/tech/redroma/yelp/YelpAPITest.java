@@ -78,5 +78,26 @@ public class YelpAPITest
         assertThrows(() -> YelpAPI.newInstance("", cliendSecret)).isInstanceOf(IllegalArgumentException.class);
         assertThrows(() -> YelpAPI.newInstance(cliendId, "")).isInstanceOf(IllegalArgumentException.class);
     }
+    
+    @Test
+    public void testBuilderWithStringDeduplication()
+    {
+        YelpAPI result = YelpAPI.Builder.newInstance()
+            .withClientCredentials(cliendId, cliendSecret)
+            .withStringDeduplication(1_000)
+            .build();
+        
+        assertThat(result, notNullValue());
+    }
+    
+    @DontRepeat
+    @Test
+    public void testBuilderWithStringDeduplicationWithBadArgs()
+    {
+        YelpAPI.Builder builder = YelpAPI.Builder.newInstance();
+        
+        assertThrows(() -> builder.withStringDeduplication(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withStringDeduplication(-10)).isInstanceOf(IllegalArgumentException.class);
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.Resources.GSON;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class YelpAutocompleteResultsTest
+{
+
+    @GeneratePojo
+    private YelpAutocompleteResults instance;
+
+    @DontRepeat
+    @Test
+    public void testParsesYelpResponse() throws IOException
+    {
+        String json = Resources.loadResource("autocomplete.json");
+        YelpAutocompleteResults results = GSON.fromJson(json, YelpAutocompleteResults.class);
+
+        assertThat(results.terms.size(), is(1));
+        assertThat(results.terms.get(0).text, is("Delivery"));
+        assertThat(results.businesses.size(), is(3));
+        assertThat(results.businesses.get(0), is(YelpAutocompleteResults.Business.of("YqvoyaNvtoC8N5dA8pD2JA", "Delfina")));
+        assertThat(results.categories.size(), is(3));
+        assertThat(results.categories.get(1).alias, is("fooddeliveryservices"));
+        assertThat(results.isEmpty(), is(false));
+    }
+
+    @Test
+    public void testCopy()
+    {
+        YelpAutocompleteResults copy = instance.copy();
+
+        assertThat(copy, is(instance));
+        assertThat(copy.terms == instance.terms, is(false));
+        assertThat(copy.terms.get(0) == instance.terms.get(0), is(false));
+        assertThat(copy.categories.get(0) == instance.categories.get(0), is(false));
+
+        copy.businesses.get(0).name += "-changed";
+        assertThat(copy, not(instance));
+    }
+
+    @DontRepeat
+    @Test
+    public void testCopyWhenEmpty()
+    {
+        YelpAutocompleteResults empty = new YelpAutocompleteResults();
+
+        assertThat(empty.isEmpty(), is(true));
+        assertThat(empty.copy(), is(empty));
+        assertThat(empty.copy(), not(sameInstance(empty)));
+    }
+
+    @Test
+    public void testEquals()
+    {
+        YelpAutocompleteResults other = GSON.fromJson(GSON.toJson(instance), YelpAutocompleteResults.class);
+
+        assertThat(other, is(instance));
+        assertThat(other.hashCode(), is(instance.hashCode()));
+    }
+
+}
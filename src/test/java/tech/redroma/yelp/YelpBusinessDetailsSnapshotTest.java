@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.Resources.GSON;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class YelpBusinessDetailsSnapshotTest
+{
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GenerateString
+    private String newValue;
+
+    private YelpBusinessDetailsSnapshot instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        details.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+        details.price = Price.$$.asString();
+
+        instance = YelpBusinessDetailsSnapshot.of(details);
+    }
+
+    @Test
+    public void testGetters()
+    {
+        assertThat(instance.getId(), is(details.id));
+        assertThat(instance.getName(), is(details.name));
+        assertThat(instance.getPriceLevel(), is(Price.$$));
+        assertThat(instance.getRating(), is(details.rating));
+        assertThat(instance.getReviewCount(), is(details.reviewCount));
+        assertThat(instance.getPhotosURLS(), is(details.photosURLS));
+        assertThat(instance.isClaimed(), is(details.isClaimed));
+        assertThat(instance.isOpenNow(), is(details.isOpenNow()));
+        assertThat(instance.getCoordinates(), is(details.coordinates));
+        assertThat(instance.getCountry(), is(details.location.country));
+    }
+
+    @Test
+    public void testToBusinessDetails()
+    {
+        YelpBusinessDetails result = instance.toBusinessDetails();
+
+        assertThat(result, is(details));
+        assertThat(result.hours, not(sameInstance(details.hours)));
+    }
+
+    @Test
+    public void testIsUnaffectedByChangesToOriginal()
+    {
+        details.photosURLS.add(newValue);
+        details.hours.get(0).hoursType = newValue;
+
+        assertThat(instance.toBusinessDetails(), not(details));
+        assertThrows(() -> instance.getPhotosURLS().add(newValue))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testEqualsAndHashCode()
+    {
+        YelpBusinessDetailsSnapshot copy = YelpBusinessDetailsSnapshot.of(instance.toBusinessDetails());
+
+        assertThat(copy, is(instance));
+        assertThat(copy.hashCode(), is(instance.hashCode()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithResource() throws IOException
+    {
+        String json = Resources.loadResource("business-details.json");
+        YelpBusinessDetails result = GSON.fromJson(json, YelpBusinessDetails.class);
+
+        YelpBusinessDetailsSnapshot snapshot = YelpBusinessDetailsSnapshot.of(result);
+        assertThat(snapshot.toBusinessDetails(), is(result));
+        assertThat(snapshot.getCity(), is(result.location.city));
+
+        //Open from 5:30pm to 10pm every day; 2017-01-03 was a Tuesday
+        assertThat(snapshot.getWeeklyHours().isOpenAt(LocalDateTime.of(2017, 1, 3, 18, 0)), is(true));
+        assertThat(snapshot.getWeeklyHours().isOpenAt(LocalDateTime.of(2017, 1, 3, 22, 0)), is(false));
+        assertThat(snapshot.getWeeklyHours(), is(result.getWeeklyHours()));
+
+        //In San Francisco, 6pm on that Tuesday is 2am on Wednesday in UTC
+        ZoneId pacific = ZoneId.of("America/Los_Angeles");
+        assertThat(snapshot.isOpenAt(Instant.parse("2017-01-04T02:00:00Z"), pacific), is(true));
+        assertThat(snapshot.isOpenAt(Instant.parse("2017-01-03T18:00:00Z"), pacific), is(false));
+    }
+
+    @DontRepeat
+    @Test
+    public void testIsOpenAtWithBadArgs()
+    {
+        YelpBusinessDetailsSnapshot snapshot = YelpBusinessDetailsSnapshot.of(details);
+
+        assertThrows(() -> snapshot.isOpenAt(null, ZoneId.of("UTC"))).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> snapshot.isOpenAt(Instant.now(), null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testOfWithNull()
+    {
+        assertThrows(() -> YelpBusinessDetailsSnapshot.of(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class YelpBusinessSnapshotTest
+{
+
+    @GeneratePojo
+    private YelpBusiness business;
+
+    @GeneratePojo
+    private YelpBusiness other;
+
+    @GenerateString
+    private String newName;
+
+    private YelpBusinessSnapshot instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        business.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+        other.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+
+        instance = YelpBusinessSnapshot.of(business);
+    }
+
+    @Test
+    public void testGetters()
+    {
+        assertThat(instance.getId(), is(business.id));
+        assertThat(instance.getName(), is(business.name));
+        assertThat(instance.getUrl(), is(business.url));
+        assertThat(instance.getRating(), is(business.rating));
+        assertThat(instance.getPhone(), is(business.phone));
+        assertThat(instance.isClosed(), is(business.isClosed));
+        assertThat(instance.getReviewCount(), is(business.reviewCount));
+        assertThat(instance.getCoordinates(), is(business.coordinates));
+        assertThat(instance.getCity(), is(business.location.city));
+        assertThat(instance.getState(), is(business.location.state));
+        assertThat(instance.getZipCode(), is(business.location.zipCode));
+        assertThat(instance.getImageURL(), is(business.imageURL));
+        assertThat(instance.getDistance(), is(business.distance));
+        assertThat(instance.getCategoryAliases().size(), is(business.categories.size()));
+    }
+
+    @Test
+    public void testToBusiness()
+    {
+        YelpBusiness result = instance.toBusiness();
+
+        assertThat(result, is(business));
+        assertThat(result, not(sameInstance(business)));
+        assertThat(result.location, not(sameInstance(business.location)));
+    }
+
+    @Test
+    public void testIsUnaffectedByChangesToOriginal()
+    {
+        business.name = newName;
+        business.location.city = newName;
+        business.categories.clear();
+
+        assertThat(instance.getName(), not(newName));
+        assertThat(instance.getCity(), not(newName));
+        assertThat(YelpBusinessSnapshot.of(business), not(instance));
+    }
+
+    @Test
+    public void testCategoriesAreUnmodifiable()
+    {
+        assertThrows(() -> instance.getCategoryAliases().add(newName))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testEqualsAndHashCode()
+    {
+        YelpBusinessSnapshot copy = YelpBusinessSnapshot.of(instance.toBusiness());
+
+        assertThat(copy, is(instance));
+        assertThat(copy.hashCode(), is(instance.hashCode()));
+        assertThat(copy.hashCode(), is(copy.hashCode()));
+        assertThat(YelpBusinessSnapshot.of(other), not(instance));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithEmptyBusiness()
+    {
+        YelpBusinessSnapshot result = YelpBusinessSnapshot.of(new YelpBusiness());
+
+        assertThat(result.getCity(), is((String) null));
+        assertThat(result.toBusiness(), is(new YelpBusiness()));
+        assertThat(result.toString(), notNullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testOfWithNull()
+    {
+        assertThrows(() -> YelpBusinessSnapshot.of(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
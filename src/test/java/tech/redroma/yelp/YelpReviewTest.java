@@ -29,6 +29,7 @@ import tech.sirwellington.alchemy.test.junit.runners.Repeat;
 import static java.time.ZoneId.of;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
 
 /**
  *
@@ -141,4 +142,28 @@ public class YelpReviewTest
         ZonedDateTime expectedTime = ZonedDateTime.of(localTime, of("America/Los_Angeles"));
         assertThat(time, is(expectedTime));
     }
+
+    @Test
+    public void testGetDateTimeCreatedInYelpFormat()
+    {
+        instance.timeCreated = "2016-08-29 00:41:13";
+
+        ZonedDateTime expected = ZonedDateTime.of(2016, 8, 29, 0, 41, 13, 0, of("America/Los_Angeles"));
+        assertThat(instance.getDateTimeCreated(), is(expected));
+    }
+
+    @Test
+    public void testGetDateTimeCreatedIn()
+    {
+        instance.timeCreated = "2016-08-29 00:41:13";
+
+        ZonedDateTime result = instance.getDateTimeCreatedIn(of("America/New_York"));
+        assertThat(result, is(ZonedDateTime.of(2016, 8, 29, 3, 41, 13, 0, of("America/New_York"))));
+
+        instance.timeCreated = null;
+        assertThat(instance.getDateTimeCreatedIn(of("America/New_York")), nullValue());
+
+        assertThrows(() -> instance.getDateTimeCreatedIn(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
 }
\ No newline at end of file
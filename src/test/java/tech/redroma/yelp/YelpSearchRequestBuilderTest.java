@@ -18,6 +18,10 @@
 package tech.redroma.yelp;
 
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -25,6 +29,8 @@ import tech.redroma.yelp.exceptions.YelpBadArgumentException;
 import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
 import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
 
 /**
@@ -63,4 +69,74 @@ public class YelpSearchRequestBuilderTest
         
         assertThrows(() -> instance.build()).isInstanceOf(YelpBadArgumentException.class);
     }
+    
+    @Test
+    public void testWithCategorySet()
+    {
+        CategoryRegistry registry = CategoryRegistry.newInstance();
+        CategorySet categories = registry.setOfAliases("coffee", "bars", "coffee");
+        
+        YelpSearchRequest request = instance.withCategories(categories)
+            .withCoordinate(Coordinate.of(37.76, -122.42))
+            .build();
+        
+        assertThat(request.getCategories(), is("coffee,bars"));
+    }
+    
+    @Test
+    public void testWithCategorySetWhenEmpty()
+    {
+        CategorySet empty = CategorySet.newBuilder(CategoryRegistry.newInstance()).build();
+        
+        assertThrows(() -> instance.withCategories(empty)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.withCategories((CategorySet) null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testWithoutOffset()
+    {
+        YelpSearchRequest request = instance.withCoordinate(Coordinate.of(37.76, -122.42))
+            .withOffset(40)
+            .build();
+
+        YelpSearchRequest withoutOffset = YelpSearchRequest.Builder.from(request)
+            .withoutOffset()
+            .build();
+
+        assertThat(withoutOffset.hasOffset(), is(false));
+        assertThat(withoutOffset.getLatitude(), is(request.getLatitude()));
+    }
+
+    @Test
+    public void testWithBusinessesOpenAtZonedTime()
+    {
+        //St. Louis, at 6pm in its own zone
+        ZonedDateTime sixPm = LocalDateTime.of(2017, 1, 3, 18, 0).atZone(ZoneId.of("America/Chicago"));
+
+        YelpSearchRequest request = instance.withCoordinate(Coordinate.of(38.6270, -90.1994))
+            .withBusinessesOpenAt(sixPm)
+            .build();
+
+        assertThat(request.getOpenAt(), is((int) sixPm.toEpochSecond()));
+
+        //Delhi, half an hour off the hour
+        ZonedDateTime noon = LocalDateTime.of(2017, 1, 3, 12, 0).atZone(ZoneId.of("Asia/Kolkata"));
+        request = instance.withCoordinate(Coordinate.of(28.6139, 77.2090))
+            .withBusinessesOpenAt(noon)
+            .build();
+
+        assertThat(request.getOpenAt(), is((int) Instant.parse("2017-01-03T06:30:00Z").getEpochSecond()));
+    }
+
+    @Test
+    public void testWithBusinessesOpenAtZonedTimeWithBadArgs()
+    {
+        assertThrows(() -> instance.withBusinessesOpenAt((ZonedDateTime) null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        ZonedDateTime beforeTheEpoch = LocalDateTime.of(1960, 1, 1, 0, 0).atZone(ZoneId.of("UTC"));
+
+        assertThrows(() -> instance.withBusinessesOpenAt(beforeTheEpoch))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class YelpSearchResultsTest
+{
+
+    private List<YelpBusiness> businesses;
+
+    private int total;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class));
+        total = one(integers(businesses.size(), 10_000));
+    }
+
+    @Test
+    public void testOf()
+    {
+        YelpSearchResults results = YelpSearchResults.of(businesses, total);
+
+        assertThat(results.getBusinesses(), is(businesses));
+        assertThat(results.getTotal(), is(total));
+        assertThat(results.hasTotal(), is(true));
+        assertThat(results, is(YelpSearchResults.of(businesses, total)));
+        assertThat(results, not(YelpSearchResults.of(businesses, total + 1)));
+    }
+
+    @Test
+    public void testWithoutTotal()
+    {
+        YelpSearchResults results = YelpSearchResults.withoutTotal(businesses);
+
+        assertThat(results.getBusinesses(), is(businesses));
+        assertThat(results.getTotal(), is(YelpSearchResults.UNKNOWN_TOTAL));
+        assertThat(results.hasTotal(), is(false));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithNullBusinesses()
+    {
+        assertThat(YelpSearchResults.withoutTotal(null).getBusinesses(), is(empty()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> YelpSearchResults.of(businesses, -2))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
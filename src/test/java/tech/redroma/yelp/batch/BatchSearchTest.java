@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.batch;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class BatchSearchTest
+{
+
+    @Mock
+    private YelpAPI yelp;
+
+    private List<YelpSearchRequest> requests;
+
+    private BatchSearch instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        int size = one(integers(5, 30));
+        requests = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i)
+        {
+            requests.add(YelpSearchRequest.newBuilder()
+                .withSearchTerm("coffee")
+                .withCoordinate(Coordinate.of(30 + i * 0.1, -100))
+                .build());
+        }
+
+        //Each request returns as many businesses as its position in the batch
+        when(yelp.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            int index = requests.indexOf(call.getArgument(0));
+            return YelpSearchResults.of(listOf(pojos(YelpBusiness.class), index + 1), index + 1);
+        });
+
+        instance = BatchSearch.newBuilder(yelp)
+            .withoutRateLimit()
+            .build();
+    }
+
+    @Test
+    public void testSearchAll()
+    {
+        List<BatchResult> results = instance.searchAll(requests);
+
+        assertThat(results.size(), is(requests.size()));
+
+        for (int i = 0; i < results.size(); ++i)
+        {
+            BatchResult result = results.get(i);
+
+            assertThat(result.getIndex(), is(i));
+            assertThat(result.getRequest(), is(requests.get(i)));
+            assertThat(result.isSuccessful(), is(true));
+            assertThat(result.getResults().getTotal(), is(i + 1));
+        }
+    }
+
+    @Test
+    public void testFailuresAreIsolated()
+    {
+        YelpSearchRequest failing = requests.get(one(integers(0, requests.size())));
+        doThrow(new YelpBadArgumentException()).when(yelp).searchForBusinessesWithTotal(failing);
+
+        List<BatchResult> results = new ArrayList<>();
+        BatchSearch.Summary summary = instance.search(requests, results::add);
+
+        assertThat(results.size(), is(requests.size()));
+        assertThat(summary.getRequests(), is(requests.size()));
+        assertThat(summary.getFailures(), is(1));
+        assertThat(summary.isComplete(), is(false));
+
+        for (BatchResult result : results)
+        {
+            if (result.getRequest() == failing)
+            {
+                assertThat(result.isSuccessful(), is(false));
+                assertThat(result.getFailure(), instanceOf(YelpBadArgumentException.class));
+                assertThat(result.getResults(), nullValue());
+            }
+            else
+            {
+                assertThat(result.getResults(), notNullValue());
+            }
+        }
+    }
+
+    @Test
+    public void testUnexpectedFailuresAreWrapped()
+    {
+        doThrow(new IllegalStateException()).when(yelp).searchForBusinessesWithTotal(requests.get(0));
+
+        BatchResult result = instance.searchAll(requests).get(0);
+
+        assertThat(result.getFailure(), instanceOf(YelpOperationFailedException.class));
+    }
+
+    @Test
+    public void testProgress()
+    {
+        doThrow(new YelpOperationFailedException()).when(yelp).searchForBusinessesWithTotal(requests.get(0));
+
+        List<int[]> reports = new ArrayList<>();
+        instance.search(requests, r -> {}, (completed, failed, total) -> reports.add(new int[] { completed, failed, total }));
+
+        assertThat(reports.size(), is(requests.size()));
+
+        for (int i = 0; i < reports.size(); ++i)
+        {
+            assertThat(reports.get(i)[0], is(i + 1));
+            assertThat(reports.get(i)[2], is(requests.size()));
+        }
+
+        assertThat(reports.get(reports.size() - 1)[1], is(1));
+    }
+
+    @Test
+    public void testConcurrencyLimit()
+    {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger most = new AtomicInteger();
+
+        when(yelp.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            most.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            active.decrementAndGet();
+            return YelpSearchResults.withoutTotal(Collections.emptyList());
+        });
+
+        instance = BatchSearch.newBuilder(yelp)
+            .withoutRateLimit()
+            .withConcurrency(3)
+            .build();
+
+        assertThat(instance.search(requests, r -> {}).isComplete(), is(true));
+        assertThat(most.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void testWithExecutor()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try
+        {
+            instance = BatchSearch.newBuilder(yelp)
+                .withExecutor(executor)
+                .withoutRateLimit()
+                .build();
+
+            assertThat(instance.searchAll(requests).size(), is(requests.size()));
+            assertThat(executor.isShutdown(), is(false));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testRateLimit()
+    {
+        instance = BatchSearch.newBuilder(yelp)
+            .withRequestsPerSecond(50)
+            .build();
+
+        long start = System.currentTimeMillis();
+        instance.searchAll(requests.subList(0, 5));
+        long elapsed = System.currentTimeMillis() - start;
+
+        //The first permit is free; the other four take at least 20ms each
+        assertThat(elapsed >= 70, is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithSharedRateLimiter()
+    {
+        RateLimiter shared = RateLimiter.create(50);
+
+        BatchSearch first = BatchSearch.newBuilder(yelp).withRateLimiter(shared).build();
+        BatchSearch second = BatchSearch.newBuilder(yelp).withRateLimiter(shared).build();
+
+        long start = System.currentTimeMillis();
+        first.searchAll(requests.subList(0, 3));
+        second.searchAll(requests.subList(0, 3));
+        long elapsed = System.currentTimeMillis() - start;
+
+        //Both batches draw from the same 50 permits a second, so the five permits after the first take 100ms
+        assertThat(elapsed >= 90, is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithNoRequests()
+    {
+        BatchSearch.Summary summary = instance.search(Collections.emptyList(), r -> {});
+
+        assertThat(summary.getRequests(), is(0));
+        assertThat(summary.isComplete(), is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> BatchSearch.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BatchSearch.newBuilder(yelp).withConcurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BatchSearch.newBuilder(yelp).withRequestsPerSecond(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BatchSearch.newBuilder(yelp).withRateLimiter(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BatchSearch.newBuilder(yelp).withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchAll(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(requests, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(Arrays.asList(requests.get(0), null), r -> {}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
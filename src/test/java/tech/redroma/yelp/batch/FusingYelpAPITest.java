@@ -0,0 +1,460 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchRequest.SortType;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class FusingYelpAPITest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(34.0522, -118.2437);
+
+    private static final List<String> ALIASES = Arrays.asList("tacos", "ramen", "bakeries");
+
+    @Mock
+    private YelpAPI delegate;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GenerateString
+    private String businessId;
+
+    /** Every business near the center, in the order Yelp returns them. */
+    private List<YelpBusiness> businesses;
+
+    private ExecutorService executor;
+
+    private FusingYelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(10, 45)));
+        businesses.forEach(b -> b.categories = Collections.singletonList(category(ALIASES.get(one(integers(0, ALIASES.size()))))));
+
+        executor = Executors.newCachedThreadPool();
+
+        when(delegate.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            YelpSearchRequest request = call.getArgument(0);
+            List<YelpBusiness> matches = matching(request);
+            int limit = request.hasLimit() ? request.getLimit() : FusingYelpAPI.DEFAULT_LIMIT;
+
+            return YelpSearchResults.of(new ArrayList<>(matches.subList(0, Math.min(limit, matches.size()))), matches.size());
+        });
+
+        //Batches close as soon as they fill up, so tests don't depend on timing
+        instance = FusingYelpAPI.newBuilder(delegate)
+            .withWindow(Duration.ofSeconds(30))
+            .withMaxBatchSize(ALIASES.size())
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFusesConcurrentSearches() throws Exception
+    {
+        List<YelpSearchRequest> requests = ALIASES.stream()
+            .map(alias -> search(alias, 20))
+            .collect(Collectors.toList());
+
+        List<YelpSearchResults> results = searchConcurrently(requests);
+
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            List<YelpBusiness> expected = matching(requests.get(i));
+
+            assertThat(idsOf(results.get(i).getBusinesses()), is(idsOf(expected.subList(0, Math.min(20, expected.size())))));
+            assertThat(results.get(i).getTotal(), is(expected.size()));
+        }
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(any());
+        assertThat(instance.getFusedCalls(), is(1L));
+        assertThat(instance.getFusedSearches(), is((long) requests.size()));
+        assertThat(instance.getFallbacks(), is(0L));
+    }
+
+    @Test
+    public void testFallsBackWhenCutOff() throws Exception
+    {
+        //Enough tacos to fill the fused page, and the others past it
+        List<YelpBusiness> tacos = listOf(pojos(YelpBusiness.class), 60);
+        tacos.forEach(b -> b.categories = Collections.singletonList(category("tacos")));
+        businesses.addAll(0, tacos);
+
+        List<YelpSearchRequest> requests = Arrays.asList(sortedBy(search("tacos", 20), SortType.DISTANCE),
+                                                         sortedBy(search("ramen", 20), SortType.DISTANCE),
+                                                         sortedBy(search("bakeries", 20), SortType.DISTANCE));
+        List<YelpSearchResults> results = searchConcurrently(requests);
+
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            List<YelpBusiness> expected = matching(requests.get(i));
+            assertThat(idsOf(results.get(i).getBusinesses()), is(idsOf(expected.subList(0, Math.min(20, expected.size())))));
+        }
+
+        assertThat(instance.getFusedSearches(), is(1L));
+        assertThat(instance.getFallbacks(), is(2L));
+    }
+
+    @Test
+    public void testFallsBackWhenCutOffByBestMatch() throws Exception
+    {
+        //The tacos fill the fused page, but best match could rank them differently on their own
+        List<YelpBusiness> tacos = listOf(pojos(YelpBusiness.class), 60);
+        tacos.forEach(b -> b.categories = Collections.singletonList(category("tacos")));
+        businesses.addAll(0, tacos);
+
+        List<YelpSearchRequest> requests = Arrays.asList(search("tacos", 20), search("ramen", 20), search("bakeries", 20));
+        List<YelpSearchResults> results = searchConcurrently(requests);
+
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            List<YelpBusiness> expected = matching(requests.get(i));
+            assertThat(idsOf(results.get(i).getBusinesses()), is(idsOf(expected.subList(0, Math.min(20, expected.size())))));
+            verify(delegate).searchForBusinessesWithTotal(requests.get(i));
+        }
+
+        assertThat(instance.getFusedSearches(), is(0L));
+        assertThat(instance.getFallbacks(), is(3L));
+    }
+
+    @Test
+    public void testParentCategoriesAreNotFused() throws Exception
+    {
+        //Yelp matches food to businesses in tacos, ramen and bakeries, though their aliases don't say so
+        YelpSearchRequest food = search("food", 10);
+
+        List<YelpSearchRequest> requests = Arrays.asList(search("tacos", 10), food, search("ramen", 10), search("bakeries", 10));
+        List<YelpSearchResults> results = searchConcurrently(requests);
+
+        verify(delegate).searchForBusinessesWithTotal(food);
+        assertThat(results.get(1), notNullValue());
+        assertThat(instance.getFusedCalls(), is(1L));
+        assertThat(instance.getFusedSearches(), is(3L));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithParentCategories() throws Exception
+    {
+        instance = FusingYelpAPI.newBuilder(delegate)
+            .withWindow(Duration.ofSeconds(30))
+            .withMaxBatchSize(2)
+            .withParentCategories(Arrays.asList("mexican"))
+            .build();
+
+        YelpSearchRequest mexican = search("mexican,ramen", 10);
+        instance.searchForBusinessesWithTotal(mexican);
+
+        verify(delegate).searchForBusinessesWithTotal(mexican);
+        assertThat(instance.getFusedCalls(), is(0L));
+    }
+
+    @Test
+    public void testWithSearchForEveryCategory() throws Exception
+    {
+        YelpSearchRequest everything = YelpSearchRequest.newBuilder()
+            .withSearchTerm("food")
+            .withCoordinate(CENTER)
+            .build();
+
+        List<YelpSearchRequest> requests = Arrays.asList(search("tacos", 10), everything, search("ramen", 10));
+        List<YelpSearchResults> results = searchConcurrently(requests);
+
+        assertThat(idsOf(results.get(1).getBusinesses()), is(idsOf(businesses.subList(0, Math.min(20, businesses.size())))));
+
+        YelpSearchRequest fused = YelpSearchRequest.Builder.from(everything).withLimit(50).build();
+        verify(delegate).searchForBusinessesWithTotal(fused);
+    }
+
+    @Test
+    public void testSearchesWithAnOffsetAreNotFused()
+    {
+        YelpSearchRequest request = YelpSearchRequest.Builder.from(search("tacos", 10))
+            .withOffset(10)
+            .build();
+
+        instance.searchForBusinessesWithTotal(request);
+
+        verify(delegate).searchForBusinessesWithTotal(request);
+        assertThat(instance.getFusedCalls(), is(0L));
+    }
+
+    @Test
+    public void testSingleSearch()
+    {
+        instance = FusingYelpAPI.newBuilder(delegate)
+            .withWindow(Duration.ofMillis(1))
+            .build();
+
+        YelpSearchRequest request = search("ramen", 15);
+        List<YelpBusiness> results = instance.searchForBusinesses(request);
+
+        List<YelpBusiness> expected = matching(request);
+        assertThat(idsOf(results), is(idsOf(expected.subList(0, Math.min(15, expected.size())))));
+
+        verify(delegate).searchForBusinessesWithTotal(request);
+        assertThat(instance.getFusedCalls(), is(0L));
+    }
+
+    @Test
+    public void testWhenDelegateFails() throws Exception
+    {
+        doThrow(new YelpOperationFailedException()).when(delegate).searchForBusinessesWithTotal(any());
+
+        List<Future<YelpSearchResults>> futures = new ArrayList<>();
+
+        for (String alias : ALIASES)
+        {
+            futures.add(executor.submit(() -> instance.searchForBusinessesWithTotal(search(alias, 10))));
+        }
+
+        for (Future<YelpSearchResults> future : futures)
+        {
+            try
+            {
+                future.get();
+                fail("expected the search to fail");
+            }
+            catch (ExecutionException ex)
+            {
+                assertThat(ex.getCause(), instanceOf(YelpOperationFailedException.class));
+            }
+        }
+    }
+
+    @Test
+    public void testFuse()
+    {
+        List<FusingYelpAPI.Member> members = Arrays.asList(new FusingYelpAPI.Member(search("tacos", 5)),
+                                                           new FusingYelpAPI.Member(search("ramen,tacos", 5)));
+
+        YelpSearchRequest fused = FusingYelpAPI.fuse(members);
+
+        assertThat(fused.getCategories(), is("tacos,ramen"));
+        assertThat(fused.getLimit(), is(50));
+        assertThat(fused.getSearchTerm(), is("food"));
+    }
+
+    @Test
+    public void testAnswer()
+    {
+        YelpSearchRequest request = search("bakeries", 50);
+        List<YelpBusiness> full = listOf(pojos(YelpBusiness.class), 50);
+        full.forEach(b -> b.categories = Collections.singletonList(category("tacos")));
+
+        assertThat(FusingYelpAPI.answer(request, YelpSearchResults.of(full, 500)), nullValue());
+
+        YelpSearchResults answer = FusingYelpAPI.answer(request, YelpSearchResults.of(full, 50));
+        assertThat(answer, notNullValue());
+        assertThat(answer.getBusinesses().isEmpty(), is(true));
+        assertThat(answer.getTotal(), is(0));
+
+        answer = FusingYelpAPI.answer(sortedBy(search("tacos", 10), SortType.RATING), YelpSearchResults.withoutTotal(full));
+        assertThat(answer.getBusinesses().size(), is(10));
+        assertThat(answer.hasTotal(), is(false));
+
+        //Best match ranks across every category, so a cut-off page doesn't answer it
+        assertThat(FusingYelpAPI.answer(search("tacos", 10), YelpSearchResults.withoutTotal(full)), nullValue());
+    }
+
+    @Test
+    public void testAnswersAreCopies()
+    {
+        List<YelpBusiness> page = new ArrayList<>(businesses);
+        YelpSearchResults fused = YelpSearchResults.of(page, page.size());
+
+        FusingYelpAPI.answer(search("tacos", 50), fused).getBusinesses().forEach(b -> b.name = "changed");
+
+        Set<String> names = businesses.stream().map(b -> b.name).collect(Collectors.toSet());
+        assertThat(names.contains("changed"), is(false));
+    }
+
+    @Test
+    public void testGetBusinessDetails()
+    {
+        when(delegate.getBusinessDetails(businessId)).thenReturn(details);
+
+        assertThat(instance.getBusinessDetails(businessId), is(details));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> FusingYelpAPI.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FusingYelpAPI.newBuilder(delegate).withWindow(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FusingYelpAPI.newBuilder(delegate).withWindow(Duration.ofMillis(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FusingYelpAPI.newBuilder(delegate).withMaxBatchSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FusingYelpAPI.newBuilder(delegate).withParentCategories(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FusingYelpAPI.newBuilder(delegate).withParentCategories(Arrays.asList("")))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchForBusinessesWithTotal(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testFusionTurnedOff()
+    {
+        instance = FusingYelpAPI.newBuilder(delegate).withMaxBatchSize(1).build();
+
+        YelpSearchRequest request = search("tacos", 10);
+        assertThat(instance.searchForBusinessesWithTotal(request), notNullValue());
+
+        verify(delegate).searchForBusinessesWithTotal(request);
+    }
+
+    private List<YelpSearchResults> searchConcurrently(List<YelpSearchRequest> requests) throws Exception
+    {
+        List<Future<YelpSearchResults>> futures = new ArrayList<>();
+
+        for (YelpSearchRequest request : requests)
+        {
+            Callable<YelpSearchResults> search = () -> instance.searchForBusinessesWithTotal(request);
+            futures.add(executor.submit(search));
+        }
+
+        List<YelpSearchResults> results = new ArrayList<>();
+
+        for (Future<YelpSearchResults> future : futures)
+        {
+            results.add(future.get());
+        }
+
+        return results;
+    }
+
+    private List<YelpBusiness> matching(YelpSearchRequest request)
+    {
+        if (!request.hasCategories())
+        {
+            return businesses;
+        }
+
+        List<String> aliases = Arrays.asList(request.getCategories().split(","));
+
+        return businesses.stream()
+            .filter(b -> aliases.contains(b.categories.get(0).alias))
+            .collect(Collectors.toList());
+    }
+
+    private static YelpSearchRequest search(String categories, int limit)
+    {
+        List<Category> list = Arrays.stream(categories.split(","))
+            .map(FusingYelpAPITest::category)
+            .collect(Collectors.toList());
+
+        return YelpSearchRequest.newBuilder()
+            .withSearchTerm("food")
+            .withCoordinate(CENTER)
+            .withCategories(list)
+            .withLimit(limit)
+            .build();
+    }
+
+    private static YelpSearchRequest sortedBy(YelpSearchRequest request, SortType sortType)
+    {
+        return YelpSearchRequest.Builder.from(request)
+            .withSortBy(sortType)
+            .build();
+    }
+
+    private static Category category(String alias)
+    {
+        return new Category().with(alias, alias);
+    }
+
+    private static List<String> idsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Locale;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpAutocompleteResults;
+import tech.redroma.yelp.YelpAutocompleteResults.Business;
+import tech.redroma.yelp.YelpAutocompleteResults.Term;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.redroma.yelp.Locale.Locales.FRANCE;
+import static tech.redroma.yelp.Locale.Locales.UNITED_STATES;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class AutocompleteCacheTest
+{
+
+    @Mock
+    private YelpAPI delegate;
+
+    private MutableClock clock;
+
+    private Coordinate here;
+
+    private AutocompleteCache cache;
+
+    private YelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        clock = new MutableClock();
+
+        //Somewhere well inside an area, so small moves stay in it
+        here = Coordinate.of(37.7705 + one(doubles(0, 0.0005)), -122.4195 + one(doubles(0, 0.0005)));
+
+        when(delegate.getAutocompleteSuggestions(anyString(), any(), any())).thenAnswer(call -> suggestionsFor(call.getArgument(0)));
+
+        cache = AutocompleteCache.newBuilder()
+            .withTimeToLive(Duration.ofMinutes(5))
+            .build(clock);
+
+        instance = cache.caching(delegate);
+    }
+
+    @Test
+    public void testRepeatedLookupIsCached()
+    {
+        YelpAutocompleteResults first = instance.getAutocompleteSuggestions("piz", here, UNITED_STATES);
+        YelpAutocompleteResults second = instance.getAutocompleteSuggestions("piz", here, UNITED_STATES);
+
+        assertThat(second, is(first));
+        verify(delegate, times(1)).getAutocompleteSuggestions(anyString(), any(), any());
+        assertThat(cache.getExactHits(), is(1L));
+        assertThat(cache.getMisses(), is(1L));
+    }
+
+    @Test
+    public void testLongerPrefixIsFilteredLocally()
+    {
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+
+        YelpAutocompleteResults result = instance.getAutocompleteSuggestions("pizz", here, UNITED_STATES);
+
+        assertThat(result, is(suggestionsFor("pizz")));
+        verify(delegate, never()).getAutocompleteSuggestions("pizz", here, UNITED_STATES);
+        assertThat(cache.getPrefixHits(), is(1L));
+
+        //Words after the first are matched too
+        result = instance.getAutocompleteSuggestions("pie s", here, UNITED_STATES);
+        assertThat(result.businesses, is(Arrays.asList(Business.of("pie-shop", "Pie Shop"))));
+        assertThat(cache.getPrefixHits(), is(2L));
+    }
+
+    @Test
+    public void testCutOffSuggestionsAreNotFiltered()
+    {
+        cache = AutocompleteCache.newBuilder()
+            .withSectionLimit(2)
+            .build(clock);
+
+        instance = cache.caching(delegate);
+
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("pizz", here, UNITED_STATES);
+
+        verify(delegate).getAutocompleteSuggestions("pizz", here, UNITED_STATES);
+        assertThat(cache.getPrefixHits(), is(0L));
+    }
+
+    @Test
+    public void testCaseAndWhitespaceAreIgnored()
+    {
+        instance.getAutocompleteSuggestions("Pie", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("  pie ", here, UNITED_STATES);
+
+        verify(delegate, times(1)).getAutocompleteSuggestions(anyString(), any(), any());
+    }
+
+    @Test
+    public void testSeparateByLocaleAndArea()
+    {
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("pi", here, FRANCE);
+        instance.getAutocompleteSuggestions("pi", Coordinate.of(here.getLatitude() + 1, here.getLongitude()), UNITED_STATES);
+        instance.getAutocompleteSuggestions("pi", null, UNITED_STATES);
+
+        verify(delegate, times(4)).getAutocompleteSuggestions(anyString(), any(), any());
+
+        //Nearby, in the same area
+        instance.getAutocompleteSuggestions("pi", Coordinate.of(here.getLatitude() + 0.0001, here.getLongitude()), UNITED_STATES);
+        verify(delegate, times(4)).getAutocompleteSuggestions(anyString(), any(), any());
+    }
+
+    @Test
+    public void testExpiry()
+    {
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+
+        clock.advance(Duration.ofMinutes(4));
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        verify(delegate, times(1)).getAutocompleteSuggestions(anyString(), any(), any());
+
+        clock.advance(Duration.ofMinutes(1));
+        instance.getAutocompleteSuggestions("piz", here, UNITED_STATES);
+        verify(delegate, times(2)).getAutocompleteSuggestions(anyString(), any(), any());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        cache = AutocompleteCache.newBuilder()
+            .withMaxEntries(2)
+            .build(clock);
+
+        instance = cache.caching(delegate);
+
+        instance.getAutocompleteSuggestions("a", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("b", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("a", here, UNITED_STATES);
+        instance.getAutocompleteSuggestions("c", here, UNITED_STATES);
+
+        assertThat(cache.size(), is(2));
+
+        instance.getAutocompleteSuggestions("a", here, UNITED_STATES);
+        verify(delegate, times(1)).getAutocompleteSuggestions("a", here, UNITED_STATES);
+
+        instance.getAutocompleteSuggestions("b", here, UNITED_STATES);
+        verify(delegate, times(2)).getAutocompleteSuggestions("b", here, UNITED_STATES);
+    }
+
+    @Test
+    public void testAnswersAreCopies()
+    {
+        YelpAutocompleteResults first = instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        first.terms.clear();
+
+        YelpAutocompleteResults second = instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        assertThat(second, is(suggestionsFor("pi")));
+        assertThat(second, not(first));
+    }
+
+    @Test
+    public void testClear()
+    {
+        instance.getAutocompleteSuggestions("pi", here, UNITED_STATES);
+        cache.clear();
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.lookup("pi", here, UNITED_STATES), nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testMatches()
+    {
+        assertThat(AutocompleteCache.matches("Couriers & Delivery Services", "del"), is(true));
+        assertThat(AutocompleteCache.matches("Couriers & Delivery Services", "delivery s"), is(true));
+        assertThat(AutocompleteCache.matches("Model Shops", "del"), is(false));
+        assertThat(AutocompleteCache.matches(null, "del"), is(false));
+        assertThat(AutocompleteCache.normalize("  Pizza \t Hut "), is("pizza hut"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> instance.getAutocompleteSuggestions("", here, UNITED_STATES))
+            .isInstanceOf(YelpBadArgumentException.class);
+
+        assertThrows(() -> cache.caching(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> AutocompleteCache.newBuilder().withMaxEntries(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> AutocompleteCache.newBuilder().withSectionLimit(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> AutocompleteCache.newBuilder().withAreaSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> AutocompleteCache.newBuilder().withTimeToLive(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Suggests every entry that has a word starting with the text, the way Yelp does.
+     */
+    private static YelpAutocompleteResults suggestionsFor(String text)
+    {
+        String prefix = AutocompleteCache.normalize(text);
+
+        YelpAutocompleteResults results = new YelpAutocompleteResults();
+        results.terms = new ArrayList<>();
+        results.businesses = new ArrayList<>();
+        results.categories = new ArrayList<>();
+
+        for (String term : Arrays.asList("Pizza", "Pizza Delivery"))
+        {
+            if (AutocompleteCache.matches(term, prefix))
+            {
+                results.terms.add(Term.of(term));
+            }
+        }
+
+        for (Business business : Arrays.asList(Business.of("pizza-hut", "Pizza Hut"), Business.of("pie-shop", "Pie Shop")))
+        {
+            if (AutocompleteCache.matches(business.name, prefix))
+            {
+                results.businesses.add(business);
+            }
+        }
+
+        for (String alias : Arrays.asList("pizza", "piadina"))
+        {
+            Category category = new Category();
+            category.alias = alias;
+            category.title = Character.toUpperCase(alias.charAt(0)) + alias.substring(1);
+
+            if (AutocompleteCache.matches(category.title, prefix))
+            {
+                results.categories.add(category);
+            }
+        }
+
+        return results;
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}
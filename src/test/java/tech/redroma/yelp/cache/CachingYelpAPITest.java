@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.redroma.yelp.YelpSearchRequest.SortType.DISTANCE;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class CachingYelpAPITest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(40.7128, -74.0060);
+
+    @Mock
+    private YelpAPI delegate;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GenerateString
+    private String businessId;
+
+    private List<YelpBusiness> businesses;
+
+    private List<YelpReview> reviews;
+
+    private YelpSearchRequest request;
+
+    private SearchCache cache;
+
+    private CachingYelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), 50);
+        businesses.forEach(b -> b.coordinates = GeoMath.destination(CENTER.getLatitude(),
+                                                                    CENTER.getLongitude(),
+                                                                    one(doubles(0, 360)),
+                                                                    one(doubles(0, 5_000))));
+        businesses.sort(Comparator.comparingDouble(b -> GeoMath.distanceInMeters(CENTER, b.coordinates)));
+
+        reviews = listOf(pojos(YelpReview.class));
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("pizza")
+            .withCoordinate(CENTER)
+            .withRadiusInMeters(5_000)
+            .withLimit(50)
+            .withSortBy(DISTANCE)
+            .build();
+
+        cache = SearchCache.newBuilder().build();
+        instance = new CachingYelpAPI(delegate, cache);
+
+        when(delegate.searchForBusinessesWithTotal(request)).thenReturn(YelpSearchResults.of(businesses, 500));
+    }
+
+    @Test
+    public void testSearchForBusinessesWithTotal()
+    {
+        YelpSearchResults first = instance.searchForBusinessesWithTotal(request);
+        YelpSearchResults second = instance.searchForBusinessesWithTotal(request);
+
+        assertThat(first.getBusinesses(), is(businesses));
+        assertThat(second.getTotal(), is(500));
+        assertThat(second.getBusinesses().size(), is(businesses.size()));
+        assertThat(second.getBusinesses().get(0).id, is(businesses.get(0).id));
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(request);
+    }
+
+    @Test
+    public void testSearchForBusinesses()
+    {
+        instance.searchForBusinesses(request);
+
+        YelpSearchRequest smaller = YelpSearchRequest.Builder.from(request)
+            .withLimit(20)
+            .build();
+
+        List<YelpBusiness> results = instance.searchForBusinesses(smaller);
+
+        assertThat(results.size(), is(20));
+        assertThat(results.get(19).id, is(businesses.get(19).id));
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(any());
+        verify(delegate, never()).searchForBusinesses(any());
+        assertThat(cache.getContainedHits(), is(1L));
+    }
+
+    @Test
+    public void testGetBusinessDetails()
+    {
+        when(delegate.getBusinessDetails(businessId)).thenReturn(details);
+
+        assertThat(instance.getBusinessDetails(businessId), is(details));
+    }
+
+    @Test
+    public void testGetReviewsForBusiness()
+    {
+        when(delegate.getReviewsForBusiness(businessId)).thenReturn(reviews);
+
+        assertThat(instance.getReviewsForBusiness(businessId), is(reviews));
+    }
+
+    @Test
+    public void testWhenDelegateFails()
+    {
+        when(delegate.searchForBusinessesWithTotal(request)).thenThrow(new YelpOperationFailedException());
+
+        assertThrows(() -> instance.searchForBusinesses(request))
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testFromCache()
+    {
+        YelpAPI api = cache.caching(delegate);
+
+        api.searchForBusinessesWithTotal(request);
+        api.searchForBusinessesWithTotal(request);
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(request);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> new CachingYelpAPI(null, cache))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new CachingYelpAPI(delegate, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchForBusinessesWithTotal(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class PageCacheTest
+{
+
+    private YelpSearchRequest request;
+
+    private List<YelpBusiness> businesses;
+
+    private MutableClock clock;
+
+    private PageCache instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("tacos")
+            .withCoordinate(Coordinate.of(37.7749, -122.4194))
+            .withLimit(10)
+            .withOffset(30)
+            .build();
+
+        businesses = listOf(pojos(YelpBusiness.class), 50);
+
+        clock = new MutableClock();
+
+        instance = PageCache.newBuilder()
+            .withMaxPages(3)
+            .withTimeToLive(Duration.ofMinutes(1))
+            .build(clock);
+    }
+
+    @Test
+    public void testPageOf()
+    {
+        int pageOffset = 50 * one(integers(1, 20));
+
+        YelpSearchRequest page = PageCache.pageOf(request, pageOffset);
+
+        assertThat(page.getLimit(), is(50));
+        assertThat(page.getOffset(), is(pageOffset));
+        assertThat(page.getSearchTerm(), is(request.getSearchTerm()));
+
+        YelpSearchRequest first = PageCache.pageOf(request, 0);
+        assertThat(first.hasOffset(), is(false));
+    }
+
+    @Test
+    public void testGetAndPut()
+    {
+        YelpSearchRequest page = PageCache.pageOf(request, 0);
+
+        assertThat(instance.get(page), nullValue());
+
+        instance.put(page, YelpSearchResults.of(businesses, 500));
+        YelpSearchResults cached = instance.get(page);
+
+        assertThat(cached, notNullValue());
+        assertThat(cached.getTotal(), is(500));
+        assertThat(cached.getBusinesses().size(), is(businesses.size()));
+        assertThat(cached.getBusinesses().get(0).id, is(businesses.get(0).id));
+        assertThat(instance.getHits(), is(1L));
+        assertThat(instance.getMisses(), is(1L));
+    }
+
+    @Test
+    public void testResultsAreCopies()
+    {
+        YelpSearchRequest page = PageCache.pageOf(request, 0);
+        instance.put(page, YelpSearchResults.withoutTotal(businesses));
+
+        instance.get(page).getBusinesses().get(0).name = "changed";
+
+        YelpSearchResults cached = instance.get(page);
+        assertThat(cached.getBusinesses().get(0).name, is(businesses.get(0).name));
+        assertThat(cached.hasTotal(), is(false));
+    }
+
+    @Test
+    public void testExpires()
+    {
+        YelpSearchRequest page = PageCache.pageOf(request, 0);
+        instance.put(page, YelpSearchResults.of(businesses, 500));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(instance.get(page), notNullValue());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(instance.get(page), nullValue());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        YelpSearchRequest first = PageCache.pageOf(request, 0);
+        YelpSearchRequest second = PageCache.pageOf(request, 50);
+        YelpSearchRequest third = PageCache.pageOf(request, 100);
+        YelpSearchRequest fourth = PageCache.pageOf(request, 150);
+
+        instance.put(first, YelpSearchResults.of(businesses, 500));
+        instance.put(second, YelpSearchResults.of(businesses, 500));
+        instance.put(third, YelpSearchResults.of(businesses, 500));
+
+        instance.get(first);
+        instance.put(fourth, YelpSearchResults.of(businesses, 500));
+
+        assertThat(instance.size(), is(3));
+        assertThat(instance.get(first), notNullValue());
+        assertThat(instance.get(second), nullValue());
+    }
+
+    @Test
+    public void testPutNull()
+    {
+        instance.put(PageCache.pageOf(request, 0), null);
+
+        assertThat(instance.size(), is(0));
+    }
+
+    @Test
+    public void testClear()
+    {
+        instance.put(PageCache.pageOf(request, 0), YelpSearchResults.of(businesses, 500));
+        instance.clear();
+
+        assertThat(instance.size(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderEdgeCases()
+    {
+        assertThrows(() -> PageCache.newBuilder().withMaxPages(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PageCache.newBuilder().withTimeToLive(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PageCache.newBuilder().withTimeToLive(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PageCache.newBuilder().build(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class PagingYelpAPITest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(40.7128, -74.0060);
+
+    @Mock
+    private YelpAPI delegate;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GenerateString
+    private String businessId;
+
+    /** Every matching business, in the order Yelp returns them. */
+    private List<YelpBusiness> businesses;
+
+    private List<YelpReview> reviews;
+
+    private YelpSearchRequest request;
+
+    private PageCache cache;
+
+    private PagingYelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(100, 140)));
+        reviews = listOf(pojos(YelpReview.class));
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("pizza")
+            .withCoordinate(CENTER)
+            .build();
+
+        cache = PageCache.newBuilder().build();
+        instance = new PagingYelpAPI(delegate, cache);
+
+        when(delegate.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            YelpSearchRequest page = call.getArgument(0);
+            int offset = page.hasOffset() ? page.getOffset() : 0;
+            int from = Math.min(offset, businesses.size());
+            int to = Math.min(offset + page.getLimit(), businesses.size());
+
+            return YelpSearchResults.of(businesses.subList(from, to), businesses.size());
+        });
+    }
+
+    @Test
+    public void testPagingThroughResults()
+    {
+        for (int offset = 0; offset < 50; offset += 10)
+        {
+            YelpSearchResults results = instance.searchForBusinessesWithTotal(pageOf(offset, 10));
+
+            assertThat(idsOf(results.getBusinesses()), is(idsOf(businesses.subList(offset, offset + 10))));
+            assertThat(results.getTotal(), is(businesses.size()));
+        }
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(any());
+        verify(delegate, never()).searchForBusinesses(any());
+        assertThat(cache.getHits(), is(4L));
+    }
+
+    @Test
+    public void testWindowAcrossPages()
+    {
+        int offset = one(integers(1, 49));
+        int limit = one(integers(2, 50));
+
+        List<YelpBusiness> results = instance.searchForBusinesses(pageOf(offset, limit));
+
+        assertThat(idsOf(results), is(idsOf(businesses.subList(offset, offset + limit))));
+
+        int pages = offset + limit > 50 ? 2 : 1;
+        verify(delegate, times(pages)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testFetchesAlignedPages()
+    {
+        instance.searchForBusinesses(pageOf(55, 10));
+
+        YelpSearchRequest expected = YelpSearchRequest.Builder.from(request)
+            .withLimit(50)
+            .withOffset(50)
+            .build();
+
+        verify(delegate).searchForBusinessesWithTotal(expected);
+    }
+
+    @Test
+    public void testDefaultLimit()
+    {
+        List<YelpBusiness> results = instance.searchForBusinesses(request);
+
+        assertThat(idsOf(results), is(idsOf(businesses.subList(0, SearchCache.DEFAULT_LIMIT))));
+    }
+
+    @Test
+    public void testPastTheLastResult()
+    {
+        int offset = businesses.size() - 5;
+
+        List<YelpBusiness> results = instance.searchForBusinesses(pageOf(offset, 20));
+
+        assertThat(idsOf(results), is(idsOf(businesses.subList(offset, businesses.size()))));
+
+        List<YelpBusiness> none = instance.searchForBusinesses(pageOf(businesses.size() + 60, 20));
+        assertThat(none.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testResultsAreCopies()
+    {
+        String name = businesses.get(0).name;
+        instance.searchForBusinesses(pageOf(0, 10));
+
+        instance.searchForBusinesses(pageOf(0, 10)).get(0).name = "changed";
+
+        assertThat(instance.searchForBusinesses(pageOf(0, 10)).get(0).name, is(name));
+    }
+
+    @Test
+    public void testWhenDelegateFails()
+    {
+        doThrow(new YelpOperationFailedException()).when(delegate).searchForBusinessesWithTotal(any());
+
+        assertThrows(() -> instance.searchForBusinesses(request))
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testGetBusinessDetails()
+    {
+        when(delegate.getBusinessDetails(businessId)).thenReturn(details);
+
+        assertThat(instance.getBusinessDetails(businessId), is(details));
+    }
+
+    @Test
+    public void testGetReviewsForBusiness()
+    {
+        when(delegate.getReviewsForBusiness(businessId)).thenReturn(reviews);
+
+        assertThat(instance.getReviewsForBusiness(businessId), is(reviews));
+    }
+
+    @Test
+    public void testFromCache()
+    {
+        YelpAPI api = cache.normalizing(delegate);
+
+        api.searchForBusinesses(pageOf(0, 10));
+        api.searchForBusinesses(pageOf(10, 10));
+
+        verify(delegate, times(1)).searchForBusinessesWithTotal(any());
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> new PagingYelpAPI(null, cache))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new PagingYelpAPI(delegate, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchForBusinessesWithTotal(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private YelpSearchRequest pageOf(int offset, int limit)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.Builder.from(request)
+            .withLimit(limit);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+
+        return builder.build();
+    }
+
+    private static List<String> idsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+}
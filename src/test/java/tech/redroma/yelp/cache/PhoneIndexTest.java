@@ -0,0 +1,339 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class PhoneIndexTest
+{
+
+    @Mock
+    private YelpAPI delegate;
+
+    private YelpSearchRequest request;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    private MutableClock clock;
+
+    private List<YelpBusiness> businesses;
+
+    private PhoneIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        clock = new MutableClock();
+
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(5, 50)));
+
+        for (int i = 0; i < businesses.size(); ++i)
+        {
+            businesses.get(i).phone = String.format("+1415555%04d", i);
+        }
+
+        details.phone = "+14159083801";
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("coffee")
+            .withCoordinate(Coordinate.of(37.7749, -122.4194))
+            .build();
+
+        instance = new PhoneIndex(PhoneIndex.DEFAULT_COUNTRY_CODE, clock);
+        instance.addAll(businesses);
+    }
+
+    @Test
+    public void testLookup()
+    {
+        YelpBusiness business = businesses.get(one(integers(0, businesses.size())));
+
+        List<YelpBusiness> results = instance.lookup(business.phone);
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).id, is(business.id));
+        assertThat(results.get(0).phone, is(business.phone));
+        assertThat(results.get(0).distance, nullValue());
+        assertThat(instance.getHits(), is(1L));
+    }
+
+    @Test
+    public void testLookupInOtherForms()
+    {
+        YelpBusiness business = businesses.get(0);
+
+        assertThat(instance.lookup("(415) 555-0000").get(0).id, is(business.id));
+        assertThat(instance.lookup("1-415-555-0000").get(0).id, is(business.id));
+        assertThat(instance.lookup("415.555.0000 ext. 12").get(0).id, is(business.id));
+        assertThat(instance.lookup("011 1 415 555 0000").get(0).id, is(business.id));
+    }
+
+    @Test
+    public void testLookupWhenUnknown()
+    {
+        assertThat(instance.lookup("+442079460958"), is(empty()));
+        assertThat(instance.lookup("not a number"), is(empty()));
+        assertThat(instance.lookup(null), is(empty()));
+        assertThat(instance.getMisses(), is(3L));
+    }
+
+    @Test
+    public void testAddDetails()
+    {
+        assertThat(instance.add(details), is(true));
+        assertThat(instance.lookup("415-908-3801").get(0).id, is(details.id));
+    }
+
+    @Test
+    public void testAddIgnoresIncompleteBusinesses()
+    {
+        YelpBusiness business = businesses.get(0);
+        business.id = "new-id";
+        business.phone = "";
+
+        assertThat(instance.add(business), is(false));
+        assertThat(instance.add((YelpBusiness) null), is(false));
+        assertThat(instance.add((YelpBusinessDetails) null), is(false));
+        assertThat(instance.addAll(null), is(0));
+        assertThat(instance.size(), is(businesses.size()));
+    }
+
+    @Test
+    public void testAddReplacesExisting()
+    {
+        YelpBusiness business = businesses.get(0);
+        String oldPhone = business.phone;
+        business.phone = "+14159083801";
+
+        instance.add(business);
+
+        assertThat(instance.size(), is(businesses.size()));
+        assertThat(instance.lookup(oldPhone), is(empty()));
+        assertThat(instance.lookup(business.phone).get(0).id, is(business.id));
+    }
+
+    @Test
+    public void testSharedNumber()
+    {
+        YelpBusiness first = businesses.get(0);
+        YelpBusiness second = businesses.get(1);
+        second.phone = "(415) 555-0000";
+
+        instance.add(second);
+
+        List<YelpBusiness> results = instance.lookup(first.phone);
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).id, is(first.id));
+        assertThat(results.get(1).id, is(second.id));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        YelpBusiness business = businesses.get(0);
+
+        assertThat(instance.remove(business.id), is(true));
+        assertThat(instance.remove(business.id), is(false));
+        assertThat(instance.remove(null), is(false));
+        assertThat(instance.lookup(business.phone), is(empty()));
+        assertThat(instance.size(), is(businesses.size() - 1));
+    }
+
+    @Test
+    public void testEvictOlderThan()
+    {
+        clock.advance(Duration.ofHours(2));
+        instance.add(details);
+
+        assertThat(instance.evictOlderThan(Duration.ofHours(1)), is(businesses.size()));
+        assertThat(instance.size(), is(1));
+        assertThat(instance.lookup(details.phone), is(not(empty())));
+
+        assertThrows(() -> instance.evictOlderThan(Duration.ofHours(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testClear()
+    {
+        instance.clear();
+
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(instance.lookup(businesses.get(0).phone), is(empty()));
+    }
+
+    @Test
+    public void testIndexingAnswersKnownNumbers()
+    {
+        when(delegate.searchForBusinesses(request)).thenReturn(businesses);
+        YelpAPI api = new PhoneIndex(PhoneIndex.DEFAULT_COUNTRY_CODE, clock).indexing(delegate);
+
+        api.searchForBusinesses(request);
+
+        YelpBusiness business = businesses.get(0);
+        List<YelpBusiness> results = api.searchForBusinessesByPhone("(415) 555-0000");
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).id, is(business.id));
+        verify(delegate, never()).searchForBusinessesByPhone(anyString());
+    }
+
+    @Test
+    public void testIndexingCallsOnMiss()
+    {
+        YelpBusiness business = businesses.get(0);
+        business.phone = "+14159083801";
+        when(delegate.searchForBusinessesByPhone(any())).thenReturn(Arrays.asList(business));
+
+        YelpAPI api = instance.indexing(delegate);
+
+        List<YelpBusiness> results = api.searchForBusinessesByPhone("415 908 3801");
+        assertThat(results, contains(business));
+        verify(delegate).searchForBusinessesByPhone("+14159083801");
+
+        //The result is now known
+        api.searchForBusinessesByPhone("415 908 3801");
+        verify(delegate).searchForBusinessesByPhone(anyString());
+    }
+
+    @Test
+    public void testIndexingAddsDetails()
+    {
+        when(delegate.getBusinessDetails(details.id)).thenReturn(details);
+
+        YelpAPI api = instance.indexing(delegate);
+        api.getBusinessDetails(details.id);
+
+        assertThat(api.searchForBusinessesByPhone(details.phone).get(0).id, is(details.id));
+        verify(delegate, never()).searchForBusinessesByPhone(anyString());
+    }
+
+    @DontRepeat
+    @Test
+    public void testIndexingWithBadArgs()
+    {
+        YelpAPI api = instance.indexing(delegate);
+
+        assertThrows(() -> api.searchForBusinessesByPhone("call me"))
+            .isInstanceOf(YelpBadArgumentException.class);
+
+        assertThrows(() -> instance.indexing(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testToE164()
+    {
+        assertThat(PhoneIndex.toE164("+1 (415) 908-3801", 1), is("+14159083801"));
+        assertThat(PhoneIndex.toE164("14159083801", 1), is("+14159083801"));
+        assertThat(PhoneIndex.toE164("415-908-3801 x200", 1), is("+14159083801"));
+        assertThat(PhoneIndex.toE164("020 7946 0958", 44), is("+442079460958"));
+        assertThat(PhoneIndex.toE164("0044 20 7946 0958", 1), is("+442079460958"));
+        assertThat(PhoneIndex.toE164("+44 (0)20 7946 0958", 1), is("+442079460958"));
+        assertThat(PhoneIndex.toE164("908-3801", 1), nullValue());
+        assertThat(PhoneIndex.toE164("+1234567890123456", 1), nullValue());
+        assertThat(PhoneIndex.toE164("", 1), nullValue());
+        assertThat(PhoneIndex.toE164(null, 1), nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructorWithBadArgs()
+    {
+        assertThrows(() -> PhoneIndex.newInstance(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PhoneIndex.newInstance(1000))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}
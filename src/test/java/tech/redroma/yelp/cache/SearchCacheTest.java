@@ -0,0 +1,328 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.YelpSearchRequest.SortType.DISTANCE;
+import static tech.redroma.yelp.YelpSearchRequest.SortType.RATING;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class SearchCacheTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    /** Every business within 5km of the center, nearest first. */
+    private List<YelpBusiness> businesses;
+
+    private MutableClock clock;
+
+    private SearchCache instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 200)));
+        businesses.forEach(b -> b.coordinates = GeoMath.destination(CENTER.getLatitude(),
+                                                                    CENTER.getLongitude(),
+                                                                    one(doubles(0, 360)),
+                                                                    one(doubles(0, 5_000))));
+        businesses.forEach(b -> b.distance = GeoMath.distanceInMeters(CENTER, b.coordinates));
+        businesses.sort(Comparator.comparingDouble(b -> b.distance));
+
+        clock = new MutableClock();
+
+        instance = SearchCache.newBuilder()
+            .withMaxEntries(10)
+            .withTimeToLive(Duration.ofMinutes(5))
+            .build(clock);
+    }
+
+    @Test
+    public void testExactHit()
+    {
+        YelpSearchRequest request = search(CENTER, 5_000, 50, RATING);
+        YelpSearchResults results = YelpSearchResults.of(businesses.subList(0, 50), businesses.size());
+
+        assertThat(instance.lookup(request), nullValue());
+
+        instance.put(request, results);
+        YelpSearchResults cached = instance.lookup(request);
+
+        assertThat(idsOf(cached.getBusinesses()), is(idsOf(results.getBusinesses())));
+        assertThat(cached.getTotal(), is(businesses.size()));
+        assertThat(instance.getExactHits(), is(1L));
+        assertThat(instance.getMisses(), is(1L));
+    }
+
+    @Test
+    public void testAnswersAreCopies()
+    {
+        YelpSearchRequest request = search(CENTER, 5_000, 50, DISTANCE);
+        instance.put(request, YelpSearchResults.of(businesses.subList(0, 50), businesses.size()));
+
+        instance.lookup(request).getBusinesses().get(0).name = "changed";
+
+        assertThat(instance.lookup(request).getBusinesses().get(0).name, is(businesses.get(0).name));
+    }
+
+    @Test
+    public void testSmallerRadius()
+    {
+        instance.put(search(CENTER, 5_000, 50, DISTANCE), YelpSearchResults.of(businesses.subList(0, 50), businesses.size()));
+
+        double farthest = businesses.get(49).distance;
+        int radius = (int) Math.max(1, Math.floor(farthest) - 1);
+
+        YelpSearchResults answer = instance.lookup(search(CENTER, radius, 50, DISTANCE));
+
+        List<YelpBusiness> expected = businesses.stream()
+            .filter(b -> b.distance <= radius)
+            .collect(Collectors.toList());
+
+        assertThat(answer, notNullValue());
+        assertThat(idsOf(answer.getBusinesses()), is(idsOf(expected)));
+        assertThat(answer.getTotal(), is(expected.size()));
+        assertThat(instance.getContainedHits(), is(1L));
+    }
+
+    @Test
+    public void testSmallerLimit()
+    {
+        instance.put(search(CENTER, 5_000, 50, DISTANCE), YelpSearchResults.of(businesses.subList(0, 50), businesses.size()));
+
+        int limit = one(integers(1, 39));
+        int offset = one(integers(0, 10));
+
+        YelpSearchResults answer = instance.lookup(search(CENTER, 5_000, limit, offset, DISTANCE));
+
+        assertThat(answer, notNullValue());
+        assertThat(idsOf(answer.getBusinesses()), is(idsOf(businesses.subList(offset, offset + limit))));
+        assertThat(answer.hasTotal(), is(false));
+    }
+
+    @Test
+    public void testNearbyCenter()
+    {
+        //The cached search returned everything in its circle
+        instance.put(search(CENTER, 5_000, 50, RATING), YelpSearchResults.of(businesses.subList(0, 40), 40));
+
+        Coordinate nearby = GeoMath.destination(CENTER.getLatitude(), CENTER.getLongitude(), one(doubles(0, 360)), 1_000);
+        int radius = one(integers(100, 3_900));
+
+        YelpSearchResults answer = instance.lookup(search(nearby, radius, 50, DISTANCE));
+
+        List<String> expected = businesses.subList(0, 40).stream()
+            .filter(b -> GeoMath.distanceInMeters(nearby, b.coordinates) <= radius)
+            .sorted(Comparator.comparingDouble(b -> GeoMath.distanceInMeters(nearby, b.coordinates)))
+            .limit(50)
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+
+        assertThat(answer, notNullValue());
+        assertThat(idsOf(answer.getBusinesses()), is(expected));
+
+        for (YelpBusiness business : answer.getBusinesses())
+        {
+            assertThat(business.distance, is(GeoMath.distanceInMeters(nearby, business.coordinates)));
+        }
+    }
+
+    @Test
+    public void testWhenNotContained()
+    {
+        instance.put(search(CENTER, 5_000, 50, DISTANCE), YelpSearchResults.of(businesses.subList(0, 50), businesses.size()));
+
+        //Beyond the farthest result, the cached search may have missed businesses
+        int radius = (int) Math.ceil(businesses.get(49).distance) + 1;
+        assertThat(instance.lookup(search(CENTER, radius, 50, DISTANCE)), nullValue());
+
+        //Other sorts can't be reproduced
+        assertThat(instance.lookup(search(CENTER, 1_000, 10, RATING)), nullValue());
+
+        //Nor can other terms
+        YelpSearchRequest otherTerm = YelpSearchRequest.Builder.from(search(CENTER, 1_000, 10, DISTANCE))
+            .withSearchTerm("tacos")
+            .build();
+        assertThat(instance.lookup(otherTerm), nullValue());
+
+        assertThat(instance.getContainedHits(), is(0L));
+    }
+
+    @Test
+    public void testExpiry()
+    {
+        YelpSearchRequest request = search(CENTER, 5_000, 50, DISTANCE);
+        instance.put(request, YelpSearchResults.of(businesses.subList(0, 50), businesses.size()));
+
+        clock.advance(Duration.ofMinutes(4));
+        assertThat(instance.lookup(request), notNullValue());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(instance.lookup(request), nullValue());
+        assertThat(instance.lookup(search(CENTER, 100, 5, DISTANCE)), nullValue());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        YelpSearchRequest first = search(CENTER, 1_000, 50, RATING);
+        instance.put(first, YelpSearchResults.of(businesses.subList(0, 5), 5));
+
+        for (int i = 0; i < 10; ++i)
+        {
+            instance.put(search(CENTER, 2_000 + i, 50, RATING), YelpSearchResults.of(businesses.subList(0, 5), 5));
+        }
+
+        assertThat(instance.size(), is(10));
+        assertThat(instance.lookup(first), nullValue());
+
+        instance.clear();
+        assertThat(instance.size(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testAddressSearchesOnlyMatchExactly()
+    {
+        Address address = new Address();
+        address.address1 = "1 Market St";
+        address.city = "San Francisco";
+
+        YelpSearchRequest request = YelpSearchRequest.newBuilder()
+            .withLocation(address)
+            .withSortBy(DISTANCE)
+            .build();
+
+        instance.put(request, YelpSearchResults.of(businesses.subList(0, 5), 5));
+
+        assertThat(instance.lookup(request), notNullValue());
+        assertThat(instance.lookup(search(CENTER, 100, 5, DISTANCE)), nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderWithBadArgs()
+    {
+        assertThrows(() -> SearchCache.newBuilder().withMaxEntries(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> SearchCache.newBuilder().withTimeToLive(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> SearchCache.newBuilder().withTimeToLive(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.caching(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static YelpSearchRequest search(Coordinate center, int radius, int limit, YelpSearchRequest.SortType sort)
+    {
+        return search(center, radius, limit, 0, sort);
+    }
+
+    private static YelpSearchRequest search(Coordinate center, int radius, int limit, int offset, YelpSearchRequest.SortType sort)
+    {
+        YelpSearchRequest.Builder builder = YelpSearchRequest.newBuilder()
+            .withSearchTerm("coffee")
+            .withCoordinate(center)
+            .withRadiusInMeters(radius)
+            .withLimit(limit)
+            .withSortBy(sort);
+
+        if (offset > 0)
+        {
+            builder.withOffset(offset);
+        }
+
+        return builder.build();
+    }
+
+    private static List<String> idsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.codec;
+
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Resources;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class YelpCodecTest
+{
+
+    private static final Gson GSON = new Gson();
+
+    @GeneratePojo
+    private YelpBusiness business;
+
+    @GeneratePojo
+    private YelpBusiness other;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GeneratePojo
+    private YelpReview review;
+
+    private YelpCodec instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        business.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+        other.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+        details.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+
+        instance = YelpCodec.newInstance();
+    }
+
+    @Test
+    public void testEncodeBusiness()
+    {
+        byte[] bytes = instance.encode(business);
+
+        YelpBusiness result = instance.decodeBusiness(ByteBuffer.wrap(bytes));
+        assertThat(result, is(business));
+    }
+
+    @Test
+    public void testEncodeBusinesses()
+    {
+        List<YelpBusiness> businesses = Arrays.asList(business, other, business);
+
+        ByteBuffer buffer = ByteBuffer.wrap(instance.encodeBusinesses(businesses));
+        List<YelpBusiness> result = instance.decodeBusinesses(buffer);
+
+        assertThat(result, is(businesses));
+        assertThat(buffer.remaining(), is(0));
+    }
+
+    @Test
+    public void testEncodeBusinessesWithEmptyList()
+    {
+        byte[] bytes = instance.encodeBusinesses(new ArrayList<>());
+
+        assertThat(instance.decodeBusinesses(ByteBuffer.wrap(bytes)).isEmpty(), is(true));
+        assertThat(instance.decodeBusiness(ByteBuffer.wrap(bytes)), nullValue());
+    }
+
+    @Test
+    public void testEncodeBusinessWithMissingFields()
+    {
+        business.id = null;
+        business.rating = null;
+        business.isClosed = null;
+        business.categories = null;
+        business.coordinates = null;
+        business.location.city = null;
+        business.distance = null;
+
+        YelpBusiness result = instance.decodeBusiness(ByteBuffer.wrap(instance.encode(business)));
+        assertThat(result, is(business));
+    }
+
+    @Test
+    public void testEncodeBusinessWithBooleans()
+    {
+        business.isClosed = true;
+        assertThat(instance.decodeBusiness(ByteBuffer.wrap(instance.encode(business))).isClosed, is(true));
+
+        business.isClosed = false;
+        assertThat(instance.decodeBusiness(ByteBuffer.wrap(instance.encode(business))).isClosed, is(false));
+    }
+
+    @Test
+    public void testEncodeBusinessWithNegativeReviewCount()
+    {
+        business.reviewCount = -business.reviewCount - 1;
+
+        YelpBusiness result = instance.decodeBusiness(ByteBuffer.wrap(instance.encode(business)));
+        assertThat(result.reviewCount, is(business.reviewCount));
+    }
+
+    @Test
+    public void testEncodeDetails()
+    {
+        YelpBusinessDetails result = instance.decodeDetails(ByteBuffer.wrap(instance.encode(details)));
+        assertThat(result, is(details));
+    }
+
+    @Test
+    public void testEncodeDetailsWithMissingFields()
+    {
+        details.isClaimed = null;
+        details.price = null;
+        details.photosURLS = null;
+        details.hours.get(0).isOpenNow = null;
+        details.hours.get(0).open = null;
+        details.location = null;
+
+        YelpBusinessDetails result = instance.decodeDetails(ByteBuffer.wrap(instance.encode(details)));
+        assertThat(result, is(details));
+    }
+
+    @Test
+    public void testEncodeReviews()
+    {
+        List<YelpReview> reviews = Arrays.asList(review, review);
+
+        List<YelpReview> result = instance.decodeReviews(ByteBuffer.wrap(instance.encodeReviews(reviews)));
+        assertThat(result, is(reviews));
+    }
+
+    @Test
+    public void testEncodeReviewsWithoutUser()
+    {
+        review.user = null;
+        review.rating = null;
+
+        List<YelpReview> reviews = Arrays.asList(review);
+
+        List<YelpReview> result = instance.decodeReviews(ByteBuffer.wrap(instance.encodeReviews(reviews)));
+        assertThat(result, is(reviews));
+    }
+
+    @Test
+    public void testNullElementsAreSkipped()
+    {
+        List<YelpBusiness> businesses = Arrays.asList(business, null, other);
+
+        List<YelpBusiness> result = instance.decodeBusinesses(ByteBuffer.wrap(instance.encodeBusinesses(businesses)));
+        assertThat(result, is(Arrays.asList(business, other)));
+    }
+
+    @Test
+    public void testDecodeFromDirectBuffer()
+    {
+        byte[] bytes = instance.encode(details);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+
+        assertThat(instance.decodeDetails(buffer), is(details));
+    }
+
+    @Test
+    public void testDecodeFromSlice()
+    {
+        byte[] bytes = instance.encode(business);
+        byte[] padded = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, padded, 5, bytes.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 5, bytes.length).slice();
+
+        assertThat(instance.decodeBusiness(buffer), is(business));
+    }
+
+    @Test
+    public void testDecodeConsecutiveMessages()
+    {
+        byte[] first = instance.encode(business);
+        byte[] second = instance.encode(details);
+
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length);
+        buffer.put(first).put(second).flip();
+
+        assertThat(instance.decodeBusiness(buffer), is(business));
+        assertThat(instance.decodeDetails(buffer), is(details));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void testRepeatedStringsAreStoredOnce()
+    {
+        other.location = business.location;
+        other.categories = business.categories;
+
+        int single = instance.encode(business).length;
+        int twice = instance.encodeBusinesses(Arrays.asList(business, other)).length;
+
+        assertThat(twice, lessThan(single * 2));
+    }
+
+    @DontRepeat
+    @Test
+    public void testIsSmallerThanJson() throws Exception
+    {
+        YelpBusiness sample = GSON.fromJson(Resources.loadResource("business.json"), YelpBusiness.class);
+        List<YelpBusiness> page = new ArrayList<>();
+
+        for (int i = 0; i < 50; ++i)
+        {
+            page.add(sample);
+        }
+
+        int jsonSize = GSON.toJson(page).getBytes(UTF_8).length;
+        int binarySize = instance.encodeBusinesses(page).length;
+
+        assertThat(binarySize * 3, lessThan(jsonSize));
+        assertThat(instance.decodeBusinesses(ByteBuffer.wrap(instance.encodeBusinesses(page))), is(page));
+    }
+
+    @DontRepeat
+    @Test
+    public void testDetailsResourceRoundTrip() throws Exception
+    {
+        YelpBusinessDetails sample = GSON.fromJson(Resources.loadResource("business-details.json"),
+                                                   YelpBusinessDetails.class);
+
+        byte[] bytes = instance.encode(sample);
+        assertThat(instance.decodeDetails(ByteBuffer.wrap(bytes)), is(sample));
+        assertThat(bytes.length, lessThan(GSON.toJson(sample).getBytes(UTF_8).length));
+    }
+
+    @Test
+    public void testDecodeWithWrongType()
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(instance.encode(business));
+
+        assertThrows(() -> instance.decodeDetails(buffer))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @Test
+    public void testDecodeWithBadMagic()
+    {
+        byte[] bytes = instance.encode(business);
+        bytes[0] = '{';
+
+        assertThrows(() -> instance.decodeBusiness(ByteBuffer.wrap(bytes)))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @Test
+    public void testDecodeWithUnsupportedVersion()
+    {
+        byte[] bytes = instance.encode(business);
+        bytes[2] = (byte) (YelpCodec.VERSION + 1);
+
+        assertThrows(() -> instance.decodeBusiness(ByteBuffer.wrap(bytes)))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @Test
+    public void testDecodeWithTruncatedMessage()
+    {
+        byte[] bytes = instance.encode(details);
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        assertThrows(() -> instance.decodeDetails(ByteBuffer.wrap(truncated)))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testDecodeWithImpossibleCount()
+    {
+        //An empty list ends with its count, which is replaced with one far larger than the message
+        byte[] empty = instance.encodeBusinesses(Collections.emptyList());
+        byte[] huge = withLastByteReplacedBy(empty, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x07);
+
+        assertThrows(() -> instance.decodeBusinesses(ByteBuffer.wrap(huge)))
+            .isInstanceOf(YelpBadArgumentException.class);
+
+        byte[] negative = withLastByteReplacedBy(empty, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x0F);
+
+        assertThrows(() -> instance.decodeBusinesses(ByteBuffer.wrap(negative)))
+            .isInstanceOf(YelpBadArgumentException.class);
+
+        byte[] reviews = withLastByteReplacedBy(instance.encodeReviews(Collections.emptyList()), (byte) 0x7F);
+
+        assertThrows(() -> instance.decodeReviews(ByteBuffer.wrap(reviews)))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> instance.encode((YelpBusiness) null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.encode((YelpBusinessDetails) null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.encodeBusinesses(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.encodeReviews(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.decodeBusinesses(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] withLastByteReplacedBy(byte[] bytes, byte... replacement)
+    {
+        byte[] result = Arrays.copyOf(bytes, bytes.length - 1 + replacement.length);
+        System.arraycopy(replacement, 0, result, bytes.length - 1, replacement.length);
+        return result;
+    }
+
+}
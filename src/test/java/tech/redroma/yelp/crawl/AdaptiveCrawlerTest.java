@@ -0,0 +1,271 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(5)
+@RunWith(AlchemyTestRunner.class)
+public class AdaptiveCrawlerTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private static final BoundingBox AREA = BoundingBox.of(CENTER.getLatitude() - 0.5,
+                                                           CENTER.getLongitude() - 0.5,
+                                                           CENTER.getLatitude() + 0.5,
+                                                           CENTER.getLongitude() + 0.5);
+
+    private List<YelpBusiness> businesses;
+
+    private YelpSearchRequest template;
+
+    private AdaptiveCrawler instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = new ArrayList<>();
+
+        //A dense downtown, far beyond what a single search can page through
+        List<YelpBusiness> downtown = listOf(pojos(YelpBusiness.class), one(integers(1_200, 2_500)));
+        downtown.forEach(b -> b.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.005, 0.005)),
+                                                             CENTER.getLongitude() + one(doubles(-0.005, 0.005))));
+
+        List<YelpBusiness> suburbs = listOf(pojos(YelpBusiness.class), one(integers(100, 400)));
+        suburbs.forEach(b -> b.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.5, 0.5)),
+                                                           CENTER.getLongitude() + one(doubles(-0.5, 0.5))));
+
+        businesses.addAll(downtown);
+        businesses.addAll(suburbs);
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("food")
+            .withCoordinate(CENTER)
+            .build();
+
+        instance = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, true))
+            .withoutRateLimit()
+            .withConcurrency(one(integers(1, 8)))
+            .build();
+    }
+
+    @Test
+    public void testCrawlFindsEverything()
+    {
+        List<YelpBusiness> results = instance.crawl(template, AREA);
+
+        assertThat(sortedIdsOf(results), is(sortedIdsOf(businesses)));
+    }
+
+    @Test
+    public void testCrawlWithSink()
+    {
+        List<YelpBusiness> results = new ArrayList<>();
+
+        AdaptiveCrawler.Summary summary = instance.crawl(template, AREA, results::add);
+
+        assertThat(results.size(), is(businesses.size()));
+        assertThat(summary.getBusinesses(), is(businesses.size()));
+        assertThat(summary.isComplete(), is(true));
+        assertThat(summary.getCells(), greaterThan(4));
+        assertThat(summary.getRequests(), greaterThan(1));
+    }
+
+    @Test
+    public void testCrawlWithoutTotals()
+    {
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, false))
+            .withoutRateLimit()
+            .build();
+
+        List<YelpBusiness> results = crawler.crawl(template, AREA);
+
+        assertThat(sortedIdsOf(results), is(sortedIdsOf(businesses)));
+    }
+
+    @Test
+    public void testCrawlOnSharedExecutor()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, true))
+                .withoutRateLimit()
+                .withExecutor(executor)
+                .build();
+
+            assertThat(crawler.crawl(template, AREA).size(), is(businesses.size()));
+            assertThat(executor.isShutdown(), is(false));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testCrawlWithSharedRateLimiter()
+    {
+        RateLimiter shared = mock(RateLimiter.class);
+
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, true))
+            .withRateLimiter(shared)
+            .build();
+
+        AdaptiveCrawler.Summary summary = crawler.crawl(template, AREA, business -> {});
+
+        verify(shared, times(summary.getRequests())).acquire();
+    }
+
+    @DontRepeat
+    @Test
+    public void testCrawlAreaLargerThanMaxRadius()
+    {
+        BoundingBox large = BoundingBox.of(CENTER.getLatitude() - 1.5,
+                                           CENTER.getLongitude() - 1.5,
+                                           CENTER.getLatitude() + 1.5,
+                                           CENTER.getLongitude() + 1.5);
+
+        List<YelpBusiness> results = instance.crawl(template, large);
+
+        assertThat(results.size(), is(businesses.size()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenCellsCannotBeSplit()
+    {
+        List<YelpBusiness> stacked = listOf(pojos(YelpBusiness.class), 1_200);
+        stacked.forEach(b -> b.coordinates = Coordinate.of(CENTER.getLatitude(), CENTER.getLongitude()));
+
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(new FakeYelp(stacked, true))
+            .withoutRateLimit()
+            .withMinimumCellSizeInMeters(5_000)
+            .build();
+
+        List<YelpBusiness> results = new ArrayList<>();
+        AdaptiveCrawler.Summary summary = crawler.crawl(template, AREA, results::add);
+
+        assertThat(summary.isComplete(), is(false));
+        assertThat(summary.getTruncatedCells(), greaterThan(0));
+        assertThat(results.size(), lessThan(stacked.size()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenSearchFails()
+    {
+        FakeYelp yelp = new FakeYelp(businesses, true);
+        yelp.failure = new YelpOperationFailedException();
+        yelp.failAfterRequests = 3;
+
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(yelp)
+            .withoutRateLimit()
+            .build();
+
+        assertThrows(() -> crawler.crawl(template, AREA))
+            .isInstanceOf(YelpOperationFailedException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> AdaptiveCrawler.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        AdaptiveCrawler.Builder builder = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, true));
+
+        assertThrows(() -> builder.withRequestsPerSecond(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withRateLimiter(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withConcurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withMinimumCellSizeInMeters(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.crawl(null, AREA))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.crawl(template, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.crawl(template, AREA, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        Address address = new Address();
+        address.address1 = "1 Market St";
+        YelpSearchRequest withAddress = YelpSearchRequest.newBuilder().withLocation(address).build();
+
+        assertThrows(() -> instance.crawl(withAddress, AREA))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static List<String> sortedIdsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.redroma.yelp.geo.GeoMath;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class CellsTest
+{
+
+    @DontRepeat
+    @Test
+    public void testCannotInstantiate()
+    {
+        assertThrows(() -> new Cells())
+            .isInstanceOf(IllegalAccessException.class);
+    }
+
+    @Test
+    public void testRadiusAroundCoversTheCell()
+    {
+        BoundingBox cell = randomCell();
+        int radius = Cells.radiusAround(cell);
+        Coordinate center = cell.getCenter();
+
+        assertThat(GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMinLatitude(), cell.getMinLongitude()),
+                   lessThanOrEqualTo((double) radius));
+        assertThat(GeoMath.distanceInMeters(center.getLatitude(), center.getLongitude(), cell.getMaxLatitude(), cell.getMaxLongitude()),
+                   lessThanOrEqualTo((double) radius));
+    }
+
+    @Test
+    public void testQuadrantsOf()
+    {
+        BoundingBox cell = randomCell();
+        List<BoundingBox> quadrants = Cells.quadrantsOf(cell);
+
+        assertThat(quadrants.size(), is(4));
+
+        for (int i = 0; i < 20; ++i)
+        {
+            double latitude = one(doubles(cell.getMinLatitude(), cell.getMaxLatitude()));
+            double longitude = one(doubles(cell.getMinLongitude(), cell.getMaxLongitude()));
+
+            long containing = quadrants.stream().filter(q -> q.contains(latitude, longitude)).count();
+            assertThat(containing >= 1, is(true));
+        }
+
+        assertThat(quadrants.get(0).getMinLatitude(), is(cell.getMinLatitude()));
+        assertThat(quadrants.get(3).getMaxLongitude(), is(cell.getMaxLongitude()));
+    }
+
+    @Test
+    public void testBoxOf()
+    {
+        BoundingBox root = randomCell();
+
+        assertThat(Cells.boxOf(root, Cells.ROOT), is(root));
+        assertThat(Cells.boxOf(root, Cells.childOf(Cells.ROOT, 2)), is(Cells.quadrantsOf(root).get(2)));
+        assertThat(Cells.boxOf(root, "r31"), is(Cells.quadrantsOf(Cells.quadrantsOf(root).get(3)).get(1)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testPathsAtDepth()
+    {
+        assertThat(Cells.pathsAtDepth(0), contains(Cells.ROOT));
+        assertThat(Cells.pathsAtDepth(1), contains("r0", "r1", "r2", "r3"));
+
+        List<String> paths = Cells.pathsAtDepth(3);
+        assertThat(paths.size(), is(64));
+        assertThat(paths.get(0), is("r000"));
+        assertThat(paths.get(63), is("r333"));
+
+        assertThrows(() -> Cells.pathsAtDepth(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testBoxOfWithBadPath()
+    {
+        BoundingBox root = randomCell();
+
+        assertThrows(() -> Cells.boxOf(root, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> Cells.boxOf(root, "x0"))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> Cells.boxOf(root, "r4"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRequestFor()
+    {
+        YelpSearchRequest template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("tacos")
+            .withCoordinate(Coordinate.of(0, 0))
+            .build();
+
+        BoundingBox cell = randomCell();
+        int offset = one(integers(0, 900));
+
+        YelpSearchRequest request = Cells.requestFor(template, cell, 1_000, offset, 50);
+
+        assertThat(request.getSearchTerm(), is("tacos"));
+        assertThat(request.getLatitude(), is(cell.getCenter().getLatitude()));
+        assertThat(request.getLongitude(), is(cell.getCenter().getLongitude()));
+        assertThat(request.getRadius(), is(1_000));
+        assertThat(request.getLimit(), is(50));
+        assertThat(request.hasOffset(), is(offset > 0));
+    }
+
+    private static BoundingBox randomCell()
+    {
+        double latitude = one(doubles(-60, 60));
+        double longitude = one(doubles(-170, 170));
+        double size = one(doubles(0.001, 1));
+
+        return BoundingBox.of(latitude, longitude, latitude + size, longitude + size);
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class CheckpointLogTest
+{
+
+    private static final String HEADER = CheckpointLog.headerFor(BoundingBox.of(10, 20, 11, 21), 42);
+
+    @GenerateString
+    private String id;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = Files.createTempFile("checkpoint", ".log");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testEscape()
+    {
+        assertThat(CheckpointLog.unescape(CheckpointLog.escape(id)), is(id));
+        assertThat(CheckpointLog.escape("a b%c\nd"), is("a%20b%25c%0ad"));
+        assertThat(CheckpointLog.unescape("a%20b%25c%0ad"), is("a b%c\nd"));
+        assertThat(CheckpointLog.escape("plain-id"), is("plain-id"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testNewCheckpoint()
+    {
+        try (CheckpointLog log = open())
+        {
+            assertThat(log.getFrontier(), is(Collections.singletonMap(Cells.ROOT, 0)));
+            assertThat(log.getSeen().isEmpty(), is(true));
+            assertThat(log.isFinished(), is(false));
+        }
+
+        assertThat(Files.exists(file), is(true));
+    }
+
+    @Test
+    public void testReplay()
+    {
+        try (CheckpointLog log = open())
+        {
+            log.onPage("r", 50, Arrays.asList("a", id));
+            log.onSplit("r");
+            log.onPage("r0", 50, Collections.singletonList("b"));
+            log.onPage("r0", 100, Collections.emptyList());
+            log.onDone("r1");
+            log.onPage("r2", 50, Collections.singletonList("c d"));
+            log.onDone("r2");
+        }
+
+        try (CheckpointLog log = open())
+        {
+            assertThat(log.getFrontier().keySet(), containsInAnyOrder("r0", "r3"));
+            assertThat(log.getFrontier().get("r0"), is(100));
+            assertThat(log.getFrontier().get("r3"), is(0));
+            assertThat(log.getSeen(), containsInAnyOrder("a", id, "b", "c d"));
+            assertThat(log.isFinished(), is(false));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testFinish()
+    {
+        try (CheckpointLog log = open())
+        {
+            log.onDone("r");
+            log.finish();
+        }
+
+        try (CheckpointLog log = open())
+        {
+            assertThat(log.isFinished(), is(true));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testDamagedRecordsAreDropped() throws Exception
+    {
+        try (CheckpointLog log = open())
+        {
+            log.onSplit("r");
+        }
+
+        String damaged = new String(Files.readAllBytes(file), StandardCharsets.UTF_8) + "P r0 50 2 a\nD r1\nD r";
+        Files.write(file, damaged.getBytes(StandardCharsets.UTF_8));
+
+        try (CheckpointLog log = open())
+        {
+            assertThat(log.getFrontier().keySet(), containsInAnyOrder("r0", "r1", "r2", "r3"));
+            assertThat(log.getSeen().isEmpty(), is(true));
+
+            log.onDone("r1");
+        }
+
+        try (CheckpointLog log = open())
+        {
+            assertThat(log.getFrontier().keySet(), containsInAnyOrder("r0", "r2", "r3"));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithDifferentHeader()
+    {
+        open().close();
+
+        assertThrows(() -> CheckpointLog.open(file, HEADER + "0", 1, 0, TimeUnit.SECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CheckpointLog open()
+    {
+        return CheckpointLog.open(file, HEADER, 1, 0, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.crawl.AdaptiveCrawlerTest.sortedIdsOf;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(5)
+@RunWith(AlchemyTestRunner.class)
+public class CrawlJobTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private static final BoundingBox AREA = BoundingBox.of(CENTER.getLatitude() - 0.2,
+                                                           CENTER.getLongitude() - 0.2,
+                                                           CENTER.getLatitude() + 0.2,
+                                                           CENTER.getLongitude() + 0.2);
+
+    private List<YelpBusiness> businesses;
+
+    private YelpSearchRequest template;
+
+    private Path checkpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(1_100, 2_000)));
+        businesses.forEach(b -> b.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.2, 0.2)),
+                                                              CENTER.getLongitude() + one(doubles(-0.2, 0.2))));
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("bars")
+            .withCoordinate(CENTER)
+            .build();
+
+        checkpoint = Files.createTempFile("crawl", ".checkpoint");
+        Files.delete(checkpoint);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(checkpoint);
+    }
+
+    @Test
+    public void testRunToCompletion() throws Exception
+    {
+        FakeYelp yelp = new FakeYelp(businesses, true);
+        List<YelpBusiness> results = new ArrayList<>();
+
+        AdaptiveCrawler.Summary summary = jobUsing(yelp).run(results::add);
+
+        assertThat(sortedIdsOf(results), is(sortedIdsOf(businesses)));
+        assertThat(summary.getBusinesses(), is(businesses.size()));
+        assertThat(Files.exists(checkpoint), is(true));
+    }
+
+    @Test
+    public void testRunAfterFinishing()
+    {
+        jobUsing(new FakeYelp(businesses, true)).run(b -> {});
+
+        FakeYelp yelp = new FakeYelp(businesses, true);
+        List<YelpBusiness> results = new ArrayList<>();
+
+        AdaptiveCrawler.Summary summary = jobUsing(yelp).run(results::add);
+
+        assertThat(results.isEmpty(), is(true));
+        assertThat(yelp.requests.get(), is(0));
+        assertThat(summary.getBusinesses(), is(businesses.size()));
+    }
+
+    @Test
+    public void testResumeAfterFailure() throws Exception
+    {
+        FakeYelp complete = new FakeYelp(businesses, true);
+        Path fullCrawl = checkpoint.resolveSibling(checkpoint.getFileName() + ".full");
+
+        try
+        {
+            jobUsing(complete, fullCrawl).run(b -> {});
+        }
+        finally
+        {
+            Files.deleteIfExists(fullCrawl);
+        }
+
+        int requestsForFullCrawl = complete.requests.get();
+
+        FakeYelp failing = new FakeYelp(businesses, true);
+        failing.failure = new YelpOperationFailedException();
+        failing.failAfterRequests = one(integers(2, requestsForFullCrawl));
+
+        List<YelpBusiness> results = new ArrayList<>();
+
+        assertThrows(() -> jobUsing(failing).run(results::add))
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        FakeYelp resumed = new FakeYelp(businesses, true);
+        jobUsing(resumed).run(results::add);
+
+        assertThat(sortedIdsOf(results), is(sortedIdsOf(businesses)));
+        assertThat(resumed.requests.get(), lessThan(requestsForFullCrawl));
+    }
+
+    @Test
+    public void testResumeWithDamagedCheckpoint() throws Exception
+    {
+        FakeYelp failing = new FakeYelp(businesses, true);
+        failing.failure = new YelpOperationFailedException();
+        failing.failAfterRequests = 5;
+
+        List<YelpBusiness> results = new ArrayList<>();
+
+        assertThrows(() -> jobUsing(failing).run(results::add))
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        //A record cut off half way through being written
+        Files.write(checkpoint, "P r0 100 3 abc de".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        jobUsing(new FakeYelp(businesses, true)).run(results::add);
+
+        assertThat(sortedIdsOf(results), is(sortedIdsOf(businesses)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testCheckpointFromDifferentCrawl()
+    {
+        jobUsing(new FakeYelp(businesses, true)).run(b -> {});
+
+        BoundingBox other = BoundingBox.of(0, 0, 1, 1);
+
+        CrawlJob job = CrawlJob.newBuilder(crawlerFor(new FakeYelp(businesses, true)))
+            .withArea(template, other)
+            .withCheckpointFile(checkpoint)
+            .build();
+
+        assertThrows(() -> job.run(b -> {}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> CrawlJob.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        CrawlJob.Builder builder = CrawlJob.newBuilder(crawlerFor(new FakeYelp(businesses, true)));
+
+        assertThrows(() -> builder.withArea(null, AREA))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withCheckpointFile(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withFlushPolicy(0, Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withFlushPolicy(1, Duration.ofSeconds(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.build())
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThrows(() -> jobUsing(new FakeYelp(businesses, true)).run(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CrawlJob jobUsing(FakeYelp yelp)
+    {
+        return jobUsing(yelp, checkpoint);
+    }
+
+    private CrawlJob jobUsing(FakeYelp yelp, Path file)
+    {
+        return CrawlJob.newBuilder(crawlerFor(yelp))
+            .withArea(template, AREA)
+            .withCheckpointFile(file)
+            .withFlushPolicy(1, Duration.ZERO)
+            .build();
+    }
+
+    private static AdaptiveCrawler crawlerFor(FakeYelp yelp)
+    {
+        return AdaptiveCrawler.newBuilder(yelp)
+            .withoutRateLimit()
+            .withConcurrency(3)
+            .build();
+    }
+
+}
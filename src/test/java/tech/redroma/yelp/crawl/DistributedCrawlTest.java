@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.BoundingBox;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.crawl.AdaptiveCrawlerTest.sortedIdsOf;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(5)
+@RunWith(AlchemyTestRunner.class)
+public class DistributedCrawlTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private static final BoundingBox AREA = BoundingBox.of(CENTER.getLatitude() - 0.2,
+                                                           CENTER.getLongitude() - 0.2,
+                                                           CENTER.getLatitude() + 0.2,
+                                                           CENTER.getLongitude() + 0.2);
+
+    private List<YelpBusiness> businesses;
+
+    private YelpSearchRequest template;
+
+    private CoordinationStore store;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(500, 1_500)));
+        businesses.forEach(b -> b.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.2, 0.2)),
+                                                              CENTER.getLongitude() + one(doubles(-0.2, 0.2))));
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("bars")
+            .withCoordinate(CENTER)
+            .build();
+
+        store = CoordinationStore.newInMemoryStore();
+    }
+
+    @Test
+    public void testSingleNode()
+    {
+        DistributedCrawl instance = nodeNamed("node-1", new FakeYelp(businesses, true));
+
+        DistributedCrawl.NodeSummary summary = instance.runNode();
+
+        assertThat(summary.getCompletedUnits(), is(16));
+        assertThat(summary.getLostUnits(), is(0));
+        assertThat(instance.isFinished(), is(true));
+        assertThat(sortedIdsOf(instance.collectResults()), is(sortedIdsOf(businesses)));
+    }
+
+    @Test
+    public void testSeveralNodes() throws Exception
+    {
+        int nodes = one(integers(2, 5));
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        List<Future<DistributedCrawl.NodeSummary>> summaries = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < nodes; ++i)
+            {
+                DistributedCrawl node = nodeNamed("node-" + i, new FakeYelp(businesses, true));
+                summaries.add(executor.submit(node::runNode));
+            }
+
+            int completed = 0;
+
+            for (Future<DistributedCrawl.NodeSummary> summary : summaries)
+            {
+                completed += summary.get().getCompletedUnits();
+            }
+
+            assertThat(completed, is(16));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        DistributedCrawl reader = nodeNamed("reader", new FakeYelp(businesses, true));
+        assertThat(sortedIdsOf(reader.collectResults()), is(sortedIdsOf(businesses)));
+    }
+
+    @Test
+    public void testTakesOverUnitsOfStoppedNode()
+    {
+        FakeYelp failing = new FakeYelp(businesses, true);
+        failing.failure = new YelpOperationFailedException();
+        failing.failAfterRequests = 3;
+
+        DistributedCrawl stopped = nodeNamed("stopped", failing);
+
+        assertThrows(stopped::runNode)
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        assertThat(stopped.isFinished(), is(false));
+
+        FakeYelp yelp = new FakeYelp(businesses, true);
+        DistributedCrawl survivor = nodeNamed("survivor", yelp);
+
+        survivor.runNode();
+
+        assertThat(store.getCompletedUnits().size(), is(16));
+        assertThat(survivor.isFinished(), is(true));
+        assertThat(sortedIdsOf(survivor.collectResults()), is(sortedIdsOf(businesses)));
+    }
+
+    @Test
+    public void testStaleLeaseResultsAreDiscarded()
+    {
+        DistributedCrawl instance = nodeNamed("node-1", new FakeYelp(businesses, true));
+        store.addUnits(Cells.pathsAtDepth(2));
+
+        //Another node holds every unit, but has stopped renewing
+        Instant now = Instant.now();
+        Cells.pathsAtDepth(2).forEach(unit -> store.tryAcquire(unit, "stopped", now, now.plusMillis(100)));
+
+        DistributedCrawl.NodeSummary summary = instance.runNode();
+
+        assertThat(summary.getCompletedUnits(), is(16));
+        assertThat(sortedIdsOf(instance.collectResults()), is(sortedIdsOf(businesses)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderWithBadArgs()
+    {
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(new FakeYelp(businesses, true)).build();
+
+        assertThrows(() -> DistributedCrawl.newBuilder(null, store))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> DistributedCrawl.newBuilder(crawler, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        DistributedCrawl.Builder builder = DistributedCrawl.newBuilder(crawler, store);
+
+        assertThrows(builder::build)
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThrows(() -> builder.withPartitionDepth(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withPartitionDepth(DistributedCrawl.Builder.MAX_PARTITION_DEPTH + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withNodeId(""))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withLeaseDuration(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> builder.withPollInterval(Duration.ofSeconds(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private DistributedCrawl nodeNamed(String nodeId, FakeYelp yelp)
+    {
+        AdaptiveCrawler crawler = AdaptiveCrawler.newBuilder(yelp)
+            .withoutRateLimit()
+            .build();
+
+        return DistributedCrawl.newBuilder(crawler, store)
+            .withArea(template, AREA)
+            .withPartitionDepth(2)
+            .withNodeId(nodeId)
+            .withLeaseDuration(Duration.ofMillis(300))
+            .withPollInterval(Duration.ofMillis(20))
+            .build();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.geo.GeoMath;
+
+/**
+ * Answers searches from a fixed set of businesses, and enforces Yelp's paging ceiling.
+ *
+ * @author SirWellington
+ */
+final class FakeYelp implements YelpAPI
+{
+
+    private final List<YelpBusiness> businesses;
+    private final boolean reportsTotals;
+    final AtomicInteger requests = new AtomicInteger();
+    volatile YelpException failure;
+    volatile int failAfterRequests = Integer.MAX_VALUE;
+
+    FakeYelp(List<YelpBusiness> businesses, boolean reportsTotals)
+    {
+        this.businesses = businesses;
+        this.reportsTotals = reportsTotals;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request)
+    {
+        return searchForBusinessesWithTotal(request).getBusinesses();
+    }
+
+    @Override
+    public YelpSearchResults searchForBusinessesWithTotal(YelpSearchRequest request)
+    {
+        if (requests.incrementAndGet() > failAfterRequests && failure != null)
+        {
+            throw failure;
+        }
+
+        int offset = request.hasOffset() ? request.getOffset() : 0;
+        int limit = request.getLimit();
+
+        if (offset + limit > YelpSearchRequest.Builder.MAX_OFFSET)
+        {
+            throw new YelpBadArgumentException("too deep: " + offset);
+        }
+
+        List<YelpBusiness> matches = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(request.getLatitude(), request.getLongitude(),
+                                                  b.coordinates.getLatitude(), b.coordinates.getLongitude())
+                         <= request.getRadius())
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> page = matches.stream()
+            .skip(offset)
+            .limit(limit)
+            .collect(Collectors.toList());
+
+        return reportsTotals ? YelpSearchResults.of(page, matches.size()) : YelpSearchResults.withoutTotal(page);
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+}
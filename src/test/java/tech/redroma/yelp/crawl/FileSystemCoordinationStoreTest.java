@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.BinaryGenerators.binary;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class FileSystemCoordinationStoreTest
+{
+
+    @GenerateString
+    private String unit;
+
+    @GenerateString
+    private String owner;
+
+    @GenerateString
+    private String otherOwner;
+
+    private Instant now;
+
+    private byte[] results;
+
+    private Path directory;
+
+    private FileSystemCoordinationStore instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        now = Instant.now();
+        results = one(binary(100));
+
+        directory = Files.createTempDirectory("coordination");
+
+        instance = new FileSystemCoordinationStore(directory);
+        instance.addUnits(Arrays.asList(unit, "other"));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(FileSystemCoordinationStoreTest::delete);
+        }
+    }
+
+    @Test
+    public void testAddUnits()
+    {
+        instance.addUnits(Arrays.asList(unit, "another"));
+
+        assertThat(instance.getUnits(), containsInAnyOrder(unit, "other", "another"));
+        assertThat(instance.getCompletedUnits().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testTryAcquire()
+    {
+        Optional<Lease> lease = instance.tryAcquire(unit, owner, now, now.plusSeconds(10));
+
+        assertThat(lease.isPresent(), is(true));
+        assertThat(lease.get().getUnitId(), is(unit));
+        assertThat(lease.get().getOwner(), is(owner));
+        assertThat(lease.get().getToken(), is(1L));
+    }
+
+    @Test
+    public void testTryAcquireWhenHeld()
+    {
+        instance.tryAcquire(unit, owner, now, now.plusSeconds(10));
+
+        assertThat(instance.tryAcquire(unit, otherOwner, now.plusSeconds(9), now.plusSeconds(20)).isPresent(), is(false));
+    }
+
+    @Test
+    public void testTryAcquireWhenExpired()
+    {
+        Lease first = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+        Lease second = instance.tryAcquire(unit, otherOwner, now.plusSeconds(10), now.plusSeconds(20)).get();
+
+        assertThat(second.getOwner(), is(otherOwner));
+        assertThat(second.getToken(), is(first.getToken() + 1));
+    }
+
+    @Test
+    public void testTryAcquireWhenLeaseIsDamaged() throws Exception
+    {
+        Lease first = instance.tryAcquire("other", owner, now, now.plusSeconds(10)).get();
+
+        //As left by a write cut short
+        Files.write(directory.resolve("leases").resolve("other"), new byte[] { 'a', ' ' });
+
+        Lease second = instance.tryAcquire("other", otherOwner, now, now.plusSeconds(10)).get();
+
+        assertThat(second.getOwner(), is(otherOwner));
+        assertThat(second.getToken(), greaterThan(first.getToken()));
+        assertThat(instance.renew(first, now.plusSeconds(20)).isPresent(), is(false));
+        assertThat(instance.complete(first, results), is(false));
+        assertThat(instance.complete(second, results), is(true));
+    }
+
+    @Test
+    public void testNoTemporaryFilesAreLeft() throws Exception
+    {
+        Lease lease = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+        lease = instance.renew(lease, now.plusSeconds(20)).get();
+        instance.complete(lease, results);
+
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            assertThat(files.anyMatch(file -> file.toString().endsWith(".tmp")), is(false));
+        }
+    }
+
+    @Test
+    public void testTryAcquireUnknownUnit()
+    {
+        assertThat(instance.tryAcquire(unit + "-unknown", owner, now, now.plusSeconds(10)).isPresent(), is(false));
+    }
+
+    @Test
+    public void testRenew()
+    {
+        Lease lease = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+        Lease renewed = instance.renew(lease, now.plusSeconds(30)).get();
+
+        assertThat(renewed.getExpiresAt(), is(now.plusSeconds(30)));
+        assertThat(instance.tryAcquire(unit, otherOwner, now.plusSeconds(20), now.plusSeconds(40)).isPresent(), is(false));
+    }
+
+    @Test
+    public void testRenewAfterTakeover()
+    {
+        Lease stale = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+        instance.tryAcquire(unit, otherOwner, now.plusSeconds(10), now.plusSeconds(20));
+
+        assertThat(instance.renew(stale, now.plusSeconds(30)).isPresent(), is(false));
+    }
+
+    @Test
+    public void testComplete()
+    {
+        Lease lease = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+
+        assertThat(instance.complete(lease, results), is(true));
+        assertThat(instance.getCompletedUnits(), contains(unit));
+        assertThat(instance.getResults(unit).get(), is(results));
+        assertThat(instance.getResults("other").isPresent(), is(false));
+
+        //A finished unit can't be claimed again, even once its lease would have expired
+        assertThat(instance.tryAcquire(unit, otherOwner, now.plusSeconds(100), now.plusSeconds(110)).isPresent(), is(false));
+        assertThat(instance.complete(lease, results), is(false));
+    }
+
+    @Test
+    public void testCompleteAfterTakeover()
+    {
+        Lease stale = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+        Lease current = instance.tryAcquire(unit, otherOwner, now.plusSeconds(10), now.plusSeconds(20)).get();
+
+        assertThat(instance.complete(stale, results), is(false));
+        assertThat(instance.getCompletedUnits().isEmpty(), is(true));
+        assertThat(instance.complete(current, results), is(true));
+    }
+
+    @Test
+    public void testSharedDirectory()
+    {
+        FileSystemCoordinationStore other = new FileSystemCoordinationStore(directory);
+
+        Lease lease = instance.tryAcquire(unit, owner, now, now.plusSeconds(10)).get();
+
+        assertThat(other.getUnits(), containsInAnyOrder(unit, "other"));
+        assertThat(other.tryAcquire(unit, otherOwner, now.plusSeconds(5), now.plusSeconds(20)).isPresent(), is(false));
+
+        Lease takeover = other.tryAcquire(unit, otherOwner, now.plusSeconds(10), now.plusSeconds(20)).get();
+        assertThat(takeover.getToken(), is(lease.getToken() + 1));
+
+        assertThat(instance.complete(lease, results), is(false));
+        assertThat(other.complete(takeover, results), is(true));
+        assertThat(instance.getResults(unit).get(), is(results));
+    }
+
+    @DontRepeat
+    @Test
+    public void testUnusualIds()
+    {
+        String id = "../unit 1/%2E";
+        String node = "node one/..";
+        instance.addUnits(Arrays.asList(id, "."));
+
+        assertThat(instance.getUnits(), containsInAnyOrder(unit, "other", id, "."));
+
+        Lease lease = instance.tryAcquire(id, node, now, now.plusSeconds(10)).get();
+        assertThat(instance.renew(lease, now.plusSeconds(20)).get().getOwner(), is(node));
+        assertThat(instance.complete(lease, results), is(true));
+        assertThat(instance.getCompletedUnits(), contains(id));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithBadArgs()
+    {
+        assertThrows(() -> new FileSystemCoordinationStore(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.addUnits(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.addUnits(Arrays.asList("")))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.tryAcquire("", owner, now, now))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.tryAcquire(unit, owner, null, now))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.renew(null, now))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.complete(null, results))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void delete(Path path)
+    {
+        try
+        {
+            Files.delete(path);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.crawl;
+
+import java.time.Instant;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class LeaseTest
+{
+
+    @GenerateString
+    private String unitId;
+
+    @GenerateString
+    private String owner;
+
+    private long token;
+
+    private Instant expiresAt;
+
+    private Lease instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        token = one(longs(1, Long.MAX_VALUE));
+        expiresAt = Instant.now().plusSeconds(one(integers(1, 1_000)));
+
+        instance = new Lease(unitId, owner, token, expiresAt);
+    }
+
+    @Test
+    public void testGetters()
+    {
+        assertThat(instance.getUnitId(), is(unitId));
+        assertThat(instance.getOwner(), is(owner));
+        assertThat(instance.getToken(), is(token));
+        assertThat(instance.getExpiresAt(), is(expiresAt));
+    }
+
+    @Test
+    public void testIsExpiredAt()
+    {
+        assertThat(instance.isExpiredAt(expiresAt.minusMillis(1)), is(false));
+        assertThat(instance.isExpiredAt(expiresAt), is(true));
+        assertThat(instance.isExpiredAt(expiresAt.plusSeconds(1)), is(true));
+    }
+
+    @Test
+    public void testExtendedTo()
+    {
+        Instant later = expiresAt.plusSeconds(one(integers(1, 100)));
+        Lease extended = instance.extendedTo(later);
+
+        assertThat(extended.getExpiresAt(), is(later));
+        assertThat(extended.getToken(), is(token));
+        assertThat(extended.getUnitId(), is(unitId));
+        assertThat(extended.getOwner(), is(owner));
+        assertThat(extended, not(instance));
+    }
+
+    @Test
+    public void testEquals()
+    {
+        assertThat(new Lease(unitId, owner, token, expiresAt), is(instance));
+        assertThat(new Lease(unitId, owner, token + 1, expiresAt), not(instance));
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructorWithBadArgs()
+    {
+        assertThrows(() -> new Lease("", owner, token, expiresAt))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new Lease(unitId, null, token, expiresAt))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new Lease(unitId, owner, token, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.enrich;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class EnrichmentPipelineTest
+{
+
+    @Mock
+    private YelpAPI yelp;
+
+    private List<YelpBusiness> businesses;
+
+    private Map<String, YelpBusinessDetails> details;
+
+    private Map<String, List<YelpReview>> reviews;
+
+    private YelpSearchRequest request;
+
+    private EnrichmentPipeline instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(5, 40)));
+        details = new ConcurrentHashMap<>();
+        reviews = new ConcurrentHashMap<>();
+
+        for (YelpBusiness business : businesses)
+        {
+            details.put(business.id, one(pojos(YelpBusinessDetails.class)));
+            reviews.put(business.id, listOf(pojos(YelpReview.class), 3));
+        }
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("pizza")
+            .withCoordinate(Coordinate.of(40.7128, -74.0060))
+            .build();
+
+        when(yelp.searchForBusinesses(any())).thenReturn(businesses);
+        when(yelp.getBusinessDetails(any(YelpBusiness.class))).thenAnswer(call -> details.get(((YelpBusiness) call.getArgument(0)).id));
+        when(yelp.getReviewsForBusiness(any(YelpBusiness.class))).thenAnswer(call -> reviews.get(((YelpBusiness) call.getArgument(0)).id));
+
+        instance = EnrichmentPipeline.newBuilder(yelp).build();
+    }
+
+    @Test
+    public void testEnrich()
+    {
+        List<EnrichedBusiness> results = Collections.synchronizedList(new ArrayList<>());
+
+        int count = instance.enrich(request, results::add);
+
+        assertThat(count, is(businesses.size()));
+        assertThat(idsOf(results), is(businesses.stream().map(b -> b.id).collect(Collectors.toSet())));
+
+        for (EnrichedBusiness result : results)
+        {
+            String id = result.getBusiness().id;
+
+            assertThat(result.isComplete(), is(true));
+            assertThat(result.getDetails(), sameInstance(details.get(id)));
+            assertThat(result.getReviews(), is(reviews.get(id)));
+        }
+    }
+
+    @Test
+    public void testFailedLookupsAreKept()
+    {
+        YelpBusiness failing = businesses.get(0);
+        doThrow(new YelpOperationFailedException()).when(yelp).getBusinessDetails(failing);
+
+        List<EnrichedBusiness> results = new ArrayList<>();
+        instance.enrich(request, results::add);
+
+        assertThat(results.size(), is(businesses.size()));
+
+        EnrichedBusiness result = results.stream()
+            .filter(r -> r.getBusiness() == failing)
+            .findFirst()
+            .get();
+
+        assertThat(result.isComplete(), is(false));
+        assertThat(result.hasDetails(), is(false));
+        assertThat(result.getDetailsFailure(), notNullValue());
+        assertThat(result.getReviews(), is(reviews.get(failing.id)));
+        assertThat(result.getReviewsFailure(), nullValue());
+    }
+
+    @Test
+    public void testWhenSearchFails()
+    {
+        doThrow(new YelpOperationFailedException()).when(yelp).searchForBusinesses(any());
+
+        assertThrows(() -> instance.enrich(request, r -> {}))
+            .isInstanceOf(YelpOperationFailedException.class);
+    }
+
+    @Test
+    public void testBackpressure()
+    {
+        instance = EnrichmentPipeline.newBuilder(yelp)
+            .withMaxInFlight(2)
+            .build();
+
+        AtomicInteger lookups = new AtomicInteger();
+        when(yelp.getBusinessDetails(any(YelpBusiness.class))).thenAnswer(call ->
+        {
+            lookups.incrementAndGet();
+            return details.get(((YelpBusiness) call.getArgument(0)).id);
+        });
+
+        AtomicInteger consumed = new AtomicInteger();
+
+        instance.enrich(request, result ->
+        {
+            //Nothing new starts while the consumer holds on to its businesses
+            sleep(5);
+            assertThat(lookups.get(), lessThanOrEqualTo(consumed.get() + 2));
+            consumed.incrementAndGet();
+        });
+
+        assertThat(consumed.get(), is(businesses.size()));
+    }
+
+    @Test
+    public void testConcurrencyLimits()
+    {
+        instance = EnrichmentPipeline.newBuilder(yelp)
+            .withDetailsConcurrency(2)
+            .withReviewsConcurrency(3)
+            .build();
+
+        AtomicInteger activeDetails = new AtomicInteger();
+        AtomicInteger mostDetails = new AtomicInteger();
+        AtomicInteger activeReviews = new AtomicInteger();
+        AtomicInteger mostReviews = new AtomicInteger();
+
+        when(yelp.getBusinessDetails(any(YelpBusiness.class))).thenAnswer(call ->
+        {
+            mostDetails.accumulateAndGet(activeDetails.incrementAndGet(), Math::max);
+            sleep(2);
+            activeDetails.decrementAndGet();
+            return details.get(((YelpBusiness) call.getArgument(0)).id);
+        });
+
+        when(yelp.getReviewsForBusiness(any(YelpBusiness.class))).thenAnswer(call ->
+        {
+            mostReviews.accumulateAndGet(activeReviews.incrementAndGet(), Math::max);
+            sleep(2);
+            activeReviews.decrementAndGet();
+            return reviews.get(((YelpBusiness) call.getArgument(0)).id);
+        });
+
+        int count = instance.enrich(request, r -> {});
+
+        assertThat(count, is(businesses.size()));
+        assertThat(mostDetails.get(), lessThanOrEqualTo(2));
+        assertThat(mostReviews.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void testPaging()
+    {
+        //Two full pages of 50 and a short one, with the first business of each later page repeated
+        List<YelpBusiness> all = listOf(pojos(YelpBusiness.class), 120);
+
+        when(yelp.searchForBusinesses(any())).thenAnswer(call ->
+        {
+            YelpSearchRequest page = call.getArgument(0);
+            int offset = page.hasOffset() ? page.getOffset() : 0;
+            int from = offset == 0 ? 0 : Math.min(offset - 1, all.size());
+            int to = Math.min(from + page.getLimit(), all.size());
+            return new ArrayList<>(all.subList(from, to));
+        });
+
+        when(yelp.getBusinessDetails(any(YelpBusiness.class))).thenReturn(new YelpBusinessDetails());
+        when(yelp.getReviewsForBusiness(any(YelpBusiness.class))).thenReturn(Collections.emptyList());
+
+        instance = EnrichmentPipeline.newBuilder(yelp)
+            .withMaxPages(5)
+            .build();
+
+        List<EnrichedBusiness> results = Collections.synchronizedList(new ArrayList<>());
+        instance.enrich(request, results::add);
+
+        assertThat(idsOf(results).size(), is(results.size()));
+        assertThat(results.size(), is(all.size()));
+        verify(yelp, times(3)).searchForBusinesses(any());
+    }
+
+    @Test
+    public void testWithNoResults()
+    {
+        when(yelp.searchForBusinesses(any())).thenReturn(Collections.emptyList());
+
+        assertThat(instance.enrich(request, r -> {}), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> EnrichmentPipeline.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        EnrichmentPipeline.Builder builder = EnrichmentPipeline.newBuilder(yelp);
+
+        assertThrows(() -> builder.withDetailsConcurrency(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withReviewsConcurrency(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMaxInFlight(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMaxPages(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMaxPages(21)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.enrich(null, r -> {})).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> instance.enrich(request, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Set<String> idsOf(List<EnrichedBusiness> results)
+    {
+        return results.stream()
+            .map(r -> r.getBusiness().id)
+            .collect(Collectors.toSet());
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
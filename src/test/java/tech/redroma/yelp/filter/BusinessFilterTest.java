@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class BusinessFilterTest
+{
+
+    @GeneratePojo
+    private YelpBusiness business;
+
+    private YelpSearchRequest template;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("coffee")
+            .withCoordinate(Coordinate.of(47.6062, -122.3321))
+            .withLimit(20)
+            .build();
+
+        business.rating = 4.5;
+        business.reviewCount = 120;
+        business.name = "Blue Bottle Coffee";
+        business.isClosed = false;
+    }
+
+    @Test
+    public void testPushDownTo()
+    {
+        BusinessFilter filter = BusinessFilter.newBuilder()
+            .inCategories(Collections.singletonList(new Category().with("coffee", "Coffee & Tea")))
+            .withPrices(Arrays.asList(Price.$, Price.$$))
+            .openNow()
+            .withMinRating(4.0)
+            .build();
+
+        YelpSearchRequest request = filter.pushDownTo(template);
+
+        assertThat(request.getCategories(), is("coffee"));
+        assertThat(request.getPrices(), is("1, 2"));
+        assertThat(request.getOpenNow(), is(true));
+        assertThat(request.getSearchTerm(), is(template.getSearchTerm()));
+        assertThat(request.getLimit(), is(template.getLimit()));
+    }
+
+    @Test
+    public void testPushDownWithNothingToPush()
+    {
+        BusinessFilter filter = BusinessFilter.newBuilder().withMinReviewCount(10).build();
+
+        assertThat(filter.pushDownTo(template), is(template));
+    }
+
+    @Test
+    public void testMatchesLocally()
+    {
+        BusinessFilter filter = BusinessFilter.newBuilder()
+            .withMinRating(4.0)
+            .withMinReviewCount(100)
+            .withNameMatching(Pattern.compile("(?i)coffee"))
+            .excludingClosed()
+            .matching(b -> b.phone != null)
+            .build();
+
+        assertThat(filter.hasLocalConditions(), is(true));
+        assertThat(filter.matchesLocally(business), is(true));
+        assertThat(filter.matchesLocally(null), is(false));
+
+        business.rating = 3.5;
+        assertThat(filter.matchesLocally(business), is(false));
+        business.rating = null;
+        assertThat(filter.matchesLocally(business), is(false));
+        business.rating = 4.0;
+
+        business.reviewCount = 99;
+        assertThat(filter.matchesLocally(business), is(false));
+        business.reviewCount = 100;
+
+        business.name = "Tea House";
+        assertThat(filter.matchesLocally(business), is(false));
+        business.name = "COFFEE";
+
+        business.isClosed = true;
+        assertThat(filter.matchesLocally(business), is(false));
+        business.isClosed = null;
+
+        business.phone = null;
+        assertThat(filter.matchesLocally(business), is(false));
+    }
+
+    @Test
+    public void testWithoutLocalConditions()
+    {
+        BusinessFilter filter = BusinessFilter.newBuilder()
+            .openNow()
+            .build();
+
+        assertThat(filter.hasLocalConditions(), is(false));
+        assertThat(filter.matchesLocally(business), is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        BusinessFilter.Builder builder = BusinessFilter.newBuilder();
+
+        assertThrows(() -> builder.inCategories(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.inCategories(Collections.emptyList())).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withPrices(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMinRating(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMinRating(5.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withMinReviewCount(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.withNameMatching(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.matching(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThrows(() -> builder.build().pushDownTo(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
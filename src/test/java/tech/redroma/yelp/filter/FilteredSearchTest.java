@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class FilteredSearchTest
+{
+
+    @Mock
+    private YelpAPI yelp;
+
+    /** Every business the search matches, in the order Yelp returns them. */
+    private List<YelpBusiness> businesses;
+
+    private YelpSearchRequest template;
+
+    private BusinessFilter filter;
+
+    private FilteredSearch instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(200, 400)));
+        businesses.forEach(b -> b.rating = one(doubles(1, 5)));
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("sushi")
+            .withCoordinate(Coordinate.of(37.7749, -122.4194))
+            .build();
+
+        filter = BusinessFilter.newBuilder()
+            .withMinRating(4.0)
+            .build();
+
+        when(yelp.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            YelpSearchRequest page = call.getArgument(0);
+            int offset = page.hasOffset() ? page.getOffset() : 0;
+            int from = Math.min(offset, businesses.size());
+            int to = Math.min(offset + page.getLimit(), businesses.size());
+
+            return YelpSearchResults.of(new ArrayList<>(businesses.subList(from, to)), businesses.size());
+        });
+
+        instance = FilteredSearch.newBuilder(yelp).build();
+    }
+
+    @Test
+    public void testFindFirst()
+    {
+        int count = one(integers(1, 20));
+
+        List<YelpBusiness> expected = businesses.stream()
+            .filter(b -> b.rating >= 4.0)
+            .limit(count)
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> results = instance.findFirst(template, filter, count);
+
+        assertThat(idsOf(results), is(idsOf(expected)));
+    }
+
+    @Test
+    public void testStopsOnceEnoughMatch()
+    {
+        //Every business on the first page matches
+        businesses.forEach(b -> b.rating = 4.5);
+
+        instance.findFirst(template, filter, 15);
+
+        verify(yelp, times(1)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testPagesUntilResultsRunOut()
+    {
+        businesses.forEach(b -> b.rating = 2.0);
+
+        List<YelpBusiness> results = instance.findFirst(template, filter, 15);
+
+        assertThat(results.isEmpty(), is(true));
+
+        int pages = (businesses.size() + 49) / 50;
+        verify(yelp, times(pages)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testMaxPages()
+    {
+        businesses.forEach(b -> b.rating = 2.0);
+
+        instance = FilteredSearch.newBuilder(yelp).withMaxPages(2).build();
+        instance.findFirst(template, filter, 15);
+
+        verify(yelp, times(2)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testPushesConditionsDown()
+    {
+        BusinessFilter openNow = BusinessFilter.newBuilder()
+            .openNow()
+            .build();
+
+        int count = one(integers(1, 50));
+        List<YelpBusiness> results = instance.findFirst(template, openNow, count);
+
+        assertThat(idsOf(results), is(idsOf(businesses.subList(0, count))));
+
+        ArgumentCaptor<YelpSearchRequest> captor = ArgumentCaptor.forClass(YelpSearchRequest.class);
+        verify(yelp, atLeastOnce()).searchForBusinessesWithTotal(captor.capture());
+
+        //Asks for just as many as it needs
+        YelpSearchRequest request = captor.getValue();
+        assertThat(request.getOpenNow(), is(true));
+        assertThat(request.getLimit(), is(count));
+    }
+
+    @Test
+    public void testSkipsRepeatedBusinesses()
+    {
+        //The second page starts with the last business of the first page again
+        businesses.add(50, businesses.get(49));
+        businesses.forEach(b -> b.rating = 4.5);
+
+        List<YelpBusiness> results = instance.findFirst(template, filter, 60);
+
+        assertThat(results.size(), is(60));
+        assertThat(results.stream().map(b -> b.id).distinct().count(), is(60L));
+    }
+
+    @Test
+    public void testWhenYelpFails()
+    {
+        doThrow(new YelpOperationFailedException()).when(yelp).searchForBusinessesWithTotal(any());
+
+        assertThrows(() -> instance.findFirst(template, filter, 10))
+            .isInstanceOf(YelpOperationFailedException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> FilteredSearch.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FilteredSearch.newBuilder(yelp).withMaxPages(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> FilteredSearch.newBuilder(yelp).withMaxPages(21))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.findFirst(null, filter, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.findFirst(template, null, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.findFirst(template, filter, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> idsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+}
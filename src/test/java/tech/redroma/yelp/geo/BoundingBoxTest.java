@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class BoundingBoxTest
+{
+
+    @Test
+    public void testOf()
+    {
+        double minLatitude = one(doubles(-80, 0));
+        double minLongitude = one(doubles(-170, 0));
+        double maxLatitude = one(doubles(0, 80));
+        double maxLongitude = one(doubles(0, 170));
+
+        BoundingBox box = BoundingBox.of(minLatitude, minLongitude, maxLatitude, maxLongitude);
+
+        assertThat(box.getMinLatitude(), is(minLatitude));
+        assertThat(box.getMinLongitude(), is(minLongitude));
+        assertThat(box.getMaxLatitude(), is(maxLatitude));
+        assertThat(box.getMaxLongitude(), is(maxLongitude));
+        assertThat(box.contains(box.getCenter()), is(true));
+        assertThat(box, is(BoundingBox.of(Coordinate.of(minLatitude, minLongitude), Coordinate.of(maxLatitude, maxLongitude))));
+    }
+
+    @Test
+    public void testAround()
+    {
+        Coordinate center = Coordinate.of(one(doubles(-60, 60)), one(doubles(-170, 170)));
+        double radius = one(doubles(100, 50_000));
+
+        BoundingBox box = BoundingBox.around(center, radius);
+
+        assertThat(box.contains(center), is(true));
+        assertThat(box.getHeightInMeters(), closeTo(radius * 2, 1));
+
+        for (int bearing = 0; bearing < 360; bearing += 45)
+        {
+            Coordinate edge = GeoMath.destination(center.getLatitude(), center.getLongitude(), bearing, radius * 0.999);
+            assertThat(box.contains(edge), is(true));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testAroundIsClippedAtThePoles()
+    {
+        BoundingBox box = BoundingBox.around(Coordinate.of(89.9, 0), 100_000);
+
+        assertThat(box.getMaxLatitude(), is(90.0));
+        assertThat(box.getMinLongitude(), is(-180.0));
+        assertThat(box.getMaxLongitude(), is(180.0));
+    }
+
+    @Test
+    public void testContains()
+    {
+        BoundingBox box = BoundingBox.of(10, 10, 20, 20);
+
+        assertThat(box.contains(15, 15), is(true));
+        assertThat(box.contains(10, 20), is(true));
+        assertThat(box.contains(21, 15), is(false));
+        assertThat(box.contains(15, 9), is(false));
+        assertThat(box.contains((Coordinate) null), is(false));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> BoundingBox.of(20, 0, 10, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BoundingBox.of(0, 10, 10, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BoundingBox.of(-91, 0, 10, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BoundingBox.of(null, Coordinate.of(0, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BoundingBox.around(null, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BoundingBox.around(Coordinate.of(0, 0), -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
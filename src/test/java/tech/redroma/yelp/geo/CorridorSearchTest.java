@@ -0,0 +1,340 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpAreaTooLargeException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static tech.redroma.yelp.geo.TiledSearchTest.sortedIdsOf;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class CorridorSearchTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private List<YelpBusiness> businesses;
+
+    private FakeYelp yelp;
+
+    private YelpSearchRequest template;
+
+    private List<Coordinate> route;
+
+    private double maxDistance;
+
+    private CorridorSearch instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(100, 400)));
+
+        for (YelpBusiness business : businesses)
+        {
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.6, 0.6)),
+                                                 CENTER.getLongitude() + one(doubles(-0.6, 0.6)));
+        }
+
+        yelp = new FakeYelp(businesses);
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("gas")
+            .withCoordinate(CENTER)
+            .build();
+
+        route = listOf(() -> Coordinate.of(CENTER.getLatitude() + one(doubles(-0.5, 0.5)),
+                                           CENTER.getLongitude() + one(doubles(-0.5, 0.5))),
+                       one(integers(2, 6)));
+
+        maxDistance = one(doubles(500, 5_000));
+
+        instance = CorridorSearch.newBuilder(yelp)
+            .withConcurrency(one(integers(1, 6)))
+            .withPagesPerCircle(20)
+            .build();
+    }
+
+    @Test
+    public void testSearch()
+    {
+        CorridorSearch.Polyline polyline = new CorridorSearch.Polyline(route);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> polyline.locate(b.coordinates).distance <= maxDistance)
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> results = instance.search(template, route, maxDistance);
+
+        assertThat(sortedIdsOf(results), is(expected));
+
+        for (YelpBusiness business : results)
+        {
+            assertThat(business.distance, lessThanOrEqualTo(maxDistance));
+        }
+    }
+
+    @Test
+    public void testResultsAreOrderedAlongTheRoute()
+    {
+        //A route heading due east past every business, so the order along it is the order of longitude
+        Coordinate west = Coordinate.of(CENTER.getLatitude(), CENTER.getLongitude() - 0.7);
+        Coordinate east = Coordinate.of(CENTER.getLatitude(), CENTER.getLongitude() + 0.7);
+
+        List<YelpBusiness> results = instance.search(template, Arrays.asList(west, east), maxDistance);
+
+        for (int i = 1; i < results.size(); ++i)
+        {
+            double previous = results.get(i - 1).coordinates.getLongitude();
+            assertThat(results.get(i).coordinates.getLongitude(), greaterThanOrEqualTo(previous - 1e-9));
+        }
+
+        List<YelpBusiness> reversed = instance.search(template, Arrays.asList(east, west), maxDistance);
+        List<String> backwards = reversed.stream().map(b -> b.id).collect(Collectors.toList());
+        Collections.reverse(backwards);
+
+        assertThat(backwards, is(results.stream().map(b -> b.id).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void testCirclesCoverTheCorridor()
+    {
+        List<Coordinate> circles = instance.circlesAlong(route, maxDistance);
+        double radius = Math.ceil(maxDistance * Math.sqrt(2));
+
+        for (int i = 0; i < 200; ++i)
+        {
+            int segment = one(integers(1, route.size()));
+            Coordinate onRoute = CorridorSearch.Polyline.interpolate(route.get(segment - 1), route.get(segment), one(doubles(0, 1)));
+
+            Coordinate point = GeoMath.destination(onRoute.getLatitude(),
+                                                   onRoute.getLongitude(),
+                                                   one(doubles(0, 360)),
+                                                   one(doubles(0, maxDistance)));
+
+            boolean covered = circles.stream().anyMatch(circle -> GeoMath.distanceInMeters(circle, point) <= radius);
+            assertThat(covered, is(true));
+        }
+    }
+
+    @Test
+    public void testCirclesStayWithinTheRadiusLimit()
+    {
+        instance.search(template, route, one(doubles(30_000, 39_000)));
+
+        for (YelpSearchRequest request : yelp.requests)
+        {
+            assertThat(request.getRadius(), lessThanOrEqualTo(YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS));
+            assertThat(request.getSearchTerm(), is("gas"));
+        }
+    }
+
+    @Test
+    public void testSinglePointRoute()
+    {
+        List<YelpBusiness> results = instance.search(template, Collections.singletonList(CENTER), maxDistance);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(CENTER, b.coordinates) <= maxDistance)
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertThat(sortedIdsOf(results), is(expected));
+        assertThat(yelp.requests.size(), is(1));
+    }
+
+    @Test
+    public void testFullCirclesAreSplit()
+    {
+        //More businesses within a few hundred meters than a single page holds
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(120, 250)));
+
+        for (YelpBusiness business : businesses)
+        {
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.004, 0.004)),
+                                                 CENTER.getLongitude() + one(doubles(-0.004, 0.004)));
+        }
+
+        yelp = new FakeYelp(businesses);
+
+        CorridorSearch search = CorridorSearch.newBuilder(yelp)
+            .withPagesPerCircle(1)
+            .withMinimumRadiusInMeters(10)
+            .build();
+
+        List<YelpBusiness> results = search.search(template, Collections.singletonList(CENTER), 500);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(CENTER, b.coordinates) <= 500)
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertThat(sortedIdsOf(results), is(expected));
+        assertThat(yelp.requests.size(), greaterThanOrEqualTo(8));
+    }
+
+    @Test
+    public void testWhenACircleIsTooFullToSplit()
+    {
+        //More businesses at a single point than a page holds can never be covered
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = CENTER);
+        yelp = new FakeYelp(businesses);
+
+        CorridorSearch search = CorridorSearch.newBuilder(yelp)
+            .withPagesPerCircle(1)
+            .withMinimumRadiusInMeters(200)
+            .build();
+
+        //The first page is kept, and the circle is reported
+        List<YelpBusiness> results = search.search(template, Collections.singletonList(CENTER), 500);
+
+        assertThat(results.size(), is(YelpSearchRequest.Builder.MAX_LIMIT));
+        assertThat(search.getTruncatedCircles(), is(1L));
+    }
+
+    @Test
+    public void testSplitsStayWithinTheMaximumCircles()
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = CENTER);
+        yelp = new FakeYelp(businesses);
+
+        CorridorSearch search = CorridorSearch.newBuilder(yelp)
+            .withPagesPerCircle(1)
+            .withMaxCircles(7)
+            .build();
+
+        List<YelpBusiness> results = search.search(template, Collections.singletonList(CENTER), 500);
+
+        assertThat(yelp.requests.size(), is(1));
+        assertThat(results.size(), is(YelpSearchRequest.Builder.MAX_LIMIT));
+        assertThat(search.getTruncatedCircles(), is(1L));
+    }
+
+    @Test
+    public void testWidenedResultsDoNotSplit()
+    {
+        //A sparse area, where Yelp fills the page with businesses from further away
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = Coordinate.of(CENTER.getLatitude() + 0.5, CENTER.getLongitude()));
+        businesses.get(0).coordinates = CENTER;
+        yelp = new FakeYelp(businesses);
+        yelp.widensRadius = true;
+
+        CorridorSearch search = CorridorSearch.newBuilder(yelp)
+            .withPagesPerCircle(1)
+            .build();
+
+        List<YelpBusiness> results = search.search(template, Collections.singletonList(CENTER), 500);
+
+        assertThat(sortedIdsOf(results), is(Collections.singletonList(businesses.get(0).id)));
+        assertThat(yelp.requests.size(), is(1));
+        assertThat(search.getTruncatedCircles(), is(0L));
+    }
+
+    @Test
+    public void testWhenTooManyCircles()
+    {
+        CorridorSearch search = CorridorSearch.newBuilder(yelp)
+            .withMaxCircles(5)
+            .build();
+
+        List<Coordinate> longRoute = new ArrayList<>(route);
+        longRoute.add(Coordinate.of(CENTER.getLatitude() + 3, CENTER.getLongitude() + 3));
+
+        assertThrows(() -> search.search(template, longRoute, 500))
+            .isInstanceOf(YelpAreaTooLargeException.class);
+
+        assertThat(yelp.requests.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testWhenACircleFails()
+    {
+        yelp.failure = new YelpOperationFailedException();
+
+        assertThrows(() -> instance.search(template, route, maxDistance))
+            .isInstanceOf(YelpOperationFailedException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> CorridorSearch.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> CorridorSearch.newBuilder(yelp).withMaxCircles(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> CorridorSearch.newBuilder(yelp).withPagesPerCircle(21))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> CorridorSearch.newBuilder(yelp).withMinimumRadiusInMeters(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(null, route, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(template, null, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(template, Collections.emptyList(), 100))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(template, route, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(template, route, 40_000))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+
+/**
+ * Answers searches from a fixed set of businesses, the way Yelp does.
+ *
+ * @author SirWellington
+ */
+final class FakeYelp implements YelpAPI
+{
+
+    private final List<YelpBusiness> businesses;
+    final List<YelpSearchRequest> requests = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    volatile YelpOperationFailedException failure;
+
+    /** Like Yelp in sparse areas, returns businesses outside the radius too. */
+    volatile boolean widensRadius;
+
+    FakeYelp(List<YelpBusiness> businesses)
+    {
+        this.businesses = businesses;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request)
+    {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+        try
+        {
+            synchronized (requests)
+            {
+                requests.add(request);
+            }
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+
+            Thread.sleep(1);
+
+            return businesses.stream()
+                .filter(b -> widensRadius ||
+                             GeoMath.distanceInMeters(request.getLatitude(), request.getLongitude(),
+                                                      b.coordinates.getLatitude(), b.coordinates.getLongitude())
+                             <= request.getRadius())
+                .skip(request.hasOffset() ? request.getOffset() : 0)
+                .limit(request.getLimit())
+                .collect(Collectors.toList());
+        }
+        catch (InterruptedException ex)
+        {
+            throw new YelpOperationFailedException(ex);
+        }
+        finally
+        {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+}
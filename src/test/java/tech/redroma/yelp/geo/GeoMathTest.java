@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class GeoMathTest
+{
+
+    @DontRepeat
+    @Test
+    public void testCannotInstantiate()
+    {
+        assertThrows(() -> new GeoMath())
+            .isInstanceOf(IllegalAccessException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testDistanceInMeters()
+    {
+        //San Francisco to Los Angeles is about 559km
+        double result = GeoMath.distanceInMeters(37.7749, -122.4194, 34.0522, -118.2437);
+        assertThat(result, closeTo(559_000, 2_000));
+    }
+
+    @Test
+    public void testDistanceToSelfIsZero()
+    {
+        double latitude = one(latitudes());
+        double longitude = one(longitudes());
+
+        assertThat(GeoMath.distanceInMeters(latitude, longitude, latitude, longitude), is(0.0));
+    }
+
+    @Test
+    public void testDistanceIsSymmetric()
+    {
+        Coordinate first = new Coordinate(one(latitudes()), one(longitudes()));
+        Coordinate second = new Coordinate(one(latitudes()), one(longitudes()));
+
+        assertThat(GeoMath.distanceInMeters(first, second), closeTo(GeoMath.distanceInMeters(second, first), 1e-6));
+    }
+
+    @Test
+    public void testDestination()
+    {
+        double latitude = one(doubles(-60, 60));
+        double longitude = one(longitudes());
+        double bearing = one(doubles(0, 360));
+        double meters = one(doubles(1, 50_000));
+
+        Coordinate result = GeoMath.destination(latitude, longitude, bearing, meters);
+
+        double distance = GeoMath.distanceInMeters(latitude, longitude, result.getLatitude(), result.getLongitude());
+        assertThat(distance, closeTo(meters, 0.01));
+    }
+
+    @Test
+    public void testMetersPerDegreeOfLongitude()
+    {
+        assertThat(GeoMath.metersPerDegreeOfLongitude(0), closeTo(GeoMath.METERS_PER_DEGREE_OF_LATITUDE, 1e-6));
+        assertThat(GeoMath.metersPerDegreeOfLongitude(60), closeTo(GeoMath.METERS_PER_DEGREE_OF_LATITUDE / 2, 1e-6));
+        assertThat(GeoMath.metersPerDegreeOfLongitude(90), closeTo(0, 1e-6));
+    }
+
+    @Test
+    public void testNormalizeLongitude()
+    {
+        double longitude = one(longitudes());
+
+        assertThat(GeoMath.normalizeLongitude(longitude), is(longitude));
+        assertThat(GeoMath.normalizeLongitude(longitude + 360), closeTo(longitude, 1e-9));
+        assertThat(GeoMath.normalizeLongitude(longitude - 720), closeTo(longitude, 1e-9));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> GeoMath.distanceInMeters(null, Coordinate.of(0, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class GeohashTest
+{
+
+    @DontRepeat
+    @Test
+    public void testCannotInstantiate()
+    {
+        assertThrows(() -> new Geohash())
+            .isInstanceOf(IllegalAccessException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testMatchesKnownGeohashes()
+    {
+        assertThat(Geohash.toString(Geohash.cellOf(37.7749, -122.4194)), is("9q8yy"));
+        assertThat(Geohash.toString(Geohash.cellOf(51.5074, -0.1278)), is("gcpvj"));
+        assertThat(Geohash.toString(Geohash.cellOf(-33.8688, 151.2093)), is("r3gx2"));
+    }
+
+    @Test
+    public void testCellFitsInBits()
+    {
+        long cell = Geohash.cellOf(one(latitudes()), one(longitudes()));
+        assertThat(cell, lessThan(1L << (Geohash.CHARACTERS * 5)));
+    }
+
+    @Test
+    public void testRowsAndColumnsAreInRange()
+    {
+        int row = Geohash.rowOf(one(latitudes()));
+        int column = Geohash.columnOf(one(longitudes()));
+
+        assertThat(row >= 0 && row < Geohash.LATITUDE_CELLS, is(true));
+        assertThat(column >= 0 && column < Geohash.LONGITUDE_CELLS, is(true));
+    }
+
+    @DontRepeat
+    @Test
+    public void testExtremes()
+    {
+        assertThat(Geohash.rowOf(90), is(Geohash.LATITUDE_CELLS - 1));
+        assertThat(Geohash.rowOf(-90), is(0));
+        assertThat(Geohash.columnOf(-180), is(0));
+        assertThat(Geohash.columnOf(180), is(0));
+    }
+
+}
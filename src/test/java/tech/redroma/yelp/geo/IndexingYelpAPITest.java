@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class IndexingYelpAPITest
+{
+
+    @Mock
+    private YelpAPI delegate;
+
+    private YelpSearchRequest request;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    @GenerateString
+    private String businessId;
+
+    private List<YelpBusiness> businesses;
+
+    private List<YelpReview> reviews;
+
+    private SpatialIndex index;
+
+    private IndexingYelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class));
+        businesses.forEach(b -> b.coordinates = Coordinate.of(one(latitudes()), one(longitudes())));
+
+        details.coordinates = Coordinate.of(one(latitudes()), one(longitudes()));
+
+        reviews = listOf(pojos(YelpReview.class));
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm(businessId)
+            .withCoordinate(Coordinate.of(one(latitudes()), one(longitudes())))
+            .build();
+
+        index = SpatialIndex.newInstance();
+        instance = new IndexingYelpAPI(delegate, index);
+    }
+
+    @Test
+    public void testSearchForBusinesses()
+    {
+        when(delegate.searchForBusinesses(request)).thenReturn(businesses);
+
+        List<YelpBusiness> result = instance.searchForBusinesses(request);
+
+        assertThat(result, is(businesses));
+        assertThat(index.size(), is(businesses.size()));
+
+        for (YelpBusiness business : businesses)
+        {
+            assertThat(index.get(business.id), notNullValue());
+        }
+    }
+
+    @Test
+    public void testSearchForBusinessesWithTotal()
+    {
+        YelpSearchResults results = YelpSearchResults.of(businesses, businesses.size() + 1_000);
+        when(delegate.searchForBusinessesWithTotal(request)).thenReturn(results);
+
+        assertThat(instance.searchForBusinessesWithTotal(request), is(results));
+        assertThat(index.size(), is(businesses.size()));
+    }
+
+    @Test
+    public void testGetBusinessDetails()
+    {
+        when(delegate.getBusinessDetails(businessId)).thenReturn(details);
+
+        YelpBusinessDetails result = instance.getBusinessDetails(businessId);
+
+        assertThat(result, is(details));
+        assertThat(index.get(details.id).getBusiness().getName(), is(details.name));
+    }
+
+    @Test
+    public void testGetReviewsForBusiness()
+    {
+        when(delegate.getReviewsForBusiness(businessId)).thenReturn(reviews);
+
+        assertThat(instance.getReviewsForBusiness(businessId), is(reviews));
+        assertThat(index.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testWhenDelegateFails()
+    {
+        when(delegate.searchForBusinesses(request)).thenThrow(new YelpOperationFailedException());
+
+        assertThrows(() -> instance.searchForBusinesses(request))
+            .isInstanceOf(YelpOperationFailedException.class);
+
+        assertThat(index.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testFromIndex()
+    {
+        YelpAPI api = index.indexing(delegate);
+        when(delegate.searchForBusinesses(request)).thenReturn(businesses);
+
+        api.searchForBusinesses(request);
+        assertThat(index.size(), is(businesses.size()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> new IndexingYelpAPI(null, index))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new IndexingYelpAPI(delegate, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class SpatialIndexTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private MutableClock clock;
+
+    private List<YelpBusiness> businesses;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    private SpatialIndex instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        clock = new MutableClock();
+
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(50, 200)));
+
+        //Spread the businesses over roughly 60km around the center
+        for (YelpBusiness business : businesses)
+        {
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.3, 0.3)),
+                                                 CENTER.getLongitude() + one(doubles(-0.3, 0.3)));
+        }
+
+        details.coordinates = Coordinate.of(CENTER.getLatitude(), CENTER.getLongitude());
+
+        instance = new SpatialIndex(clock);
+        instance.addAll(businesses);
+    }
+
+    @Test
+    public void testSize()
+    {
+        assertThat(instance.size(), is(businesses.size()));
+        assertThat(instance.isEmpty(), is(false));
+    }
+
+    @Test
+    public void testAddIgnoresIncompleteBusinesses()
+    {
+        YelpBusiness business = businesses.get(0);
+        business.id = "new-id";
+        business.coordinates = null;
+
+        assertThat(instance.add(business), is(false));
+        assertThat(instance.add((YelpBusiness) null), is(false));
+        assertThat(instance.add((YelpBusinessDetails) null), is(false));
+        assertThat(instance.addAll(null), is(0));
+        assertThat(instance.size(), is(businesses.size()));
+    }
+
+    @Test
+    public void testAddReplacesExisting()
+    {
+        YelpBusiness business = businesses.get(0);
+        business.coordinates = Coordinate.of(-33.8688, 151.2093);
+
+        instance.add(business);
+
+        assertThat(instance.size(), is(businesses.size()));
+        assertThat(instance.get(business.id).getBusiness().getCoordinates(), is(business.coordinates));
+        assertThat(instance.withinRadius(business.coordinates, 10).size(), is(1));
+    }
+
+    @Test
+    public void testAddDetails()
+    {
+        assertThat(instance.add(details), is(true));
+
+        SpatialIndex.Hit hit = instance.get(details.id);
+        assertThat(hit, notNullValue());
+        assertThat(hit.getBusiness().getName(), is(details.name));
+        assertThat(hit.getBusiness().getCoordinates(), is(details.coordinates));
+    }
+
+    @Test
+    public void testGet()
+    {
+        YelpBusiness business = businesses.get(one(integers(0, businesses.size())));
+
+        SpatialIndex.Hit hit = instance.get(business.id);
+        assertThat(hit.getBusiness().getId(), is(business.id));
+        assertThat(Double.isNaN(hit.getDistanceInMeters()), is(true));
+        assertThat(hit.getFetchedAt(), is(clock.instant()));
+
+        assertThat(instance.get("unknown"), nullValue());
+        assertThat(instance.get(null), nullValue());
+    }
+
+    @Test
+    public void testRemove()
+    {
+        YelpBusiness business = businesses.get(0);
+
+        assertThat(instance.remove(business.id), is(true));
+        assertThat(instance.remove(business.id), is(false));
+        assertThat(instance.get(business.id), nullValue());
+        assertThat(instance.size(), is(businesses.size() - 1));
+
+        instance.add(business);
+        assertThat(instance.size(), is(businesses.size()));
+    }
+
+    @Test
+    public void testWithinRadius()
+    {
+        double radius = one(doubles(100, 30_000));
+
+        List<String> expected = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(CENTER, b.coordinates) <= radius)
+            .sorted(Comparator.comparingDouble(b -> GeoMath.distanceInMeters(CENTER, b.coordinates)))
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+
+        List<String> result = idsOf(instance.withinRadius(CENTER, radius));
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testWithinRadiusWithLargeRadius()
+    {
+        List<SpatialIndex.Hit> result = instance.withinRadius(CENTER, 20_000_000);
+        assertThat(result.size(), is(businesses.size()));
+    }
+
+    @Test
+    public void testWithinBounds()
+    {
+        BoundingBox box = BoundingBox.of(CENTER.getLatitude() - 0.1,
+                                         CENTER.getLongitude() - 0.2,
+                                         CENTER.getLatitude() + 0.15,
+                                         CENTER.getLongitude() + 0.05);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> box.contains(b.coordinates))
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        List<String> result = idsOf(instance.withinBounds(box));
+        result.sort(Comparator.naturalOrder());
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testNearest()
+    {
+        int k = one(integers(1, businesses.size() + 5));
+
+        List<String> expected = businesses.stream()
+            .sorted(Comparator.comparingDouble(b -> GeoMath.distanceInMeters(CENTER, b.coordinates)))
+            .limit(k)
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+
+        List<String> result = idsOf(instance.nearest(CENTER, k));
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testNearestFromFarAway()
+    {
+        Coordinate farAway = Coordinate.of(-33.8688, 151.2093);
+
+        List<SpatialIndex.Hit> result = instance.nearest(farAway, 3);
+        assertThat(result.size(), is(3));
+    }
+
+    @Test
+    public void testNearestWithEmptyIndex()
+    {
+        SpatialIndex empty = new SpatialIndex(clock);
+        assertThat(empty.nearest(CENTER, 5).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testFreshness()
+    {
+        clock.advance(Duration.ofMinutes(10));
+
+        YelpBusiness fresh = businesses.get(0);
+        instance.add(fresh);
+
+        List<SpatialIndex.Hit> recent = instance.withinRadius(CENTER, 100_000, Duration.ofMinutes(5));
+        assertThat(idsOf(recent), is(java.util.Collections.singletonList(fresh.id)));
+        assertThat(recent.get(0).getAge(), is(Duration.ZERO));
+
+        List<SpatialIndex.Hit> all = instance.withinRadius(CENTER, 100_000);
+        assertThat(all.size(), is(businesses.size()));
+
+        SpatialIndex.Hit stale = instance.get(businesses.get(1).id);
+        assertThat(stale.getAge(), is(Duration.ofMinutes(10)));
+
+        assertThat(instance.nearest(CENTER, 5, Duration.ofMinutes(5)).size(), is(1));
+        assertThat(instance.withinBounds(BoundingBox.around(CENTER, 100_000), Duration.ofMinutes(5)).size(), is(1));
+    }
+
+    @Test
+    public void testEvictOlderThan()
+    {
+        clock.advance(Duration.ofHours(1));
+        instance.add(businesses.get(0));
+
+        int removed = instance.evictOlderThan(Duration.ofMinutes(30));
+
+        assertThat(removed, is(businesses.size() - 1));
+        assertThat(instance.size(), is(1));
+        assertThat(instance.withinRadius(CENTER, 100_000).size(), is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> new SpatialIndex(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.withinRadius(null, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.withinRadius(CENTER, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.withinRadius(CENTER, 10, Duration.ofSeconds(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.withinBounds(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.nearest(CENTER, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.evictOlderThan(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.indexing(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> idsOf(List<SpatialIndex.Hit> hits)
+    {
+        return hits.stream()
+            .map(hit -> hit.getBusiness().getId())
+            .collect(Collectors.toList());
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.geo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpAreaTooLargeException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class TiledSearchTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    private List<YelpBusiness> businesses;
+
+    private FakeYelp yelp;
+
+    private YelpSearchRequest template;
+
+    private ExecutorService executor;
+
+    private TiledSearch instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(50, 300)));
+
+        //Spread the businesses over roughly 200km around the center
+        for (YelpBusiness business : businesses)
+        {
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-1, 1)),
+                                                 CENTER.getLongitude() + one(doubles(-1, 1)));
+        }
+
+        yelp = new FakeYelp(businesses);
+
+        template = YelpSearchRequest.newBuilder()
+            .withSearchTerm("coffee")
+            .withCoordinate(CENTER)
+            .build();
+
+        executor = Executors.newFixedThreadPool(3);
+
+        instance = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(one(integers(5_000, 40_000)))
+            .withConcurrency(one(integers(1, 6)))
+            .withPagesPerTile(20)
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSearchCircle()
+    {
+        double radius = one(doubles(10_000, 90_000));
+
+        List<String> expected = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(CENTER, b.coordinates) <= radius)
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> results = instance.searchCircle(template, CENTER, radius);
+
+        assertThat(sortedIdsOf(results), is(expected));
+
+        double previous = 0;
+        for (YelpBusiness business : results)
+        {
+            assertThat(business.distance, is(GeoMath.distanceInMeters(CENTER, business.coordinates)));
+            assertThat(business.distance >= previous, is(true));
+            previous = business.distance;
+        }
+    }
+
+    @Test
+    public void testSearchBox()
+    {
+        BoundingBox box = BoundingBox.of(CENTER.getLatitude() - 0.8,
+                                         CENTER.getLongitude() - 0.5,
+                                         CENTER.getLatitude() + 0.3,
+                                         CENTER.getLongitude() + 0.9);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> box.contains(b.coordinates))
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> results = instance.searchBox(template, box);
+
+        assertThat(sortedIdsOf(results), is(expected));
+    }
+
+    @Test
+    public void testTilesStayWithinTheRadiusLimit()
+    {
+        //Small tiles would need more than the maximum number to cover a circle this large
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(one(integers(20_000, 40_000)))
+            .build();
+
+        search.searchCircle(template, CENTER, one(doubles(50_000, 100_000)));
+
+        assertThat(yelp.requests.size(), greaterThan(1));
+
+        for (YelpSearchRequest request : yelp.requests)
+        {
+            assertThat(request.getRadius(), lessThanOrEqualTo(YelpSearchRequest.Builder.MAX_RADIUS_IN_METERS));
+            assertThat(request.getSearchTerm(), is("coffee"));
+        }
+    }
+
+    @Test
+    public void testTilesCoverTheCircle()
+    {
+        int tileRadius = one(integers(2_000, 40_000));
+        TiledSearch search = TiledSearch.newBuilder(yelp).withTileRadiusInMeters(tileRadius).build();
+
+        double radius = one(doubles(tileRadius, tileRadius * 5));
+        List<Coordinate> tiles = search.tilesCovering(CENTER, radius);
+
+        for (int i = 0; i < 200; ++i)
+        {
+            Coordinate point = GeoMath.destination(CENTER.getLatitude(),
+                                                   CENTER.getLongitude(),
+                                                   one(doubles(0, 360)),
+                                                   one(doubles(0, radius)));
+
+            boolean covered = tiles.stream().anyMatch(tile -> GeoMath.distanceInMeters(tile, point) <= tileRadius);
+            assertThat(covered, is(true));
+        }
+    }
+
+    @Test
+    public void testWithSharedExecutor()
+    {
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withExecutor(executor)
+            .withConcurrency(2)
+            .build();
+
+        List<YelpBusiness> results = search.searchCircle(template, CENTER, 60_000);
+
+        assertThat(yelp.maxInFlight.get(), lessThanOrEqualTo(2));
+        assertThat(executor.isShutdown(), is(false));
+        assertThat(results.size(), lessThanOrEqualTo(businesses.size()));
+    }
+
+    @Test
+    public void testFullTilesAreSplit()
+    {
+        //More businesses within a kilometer than a single page holds
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(120, 250)));
+
+        for (YelpBusiness business : businesses)
+        {
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.008, 0.008)),
+                                                 CENTER.getLongitude() + one(doubles(-0.008, 0.008)));
+        }
+
+        yelp = new FakeYelp(businesses);
+
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(2_000)
+            .withPagesPerTile(1)
+            .withMinimumRadiusInMeters(10)
+            .build();
+
+        List<YelpBusiness> results = search.searchCircle(template, CENTER, 1_500);
+
+        List<String> expected = businesses.stream()
+            .filter(b -> GeoMath.distanceInMeters(CENTER, b.coordinates) <= 1_500)
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertThat(sortedIdsOf(results), is(expected));
+    }
+
+    @Test
+    public void testWhenATileIsTooFullToSplit()
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = CENTER);
+        yelp = new FakeYelp(businesses);
+
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(2_000)
+            .withPagesPerTile(1)
+            .withMinimumRadiusInMeters(500)
+            .build();
+
+        //The first page is kept, and the tile is reported
+        List<YelpBusiness> results = search.searchCircle(template, CENTER, 1_500);
+
+        assertThat(results.size(), is(YelpSearchRequest.Builder.MAX_LIMIT));
+        assertThat(search.getTruncatedTiles(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void testSplitsStayWithinTheMaximumTiles()
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = CENTER);
+        yelp = new FakeYelp(businesses);
+
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(2_000)
+            .withPagesPerTile(1)
+            .withMaxTiles(7)
+            .build();
+
+        List<YelpBusiness> results = search.searchCircle(template, CENTER, 1_000);
+
+        assertThat(yelp.requests.size(), lessThanOrEqualTo(7));
+        assertThat(results.size(), is(YelpSearchRequest.Builder.MAX_LIMIT));
+        assertThat(search.getTruncatedTiles(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void testWidenedResultsDoNotSplit()
+    {
+        //A sparse area, where Yelp fills the page with businesses from further away
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(60, 100)));
+        businesses.forEach(business -> business.coordinates = Coordinate.of(CENTER.getLatitude() + 0.5, CENTER.getLongitude()));
+        businesses.get(0).coordinates = CENTER;
+        yelp = new FakeYelp(businesses);
+        yelp.widensRadius = true;
+
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(2_000)
+            .withPagesPerTile(1)
+            .build();
+
+        List<YelpBusiness> results = search.searchCircle(template, CENTER, 1_000);
+
+        assertThat(sortedIdsOf(results), is(Collections.singletonList(businesses.get(0).id)));
+        assertThat(yelp.requests.size(), is(search.tilesCovering(CENTER, 1_000).size()));
+        assertThat(search.getTruncatedTiles(), is(0L));
+    }
+
+    @Test
+    public void testWhenTooManyTiles()
+    {
+        TiledSearch search = TiledSearch.newBuilder(yelp)
+            .withTileRadiusInMeters(1_000)
+            .withMaxTiles(10)
+            .build();
+
+        assertThrows(() -> search.searchCircle(template, CENTER, 100_000))
+            .isInstanceOf(YelpAreaTooLargeException.class);
+
+        assertThat(yelp.requests.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testWhenATileFails()
+    {
+        yelp.failure = new YelpOperationFailedException();
+
+        assertThrows(() -> instance.searchCircle(template, CENTER, 50_000))
+            .isInstanceOf(YelpOperationFailedException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> TiledSearch.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> TiledSearch.newBuilder(yelp).withTileRadiusInMeters(40_001))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> TiledSearch.newBuilder(yelp).withConcurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> TiledSearch.newBuilder(yelp).withMaxTiles(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> TiledSearch.newBuilder(yelp).withMinimumRadiusInMeters(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> TiledSearch.newBuilder(yelp).withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchCircle(null, CENTER, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchCircle(template, null, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchCircle(template, CENTER, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.searchBox(template, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        Address address = new Address();
+        address.address1 = "1 Market St";
+        address.city = "San Francisco";
+        YelpSearchRequest withAddress = YelpSearchRequest.newBuilder().withLocation(address).build();
+
+        assertThrows(() -> instance.searchCircle(withAddress, CENTER, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static List<String> sortedIdsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+}
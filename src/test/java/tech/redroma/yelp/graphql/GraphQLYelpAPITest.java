@@ -0,0 +1,415 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.graphql;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpAuthenticationException;
+import tech.redroma.yelp.exceptions.YelpBadArgumentException;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.oauth.OAuthTokenProvider;
+import tech.sirwellington.alchemy.http.AlchemyHttp;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GeneratePojo;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class GraphQLYelpAPITest
+{
+
+    @Mock
+    private YelpAPI delegate;
+
+    @GeneratePojo
+    private YelpBusinessDetails details;
+
+    private YelpSearchRequest request;
+
+    private List<YelpBusinessDetails> businesses;
+
+    private StandInGraphQLServer server;
+
+    private GraphQLTransport transport;
+
+    private ExecutorService executor;
+
+    private GraphQLYelpAPI instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusinessDetails.class), one(integers(5, 30)));
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("ramen")
+            .withCoordinate(Coordinate.of(34.0522, -118.2437))
+            .build();
+
+        server = new StandInGraphQLServer();
+        businesses.forEach(business -> server.businesses.put(business.id, business));
+
+        transport = GraphQLTransport.newInstance(AlchemyHttp.Factory.newInstance(),
+                                                 OAuthTokenProvider.newBasicTokenProvider(StandInGraphQLServer.TOKEN),
+                                                 server.getUrl());
+
+        executor = Executors.newCachedThreadPool();
+
+        //Batches close as soon as they fill up, so tests don't depend on timing
+        instance = GraphQLYelpAPI.newBuilder(delegate, transport)
+            .withWindow(Duration.ofSeconds(30))
+            .withMaxBatchSize(businesses.size())
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testCoalescesConcurrentLookups() throws Exception
+    {
+        List<YelpBusinessDetails> results = lookUpConcurrently(idsOf(businesses));
+
+        for (int i = 0; i < businesses.size(); ++i)
+        {
+            assertThat(results.get(i), is(expected(businesses.get(i))));
+        }
+
+        assertThat(server.requests.get(), is(1));
+        assertThat(instance.getQueries(), is(1L));
+        assertThat(instance.getLookups(), is((long) businesses.size()));
+        verify(delegate, never()).getBusinessDetails(anyString());
+    }
+
+    @Test
+    public void testRepeatedIdsAreQueriedOnce() throws Exception
+    {
+        YelpBusinessDetails business = businesses.get(0);
+
+        instance = GraphQLYelpAPI.newBuilder(delegate, transport)
+            .withWindow(Duration.ofMillis(300))
+            .build();
+
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 5; ++i)
+        {
+            ids.add(business.id);
+        }
+
+        List<YelpBusinessDetails> results = lookUpConcurrently(ids);
+
+        results.forEach(result -> assertThat(result, is(expected(business))));
+
+        //Each caller gets its own copy
+        assertThat(results.get(0) == results.get(1), is(false));
+
+        assertThat(server.requests.get(), is(1));
+        assertThat(server.queries.get(0).split("business\\(").length, is(2));
+    }
+
+    @Test
+    public void testWhenABusinessIsNotFound() throws Exception
+    {
+        List<String> ids = idsOf(businesses);
+        String missing = one(pojos(YelpBusinessDetails.class)).id;
+        ids.set(0, missing);
+
+        List<Future<YelpBusinessDetails>> futures = submitAll(ids);
+
+        try
+        {
+            futures.get(0).get();
+            fail("Expected the missing business to fail");
+        }
+        catch (ExecutionException ex)
+        {
+            assertThat(ex.getCause(), instanceOf(YelpBadArgumentException.class));
+            assertThat(ex.getCause().getMessage(), containsString(missing));
+        }
+
+        //The rest of the batch is answered
+        for (int i = 1; i < ids.size(); ++i)
+        {
+            assertThat(futures.get(i).get(), is(expected(businesses.get(i))));
+        }
+
+        assertThat(server.requests.get(), is(1));
+    }
+
+    @Test
+    public void testLoneLookupGoesThroughDelegate() throws Exception
+    {
+        when(delegate.getBusinessDetails(details.id)).thenReturn(details);
+
+        instance = GraphQLYelpAPI.newBuilder(delegate, transport)
+            .withWindow(Duration.ZERO)
+            .build();
+
+        YelpBusinessDetails result = instance.getBusinessDetails(details.id);
+
+        assertThat(result, sameInstance(details));
+        assertThat(server.requests.get(), is(0));
+    }
+
+    @Test
+    public void testBatchingTurnedOff() throws Exception
+    {
+        when(delegate.getBusinessDetails(anyString())).thenReturn(details);
+
+        instance = GraphQLYelpAPI.newBuilder(delegate, transport)
+            .withMaxBatchSize(1)
+            .build();
+
+        lookUpConcurrently(idsOf(businesses));
+
+        assertThat(server.requests.get(), is(0));
+        assertThat(instance.getQueries(), is(0L));
+    }
+
+    @Test
+    public void testBatchesReviews() throws Exception
+    {
+        businesses.forEach(business -> server.reviews.put(business.id, listOf(pojos(YelpReview.class), 3)));
+
+        instance = GraphQLYelpAPI.newBuilder(delegate, transport)
+            .withWindow(Duration.ofSeconds(30))
+            .withMaxBatchSize(businesses.size() * 2)
+            .withReviews()
+            .build();
+
+        List<Future<YelpBusinessDetails>> detailFutures = submitAll(idsOf(businesses));
+        List<Future<List<YelpReview>>> reviewFutures = new ArrayList<>();
+
+        for (YelpBusinessDetails business : businesses)
+        {
+            reviewFutures.add(executor.submit(() -> instance.getReviewsForBusiness(business.id)));
+        }
+
+        for (int i = 0; i < businesses.size(); ++i)
+        {
+            YelpBusinessDetails business = businesses.get(i);
+
+            assertThat(detailFutures.get(i).get(), is(expected(business)));
+            assertThat(reviewFutures.get(i).get(), is(server.reviews.get(business.id)));
+        }
+
+        assertThat(server.requests.get(), is(1));
+        verify(delegate, never()).getReviewsForBusiness(anyString());
+    }
+
+    @Test
+    public void testReviewsGoThroughDelegateByDefault() throws Exception
+    {
+        List<YelpReview> reviews = listOf(pojos(YelpReview.class));
+        when(delegate.getReviewsForBusiness(details.id)).thenReturn(reviews);
+
+        assertThat(instance.getReviewsForBusiness(details.id), is(reviews));
+        assertThat(server.requests.get(), is(0));
+    }
+
+    @Test
+    public void testSearchesGoThroughDelegate() throws Exception
+    {
+        instance.searchForBusinesses(request);
+        verify(delegate).searchForBusinesses(request);
+
+        instance.searchForBusinessesWithTotal(request);
+        verify(delegate).searchForBusinessesWithTotal(request);
+    }
+
+    @Test
+    public void testWhenTransportFails() throws Exception
+    {
+        GraphQLTransport failing = (query, variables) ->
+        {
+            throw new YelpOperationFailedException();
+        };
+
+        instance = GraphQLYelpAPI.newBuilder(delegate, failing)
+            .withWindow(Duration.ofSeconds(30))
+            .withMaxBatchSize(businesses.size())
+            .build();
+
+        for (Future<YelpBusinessDetails> future : submitAll(idsOf(businesses)))
+        {
+            try
+            {
+                future.get();
+                fail("Expected the lookup to fail");
+            }
+            catch (ExecutionException ex)
+            {
+                assertThat(ex.getCause(), instanceOf(YelpOperationFailedException.class));
+            }
+        }
+
+        verify(delegate, never()).getBusinessDetails(anyString());
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithBadToken() throws Exception
+    {
+        transport = GraphQLTransport.newInstance(AlchemyHttp.Factory.newInstance(),
+                                                 OAuthTokenProvider.newBasicTokenProvider("not-the-token"),
+                                                 server.getUrl());
+
+        assertThrows(() -> transport.execute("query { business(id: \"x\") { id } }", new JsonObject()))
+            .isInstanceOf(YelpAuthenticationException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testQueryUsesVariables()
+    {
+        List<GraphQLYelpAPI.Lookup> lookups = new ArrayList<>();
+        lookups.add(new GraphQLYelpAPI.Lookup(GraphQLYelpAPI.Kind.DETAILS, "a\"b"));
+        lookups.add(new GraphQLYelpAPI.Lookup(GraphQLYelpAPI.Kind.REVIEWS, "c"));
+
+        JsonObject variables = new JsonObject();
+        String query = GraphQLYelpAPI.queryFor(lookups, variables);
+
+        assertThat(query, containsString("query Lookups($d0: String, $r1: String)"));
+        assertThat(query, containsString("d0: business(id: $d0) { ...details }"));
+        assertThat(query, containsString("r1: reviews(business: $r1)"));
+        assertThat(query.endsWith(GraphQLYelpAPI.DETAILS_FRAGMENT), is(true));
+        assertThat(query.contains("a\"b"), is(false));
+        assertThat(variables.get("d0").getAsString(), is("a\"b"));
+        assertThat(variables.get("r1").getAsString(), is("c"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> GraphQLYelpAPI.newBuilder(null, transport))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> GraphQLYelpAPI.newBuilder(delegate, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> GraphQLYelpAPI.newBuilder(delegate, transport).withWindow(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> GraphQLYelpAPI.newBuilder(delegate, transport).withWindow(Duration.ofMillis(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> GraphQLYelpAPI.newBuilder(delegate, transport).withMaxBatchSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.getBusinessDetails(""))
+            .isInstanceOf(YelpBadArgumentException.class);
+
+        assertThrows(() -> GraphQLTransport.newInstance(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> GraphQLTransport.newInstance(AlchemyHttp.Factory.newInstance(), null, server.getUrl()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> transport.execute("", new JsonObject()))
+            .isInstanceOf(YelpBadArgumentException.class);
+    }
+
+    private List<YelpBusinessDetails> lookUpConcurrently(List<String> ids) throws Exception
+    {
+        List<YelpBusinessDetails> results = new ArrayList<>();
+
+        for (Future<YelpBusinessDetails> future : submitAll(ids))
+        {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+
+        return results;
+    }
+
+    private List<Future<YelpBusinessDetails>> submitAll(List<String> ids)
+    {
+        List<Future<YelpBusinessDetails>> futures = new ArrayList<>();
+
+        for (String id : ids)
+        {
+            Callable<YelpBusinessDetails> lookup = () -> instance.getBusinessDetails(id);
+            futures.add(executor.submit(lookup));
+        }
+
+        return futures;
+    }
+
+    /**
+     * @return The business as it's answered over GraphQL, which has no image URL of its own.
+     */
+    private static YelpBusinessDetails expected(YelpBusinessDetails business)
+    {
+        YelpBusinessDetails expected = GraphQLYelpAPI.toDetails(new Gson().toJsonTree(business));
+        expected.imageURL = business.photosURLS == null || business.photosURLS.isEmpty() ? null : business.photosURLS.get(0);
+        return expected;
+    }
+
+    private static List<String> idsOf(List<YelpBusinessDetails> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+}
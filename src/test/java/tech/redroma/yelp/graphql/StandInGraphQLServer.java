@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.graphql;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Stands in for Yelp's GraphQL endpoint on a local port, answering the {@code business} and {@code reviews} fields of
+ * the queries {@link GraphQLYelpAPI} writes from a fixed set of businesses.
+ *
+ * @author SirWellington
+ */
+final class StandInGraphQLServer implements AutoCloseable
+{
+
+    private static final Gson GSON = new Gson();
+
+    private static final Pattern FIELD = Pattern.compile("(\\w+): (business|reviews)\\((?:id|business): \\$(\\w+)\\)");
+
+    static final String TOKEN = "stand-in-token";
+
+    final Map<String, YelpBusinessDetails> businesses = new ConcurrentHashMap<>();
+    final Map<String, List<YelpReview>> reviews = new ConcurrentHashMap<>();
+    final List<String> queries = new CopyOnWriteArrayList<>();
+    final AtomicInteger requests = new AtomicInteger();
+
+    private final HttpServer server;
+
+    StandInGraphQLServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v3/graphql", this::handle);
+        server.start();
+    }
+
+    String getUrl()
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/graphql";
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+
+        if (!("Bearer " + TOKEN).equals(exchange.getRequestHeaders().getFirst("Authorization")))
+        {
+            respond(exchange, 401, "{\"error\": {\"code\": \"TOKEN_INVALID\"}}");
+            return;
+        }
+
+        JsonObject request;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), UTF_8))
+        {
+            request = new JsonParser().parse(reader).getAsJsonObject();
+        }
+
+        String query = request.get("query").getAsString();
+        JsonObject variables = request.getAsJsonObject("variables");
+        queries.add(query);
+
+        JsonObject data = new JsonObject();
+        JsonArray errors = new JsonArray();
+        Matcher matcher = FIELD.matcher(query);
+
+        while (matcher.find())
+        {
+            String alias = matcher.group(1);
+            String id = variables.get(matcher.group(3)).getAsString();
+            JsonElement result = "business".equals(matcher.group(2)) ? businessFor(id) : reviewsFor(id);
+
+            data.add(alias, result);
+
+            if (result.isJsonNull())
+            {
+                errors.add(notFound(alias));
+            }
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("data", data);
+
+        if (errors.size() > 0)
+        {
+            response.add("errors", errors);
+        }
+
+        respond(exchange, 200, response.toString());
+    }
+
+    private JsonElement businessFor(String id)
+    {
+        YelpBusinessDetails business = businesses.get(id);
+
+        if (business == null)
+        {
+            return JsonNull.INSTANCE;
+        }
+
+        //Yelp's GraphQL schema has no image URL
+        JsonObject json = GSON.toJsonTree(business).getAsJsonObject();
+        json.remove("image_url");
+        return json;
+    }
+
+    private JsonElement reviewsFor(String id)
+    {
+        if (!businesses.containsKey(id))
+        {
+            return JsonNull.INSTANCE;
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("review", GSON.toJsonTree(reviews.getOrDefault(id, Collections.emptyList())));
+        return json;
+    }
+
+    private static JsonObject notFound(String alias)
+    {
+        JsonArray path = new JsonArray();
+        path.add(alias);
+
+        JsonObject error = new JsonObject();
+        error.addProperty("message", "Business not found");
+        error.add("path", path);
+        return error;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+}
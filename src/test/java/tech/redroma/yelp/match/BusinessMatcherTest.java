@@ -0,0 +1,492 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.geo.SpatialIndex;
+import tech.redroma.yelp.match.BusinessMatcher.AddressMatch;
+import tech.redroma.yelp.match.MatchResult.Resolution;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class BusinessMatcherTest
+{
+
+    private static final Coordinate CENTER = Coordinate.of(37.7749, -122.4194);
+
+    //Large enough that every place around the center is in one cluster
+    private static final double ONE_CLUSTER = 100_000;
+
+    private List<YelpBusiness> businesses;
+
+    private List<MatchInput> inputs;
+
+    private FakeYelp yelp;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = new ArrayList<>();
+        inputs = new ArrayList<>();
+
+        int count = one(integers(10, 30));
+
+        for (int i = 0; i < count; ++i)
+        {
+            //Spread over roughly 250m around the center
+            YelpBusiness business = new YelpBusiness();
+            business.id = "business-" + i;
+            business.name = one(alphabeticStrings(12));
+            business.coordinates = Coordinate.of(CENTER.getLatitude() + one(doubles(-0.0012, 0.0012)),
+                                                 CENTER.getLongitude() + one(doubles(-0.0012, 0.0012)));
+            businesses.add(business);
+
+            //Each place is about 11m from its business, with a slightly different name
+            Coordinate coordinate = Coordinate.of(business.coordinates.getLatitude() + 0.0001, business.coordinates.getLongitude());
+            inputs.add(MatchInput.of("place-" + i, business.name + " Inc", addressInSanFrancisco(), coordinate));
+        }
+
+        yelp = new FakeYelp(businesses);
+
+        file = Files.createTempFile("matches", ".log");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testMatchesKnownBusinessesWithoutCalls()
+    {
+        SpatialIndex index = SpatialIndex.newInstance();
+        index.addAll(businesses);
+
+        BusinessMatcher instance = newBuilder()
+            .withIndex(index)
+            .build();
+
+        List<MatchResult> results = instance.matchAll(inputs);
+
+        assertMatchedInOrder(results);
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.CACHED)));
+        assertThat(results.get(0).getScore(), greaterThanOrEqualTo(BusinessMatcher.Builder.DEFAULT_MINIMUM_SCORE));
+        assertThat(yelp.searches.get() + yelp.matches.get(), is(0));
+    }
+
+    @Test
+    public void testSearchesAroundClusters()
+    {
+        BusinessMatcher instance = newBuilder().build();
+
+        List<MatchResult> results = new ArrayList<>();
+        BusinessMatcher.Summary summary = instance.match(inputs, results::add);
+
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.CLUSTER_SEARCH)));
+        assertThat(summary.getMatched(), is(inputs.size()));
+        assertThat(summary.getRequests(), is(1));
+        assertThat(yelp.searches.get(), is(1));
+        assertThat(yelp.matches.get(), is(0));
+    }
+
+    @Test
+    public void testWithSharedRateLimiter()
+    {
+        RateLimiter shared = mock(RateLimiter.class);
+
+        BusinessMatcher instance = newBuilder()
+            .withRateLimiter(shared)
+            .withoutClusterSearches()
+            .build();
+
+        BusinessMatcher.Summary summary = instance.match(inputs, result -> {});
+
+        assertThat(summary.getMatched(), is(inputs.size()));
+        verify(shared, times(summary.getRequests())).acquire();
+    }
+
+    @Test
+    public void testFallsBackToBusinessMatch()
+    {
+        BusinessMatcher instance = newBuilder()
+            .withoutClusterSearches()
+            .build();
+
+        List<MatchResult> results = instance.matchAll(inputs);
+
+        assertMatchedInOrder(results);
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.BUSINESS_MATCH)));
+        assertThat(yelp.matches.get(), is(inputs.size()));
+
+        //The businesses found are now known
+        results = instance.matchAll(inputs);
+
+        assertMatchedInOrder(results);
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.CACHED)));
+        assertThat(yelp.matches.get(), is(inputs.size()));
+    }
+
+    @Test
+    public void testWithoutCoordinates()
+    {
+        inputs = inputs.stream()
+            .map(input -> MatchInput.of(input.getKey(), input.getName(), input.getAddress(), null))
+            .collect(Collectors.toList());
+
+        List<MatchResult> results = newBuilder().build().matchAll(inputs);
+
+        assertMatchedInOrder(results);
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.BUSINESS_MATCH)));
+        assertThat(yelp.searches.get(), is(0));
+    }
+
+    @Test
+    public void testNoMatch()
+    {
+        MatchInput input = MatchInput.of("nowhere", "0 Nowhere At All", addressInSanFrancisco(), CENTER);
+
+        MatchResult result = newBuilder().build().match(input);
+
+        assertThat(result.getResolution(), is(Resolution.NO_MATCH));
+        assertThat(result.isMatched(), is(false));
+        assertThat(result.getBusinessId(), nullValue());
+    }
+
+    @Test
+    public void testMatchOne()
+    {
+        MatchResult result = newBuilder().build().match(inputs.get(0));
+
+        assertThat(result.getResolution(), is(Resolution.BUSINESS_MATCH));
+        assertThat(result.getBusinessId(), is(businesses.get(0).id));
+        assertThat(result.getInput(), is(inputs.get(0)));
+    }
+
+    @Test
+    public void testFailuresAreReported()
+    {
+        yelp.failure = new YelpOperationFailedException("unavailable");
+
+        List<MatchResult> results = new ArrayList<>();
+        BusinessMatcher.Summary summary = newBuilder()
+            .withoutClusterSearches()
+            .build()
+            .match(inputs, results::add);
+
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.FAILED)));
+        assertThat(results.get(0).getFailure(), is(yelp.failure));
+        assertThat(summary.getFailures(), is(inputs.size()));
+        assertThat(summary.isComplete(), is(false));
+    }
+
+    @Test
+    public void testResumesFromCheckpoint()
+    {
+        List<MatchInput> firstHalf = inputs.subList(0, inputs.size() / 2);
+
+        newBuilder()
+            .withoutClusterSearches()
+            .build()
+            .match(firstHalf, result -> {}, file);
+
+        List<MatchResult> results = new ArrayList<>();
+        BusinessMatcher.Summary summary = newBuilder()
+            .withoutClusterSearches()
+            .build()
+            .match(inputs, results::add, file);
+
+        assertThat(summary.getSkipped(), is(firstHalf.size()));
+        assertThat(results.size(), is(inputs.size() - firstHalf.size()));
+        assertThat(results.get(0).getInput(), is(inputs.get(firstHalf.size())));
+        assertThat(yelp.matches.get(), is(inputs.size()));
+    }
+
+    @Test
+    public void testFailuresAreRetriedOnResume()
+    {
+        yelp.failure = new YelpOperationFailedException("unavailable");
+
+        BusinessMatcher instance = newBuilder()
+            .withoutClusterSearches()
+            .build();
+
+        instance.match(inputs, result -> {}, file);
+
+        yelp.failure = null;
+
+        List<MatchResult> results = new ArrayList<>();
+        BusinessMatcher.Summary summary = instance.match(inputs, results::add, file);
+
+        assertThat(summary.getSkipped(), is(0));
+        assertThat(summary.isComplete(), is(true));
+        assertThat(resolutionsOf(results), everyItem(is(Resolution.BUSINESS_MATCH)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testClustersOf()
+    {
+        MatchInput first = MatchInput.of("a", "A", addressInSanFrancisco(), CENTER);
+        MatchInput second = MatchInput.of("b", "B", addressInSanFrancisco(), CENTER);
+        MatchInput farAway = MatchInput.of("c", "C", addressInSanFrancisco(), Coordinate.of(40.7128, -74.0060));
+        MatchInput anywhere = MatchInput.of("d", "D", addressInSanFrancisco(), null);
+
+        List<List<MatchInput>> clusters = newBuilder().build().clustersOf(Arrays.asList(first, anywhere, farAway, second));
+
+        assertThat(clusters.size(), is(3));
+        assertThat(clusters.get(0), is(Arrays.asList(anywhere)));
+        assertThat(clusters.get(1), is(Arrays.asList(first, second)));
+        assertThat(clusters.get(2), is(Arrays.asList(farAway)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testChainBranchesAreNotConfused()
+    {
+        //Another branch, about 150m away, with the same name
+        YelpBusiness branch = new YelpBusiness();
+        branch.id = "branch";
+        branch.name = "Philz Coffee";
+        branch.coordinates = Coordinate.of(CENTER.getLatitude() + 0.00135, CENTER.getLongitude());
+        branch.location = addressInSanFrancisco();
+        branch.location.address1 = "300 Folsom St";
+
+        SpatialIndex index = SpatialIndex.newInstance();
+        index.add(branch);
+
+        BusinessMatcher instance = newBuilder()
+            .withIndex(index)
+            .withoutClusterSearches()
+            .build();
+
+        MatchInput place = MatchInput.of("place", "Philz Coffee", addressInSanFrancisco(), CENTER);
+        assertThat(instance.match(place).getResolution(), is(Resolution.NO_MATCH));
+
+        //The same branch, where the place says it is
+        branch.location.address1 = "1 Market Street";
+        index.add(branch);
+        MatchResult result = instance.match(place);
+
+        assertThat(result.getResolution(), is(Resolution.CACHED));
+        assertThat(result.getBusinessId(), is(branch.id));
+    }
+
+    @DontRepeat
+    @Test
+    public void testBusinessMatchOfAnotherBranch()
+    {
+        YelpBusiness branch = new YelpBusiness();
+        branch.id = "branch";
+        branch.name = "Philz Coffee";
+        branch.coordinates = CENTER;
+        branch.location = addressInSanFrancisco();
+        branch.location.address1 = "300 Folsom St";
+
+        yelp = new FakeYelp(Arrays.asList(branch));
+
+        BusinessMatcher instance = newBuilder()
+            .withoutClusterSearches()
+            .build();
+
+        MatchInput place = MatchInput.of("place", "Philz Coffee", addressInSanFrancisco(), CENTER);
+        MatchResult result = instance.match(place);
+
+        assertThat(result.getResolution(), is(Resolution.NO_MATCH));
+        assertThat(result.getBusinessId(), nullValue());
+        assertThat(yelp.matches.get(), is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testGenericNamesAreNotContained()
+    {
+        assertThat(BusinessMatcher.nameSimilarity("Pizza", "Joe's Pizza"), lessThan(BusinessMatcher.CONTAINED_NAME_SIMILARITY));
+        assertThat(BusinessMatcher.scoreOf("Pizza", "Joe's Pizza", 0, 100), lessThan(BusinessMatcher.Builder.DEFAULT_MINIMUM_SCORE));
+        assertThat(BusinessMatcher.nameSimilarity("Joe's", "Joe's Pizza"), lessThan(BusinessMatcher.CONTAINED_NAME_SIMILARITY));
+    }
+
+    @DontRepeat
+    @Test
+    public void testCompareAddresses()
+    {
+        Address address = addressInSanFrancisco();
+        address.zipCode = "94105";
+
+        assertThat(BusinessMatcher.compareAddresses(address, "1 Market Street", "94105-1420"), is(AddressMatch.SAME));
+        assertThat(BusinessMatcher.compareAddresses(address, "1 Market St Ste 300", null), is(AddressMatch.SAME));
+        assertThat(BusinessMatcher.compareAddresses(address, "101 Market St", "94105"), is(AddressMatch.DIFFERENT));
+        assertThat(BusinessMatcher.compareAddresses(address, "1 Folsom St", "94105"), is(AddressMatch.DIFFERENT));
+        assertThat(BusinessMatcher.compareAddresses(address, null, "94110"), is(AddressMatch.DIFFERENT));
+        assertThat(BusinessMatcher.compareAddresses(address, null, "94105"), is(AddressMatch.UNKNOWN));
+        assertThat(BusinessMatcher.compareAddresses(new Address(), "1 Market St", "94105"), is(AddressMatch.UNKNOWN));
+        assertThat(BusinessMatcher.compareAddresses(null, "1 Market St", "94105"), is(AddressMatch.UNKNOWN));
+    }
+
+    @DontRepeat
+    @Test
+    public void testNameSimilarity()
+    {
+        assertThat(BusinessMatcher.nameSimilarity("Caf\u00e9 R\u00e9veille", "cafe reveille!"), is(1.0));
+        assertThat(BusinessMatcher.nameSimilarity("The Blue Bottle", "Blue Bottle Coffee"), is(BusinessMatcher.CONTAINED_NAME_SIMILARITY));
+        assertThat(BusinessMatcher.nameSimilarity("Tartine Bakery", "Tartine Bakeries"), greaterThanOrEqualTo(0.8));
+        assertThat(BusinessMatcher.nameSimilarity("Blue Bottle", "Philz"), lessThan(0.3));
+        assertThat(BusinessMatcher.nameSimilarity(null, "Philz"), is(0.0));
+        assertThat(BusinessMatcher.nameSimilarity("The", "Philz"), is(0.0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testScoreOf()
+    {
+        assertThat(BusinessMatcher.scoreOf("Philz", "Philz", 0, 100), is(1.0));
+        assertThat(BusinessMatcher.scoreOf("Philz", "Philz", 50, 100), closeTo(0.875, 0.0001));
+        assertThat(BusinessMatcher.scoreOf("Philz", "Philz", 500, 100), closeTo(BusinessMatcher.NAME_WEIGHT, 0.0001));
+        assertThat(BusinessMatcher.scoreOf("Philz", "Philz", Double.NaN, 100), is(1.0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithBadArgs()
+    {
+        BusinessMatcher instance = newBuilder().build();
+
+        assertThrows(() -> instance.matchAll(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.matchAll(Arrays.asList(inputs.get(0), inputs.get(0))))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.match(inputs, null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.match(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> MatchInput.of("", "name", addressInSanFrancisco(), null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> MatchInput.of("key", "name", null, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderWithBadArgs()
+    {
+        assertThrows(() -> BusinessMatcher.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withMinimumScore(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withMinimumScore(1.1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withRadiusInMeters(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withClusterSizeInMeters(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withClusterSearchThreshold(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withRateLimiter(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withConcurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withIndex(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BusinessMatcher.Builder newBuilder()
+    {
+        return BusinessMatcher.newBuilder(yelp)
+            .withoutRateLimit()
+            .withClusterSizeInMeters(ONE_CLUSTER);
+    }
+
+    private void assertMatchedInOrder(List<MatchResult> results)
+    {
+        assertThat(results.size(), is(inputs.size()));
+
+        for (int i = 0; i < results.size(); ++i)
+        {
+            assertThat(results.get(i).getInput(), is(inputs.get(i)));
+            assertThat(results.get(i).getBusinessId(), is(businesses.get(i).id));
+        }
+    }
+
+    private static List<Resolution> resolutionsOf(List<MatchResult> results)
+    {
+        return results.stream().map(MatchResult::getResolution).collect(Collectors.toList());
+    }
+
+    private static Address addressInSanFrancisco()
+    {
+        Address address = new Address();
+        address.address1 = "1 Market St";
+        address.city = "San Francisco";
+        address.state = "CA";
+        address.country = "US";
+        return address;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.YelpReview;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.exceptions.YelpException;
+import tech.redroma.yelp.geo.GeoMath;
+
+/**
+ * Answers searches and business matches from a fixed set of businesses. A business matches a place when the place's
+ * name starts with the business's name.
+ *
+ * @author SirWellington
+ */
+final class FakeYelp implements YelpAPI
+{
+
+    private final List<YelpBusiness> businesses;
+    final AtomicInteger searches = new AtomicInteger();
+    final AtomicInteger matches = new AtomicInteger();
+    volatile YelpException failure;
+
+    FakeYelp(List<YelpBusiness> businesses)
+    {
+        this.businesses = businesses;
+    }
+
+    @Override
+    public YelpBusinessDetails getBusinessDetails(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<YelpBusiness> searchForBusinesses(YelpSearchRequest request)
+    {
+        searches.incrementAndGet();
+
+        return businesses.stream()
+            .filter(b -> distanceFrom(request.getLatitude(), request.getLongitude(), b) <= request.getRadius())
+            .sorted(Comparator.comparingDouble(b -> distanceFrom(request.getLatitude(), request.getLongitude(), b)))
+            .limit(request.getLimit())
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<YelpReview> getReviewsForBusiness(String businessId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<YelpBusiness> matchBusinesses(String name, Address address, Coordinate coordinate)
+    {
+        matches.incrementAndGet();
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+
+        return businesses.stream()
+            .filter(b -> name.startsWith(b.name))
+            .collect(Collectors.toList());
+    }
+
+    private static double distanceFrom(double latitude, double longitude, YelpBusiness business)
+    {
+        return GeoMath.distanceInMeters(latitude, longitude, business.coordinates.getLatitude(), business.coordinates.getLongitude());
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.match;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Address;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpBusinessSnapshot;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.match.MatchResult.Resolution;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.GenerateString;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class MatchLogTest
+{
+
+    @GenerateString
+    private String key;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = Files.createTempFile("matches", ".log");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testEscape()
+    {
+        assertThat(MatchLog.unescape(MatchLog.escape(key)), is(key));
+        assertThat(MatchLog.escape("a b%c\nd"), is("a%20b%25c%0ad"));
+        assertThat(MatchLog.unescape("a%20b%25c%0ad"), is("a b%c\nd"));
+        assertThat(MatchLog.escape("plain-key"), is("plain-key"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testNewCheckpoint()
+    {
+        try (MatchLog log = open())
+        {
+            assertThat(log.getResolved().isEmpty(), is(true));
+        }
+
+        assertThat(Files.exists(file), is(true));
+    }
+
+    @Test
+    public void testReplay()
+    {
+        try (MatchLog log = open())
+        {
+            log.onResult(matched(key, "business one"));
+            log.onResult(MatchResult.unmatched(inputFor("b")));
+            log.onResult(MatchResult.failure(inputFor("c"), new YelpOperationFailedException("try again")));
+            log.onResult(matched("d e", "business-two"));
+        }
+
+        try (MatchLog log = open())
+        {
+            assertThat(log.getResolved(), containsInAnyOrder(key, "b", "d e"));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testDamagedRecordsAreDropped() throws Exception
+    {
+        try (MatchLog log = open())
+        {
+            log.onResult(matched("a", "business"));
+        }
+
+        String damaged = new String(Files.readAllBytes(file), StandardCharsets.UTF_8) + "M b\nN c\nN d";
+        Files.write(file, damaged.getBytes(StandardCharsets.UTF_8));
+
+        try (MatchLog log = open())
+        {
+            assertThat(log.getResolved(), containsInAnyOrder("a"));
+
+            log.onResult(MatchResult.unmatched(inputFor("c")));
+        }
+
+        try (MatchLog log = open())
+        {
+            assertThat(log.getResolved(), containsInAnyOrder("a", "c"));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithDifferentHeader() throws Exception
+    {
+        Files.write(file, "yelp-crawl 1 10.0 20.0 11.0 21.0 42\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(() -> open())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MatchLog open()
+    {
+        return MatchLog.open(file, 1, 0, TimeUnit.SECONDS);
+    }
+
+    private static MatchInput inputFor(String key)
+    {
+        return MatchInput.of(key, "Some Place", new Address(), null);
+    }
+
+    private static MatchResult matched(String key, String businessId)
+    {
+        YelpBusiness business = new YelpBusiness();
+        business.id = businessId;
+
+        return MatchResult.matched(inputFor(key), YelpBusinessSnapshot.of(business), 1.0, Resolution.BUSINESS_MATCH);
+    }
+
+}
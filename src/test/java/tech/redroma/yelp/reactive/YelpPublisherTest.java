@@ -0,0 +1,358 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.reactive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.YelpSearchRequest;
+import tech.redroma.yelp.YelpSearchResults;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class YelpPublisherTest
+{
+
+    @Mock
+    private YelpAPI yelp;
+
+    /** Every business the search matches, in the order Yelp returns them. */
+    private List<YelpBusiness> businesses;
+
+    private YelpSearchRequest request;
+
+    private RecordingSubscriber subscriber;
+
+    private YelpPublisher instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(120, 300)));
+
+        request = YelpSearchRequest.newBuilder()
+            .withSearchTerm("ramen")
+            .withCoordinate(Coordinate.of(34.0522, -118.2437))
+            .build();
+
+        when(yelp.searchForBusinessesWithTotal(any())).thenAnswer(call ->
+        {
+            YelpSearchRequest page = call.getArgument(0);
+            int offset = page.hasOffset() ? page.getOffset() : 0;
+            int from = Math.min(offset, businesses.size());
+            int to = Math.min(offset + page.getLimit(), businesses.size());
+
+            return YelpSearchResults.of(new ArrayList<>(businesses.subList(from, to)), businesses.size());
+        });
+
+        subscriber = new RecordingSubscriber();
+
+        //Pages are fetched on the thread that asks for them
+        instance = YelpPublisher.newBuilder(yelp)
+            .withExecutor(Runnable::run)
+            .build();
+    }
+
+    @Test
+    public void testNothingIsFetchedUntilRequested()
+    {
+        instance.search(request).subscribe(subscriber);
+
+        assertThat(subscriber.subscription == null, is(false));
+        verify(yelp, never()).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testFetchesPagesOnDemand()
+    {
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertThat(subscriber.items.size(), is(10));
+        verify(yelp, times(1)).searchForBusinessesWithTotal(any());
+
+        //Served from the page already fetched
+        subscriber.subscription.request(40);
+        assertThat(subscriber.items.size(), is(50));
+        verify(yelp, times(1)).searchForBusinessesWithTotal(any());
+
+        subscriber.subscription.request(1);
+        assertThat(subscriber.items.size(), is(51));
+        verify(yelp, times(2)).searchForBusinessesWithTotal(any());
+
+        assertThat(idsOf(subscriber.items), is(idsOf(businesses.subList(0, 51))));
+        assertThat(subscriber.completed, is(false));
+    }
+
+    @Test
+    public void testPublishesEverything()
+    {
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(idsOf(subscriber.items), is(idsOf(businesses)));
+        assertThat(subscriber.completed, is(true));
+        assertThat(subscriber.failure, nullValue());
+
+        //Stops once the total is reached
+        int pages = (businesses.size() + 49) / 50;
+        verify(yelp, times(pages)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testDemandAddsUp()
+    {
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE - 1);
+        subscriber.subscription.request(Long.MAX_VALUE - 1);
+
+        assertThat(subscriber.items.size(), is(businesses.size()));
+        assertThat(subscriber.completed, is(true));
+    }
+
+    @Test
+    public void testPageSizeAndMaxPages()
+    {
+        instance = YelpPublisher.newBuilder(yelp)
+            .withExecutor(Runnable::run)
+            .withPageSize(20)
+            .withMaxPages(3)
+            .build();
+
+        instance.search(request).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(idsOf(subscriber.items), is(idsOf(businesses.subList(0, 60))));
+        assertThat(subscriber.completed, is(true));
+        verify(yelp, times(3)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testWhenSearchFails()
+    {
+        doThrow(new YelpOperationFailedException()).when(yelp).searchForBusinessesWithTotal(any());
+
+        instance.search(request).subscribe(subscriber);
+        subscriber.subscription.request(5);
+
+        assertThat(subscriber.failure, instanceOf(YelpOperationFailedException.class));
+        assertThat(subscriber.items.isEmpty(), is(true));
+        assertThat(subscriber.completed, is(false));
+    }
+
+    @Test
+    public void testWithInvalidDemand()
+    {
+        instance.search(request).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.failure, instanceOf(IllegalArgumentException.class));
+        verify(yelp, never()).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testCancelStopsPaging()
+    {
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+
+        assertThat(subscriber.items.size(), is(10));
+        assertThat(subscriber.completed, is(false));
+        verify(yelp, times(1)).searchForBusinessesWithTotal(any());
+    }
+
+    @Test
+    public void testSubscriberFailureCancels()
+    {
+        RecordingSubscriber failing = new RecordingSubscriber()
+        {
+            @Override
+            public void onNext(YelpBusiness item)
+            {
+                super.onNext(item);
+                throw new IllegalStateException();
+            }
+        };
+
+        instance.search(request).subscribe(failing);
+        failing.subscription.request(Long.MAX_VALUE);
+
+        assertThat(failing.items.size(), is(1));
+        assertThat(failing.completed, is(false));
+        assertThat(failing.failure, nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testCancelInterruptsPageInFlight() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        doAnswer(call ->
+        {
+            started.countDown();
+
+            try
+            {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            }
+            catch (InterruptedException ex)
+            {
+                interrupted.countDown();
+                throw new YelpOperationFailedException(ex);
+            }
+
+            return YelpSearchResults.withoutTotal(businesses);
+        }).when(yelp).searchForBusinessesWithTotal(any());
+
+        instance = YelpPublisher.newBuilder(yelp).build();
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        subscriber.subscription.cancel();
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+
+        assertThat(subscriber.items.isEmpty(), is(true));
+        assertThat(subscriber.failure, nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testOnAnotherThread() throws Exception
+    {
+        instance = YelpPublisher.newBuilder(yelp).build();
+        instance.search(request).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(idsOf(subscriber.items), is(idsOf(businesses)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> YelpPublisher.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> YelpPublisher.newBuilder(yelp).withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> YelpPublisher.newBuilder(yelp).withPageSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> YelpPublisher.newBuilder(yelp).withPageSize(51))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> YelpPublisher.newBuilder(yelp).withMaxPages(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.search(request).subscribe(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> idsOf(List<YelpBusiness> businesses)
+    {
+        return businesses.stream()
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+    }
+
+    private static class RecordingSubscriber implements Subscriber<YelpBusiness>
+    {
+
+        private final List<YelpBusiness> items = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable failure;
+        private volatile boolean completed = false;
+
+        @Override
+        public void onSubscribe(Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(YelpBusiness item)
+        {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable failure)
+        {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            this.completed = true;
+            done.countDown();
+        }
+
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Category;
+import tech.redroma.yelp.CategoryRegistry;
+import tech.redroma.yelp.CategorySet;
+import tech.redroma.yelp.Coordinate;
+import tech.redroma.yelp.YelpBusiness;
+import tech.redroma.yelp.table.BusinessTable.Column;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.latitudes;
+import static tech.sirwellington.alchemy.generator.GeolocationGenerators.longitudes;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class BusinessTableTest
+{
+
+    private static final List<String> CITIES = Arrays.asList("San Francisco", "Oakland", "Berkeley");
+
+    private List<YelpBusiness> businesses;
+
+    private CategoryRegistry registry;
+
+    private BusinessTable instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        businesses = listOf(pojos(YelpBusiness.class), one(integers(40, 120)));
+
+        for (int i = 0; i < businesses.size(); ++i)
+        {
+            YelpBusiness business = businesses.get(i);
+            business.coordinates = new Coordinate(one(latitudes()), one(longitudes()));
+            business.rating = one(doubles(0, 5));
+            business.reviewCount = one(integers(0, 1000));
+            business.location.city = CITIES.get(i % CITIES.size());
+        }
+
+        registry = CategoryRegistry.newInstance();
+        instance = BusinessTable.newBuilder(registry)
+            .addAll(businesses)
+            .build();
+    }
+
+    @Test
+    public void testSize()
+    {
+        assertThat(instance.size(), is(businesses.size()));
+        assertThat(instance.isEmpty(), is(false));
+        assertThat(instance.getRegistry(), is(registry));
+    }
+
+    @Test
+    public void testColumns()
+    {
+        for (int row = 0; row < businesses.size(); ++row)
+        {
+            YelpBusiness business = businesses.get(row);
+
+            assertThat(instance.getId(row), is(business.id));
+            assertThat(instance.getName(row), is(business.name));
+            assertThat(instance.getLatitude(row), is(business.coordinates.getLatitude()));
+            assertThat(instance.getLongitude(row), is(business.coordinates.getLongitude()));
+            assertThat(instance.getRating(row), is(business.rating));
+            assertThat(instance.getDistance(row), is(business.distance));
+            assertThat(instance.getReviewCount(row), is(business.reviewCount));
+            assertThat(instance.getCity(row), is(business.location.city));
+            assertThat(instance.getCategories(row), is(registry.setOf(business.categories)));
+        }
+    }
+
+    @Test
+    public void testToBusiness()
+    {
+        for (int row = 0; row < businesses.size(); ++row)
+        {
+            assertThat(instance.toBusiness(row), is(businesses.get(row)));
+            assertThat(instance.row(row).toBusiness(), is(businesses.get(row)));
+        }
+    }
+
+    @Test
+    public void testRow()
+    {
+        int row = one(integers(0, businesses.size()));
+        YelpBusiness business = businesses.get(row);
+
+        BusinessTable.Row result = instance.row(row);
+        assertThat(result.getRowNumber(), is(row));
+        assertThat(result.getId(), is(business.id));
+        assertThat(result.getName(), is(business.name));
+        assertThat(result.getUrl(), is(business.url));
+        assertThat(result.getPhone(), is(business.phone));
+        assertThat(result.getImageURL(), is(business.imageURL));
+        assertThat(result.getRating(), is(business.rating));
+        assertThat(result.getDistance(), is(business.distance));
+        assertThat(result.getReviewCount(), is(business.reviewCount));
+        assertThat(result.isClosed(), is(business.isClosed));
+        assertThat(result.getCoordinates(), is(business.coordinates));
+        assertThat(result.getCity(), is(business.location.city));
+    }
+
+    @Test
+    public void testMissingValues()
+    {
+        YelpBusiness business = new YelpBusiness();
+        business.name = "Empty";
+
+        BusinessTable table = BusinessTable.of(Arrays.asList(business, null));
+
+        assertThat(table.size(), is(1));
+        assertThat(Double.isNaN(table.getRating(0)), is(true));
+        assertThat(Double.isNaN(table.getLatitude(0)), is(true));
+        assertThat(table.getCity(0), nullValue());
+        assertThat(table.getCategories(0).isEmpty(), is(true));
+
+        YelpBusiness result = table.toBusiness(0);
+        assertThat(result.name, is("Empty"));
+        assertThat(result.rating, nullValue());
+        assertThat(result.coordinates, nullValue());
+        assertThat(result.location, nullValue());
+        assertThat(result.isClosed, nullValue());
+    }
+
+    @Test
+    public void testRatingAtLeast()
+    {
+        double minimum = one(doubles(0, 5));
+
+        List<YelpBusiness> expected = businesses.stream()
+            .filter(b -> b.rating >= minimum)
+            .collect(Collectors.toList());
+
+        List<YelpBusiness> result = instance.query()
+            .ratingAtLeast(minimum)
+            .toBusinesses();
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testCombinedFilters()
+    {
+        String city = CITIES.get(one(integers(0, CITIES.size())));
+        int minimumReviews = one(integers(0, 1000));
+
+        List<String> expected = businesses.stream()
+            .filter(b -> b.location.city.equals(city))
+            .filter(b -> b.reviewCount >= minimumReviews)
+            .filter(b -> !Boolean.TRUE.equals(b.isClosed))
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+
+        BusinessTable.Query query = instance.query()
+            .inCity(city)
+            .reviewCountAtLeast(minimumReviews)
+            .excludingClosed();
+
+        List<String> result = query.rows().stream()
+            .map(BusinessTable.Row::getId)
+            .collect(Collectors.toList());
+
+        assertThat(result, is(expected));
+        assertThat(query.count(), is(expected.size()));
+    }
+
+    @Test
+    public void testInCityWithUnknownCity()
+    {
+        assertThat(instance.query().inCity("Atlantis").count(), is(0));
+    }
+
+    @Test
+    public void testWithinBounds()
+    {
+        long expected = businesses.stream()
+            .filter(b -> b.coordinates.getLatitude() >= 0 && b.coordinates.getLongitude() <= 0)
+            .count();
+
+        assertThat((long) instance.query().withinBounds(0, -180, 90, 0).count(), is(expected));
+    }
+
+    @Test
+    public void testWithAnyCategory()
+    {
+        YelpBusiness business = businesses.get(0);
+        CategorySet categories = registry.setOf(business.categories);
+
+        List<Integer> expected = new ArrayList<>();
+
+        for (int row = 0; row < businesses.size(); ++row)
+        {
+            if (registry.setOf(businesses.get(row).categories).intersects(categories))
+            {
+                expected.add(row);
+            }
+        }
+
+        int[] result = instance.query().withAnyCategory(categories).rowNumbers();
+
+        assertThat(result.length, is(expected.size()));
+        assertThat(result[0], is(0));
+    }
+
+    @Test
+    public void testWithAllCategories()
+    {
+        YelpBusiness business = businesses.get(1);
+        Category first = business.categories.get(0);
+        CategorySet categories = registry.setOf(business.categories);
+
+        BusinessTable.Query query = instance.query().withAllCategories(categories);
+        assertThat(query.rowNumbers()[0], is(1));
+
+        for (BusinessTable.Row row : query.rows())
+        {
+            assertThat(row.getCategories().containsAll(categories), is(true));
+            assertThat(row.getCategories().contains(first.alias), is(true));
+        }
+    }
+
+    @Test
+    public void testWithCategoriesFromAnotherRegistry()
+    {
+        CategorySet categories = CategoryRegistry.newInstance().setOfAliases("pizza");
+
+        assertThrows(() -> instance.query().withAnyCategory(categories))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.query().withAllCategories(categories))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSortBy()
+    {
+        List<String> expected = businesses.stream()
+            .sorted(Comparator.comparingDouble((YelpBusiness b) -> b.rating).reversed())
+            .map(b -> b.id)
+            .collect(Collectors.toList());
+
+        List<String> result = instance.query()
+            .sortBy(Column.RATING, true)
+            .rows()
+            .stream()
+            .map(BusinessTable.Row::getId)
+            .collect(Collectors.toList());
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testSortByIsStable()
+    {
+        List<YelpBusiness> sameRating = listOf(pojos(YelpBusiness.class), 30);
+        sameRating.forEach(b -> b.rating = 4.0);
+        sameRating.forEach(b -> b.coordinates = null);
+
+        BusinessTable table = BusinessTable.of(sameRating);
+        int[] rows = table.query().sortBy(Column.RATING, false).rowNumbers();
+
+        for (int i = 0; i < rows.length; ++i)
+        {
+            assertThat(rows[i], is(i));
+        }
+    }
+
+    @Test
+    public void testSortByWithMissingValues()
+    {
+        YelpBusiness missing = new YelpBusiness();
+        List<YelpBusiness> withMissing = new ArrayList<>(businesses);
+        withMissing.add(0, missing);
+
+        BusinessTable table = BusinessTable.of(withMissing);
+
+        int[] ascending = table.query().sortBy(Column.DISTANCE, false).rowNumbers();
+        int[] descending = table.query().sortBy(Column.RATING, true).rowNumbers();
+
+        assertThat(Double.isNaN(table.getRating(descending[descending.length - 1])), is(true));
+        assertThat(ascending.length, is(withMissing.size()));
+    }
+
+    @Test
+    public void testTopK()
+    {
+        int k = one(integers(1, 20));
+
+        List<String> expected = businesses.stream()
+            .sorted(Comparator.comparingInt((YelpBusiness b) -> b.reviewCount).reversed())
+            .limit(k)
+            .map(b -> b.reviewCount + "")
+            .collect(Collectors.toList());
+
+        List<String> result = instance.query()
+            .topK(Column.REVIEW_COUNT, k, true)
+            .rows()
+            .stream()
+            .map(r -> r.getReviewCount() + "")
+            .collect(Collectors.toList());
+
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void testTopKMatchesSort()
+    {
+        int k = one(integers(1, businesses.size() + 10));
+
+        int[] sorted = instance.query().sortBy(Column.LATITUDE, false).limit(k).rowNumbers();
+        int[] top = instance.query().topK(Column.LATITUDE, k, false).rowNumbers();
+
+        assertThat(top, is(sorted));
+    }
+
+    @Test
+    public void testTopKWithZero()
+    {
+        assertThat(instance.query().topK(Column.RATING, 0, true).count(), is(0));
+    }
+
+    @Test
+    public void testQueriesAreIndependent()
+    {
+        BusinessTable.Query first = instance.query().ratingAtLeast(6);
+        BusinessTable.Query second = instance.query();
+
+        assertThat(first.count(), is(0));
+        assertThat(second.count(), is(businesses.size()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderCannotBeReused()
+    {
+        BusinessTable.Builder builder = BusinessTable.newBuilder(registry);
+        assertThat(builder.build(), notNullValue());
+
+        assertThrows(() -> builder.add(businesses.get(0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testEdgeCases()
+    {
+        assertThrows(() -> BusinessTable.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> BusinessTable.of(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.row(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.getName(instance.size()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.query().topK(Column.RATING, -1, true))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.query().sortBy(null, true))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.watch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class BusinessFingerprintTest
+{
+
+    private YelpBusinessDetails details;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        details = BusinessWatcherTest.detailsFor(one(alphabeticStrings()));
+    }
+
+    @Test
+    public void testReadsBackFields()
+    {
+        Price price = Price.values()[one(integers(0, Price.values().length))];
+        details.price = price.asString();
+        details.isClosed = one(integers(0, 2)) == 0;
+
+        long fingerprint = BusinessFingerprint.of(details);
+
+        assertThat(fingerprint, greaterThanOrEqualTo(0L));
+        assertThat(BusinessFingerprint.ratingOf(fingerprint), is(details.rating));
+        assertThat(BusinessFingerprint.priceOf(fingerprint), is(price));
+        assertThat(BusinessFingerprint.isClosedIn(fingerprint), is(details.isClosed));
+    }
+
+    @Test
+    public void testWithMissingFields()
+    {
+        details.rating = null;
+        details.price = null;
+        details.isClosed = null;
+        details.hours = null;
+
+        long fingerprint = BusinessFingerprint.of(details);
+
+        assertThat(fingerprint, greaterThanOrEqualTo(0L));
+        assertThat(BusinessFingerprint.ratingOf(fingerprint), nullValue());
+        assertThat(BusinessFingerprint.priceOf(fingerprint), nullValue());
+        assertThat(BusinessFingerprint.isClosedIn(fingerprint), nullValue());
+    }
+
+    @Test
+    public void testRatingIsKeptToATenth()
+    {
+        details.rating = 4.04;
+        assertThat(BusinessFingerprint.ratingOf(BusinessFingerprint.of(details)), is(4.0));
+
+        details.rating = 3.96;
+        assertThat(BusinessFingerprint.ratingOf(BusinessFingerprint.of(details)), is(4.0));
+    }
+
+    @Test
+    public void testIgnoresOtherFields()
+    {
+        long fingerprint = BusinessFingerprint.of(details);
+
+        details.name = one(alphabeticStrings());
+        details.reviewCount += 1;
+        details.hours.get(0).isOpenNow = !details.hours.get(0).isOpenNow;
+
+        assertThat(BusinessFingerprint.of(details), is(fingerprint));
+    }
+
+    @Test
+    public void testHoursChange()
+    {
+        long fingerprint = BusinessFingerprint.of(details);
+
+        details.hours.get(0).open.get(0).end = "2100";
+
+        long changed = BusinessFingerprint.of(details);
+        assertThat(changed, not(fingerprint));
+        assertThat(BusinessFingerprint.hoursHashOf(changed), not(BusinessFingerprint.hoursHashOf(fingerprint)));
+        assertThat(BusinessFingerprint.ratingOf(changed), is(BusinessFingerprint.ratingOf(fingerprint)));
+    }
+
+    @Test
+    public void testHoursInADifferentOrder()
+    {
+        long fingerprint = BusinessFingerprint.of(details);
+
+        ArrayList<YelpBusinessDetails.Hours.OpenTimes> open = new ArrayList<>(details.hours.get(0).open);
+        Collections.reverse(open);
+        details.hours.get(0).open = open;
+
+        assertThat(BusinessFingerprint.of(details), is(fingerprint));
+    }
+
+    @DontRepeat
+    @Test
+    public void testUnknown()
+    {
+        assertThat(BusinessFingerprint.of(null), is(BusinessFingerprint.UNKNOWN));
+        assertThat(BusinessFingerprint.ratingOf(BusinessFingerprint.UNKNOWN), nullValue());
+        assertThat(BusinessFingerprint.priceOf(BusinessFingerprint.UNKNOWN), nullValue());
+        assertThat(BusinessFingerprint.isClosedIn(BusinessFingerprint.UNKNOWN), nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithUnknownPrice()
+    {
+        details.price = "cheap";
+        assertThat(BusinessFingerprint.priceOf(BusinessFingerprint.of(details)), nullValue());
+    }
+
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright 2016 RedRoma, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.redroma.yelp.watch;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.redroma.yelp.Price;
+import tech.redroma.yelp.WeeklyHours;
+import tech.redroma.yelp.YelpAPI;
+import tech.redroma.yelp.YelpBusinessDetails;
+import tech.redroma.yelp.exceptions.YelpOperationFailedException;
+import tech.redroma.yelp.watch.BusinessChange.Field;
+import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
+import tech.sirwellington.alchemy.test.junit.runners.DontRepeat;
+import tech.sirwellington.alchemy.test.junit.runners.Repeat;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.assertThrows;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class BusinessWatcherTest
+{
+
+    private static final Duration INTERVAL = Duration.ofHours(1);
+
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(5);
+
+    @Mock
+    private YelpAPI yelp;
+
+    private MutableClock clock;
+
+    private Map<String, YelpBusinessDetails> businesses;
+
+    private List<BusinessChange> changes;
+
+    private BusinessWatcher instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        clock = new MutableClock();
+        businesses = new LinkedHashMap<>();
+        changes = new ArrayList<>();
+
+        int count = one(integers(5, 20));
+
+        for (int i = 0; i < count; ++i)
+        {
+            String id = "business-" + i;
+            businesses.put(id, detailsFor(id));
+        }
+
+        doAnswer(invocation -> businesses.get(invocation.<String>getArgument(0)))
+            .when(yelp).getBusinessDetails(anyString());
+
+        instance = newBuilder().build(clock);
+    }
+
+    @Test
+    public void testFirstCheckSetsFingerprints()
+    {
+        businesses.keySet().forEach(instance::watch);
+
+        BusinessWatcher.Summary summary = instance.checkDue(changes::add);
+
+        assertThat(changes, is(empty()));
+        assertThat(summary.getChecked(), is(businesses.size()));
+        assertThat(summary.getChanges(), is(0));
+
+        businesses.forEach((id, details) -> assertThat(instance.getFingerprint(id), is(BusinessFingerprint.of(details))));
+    }
+
+    @Test
+    public void testChecksWithSharedRateLimiter()
+    {
+        RateLimiter shared = mock(RateLimiter.class);
+        instance = newBuilder()
+            .withRateLimiter(shared)
+            .build(clock);
+
+        businesses.keySet().forEach(instance::watch);
+        instance.checkDue(changes::add);
+
+        verify(shared, times(businesses.size())).acquire();
+    }
+
+    @Test
+    public void testReportsOnlyChangedFields()
+    {
+        businesses.keySet().forEach(instance::watch);
+        instance.checkDue(changes::add);
+
+        YelpBusinessDetails business = businesses.get("business-0");
+        business.rating = 4.0;
+        business.isClosed = false;
+        instance.watch(business);
+
+        business.rating = 4.5;
+        business.isClosed = true;
+        business.reviewCount += 10;
+        clock.advance(INTERVAL);
+
+        BusinessWatcher.Summary summary = instance.checkDue(changes::add);
+
+        assertThat(summary.getChecked(), is(businesses.size()));
+        assertThat(summary.getChangedBusinesses(), is(1));
+        assertThat(summary.getChanges(), is(2));
+        assertThat(changes.size(), is(2));
+
+        BusinessChange rating = changes.get(0);
+        assertThat(rating.getBusinessId(), is(business.id));
+        assertThat(rating.getField(), is(Field.RATING));
+        assertThat(rating.getBefore(), is(4.0));
+        assertThat(rating.getAfter(), is(4.5));
+        assertThat(rating.getDetectedAt(), is(clock.instant()));
+        assertThat(rating.describe(), is("rating 4.0->4.5"));
+
+        BusinessChange closed = changes.get(1);
+        assertThat(closed.getField(), is(Field.CLOSED));
+        assertThat(closed.describe(), is("isClosed false->true"));
+    }
+
+    @Test
+    public void testPriceChange()
+    {
+        businesses.values().forEach(instance::watch);
+
+        YelpBusinessDetails business = businesses.get("business-1");
+        business.price = "$$$";
+        clock.advance(INTERVAL);
+
+        instance.checkDue(changes::add);
+
+        assertThat(changes.size(), is(1));
+        assertThat(changes.get(0).getField(), is(Field.PRICE));
+        assertThat(changes.get(0).getBefore(), is(Price.$$));
+        assertThat(changes.get(0).getAfter(), is(Price.$$$));
+    }
+
+    @Test
+    public void testHoursChange()
+    {
+        businesses.values().forEach(instance::watch);
+
+        YelpBusinessDetails business = businesses.get("business-2");
+        business.hours.get(0).open.get(0).end = "2200";
+        clock.advance(INTERVAL);
+
+        instance.checkDue(changes::add);
+
+        assertThat(changes.size(), is(1));
+        assertThat(changes.get(0).getField(), is(Field.HOURS));
+        assertThat(changes.get(0).getBefore(), nullValue());
+        assertThat(changes.get(0).getAfter(), is(WeeklyHours.of(business.hours)));
+    }
+
+    @Test
+    public void testIgnoresWhetherOpenNow()
+    {
+        businesses.values().forEach(instance::watch);
+
+        businesses.values().forEach(details -> details.hours.get(0).isOpenNow = false);
+        clock.advance(INTERVAL);
+
+        BusinessWatcher.Summary summary = instance.checkDue(changes::add);
+
+        assertThat(summary.getChecked(), is(businesses.size()));
+        assertThat(changes, is(empty()));
+    }
+
+    @Test
+    public void testBusinessesAreNotFetchedBeforeTheyAreDue()
+    {
+        businesses.keySet().forEach(instance::watch);
+        instance.checkDue(changes::add);
+
+        clock.advance(INTERVAL.minusSeconds(1));
+
+        assertThat(instance.getDue(), is(0));
+        assertThat(instance.checkDue(changes::add).getChecked(), is(0));
+
+        clock.advance(Duration.ofSeconds(1));
+
+        assertThat(instance.getDue(), is(businesses.size()));
+        assertThat(instance.checkDue(changes::add).getChecked(), is(businesses.size()));
+
+        verify(yelp, times(2)).getBusinessDetails("business-0");
+    }
+
+    @Test
+    public void testWatchFromDetails()
+    {
+        YelpBusinessDetails business = businesses.get("business-0");
+
+        assertThat(instance.watch(business), is(true));
+        assertThat(instance.watch(business), is(false));
+        assertThat(instance.getFingerprint(business.id), is(BusinessFingerprint.of(business)));
+        assertThat(instance.getDue(), is(0));
+    }
+
+    @Test
+    public void testWatchFromFingerprint()
+    {
+        YelpBusinessDetails business = businesses.get("business-0");
+        long fingerprint = BusinessFingerprint.of(business);
+        business.isClosed = true;
+
+        instance.watch(business.id, fingerprint);
+        clock.advance(INTERVAL);
+        instance.checkDue(changes::add);
+
+        assertThat(changes.size(), is(1));
+        assertThat(changes.get(0).getField(), is(Field.CLOSED));
+
+        assertThat(instance.watch("business-1", BusinessFingerprint.UNKNOWN), is(true));
+        assertThat(instance.getDue(), is(1));
+    }
+
+    @Test
+    public void testWatchAllSpreadsFetchesOverTheInterval()
+    {
+        int added = instance.watchAll(businesses.keySet());
+
+        assertThat(added, is(businesses.size()));
+        assertThat(instance.watchAll(businesses.keySet()), is(0));
+        assertThat(instance.size(), is(businesses.size()));
+        assertThat(instance.getDue(), is(1));
+
+        clock.advance(INTERVAL.dividedBy(2));
+        assertThat(instance.getDue(), is(businesses.size() / 2 + 1));
+
+        clock.advance(INTERVAL.dividedBy(2));
+        assertThat(instance.getDue(), is(businesses.size()));
+    }
+
+    @Test
+    public void testBatchSize()
+    {
+        instance = newBuilder()
+            .withBatchSize(2)
+            .build(clock);
+
+        businesses.keySet().forEach(instance::watch);
+
+        assertThat(instance.checkDue(changes::add).getChecked(), is(2));
+        assertThat(instance.getDue(), is(businesses.size() - 2));
+    }
+
+    @Test
+    public void testFailuresAreRetried()
+    {
+        businesses.keySet().forEach(instance::watch);
+
+        YelpOperationFailedException failure = new YelpOperationFailedException("unavailable");
+
+        doAnswer(invocation ->
+        {
+            throw failure;
+        })
+            .when(yelp).getBusinessDetails("business-0");
+
+        BusinessWatcher.Summary summary = instance.checkDue(changes::add);
+
+        assertThat(summary.getFailures(), is(1));
+        assertThat(instance.getFingerprint("business-0"), is(BusinessFingerprint.UNKNOWN));
+
+        doAnswer(invocation -> businesses.get("business-0"))
+            .when(yelp).getBusinessDetails("business-0");
+
+        clock.advance(RETRY_DELAY);
+
+        summary = instance.checkDue(changes::add);
+
+        assertThat(summary.getChecked(), is(1));
+        assertThat(summary.getFailures(), is(0));
+        assertThat(instance.getFingerprint("business-0"), is(BusinessFingerprint.of(businesses.get("business-0"))));
+    }
+
+    @Test
+    public void testUnwatch()
+    {
+        businesses.keySet().forEach(instance::watch);
+
+        assertThat(instance.unwatch("business-0"), is(true));
+        assertThat(instance.unwatch("business-0"), is(false));
+        assertThat(instance.isWatching("business-0"), is(false));
+        assertThat(instance.isWatching("business-1"), is(true));
+
+        assertThat(instance.checkDue(changes::add).getChecked(), is(businesses.size() - 1));
+        verify(yelp, times(0)).getBusinessDetails("business-0");
+    }
+
+    @DontRepeat
+    @Test
+    public void testStart() throws Exception
+    {
+        instance = newBuilder()
+            .withPollInterval(Duration.ofMillis(10))
+            .build(clock);
+
+        BlockingQueue<BusinessChange> received = new LinkedBlockingQueue<>();
+        instance.watch(businesses.get("business-0"));
+        instance.start(received::add);
+
+        assertThrows(() -> instance.start(received::add))
+            .isInstanceOf(IllegalStateException.class);
+
+        businesses.get("business-0").isClosed = true;
+        clock.advance(INTERVAL);
+
+        BusinessChange change = received.poll(5, TimeUnit.SECONDS);
+        assertThat(change, notNullValue());
+        assertThat(change.getField(), is(Field.CLOSED));
+
+        instance.close();
+
+        assertThrows(() -> instance.start(received::add))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithBadArgs()
+    {
+        assertThrows(() -> instance.watch(""))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.watch((YelpBusinessDetails) null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.watch(new YelpBusinessDetails()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.watchAll(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.checkDue(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.start(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testBuilderWithBadArgs()
+    {
+        assertThrows(() -> BusinessWatcher.newBuilder(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withInterval(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withRetryDelay(Duration.ofSeconds(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withPollInterval(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withBatchSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withRequestsPerSecond(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withRateLimiter(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withConcurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> newBuilder().withExecutor(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testChangesBetween()
+    {
+        YelpBusinessDetails business = businesses.get("business-0");
+        long before = BusinessFingerprint.of(business);
+
+        business.rating = business.rating == 5.0 ? 1.0 : 5.0;
+        business.price = null;
+        long after = BusinessFingerprint.of(business);
+
+        List<BusinessChange> found = BusinessWatcher.changesBetween(business.id, before, after, business, clock.instant());
+
+        assertThat(found.size(), is(2));
+        assertThat(found.get(1).getAfter(), nullValue());
+        assertThat(BusinessWatcher.changesBetween(business.id, after, after, business, clock.instant()), is(empty()));
+    }
+
+    private BusinessWatcher.Builder newBuilder()
+    {
+        return BusinessWatcher.newBuilder(yelp)
+            .withoutRateLimit()
+            .withInterval(INTERVAL)
+            .withRetryDelay(RETRY_DELAY);
+    }
+
+    /**
+     * Creates the details of a business open on weekdays, from 9 to 5.
+     */
+    static YelpBusinessDetails detailsFor(String id)
+    {
+        YelpBusinessDetails details = new YelpBusinessDetails();
+        details.id = id;
+        details.name = one(alphabeticStrings());
+        details.rating = one(integers(2, 11)) / 2.0;
+        details.price = "$$";
+        details.isClosed = false;
+        details.reviewCount = one(integers(0, 1000));
+
+        YelpBusinessDetails.Hours hours = new YelpBusinessDetails.Hours();
+        hours.hoursType = "REGULAR";
+        hours.isOpenNow = true;
+        hours.open = new ArrayList<>();
+
+        for (int day = 0; day < 5; ++day)
+        {
+            YelpBusinessDetails.Hours.OpenTimes times = new YelpBusinessDetails.Hours.OpenTimes();
+            times.day = day;
+            times.start = "0900";
+            times.end = "1700";
+            times.isOvernight = false;
+            hours.open.add(times);
+        }
+
+        details.hours = new ArrayList<>();
+        details.hours.add(hours);
+        return details;
+    }
+
+    private static final class MutableClock extends Clock
+    {
+
+        private volatile Instant now = Instant.parse("2017-01-01T00:00:00Z");
+
+        void advance(Duration duration)
+        {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+
+    }
+
+}